@@ -7,6 +7,7 @@ plugins {
     id("io.spring.dependency-management") version "1.1.7"
     kotlin("jvm") version "1.9.24"
     kotlin("plugin.spring") version "1.9.24"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.aquarius"
@@ -42,6 +43,7 @@ dependencies {
     compileOnly("org.projectlombok:lombok:$lombokVersion")
     annotationProcessor("org.projectlombok:lombok:$lombokVersion")
     implementation("org.springdoc:springdoc-openapi-starter-webflux-ui:2.6.0")
+    implementation("com.github.ben-manes.caffeine:caffeine")
     developmentOnly("org.springframework.boot:spring-boot-devtools")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("io.projectreactor:reactor-test")
@@ -68,6 +70,21 @@ tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+// Micro-benchmarks live in src/jmh; run with `gradle jmh`, e.g. -PjmhIncludes=FixedPoint.
+// Results (ops/s, gc alloc rate) are written to build/results/jmh/results.json for comparing runs.
+jmh {
+    jmhVersion.set("1.37")
+    includes.set(listOfNotNull(findProperty("jmhIncludes")?.toString()))
+    profilers.set(listOf("gc"))
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    // The benchmark jar bundles the whole runtime classpath, more entries than a plain zip can hold.
+    zip64.set(true)
+}
+
 tasks.withType<BootJar> {
     archiveFileName.set("cryto-trading-service.jar")
     manifest {
@@ -0,0 +1,56 @@
+package com.aquarius.crypto.benchmark;
+
+import com.aquarius.crypto.common.JwtProperties;
+import com.aquarius.crypto.model.UserPrincipal;
+import com.aquarius.crypto.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtService#validateAndExtractClaims}, run by the authentication filter on every request.
+ * Uses an RS256 token signed with a 2048-bit key, like the one {@code KeyPairGenerationConfig} creates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        JwtProperties props = new JwtProperties();
+        props.setAccessTokenTtlSeconds(3600L);
+        jwtService = new JwtService(props, (RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate());
+
+        UserPrincipal principal = new UserPrincipal(1L, UUID.randomUUID(), "user1", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")), "trader");
+        token = jwtService.generateAccessToken(principal);
+    }
+
+    @Benchmark
+    public Map<String, String> validateAndExtractClaims() {
+        return jwtService.validateAndExtractClaims(token);
+    }
+}
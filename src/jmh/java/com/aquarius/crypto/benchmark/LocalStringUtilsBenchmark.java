@@ -0,0 +1,33 @@
+package com.aquarius.crypto.benchmark;
+
+import com.aquarius.crypto.common.LocalStringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LocalStringUtils#stripUntil} on an {@code Authorization} header the size of a real RS256 token.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LocalStringUtilsBenchmark {
+
+    private String header;
+
+    @Setup
+    public void setUp() {
+        header = "Bearer " + "eyJhbGciOiJSUzI1NiJ9.".repeat(24);
+    }
+
+    @Benchmark
+    public String stripUntil() {
+        return LocalStringUtils.stripUntil(header, Character::isWhitespace);
+    }
+}
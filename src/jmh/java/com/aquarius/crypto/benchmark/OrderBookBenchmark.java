@@ -0,0 +1,87 @@
+package com.aquarius.crypto.benchmark;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.dto.TimeInForce;
+import com.aquarius.crypto.service.OrderBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderBook} on its own, without persistence: resting and cancelling orders, and matching a taker that
+ * fills a few makers, against a book already holding {@code depth} orders on each side.
+ * Run with {@code gradle jmh -PjmhIncludes=OrderBook}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderBookBenchmark {
+
+    private static final long MID = 2000 * FixedPoint.ONE;
+    private static final long TICK = FixedPoint.ONE / 100;
+    private static final int LEVELS = 200;
+
+    @Param({"1000", "100000"})
+    public int depth;
+
+    private final OrderBook.FillListener noFills = (maker, taker, price, quantity, cost) -> {
+    };
+    private OrderBook book;
+    private SplittableRandom random;
+    private long nextId;
+
+    @Setup
+    public void setUp() {
+        book = new OrderBook("ETHUSDT");
+        random = new SplittableRandom(42);
+        for (int i = 0; i < depth; i++) {
+            book.restore(resting(true));
+            book.restore(resting(false));
+        }
+    }
+
+    /**
+     * Rests an order away from the spread and cancels it again, leaving the book as it was.
+     */
+    @Benchmark
+    public OrderBook.Order addCancel() {
+        OrderBook.Order order = resting(random.nextBoolean());
+        book.submit(order, TimeInForce.GTC, noFills);
+        return book.cancel(order.getId());
+    }
+
+    /**
+     * An IOC taker that crosses the spread and fills a few makers, which are then replaced so the depth holds.
+     */
+    @Benchmark
+    public void match(Blackhole blackhole) {
+        boolean buy = random.nextBoolean();
+        long quantity = (1 + random.nextInt(4)) * FixedPoint.ONE;
+        long limit = buy ? MID + LEVELS * TICK : MID - LEVELS * TICK;
+        OrderBook.Order taker = new OrderBook.Order(++nextId, 1L, buy, limit, quantity, Long.MAX_VALUE / 2);
+        blackhole.consume(book.submit(taker, TimeInForce.IOC, (maker, t, price, filled, cost) -> {
+            if (maker.getRemaining() == 0) {
+                blackhole.consume(maker);
+            }
+        }));
+        long refill = quantity - taker.getRemaining();
+        for (long q = 0; q < refill; q += FixedPoint.ONE) {
+            book.restore(resting(!buy));
+        }
+    }
+
+    private OrderBook.Order resting(boolean buy) {
+        long offset = (1 + random.nextInt(LEVELS)) * TICK;
+        long price = buy ? MID - offset : MID + offset;
+        return new OrderBook.Order(++nextId, 2L, buy, price, FixedPoint.ONE, buy ? Long.MAX_VALUE / 2 : FixedPoint.ONE);
+    }
+}
@@ -0,0 +1,67 @@
+package com.aquarius.crypto.benchmark;
+
+import com.aquarius.crypto.dto.third_party.TickerResponse;
+import com.aquarius.crypto.metrics.TickerMetrics;
+import com.aquarius.crypto.model.PriceAggregation;
+import com.aquarius.crypto.service.PriceAggregationService;
+import com.aquarius.crypto.service.PriceAggregationWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.aquarius.crypto.constants.ConstStrings.BTC_PAIR;
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+
+/**
+ * {@link PriceAggregationService#onTicker}, which every streamed or polled ticker goes through.
+ * The tickers alternate venues and move the price, so most of them change the BBO and get published.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PriceAggregationBenchmark {
+
+    private static final int TICKERS = 1024;
+
+    private PriceAggregationService priceService;
+    private TickerResponse[] tickers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        priceService = new PriceAggregationService(List.of(), null, null, new PriceAggregationWriter(null, meterRegistry) {
+            @Override
+            public void submit(PriceAggregation price) {
+            }
+        }, new TickerMetrics(meterRegistry));
+        InMemoryStubs.setField(priceService, "stalePriceThresholdSeconds", 15L);
+
+        tickers = new TickerResponse[TICKERS];
+        for (int i = 0; i < TICKERS; i++) {
+            BigDecimal bid = new BigDecimal(2000 + (i % 50)).add(new BigDecimal("0.01").multiply(BigDecimal.valueOf(i % 7)));
+            tickers[i] = TickerResponse.builder()
+                    .source(i % 2 == 0 ? "BINANCE" : "HUOBI")
+                    .symbol(i % 4 < 2 ? ETH_PAIR : BTC_PAIR)
+                    .bidPrice(bid)
+                    .askPrice(bid.add(new BigDecimal("0.50")))
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public PriceAggregation onTicker() {
+        TickerResponse ticker = tickers[next];
+        next = (next + 1) & (TICKERS - 1);
+        return priceService.onTicker(ticker);
+    }
+}
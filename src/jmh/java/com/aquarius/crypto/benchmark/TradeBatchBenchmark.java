@@ -0,0 +1,121 @@
+package com.aquarius.crypto.benchmark;
+
+import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.dto.response.BatchTradeResponse;
+import com.aquarius.crypto.dto.third_party.TickerResponse;
+import com.aquarius.crypto.metrics.TickerMetrics;
+import com.aquarius.crypto.metrics.TradingMetrics;
+import com.aquarius.crypto.model.PriceAggregation;
+import com.aquarius.crypto.model.TradingTransaction;
+import com.aquarius.crypto.model.Wallet;
+import com.aquarius.crypto.repository.TradingTransactionRepository;
+import com.aquarius.crypto.repository.WalletRepository;
+import com.aquarius.crypto.service.PriceAggregationService;
+import com.aquarius.crypto.service.PriceAggregationWriter;
+import com.aquarius.crypto.service.TradeExecutionLanes;
+import com.aquarius.crypto.service.TradeIdempotencyCache;
+import com.aquarius.crypto.service.TradingService;
+import com.aquarius.crypto.service.WalletLedgerService;
+import com.aquarius.crypto.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+
+/**
+ * {@link TradingService#tradeBatch} end to end with in-memory repositories: one operation is a basket of
+ * ten alternating BUY and SELL orders, priced, applied to the locked balances and written once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TradeBatchBenchmark {
+
+    private static final int BATCH_SIZE = 10;
+
+    private final AtomicLong ids = new AtomicLong();
+    private TradeExecutionLanes lanes;
+    private TradingService tradingService;
+    private PriceAggregationService priceService;
+    private List<TradingRequest> requests;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Wallet usdt = Wallet.builder().id(1L).userId(1L).currency("USDT").balance(new BigDecimal("1000000000.00000000")).version(0L).build();
+        Wallet eth = Wallet.builder().id(2L).userId(1L).currency("ETH").balance(new BigDecimal("1000.00000000")).version(0L).build();
+
+        WalletRepository walletRepository = InMemoryStubs.stub(WalletRepository.class, Map.of(
+                "lockByUserId", args -> Flux.just(eth, usdt),
+                "applyBalanceChanges", args -> Mono.just((long) ((Map<?, ?>) args[1]).size())));
+        TradingTransactionRepository transactionRepository = InMemoryStubs.stub(TradingTransactionRepository.class, Map.of(
+                "insertAll", args -> Flux.fromIterable((List<?>) args[0]).map(audit -> withId((TradingTransaction) audit))));
+        TransactionalOperator rxtx = InMemoryStubs.stub(TransactionalOperator.class, Map.of(
+                "transactional", args -> args[0]));
+
+        WalletService walletService = new WalletService(null, walletRepository,
+                new WalletLedgerService(null, rxtx, meterRegistry, 1));
+        priceService = new PriceAggregationService(List.of(), null, null, new PriceAggregationWriter(null, meterRegistry) {
+            @Override
+            public void submit(PriceAggregation price) {
+            }
+        }, new TickerMetrics(meterRegistry));
+        InMemoryStubs.setField(priceService, "stalePriceThresholdSeconds", 3600L);
+
+        lanes = new TradeExecutionLanes(meterRegistry, 64, 1024);
+        tradingService = new TradingService(walletService, transactionRepository, priceService, rxtx, lanes,
+                new TradingMetrics(meterRegistry), new TradeIdempotencyCache(meterRegistry, 100, 60));
+        InMemoryStubs.setField(tradingService, "maxBatchSize", 500);
+
+        requests = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            requests.add(new TradingRequest(null, ETH_PAIR, i % 2 == 0 ? "BUY" : "SELL", new BigDecimal("0.25")));
+        }
+    }
+
+    // Keeps the quote fresh for the staleness check.
+    @Setup(Level.Iteration)
+    public void refreshPrice() {
+        priceService.onTicker(TickerResponse.builder().source("BINANCE").symbol(ETH_PAIR)
+                .bidPrice(new BigDecimal("2000.00")).askPrice(new BigDecimal("2000.50")).build());
+        // A rejected trade skips settlement, which is what this benchmark is for.
+        BatchTradeResponse response = tradeBatch();
+        if (response.getExecuted() != BATCH_SIZE) {
+            throw new IllegalStateException("Only " + response.getExecuted() + " of " + BATCH_SIZE + " trades executed");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        lanes.shutdown();
+    }
+
+    @Benchmark
+    public BatchTradeResponse tradeBatch() {
+        return tradingService.tradeBatch(1L, requests, false).block(Duration.ofSeconds(1));
+    }
+
+    private TradingTransaction withId(TradingTransaction audit) {
+        audit.setId(ids.incrementAndGet());
+        return audit;
+    }
+}
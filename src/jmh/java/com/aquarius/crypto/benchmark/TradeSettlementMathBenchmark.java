@@ -0,0 +1,95 @@
+package com.aquarius.crypto.benchmark;
+
+import com.aquarius.crypto.common.FixedPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The arithmetic of settling one BUY: round the quantity, price it, check the debit balance and compute
+ * both new balances. Compares BigDecimal, which the database paths use, with {@link FixedPoint}, which the
+ * ledger uses, with and without the conversions a database path would need around it.
+ * Run with {@code gradle jmh -PjmhIncludes=TradeSettlementMath}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TradeSettlementMathBenchmark {
+
+    private BigDecimal price;
+    private BigDecimal quantity;
+    private BigDecimal usdtBalance;
+    private BigDecimal ethBalance;
+
+    private long priceUnits;
+    private long quantityUnits;
+    private long usdtUnits;
+    private long ethUnits;
+
+    @Setup
+    public void setUp() {
+        price = new BigDecimal("2034.57");
+        quantity = new BigDecimal("1.23456789");
+        usdtBalance = new BigDecimal("50000.00000000");
+        ethBalance = new BigDecimal("3.50000000");
+
+        priceUnits = FixedPoint.fromBigDecimal(price);
+        quantityUnits = FixedPoint.fromBigDecimal(quantity);
+        usdtUnits = FixedPoint.fromBigDecimal(usdtBalance);
+        ethUnits = FixedPoint.fromBigDecimal(ethBalance);
+    }
+
+    /**
+     * The database paths: request, wallet and R2DBC values are all BigDecimal already.
+     */
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        BigDecimal rounded = quantity.setScale(8, RoundingMode.HALF_UP);
+        BigDecimal total = price.multiply(rounded);
+        if (usdtBalance.compareTo(total) < 0) {
+            throw new IllegalStateException();
+        }
+        blackhole.consume(usdtBalance.subtract(total));
+        blackhole.consume(ethBalance.add(rounded));
+        blackhole.consume(total);
+    }
+
+    /**
+     * The ledger path: everything stays in units.
+     */
+    @Benchmark
+    public void fixedPoint(Blackhole blackhole) {
+        long total = FixedPoint.multiply(priceUnits, quantityUnits);
+        if (usdtUnits < total) {
+            throw new IllegalStateException();
+        }
+        blackhole.consume(FixedPoint.subtract(usdtUnits, total));
+        blackhole.consume(FixedPoint.add(ethUnits, quantityUnits));
+        blackhole.consume(total);
+    }
+
+    /**
+     * Units behind a BigDecimal boundary: slower than {@link #bigDecimal}, which is why the database paths stay in BigDecimal.
+     */
+    @Benchmark
+    public void fixedPointWithConversions(Blackhole blackhole) {
+        long quantityIn = FixedPoint.fromBigDecimal(quantity);
+        long total = FixedPoint.multiply(FixedPoint.fromBigDecimal(price), quantityIn);
+        long usdt = FixedPoint.fromBigDecimal(usdtBalance);
+        if (usdt < total) {
+            throw new IllegalStateException();
+        }
+        blackhole.consume(FixedPoint.toBigDecimal(FixedPoint.subtract(usdt, total)));
+        blackhole.consume(FixedPoint.toBigDecimal(FixedPoint.add(FixedPoint.fromBigDecimal(ethBalance), quantityIn)));
+        blackhole.consume(FixedPoint.toBigDecimal(total));
+    }
+}
@@ -0,0 +1,115 @@
+package com.aquarius.crypto.benchmark;
+
+import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.dto.third_party.TickerResponse;
+import com.aquarius.crypto.metrics.TickerMetrics;
+import com.aquarius.crypto.metrics.TradingMetrics;
+import com.aquarius.crypto.model.PriceAggregation;
+import com.aquarius.crypto.model.TradingTransaction;
+import com.aquarius.crypto.model.Wallet;
+import com.aquarius.crypto.repository.TradingTransactionRepository;
+import com.aquarius.crypto.repository.WalletRepository;
+import com.aquarius.crypto.service.PriceAggregationService;
+import com.aquarius.crypto.service.PriceAggregationWriter;
+import com.aquarius.crypto.service.TradeExecutionLanes;
+import com.aquarius.crypto.service.TradeIdempotencyCache;
+import com.aquarius.crypto.service.TradingService;
+import com.aquarius.crypto.service.WalletLedgerService;
+import com.aquarius.crypto.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+
+/**
+ * {@link TradingService#trade} end to end (lane hand-off, pricing, settlement, audit) with in-memory
+ * repositories, for the single-statement and the read-modify-write settlement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TradingServiceBenchmark {
+
+    @Param({"single-statement", "read-modify-write"})
+    public String settlement;
+
+    private final AtomicLong ids = new AtomicLong();
+    private TradeExecutionLanes lanes;
+    private TradingService tradingService;
+    private PriceAggregationService priceService;
+    private TradingRequest request;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Wallet usdt = Wallet.builder().id(1L).userId(1L).currency("USDT").balance(new BigDecimal("1000000000")).version(0L).build();
+        Wallet eth = Wallet.builder().id(2L).userId(1L).currency("ETH").balance(BigDecimal.ZERO).version(0L).build();
+
+        WalletRepository walletRepository = InMemoryStubs.stub(WalletRepository.class, Map.of(
+                "settleTrade", args -> Mono.just(withId((TradingTransaction) args[0])),
+                "findByUserAndCurrency", args -> Mono.just("USDT".equals(args[1]) ? usdt : eth),
+                "save", args -> Mono.just(args[0])));
+        TradingTransactionRepository transactionRepository = InMemoryStubs.stub(TradingTransactionRepository.class, Map.of(
+                "save", args -> Mono.just(withId((TradingTransaction) args[0]))));
+        TransactionalOperator rxtx = InMemoryStubs.stub(TransactionalOperator.class, Map.of(
+                "transactional", args -> args[0]));
+
+        WalletService walletService = new WalletService(null, walletRepository,
+                new WalletLedgerService(null, rxtx, meterRegistry, 1));
+        priceService = new PriceAggregationService(List.of(), null, null, new PriceAggregationWriter(null, meterRegistry) {
+            @Override
+            public void submit(PriceAggregation price) {
+            }
+        }, new TickerMetrics(meterRegistry));
+        InMemoryStubs.setField(priceService, "stalePriceThresholdSeconds", 3600L);
+
+        lanes = new TradeExecutionLanes(meterRegistry, 64, 1024);
+        tradingService = new TradingService(walletService, transactionRepository, priceService, rxtx, lanes,
+                new TradingMetrics(meterRegistry), new TradeIdempotencyCache(meterRegistry, 100, 60));
+        InMemoryStubs.setField(tradingService, "singleStatementSettlement", "single-statement".equals(settlement));
+
+        request = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("0.25"));
+        request.validate();
+    }
+
+    // Keeps the quote fresh for the staleness check.
+    @Setup(Level.Iteration)
+    public void refreshPrice() {
+        priceService.onTicker(TickerResponse.builder().source("BINANCE").symbol(ETH_PAIR)
+                .bidPrice(new BigDecimal("2000.00")).askPrice(new BigDecimal("2000.50")).build());
+    }
+
+    @TearDown
+    public void tearDown() {
+        lanes.shutdown();
+    }
+
+    @Benchmark
+    public TradingTransaction trade() {
+        return tradingService.trade(request).block(Duration.ofSeconds(1));
+    }
+
+    private TradingTransaction withId(TradingTransaction audit) {
+        audit.setId(ids.incrementAndGet());
+        return audit;
+    }
+
+}
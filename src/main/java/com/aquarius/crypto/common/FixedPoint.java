@@ -0,0 +1,69 @@
+package com.aquarius.crypto.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Prices, quantities and balances as plain {@code long}s counting 1e-8 units, the scale of every
+ * {@code DECIMAL(20, 8)} column, for values that stay in memory (the wallet ledger, quote comparisons), where
+ * arithmetic is allocation-free. Paths that hand amounts straight back to R2DBC keep them in {@link BigDecimal}:
+ * converting in and out costs more than the BigDecimal arithmetic it replaces.
+ * Every operation fails with {@link ArithmeticException} instead of overflowing, which bounds values
+ * to about 92 billion whole units.
+ */
+public final class FixedPoint {
+
+    public static final int SCALE = 8;
+    public static final long ONE = 100_000_000L;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * @return the value rounded half-up to 1e-8 units, like the database rounds on insert
+     */
+    public static long fromBigDecimal(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * {@code a * b} rounded half-up to 1e-8 units, e.g. price times quantity.
+     * The intermediate product never leaves 64 bits, so it only fails when the result itself overflows.
+     */
+    public static long multiply(long a, long b) {
+        if (a == Long.MIN_VALUE || b == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        boolean negative = (a < 0) != (b < 0);
+        long x = Math.abs(a);
+        long y = Math.abs(b);
+
+        // x * y / ONE = xHigh*yHigh*ONE + xHigh*yLow + xLow*yHigh + xLow*yLow/ONE, with every low part below ONE.
+        long xHigh = x / ONE;
+        long xLow = x % ONE;
+        long yHigh = y / ONE;
+        long yLow = y % ONE;
+        long lowProduct = xLow * yLow;
+
+        long result = Math.multiplyExact(Math.multiplyExact(xHigh, yHigh), ONE);
+        result = Math.addExact(result, xHigh * yLow);
+        result = Math.addExact(result, xLow * yHigh);
+        result = Math.addExact(result, lowProduct / ONE);
+        if (lowProduct % ONE >= ONE / 2) {
+            result = Math.addExact(result, 1);
+        }
+        return negative ? -result : result;
+    }
+}
@@ -0,0 +1,51 @@
+package com.aquarius.crypto.common;
+
+import com.aquarius.crypto.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page, as an opaque token for API clients.
+ * Listings ordered by {@code (created_at, id)} carry both; listings ordered by id alone leave {@code createdAt} null.
+ */
+public record KeysetCursor(Instant createdAt, long id) {
+
+    public static KeysetCursor afterId(long id) {
+        return new KeysetCursor(null, id);
+    }
+
+    public String encode() {
+        String raw = createdAt == null
+                ? Long.toString(id)
+                : createdAt.getEpochSecond() + "." + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the decoded cursor, or {@code null} for a blank token (first page)
+     */
+    public static KeysetCursor decode(String token) {
+        if (LocalStringUtils.isBlank(token)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int idSeparator = raw.indexOf(':');
+            if (idSeparator < 0) {
+                return afterId(Long.parseLong(raw));
+            }
+            int nanoSeparator = raw.indexOf('.');
+            if (nanoSeparator < 0 || nanoSeparator > idSeparator) {
+                throw new InvalidCursorException("Malformed pagination cursor");
+            }
+            Instant createdAt = Instant.ofEpochSecond(
+                    Long.parseLong(raw, 0, nanoSeparator, 10),
+                    Long.parseLong(raw, nanoSeparator + 1, idSeparator, 10));
+            return new KeysetCursor(createdAt, Long.parseLong(raw.substring(idSeparator + 1)));
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            throw new InvalidCursorException("Malformed pagination cursor");
+        }
+    }
+}
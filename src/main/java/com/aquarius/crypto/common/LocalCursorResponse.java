@@ -0,0 +1,46 @@
+package com.aquarius.crypto.common;
+
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.*;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One page of a keyset-paginated listing. Pass {@code nextCursor} back to fetch the following page;
+ * it is absent on the last page. {@code totalItems} is only filled when the caller asked for it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LocalCursorResponse<T> {
+    public static final int MAX_PAGE_SIZE = 100;
+
+    int size;
+    boolean hasMore;
+    private String nextCursor;
+    private List<T> contents;
+    private Long totalItems;
+
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Builds a page from rows fetched with {@code LIMIT size + 1}; the extra row only signals that more follow.
+     */
+    public static <E, T> LocalCursorResponse<T> fromRows(List<E> rows, int size, Long totalItems,
+                                                         Function<E, T> mapper, Function<E, KeysetCursor> cursorOf) {
+        boolean hasMore = rows.size() > size;
+        List<E> page = hasMore ? rows.subList(0, size) : rows;
+        return LocalCursorResponse.<T>builder()
+                .contents(page.stream().map(mapper).toList())
+                .size(size)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? cursorOf.apply(page.get(page.size() - 1)).encode() : null)
+                .totalItems(totalItems)
+                .build();
+    }
+}
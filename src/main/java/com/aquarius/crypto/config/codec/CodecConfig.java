@@ -0,0 +1,18 @@
+package com.aquarius.crypto.config.codec;
+
+import org.springframework.boot.http.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import tools.jackson.databind.json.JsonMapper;
+
+@Configuration
+public class CodecConfig {
+
+    // Runs after Spring Boot's own Jackson customizer (order 0), replacing the JSON encoder it registers.
+    @Bean
+    @Order(1)
+    public CodecCustomizer userZoneJsonCodecCustomizer(JsonMapper jsonMapper) {
+        return configurer -> configurer.defaultCodecs().jacksonJsonEncoder(new UserZoneJsonEncoder(jsonMapper));
+    }
+}
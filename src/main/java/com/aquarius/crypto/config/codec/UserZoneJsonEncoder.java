@@ -0,0 +1,47 @@
+package com.aquarius.crypto.config.codec;
+
+import com.aquarius.crypto.dto.LocalizedInstantSerializer;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.JacksonJsonEncoder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.MimeType;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JSON encoder that hands the user's zone, resolved earlier by {@code UserZoneWebFilter}, to
+ * {@link LocalizedInstantSerializer} as a serialization attribute. Nothing is looked up while encoding.
+ */
+public class UserZoneJsonEncoder extends JacksonJsonEncoder {
+
+    public UserZoneJsonEncoder(JsonMapper jsonMapper) {
+        super(jsonMapper);
+    }
+
+    @Override
+    public Map<String, Object> getEncodeHints(ResolvableType actualType, ResolvableType elementType,
+                                              MediaType mediaType, ServerHttpRequest request, ServerHttpResponse response) {
+        Map<String, Object> hints = super.getEncodeHints(actualType, elementType, mediaType, request, response);
+        Object zone = request.getAttributes().get(LocalizedInstantSerializer.ZONE_ATTRIBUTE);
+        if (!(zone instanceof ZoneId)) {
+            return hints;
+        }
+        Map<String, Object> withZone = new HashMap<>(hints);
+        withZone.put(LocalizedInstantSerializer.ZONE_ATTRIBUTE, zone);
+        return withZone;
+    }
+
+    @Override
+    protected ObjectWriter customizeWriter(ObjectWriter writer, MimeType mimeType, ResolvableType elementType,
+                                           Map<String, Object> hints) {
+        ObjectWriter customized = super.customizeWriter(writer, mimeType, elementType, hints);
+        Object zone = hints != null ? hints.get(LocalizedInstantSerializer.ZONE_ATTRIBUTE) : null;
+        return zone != null ? customized.withAttribute(LocalizedInstantSerializer.ZONE_ATTRIBUTE, zone) : customized;
+    }
+}
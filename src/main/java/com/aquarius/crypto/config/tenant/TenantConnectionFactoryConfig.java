@@ -0,0 +1,77 @@
+package com.aquarius.crypto.config.tenant;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.r2dbc.autoconfigure.R2dbcConnectionDetails;
+import org.springframework.boot.r2dbc.autoconfigure.R2dbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One connection pool per tenant schema, all sized by {@code spring.r2dbc.pool.*}: the database sees up
+ * to (tenants x max-size) connections. Replaces Boot's single pool.
+ */
+@Configuration
+public class TenantConnectionFactoryConfig {
+
+    @Bean
+    public TenantRoutingConnectionFactory connectionFactory(R2dbcConnectionDetails connectionDetails,
+                                                            R2dbcProperties properties,
+                                                            TenantMappingService tenantMappingService,
+                                                            MeterRegistry meterRegistry,
+                                                            @Value("${app.tenancy.pool.max-pending-acquire:-1}") int maxPendingAcquire) {
+        ConnectionFactory driver = ConnectionFactories.get(connectionDetails.getConnectionFactoryOptions());
+        Map<String, ConnectionPool> pools = new HashMap<>();
+        for (String schema : tenantMappingService.schemas()) {
+            pools.put(schema, new ConnectionPool(poolConfiguration(driver, schema, properties.getPool(), maxPendingAcquire)));
+        }
+        return new TenantRoutingConnectionFactory(pools, meterRegistry);
+    }
+
+    private static ConnectionPoolConfiguration poolConfiguration(ConnectionFactory driver, String schema,
+                                                                 R2dbcProperties.Pool pool, int maxPendingAcquire) {
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(driver)
+                .name("tenant-" + schema)
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .minIdle(pool.getMinIdle())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxValidationTime(pool.getMaxValidationTime())
+                .acquireRetry(pool.getAcquireRetry())
+                .validationDepth(pool.getValidationDepth())
+                // Runs once per physical connection; the schema then sticks for the connection's lifetime.
+                .postAllocate(connection -> bindSchema(connection, schema))
+                // Waiters beyond this fail at once instead of queueing without bound behind a burst.
+                .customizer(poolBuilder -> poolBuilder.maxPendingAcquire(maxPendingAcquire));
+        if (pool.getMaxLifeTime() != null) {
+            builder.maxLifeTime(pool.getMaxLifeTime());
+        }
+        if (pool.getMaxAcquireTime() != null) {
+            builder.maxAcquireTime(pool.getMaxAcquireTime());
+        }
+        if (pool.getMaxCreateConnectionTime() != null) {
+            builder.maxCreateConnectionTime(pool.getMaxCreateConnectionTime());
+        }
+        if (pool.getValidationQuery() != null) {
+            builder.validationQuery(pool.getValidationQuery());
+        }
+        return builder.build();
+    }
+
+    private static Mono<Void> bindSchema(Connection connection, String schema) {
+        // The tables live in public until each tenant has its own copy; the tenant schema takes precedence.
+        String searchPath = "public".equals(schema) ? "public" : schema + ", public";
+        return Mono.from(connection.createStatement("SET search_path TO " + searchPath).execute())
+                .flatMap(result -> Mono.from(result.getRowsUpdated()))
+                .then();
+    }
+}
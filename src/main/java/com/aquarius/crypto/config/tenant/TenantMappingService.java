@@ -5,6 +5,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class TenantMappingService {
@@ -20,4 +21,11 @@ public class TenantMappingService {
     public Optional<String> mapJwtTenantToSchema(String jwtTenantClaim) {
         return Optional.ofNullable(SCHEMA_MAP.get(jwtTenantClaim.toLowerCase()));
     }
+
+    /**
+     * Every schema a request can be routed to; each gets its own connection pool.
+     */
+    public Set<String> schemas() {
+        return Set.copyOf(SCHEMA_MAP.values());
+    }
 }
@@ -0,0 +1,80 @@
+package com.aquarius.crypto.config.tenant;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.r2dbc.metrics.ConnectionPoolMetrics;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes every connection request to the pool of the tenant in the subscriber context. Each pool's
+ * connections are bound to the tenant's schema once, when they are opened, so a checkout never has to
+ * re-issue {@code SET search_path}. A tenant without a pool is an error, never another tenant's pool.
+ */
+public class TenantRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+    private final Map<String, ConnectionPool> pools;
+    private final MeterRegistry meterRegistry;
+    private final Meter.MeterProvider<Timer> acquireTimer;
+
+    public TenantRoutingConnectionFactory(Map<String, ConnectionPool> pools, MeterRegistry meterRegistry) {
+        this.pools = Map.copyOf(pools);
+        this.meterRegistry = meterRegistry;
+        this.acquireTimer = Timer.builder("r2dbc.pool.acquire")
+                .description("Time to check out a connection, including the wait for a free one")
+                .publishPercentileHistogram()
+                .withRegistry(meterRegistry);
+    }
+
+    // The pools are handed to the routing base class here rather than in the constructor, once this object is complete.
+    @Override
+    public void afterPropertiesSet() {
+        setTargetConnectionFactories(pools);
+        setLenientFallback(false);
+        super.afterPropertiesSet();
+        // Acquired, allocated, idle and pending gauges per tenant pool, as Boot exports them for a single pool.
+        pools.forEach((tenant, pool) -> new ConnectionPoolMetrics(pool, tenant, Tags.empty()).bindTo(meterRegistry));
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(ctx -> Mono.just(TenantContext.getTenantId(ctx)));
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.deferContextual(ctx -> {
+            String tenant = TenantContext.getTenantId(ctx);
+            long start = System.nanoTime();
+            return super.create()
+                    .doOnSuccess(connection -> recordAcquire(tenant, "success", start))
+                    .doOnError(e -> recordAcquire(tenant, "error", start));
+        });
+    }
+
+    /**
+     * All pools connect to the same database, so any of them describes it (dialect detection needs this).
+     */
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pools.values().iterator().next().getMetadata();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pools.values().forEach(ConnectionPool::dispose);
+    }
+
+    private void recordAcquire(String tenant, String outcome, long start) {
+        acquireTimer.withTags("name", tenant, "outcome", outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -22,21 +22,26 @@ public class WebClientConfig {
     private static final int RETRY_COUNT = 1;
     private static final Duration RETRY_MIN_BACKOFF = Duration.ofSeconds(2);
 
+    /**
+     * Ticker polling gets no retry: a backed-off retry would only land after the cycle's fetch budget
+     * (crypto.price-fetch.budget-ms) is spent, so slow venues are covered by hedged mirror requests instead.
+     */
     @Bean("tickerWebClient")
     public WebClient webClient() {
-        return webClientBuilder().build();
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient()))
+                .build();
+    }
+
+    @Bean("tickerWebSocketClient")
+    public HttpClient tickerWebSocketClient() {
+        return HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, TIMEOUT_MILLIS)
+                .keepAlive(true);
     }
 
     @Bean
     public WebClient.Builder webClientBuilder() {
-        HttpClient httpClient = HttpClient.create()
-                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, TIMEOUT_MILLIS)
-                .keepAlive(true)
-                .responseTimeout(Duration.ofMillis(TIMEOUT_MILLIS))
-                .doOnConnected(conn -> conn
-                        .addHandlerLast(new ReadTimeoutHandler(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
-                        .addHandlerLast(new WriteTimeoutHandler(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
-                );
 
         Retry retrySpec = Retry.backoff(RETRY_COUNT, RETRY_MIN_BACKOFF)
                 .jitter(0.5)
@@ -52,8 +57,19 @@ public class WebClientConfig {
                 );
 
         return WebClient.builder()
-                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .clientConnector(new ReactorClientHttpConnector(httpClient()))
                 .filter((request, next) -> next.exchange(request)
                         .retryWhen(retrySpec));
     }
+
+    private static HttpClient httpClient() {
+        return HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, TIMEOUT_MILLIS)
+                .keepAlive(true)
+                .responseTimeout(Duration.ofMillis(TIMEOUT_MILLIS))
+                .doOnConnected(conn -> conn
+                        .addHandlerLast(new ReadTimeoutHandler(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                        .addHandlerLast(new WriteTimeoutHandler(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                );
+    }
 }
@@ -0,0 +1,71 @@
+package com.aquarius.crypto.controller;
+
+import com.aquarius.crypto.common.LocalApiResponse;
+import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.dto.response.OrderResponse;
+import com.aquarius.crypto.service.OrderBookService;
+import com.aquarius.crypto.service.SecurityContextService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Limit and market orders matched against the order book; see {@link OrderBookService}.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1")
+public class OrderController {
+
+    private final OrderBookService orderBookService;
+    private final SecurityContextService securityContextService;
+
+    public OrderController(OrderBookService orderBookService, SecurityContextService securityContextService) {
+        this.orderBookService = orderBookService;
+        this.securityContextService = securityContextService;
+    }
+
+    @PreAuthorize("hasRole('TRADER')")
+    @PostMapping("/orders")
+    public Mono<ResponseEntity<LocalApiResponse<OrderResponse>>> placeOrder(@RequestBody Mono<TradingRequest> requestMono) {
+        return Mono.zip(securityContextService.getInternalUserId(), requestMono)
+                .flatMap(tuple -> {
+                    TradingRequest orderRequest = tuple.getT2();
+                    // Override userId from payload
+                    orderRequest.setUserId(tuple.getT1());
+                    orderRequest.validate();
+                    return orderBookService.placeOrder(orderRequest)
+                            .map(order -> ResponseEntity
+                                    .status(HttpStatus.CREATED)
+                                    .body(LocalApiResponse.success(
+                                            order,
+                                            "Order " + order.getStatus() + " (" + order.getSide() + " " + order.getSymbol() + ")",
+                                            HttpStatus.CREATED.value()
+                                    ))
+                            );
+                }).onErrorResume(this::badRequest);
+    }
+
+    @PreAuthorize("hasRole('TRADER')")
+    @DeleteMapping("/orders/{orderId}")
+    public Mono<ResponseEntity<LocalApiResponse<OrderResponse>>> cancelOrder(@PathVariable("orderId") Long orderId) {
+        return securityContextService.getInternalUserId()
+                .flatMap(internalUserId -> orderBookService.cancelOrder(internalUserId, orderId))
+                .map(order -> ResponseEntity.ok(LocalApiResponse.success(order, "Order cancelled", HttpStatus.OK.value())))
+                .onErrorResume(this::badRequest);
+    }
+
+    private Mono<ResponseEntity<LocalApiResponse<OrderResponse>>> badRequest(Throwable e) {
+        return Mono.just(ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(LocalApiResponse.error(e.getMessage(), HttpStatus.BAD_REQUEST.value())));
+    }
+}
@@ -4,12 +4,21 @@ import com.aquarius.crypto.common.LocalApiResponse;
 import com.aquarius.crypto.dto.response.AggregatedPriceResponse;
 import com.aquarius.crypto.service.PriceAggregationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/v1")
 @RequiredArgsConstructor
@@ -17,6 +26,10 @@ public class PriceController {
 
     private final PriceAggregationService priceService;
 
+    // Comment frames keep idle connections open through proxies between price changes.
+    @Value("${crypto.price-stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
     @PreAuthorize("hasRole('TRADER')")
     @GetMapping("/prices/{symbol}/latest")
     public Mono<ResponseEntity<LocalApiResponse<AggregatedPriceResponse>>> getLatestPrice(
@@ -39,4 +52,33 @@ public class PriceController {
                         )
                 );
     }
+
+    /**
+     * Pushes the latest price of each requested pair, then every change, as server-sent events
+     * named after the pair. Replaces polling {@code /prices/{symbol}/latest}.
+     */
+    @PreAuthorize("hasRole('TRADER')")
+    @GetMapping(value = "/prices/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<AggregatedPriceResponse>>> streamPrices(
+            @RequestParam("symbols") List<String> symbols) {
+
+        Set<String> pairs = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            pairs.add(symbol.trim().toUpperCase());
+        }
+        if (pairs.isEmpty() || !priceService.getSupportedPairs().containsAll(pairs)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Flux<ServerSentEvent<AggregatedPriceResponse>> prices = priceService.streamPrices(pairs)
+                .map(price -> ServerSentEvent.builder(price)
+                        .event(price.getTradingPair())
+                        .build());
+        Flux<ServerSentEvent<AggregatedPriceResponse>> heartbeats = Flux.interval(Duration.ofSeconds(heartbeatSeconds))
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<AggregatedPriceResponse>builder().comment("keep-alive").build());
+
+        // Prefetch 1 keeps the per-pair conflation intact: nothing queues up behind a slow client.
+        return ResponseEntity.ok(Flux.merge(1, prices, heartbeats));
+    }
 }
@@ -1,14 +1,21 @@
 package com.aquarius.crypto.controller;
 
 import com.aquarius.crypto.common.LocalApiResponse;
+import com.aquarius.crypto.common.LocalCursorResponse;
 import com.aquarius.crypto.common.LocalPaginatedResponse;
+import com.aquarius.crypto.dto.request.BatchTradingRequest;
 import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.dto.response.BatchTradeResponse;
 import com.aquarius.crypto.dto.response.TradingHistoryResponse;
+import com.aquarius.crypto.exception.TradeQueueFullException;
 import com.aquarius.crypto.model.TradingTransaction;
 import com.aquarius.crypto.service.SecurityContextService;
 import com.aquarius.crypto.service.TradingService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,9 +23,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.PostMapping;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.List;
 
 
@@ -26,6 +36,7 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/v1")
 public class TradingController {
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
 
     private final TradingService tradingService;
     private final SecurityContextService securityContextService;
@@ -43,6 +54,14 @@ public class TradingController {
                 .map(ResponseEntity::ok);
     }
 
+    @PreAuthorize("hasRole('TRADER')")
+    @GetMapping("/users/trades/me/cursor")
+    public Mono<ResponseEntity<LocalCursorResponse<TradingHistoryResponse>>> getTradingHistoryPage(@RequestParam(name = "cursor", required = false) String cursor, @RequestParam(name = "size", defaultValue = "10") int size, @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal) {
+        return securityContextService.getInternalUserId()
+                .flatMap(internalUserId -> tradingService.getUserTradingHistoryPage(internalUserId, cursor, size, includeTotal))
+                .map(ResponseEntity::ok);
+    }
+
     @PreAuthorize("hasRole('TRADER')")
     @GetMapping("/users/trades/me/all")
     public Mono<ResponseEntity<LocalApiResponse<List<TradingHistoryResponse>>>> getTradingHistory() {
@@ -54,9 +73,54 @@ public class TradingController {
                 ));
     }
 
+    /**
+     * Streams the full history as NDJSON (default) or server-sent events ({@code format=sse}),
+     * one row at a time, so memory stays flat regardless of how many trades the user has.
+     */
+    @PreAuthorize("hasRole('TRADER')")
+    @GetMapping("/users/trades/me/export")
+    public ResponseEntity<Flux<TradingHistoryResponse>> exportTradingHistory(@RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from, @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to, @RequestParam(name = "format", defaultValue = "ndjson") String format) {
+        MediaType mediaType = switch (format.toLowerCase()) {
+            case "ndjson" -> MediaType.APPLICATION_NDJSON;
+            case "sse" -> MediaType.TEXT_EVENT_STREAM;
+            default -> null;
+        };
+        Instant start = from == null ? Instant.EPOCH : from;
+        Instant end = to == null ? Instant.now() : to;
+        if (mediaType == null || !start.isBefore(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(exportRows(start, end));
+    }
+
+    @PreAuthorize("hasRole('TRADER')")
+    @GetMapping(value = "/users/trades/me/export", params = "format=csv")
+    public ResponseEntity<Flux<String>> exportTradingHistoryCsv(@RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from, @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant start = from == null ? Instant.EPOCH : from;
+        Instant end = to == null ? Instant.now() : to;
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"trades.csv\"")
+                .body(Flux.concat(
+                        Flux.just(TradingHistoryResponse.CSV_HEADER),
+                        exportRows(start, end).map(TradingHistoryResponse::toCsvLine)));
+    }
+
+    private Flux<TradingHistoryResponse> exportRows(Instant from, Instant to) {
+        return securityContextService.getInternalUserId()
+                .flatMapMany(internalUserId -> tradingService.exportUserTradingHistory(internalUserId, from, to));
+    }
+
     @PreAuthorize("hasRole('TRADER')")
     @PostMapping("/trades")
-    public Mono<ResponseEntity<LocalApiResponse<TradingTransaction>>> executeTrade(@RequestBody Mono<TradingRequest> requestMono) {
+    public Mono<ResponseEntity<LocalApiResponse<TradingTransaction>>> executeTrade(@RequestBody Mono<TradingRequest> requestMono, @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
         return Mono.zip(securityContextService.getInternalUserId(), requestMono)
                 .flatMap(tuple -> {
                     Long internalUserId = tuple.getT1();
@@ -64,7 +128,10 @@ public class TradingController {
                     // Override userId from payload
                     tradingRequest.setUserId(internalUserId);
                     tradingRequest.validate();
-                    return tradingService.trade(tradingRequest)
+                    if (!"MARKET".equals(tradingRequest.getOrderType())) {
+                        return Mono.error(new IllegalArgumentException("Limit orders are placed through /api/v1/orders"));
+                    }
+                    return tradingService.trade(tradingRequest, idempotencyKey)
                             .map(tx -> ResponseEntity
                                     .status(HttpStatus.CREATED)
                                     .body(LocalApiResponse.success(
@@ -73,7 +140,9 @@ public class TradingController {
                                             HttpStatus.CREATED.value()
                                     ))
                             );
-                }).onErrorResume(e -> Mono.just(
+                })
+                // A full lane is a back-off signal, answered with 503 by GlobalExceptionHandler.
+                .onErrorResume(e -> !(e instanceof TradeQueueFullException), e -> Mono.just(
                         ResponseEntity
                                 .status(HttpStatus.BAD_REQUEST)
                                 .body(LocalApiResponse.error(
@@ -83,4 +152,29 @@ public class TradingController {
                 ));
     }
 
-}
\ No newline at end of file
+    /**
+     * Executes up to {@code app.trading.batch.max-size} MARKET orders in one transaction, with one result per trade.
+     * Responds 201 when at least one trade executed, 400 with the results when none did.
+     */
+    @PreAuthorize("hasRole('TRADER')")
+    @PostMapping("/trades/batch")
+    public Mono<ResponseEntity<LocalApiResponse<BatchTradeResponse>>> executeTrades(@RequestBody Mono<BatchTradingRequest> requestMono) {
+        return Mono.zip(securityContextService.getInternalUserId(), requestMono)
+                .flatMap(tuple -> tradingService.tradeBatch(tuple.getT1(), tuple.getT2().getTrades(), tuple.getT2().isAllOrNothing()))
+                .map(batch -> {
+                    HttpStatus status = batch.getExecuted() > 0 ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST;
+                    LocalApiResponse<BatchTradeResponse> body = LocalApiResponse.success(batch,
+                            batch.getExecuted() + " of " + batch.getResults().size() + " trades executed", status.value());
+                    body.setSuccess(batch.getExecuted() > 0);
+                    return ResponseEntity.status(status).body(body);
+                })
+                .onErrorResume(e -> !(e instanceof TradeQueueFullException), e -> Mono.just(
+                        ResponseEntity
+                                .status(HttpStatus.BAD_REQUEST)
+                                .body(LocalApiResponse.error(
+                                        e.getMessage(),
+                                        HttpStatus.BAD_REQUEST.value()
+                                ))
+                ));
+    }
+}
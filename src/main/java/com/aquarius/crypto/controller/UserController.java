@@ -3,6 +3,7 @@ package com.aquarius.crypto.controller;
 import com.aquarius.crypto.common.LocalApiResponse;
 import com.aquarius.crypto.dto.UserResponseModel;
 import com.aquarius.crypto.dto.request.TimezoneUpdateRequest;
+import com.aquarius.crypto.dto.request.UserAccessUpdateRequest;
 import com.aquarius.crypto.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -11,6 +12,7 @@ import reactor.core.publisher.Mono;
 
 import java.time.DateTimeException;
 import java.time.ZoneId;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -59,4 +61,19 @@ public class UserController {
                     return LocalApiResponse.success(responseModel, "User found", 200);
                 });
     }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/admin/users/{publicId}/access")
+    public Mono<ResponseEntity<LocalApiResponse<UserResponseModel>>> updateAccess(
+            @PathVariable UUID publicId, @RequestBody Mono<UserAccessUpdateRequest> requestMono) {
+        return requestMono
+                .flatMap(request -> userService.updateAccess(publicId, request))
+                .map(updatedUser -> ResponseEntity.ok(
+                        LocalApiResponse.success(
+                                UserResponseModel.fromEntity(updatedUser),
+                                "User access updated successfully",
+                                200
+                        )
+                ));
+    }
 }
@@ -1,6 +1,7 @@
 package com.aquarius.crypto.controller;
 
 import com.aquarius.crypto.common.LocalApiResponse;
+import com.aquarius.crypto.common.LocalCursorResponse;
 import com.aquarius.crypto.common.LocalPaginatedResponse;
 import com.aquarius.crypto.dto.response.WalletBalanceResponse;
 import com.aquarius.crypto.service.WalletService;
@@ -28,6 +29,12 @@ public class WalletController {
         return walletService.getUserWalletsPaginated(page, size).map(ResponseEntity::ok);
     }
 
+    @PreAuthorize("hasRole('TRADER')")
+    @GetMapping("/users/wallets/me/cursor")
+    public Mono<ResponseEntity<LocalCursorResponse<WalletBalanceResponse>>> getUserWalletsPage(@RequestParam(name = "cursor", required = false) String cursor, @RequestParam(name = "size", defaultValue = "10") int size, @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal) {
+        return walletService.getUserWalletsPage(cursor, size, includeTotal).map(ResponseEntity::ok);
+    }
+
     @PreAuthorize("hasRole('TRADER')")
     @GetMapping("/users/wallets/me/all")
     public Mono<ResponseEntity<LocalApiResponse<List<WalletBalanceResponse>>>> getWalletBalances() {
@@ -1,70 +1,35 @@
 package com.aquarius.crypto.dto;
 
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.SerializerProvider;
-import com.fasterxml.jackson.databind.ser.std.StdSerializer;
-import com.aquarius.crypto.service.UserTimezoneService;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.stereotype.Component;
-import reactor.core.publisher.Mono;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ser.std.StdSerializer;
 
-import org.springframework.security.core.context.ReactiveSecurityContextHolder;
-
-import java.io.IOException;
 import java.time.Instant;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.Objects;
 
 /**
  * Custom Jackson Serializer that converts UTC Instant to the user's preferred ZonedDateTime.
  * This is ONLY used if the business requires localized time rendering on the server side.
+ * The zone is resolved once per request, before the response is encoded, and handed in as the
+ * {@link #ZONE_ATTRIBUTE} serialization attribute; without it the time is rendered in UTC.
+ * The offset is always written, so the value still parses back into the same instant.
  */
-@Component
 public class LocalizedInstantSerializer extends StdSerializer<Instant> {
 
-    private static final DateTimeFormatter LOCALIZED_FORMATTER =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+    public static final String ZONE_ATTRIBUTE = LocalizedInstantSerializer.class.getName() + ".zone";
 
-    private final UserTimezoneService timezoneService;
+    private static final DateTimeFormatter LOCALIZED_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
 
     public LocalizedInstantSerializer() {
-        this(null);
-    }
-
-
-    @Autowired
-    public LocalizedInstantSerializer(UserTimezoneService timezoneService) {
         super(Instant.class);
-        this.timezoneService = timezoneService;
     }
 
     @Override
-    public void serialize(Instant value, JsonGenerator gen, SerializerProvider provider) throws IOException {
-        if (value == null) {
-            gen.writeNull();
-            return;
-        }
-
-        Mono<ZoneId> zoneMono = ReactiveSecurityContextHolder.getContext()
-                .flatMap(securityContext -> {
-                    Authentication authentication = securityContext.getAuthentication();
-                    if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof String userIdStr) {
-                        try {
-                            Long internalUserId = Long.valueOf(userIdStr);
-                            return timezoneService.getPreferredZoneId(internalUserId);
-                        } catch (NumberFormatException e) {
-                            return Mono.just(ZoneId.of("UTC"));
-                        }
-                    }
-                    return Mono.just(ZoneId.of("UTC"));
-                })
-                .defaultIfEmpty(ZoneId.of("UTC"));
-
-        ZoneId preferredZone = zoneMono.block();
-        ZonedDateTime userLocalTime = ZonedDateTime.ofInstant(value, Objects.requireNonNull(preferredZone));
-        gen.writeString(userLocalTime.format(LOCALIZED_FORMATTER));
+    public void serialize(Instant value, JsonGenerator gen, SerializationContext ctxt) {
+        ZoneId zone = ctxt.getAttribute(ZONE_ATTRIBUTE) instanceof ZoneId preferred ? preferred : ZoneOffset.UTC;
+        gen.writeString(LOCALIZED_FORMATTER.format(value.atZone(zone)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+package com.aquarius.crypto.dto;
+
+public enum OrderStatus {
+    // Funds are held, the order has not been matched yet.
+    NEW,
+    // Resting in the book, possibly partially filled.
+    OPEN,
+    FILLED,
+    CANCELLED,
+    // IOC, FOK or market order whose unfilled rest was dropped.
+    EXPIRED
+}
@@ -0,0 +1,8 @@
+package com.aquarius.crypto.dto;
+
+public enum OrderType {
+    // Fills against the book at whatever prices it takes, up to the quantity; never rests.
+    MARKET,
+    // Fills at the limit price or better; how the rest is handled depends on the TimeInForce.
+    LIMIT
+}
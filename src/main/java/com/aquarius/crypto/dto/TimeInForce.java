@@ -0,0 +1,10 @@
+package com.aquarius.crypto.dto;
+
+public enum TimeInForce {
+    // Good till cancelled: the unfilled rest of the order stays in the book.
+    GTC,
+    // Immediate or cancel: fills what it can at once, the rest expires.
+    IOC,
+    // Fill or kill: fills completely at once or not at all.
+    FOK
+}
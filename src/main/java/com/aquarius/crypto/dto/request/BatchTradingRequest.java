@@ -0,0 +1,15 @@
+package com.aquarius.crypto.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTradingRequest {
+    private List<TradingRequest> trades; // MARKET orders, executed in list order
+    private boolean allOrNothing; // true: one rejected trade rejects the whole batch
+}
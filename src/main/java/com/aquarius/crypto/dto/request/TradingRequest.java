@@ -1,5 +1,7 @@
 package com.aquarius.crypto.dto.request;
 
+import com.aquarius.crypto.common.FixedPoint;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,7 +10,6 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 @Data
 @Builder
@@ -21,17 +22,74 @@ public class TradingRequest {
     private String symbol; // e.g., "ETHUSDT"
     private String tradeType; // "BUY" or "SELL"
     private BigDecimal quantity; // Amount of base currency (ETH/BTC) to trade
+    private String orderType; // "MARKET" (default) or "LIMIT"
+    private BigDecimal price; // Limit price in quote currency, LIMIT orders only
+    private String timeInForce; // "GTC", "IOC" or "FOK"; defaults to GTC for LIMIT and IOC for MARKET
+    @JsonIgnore
+    private String idempotencyKey; // From the Idempotency-Key header, never the body
+
+    public TradingRequest(Long userId, String symbol, String tradeType, BigDecimal quantity) {
+        this.userId = userId;
+        this.symbol = symbol;
+        this.tradeType = tradeType;
+        this.quantity = quantity;
+    }
 
     public void validate() {
         if (symbol == null || tradeType == null || quantity == null) {
             throw new IllegalArgumentException("All fields must be provided");
         }
-        if (quantity.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Quantity must be greater than zero");
-        }
         if (!tradeType.equals("BUY") && !tradeType.equals("SELL")) {
             throw new IllegalArgumentException("Trade type must be either BUY or SELL");
         }
-        quantity = quantity.setScale(8, RoundingMode.HALF_UP);
+        long units;
+        try {
+            units = FixedPoint.fromBigDecimal(quantity);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Quantity is too large");
+        }
+        // Checked after rounding, so a quantity below 1e-8 cannot slip through as zero.
+        if (units <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        quantity = FixedPoint.toBigDecimal(units);
+        validateOrderType();
+    }
+
+    private void validateOrderType() {
+        if (orderType == null) {
+            orderType = "MARKET";
+        }
+        if (!orderType.equals("MARKET") && !orderType.equals("LIMIT")) {
+            throw new IllegalArgumentException("Order type must be either MARKET or LIMIT");
+        }
+        if (orderType.equals("LIMIT")) {
+            if (price == null) {
+                throw new IllegalArgumentException("A limit order needs a price");
+            }
+            long priceUnits;
+            try {
+                priceUnits = FixedPoint.fromBigDecimal(price);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Price is too large");
+            }
+            if (priceUnits <= 0) {
+                throw new IllegalArgumentException("Price must be greater than zero");
+            }
+            price = FixedPoint.toBigDecimal(priceUnits);
+        } else if (price != null) {
+            throw new IllegalArgumentException("A market order takes no price");
+        }
+
+        if (timeInForce == null) {
+            timeInForce = orderType.equals("LIMIT") ? "GTC" : "IOC";
+        }
+        if (!timeInForce.equals("GTC") && !timeInForce.equals("IOC") && !timeInForce.equals("FOK")) {
+            throw new IllegalArgumentException("Time in force must be GTC, IOC or FOK");
+        }
+        // A market order has no price to rest at.
+        if (orderType.equals("MARKET") && timeInForce.equals("GTC")) {
+            throw new IllegalArgumentException("A market order cannot be GTC");
+        }
     }
 }
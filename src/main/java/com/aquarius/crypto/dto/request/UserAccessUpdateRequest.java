@@ -0,0 +1,13 @@
+package com.aquarius.crypto.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserAccessUpdateRequest {
+    private String role; // e.g. "TRADER" or "ADMIN"; null keeps the current role
+    private String tenantId; // a tenant known to TenantMappingService; null keeps the current tenant
+}
@@ -0,0 +1,38 @@
+package com.aquarius.crypto.dto.response;
+
+import com.aquarius.crypto.model.TradingTransaction;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTradeResponse {
+    public static final String COMPLETED = "COMPLETED";
+    public static final String REJECTED = "REJECTED";
+    // Could have executed, but another trade of an all-or-nothing batch was rejected.
+    public static final String ABORTED = "ABORTED";
+
+    private int executed;
+    private int rejected;
+    // One per requested trade, in request order.
+    private List<Result> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Result {
+        private int index;
+        private String status;
+        private TradingTransaction transaction;
+        private String error;
+    }
+}
@@ -0,0 +1,47 @@
+package com.aquarius.crypto.dto.response;
+
+import com.aquarius.crypto.dto.OrderStatus;
+import com.aquarius.crypto.dto.OrderType;
+import com.aquarius.crypto.dto.TimeInForce;
+import com.aquarius.crypto.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderResponse {
+    private Long orderId;
+    private String symbol;
+    private String side;
+    private OrderType orderType;
+    private TimeInForce timeInForce;
+    private BigDecimal price;
+    private BigDecimal quantity;
+    private BigDecimal filledQuantity;
+    private OrderStatus status;
+    // Fills this request produced for the order, oldest first.
+    private List<TradingHistoryResponse> fills;
+
+    public static OrderResponse of(Order order, BigDecimal filledQuantity, OrderStatus status,
+                                   List<TradingHistoryResponse> fills) {
+        return OrderResponse.builder()
+                .orderId(order.getId())
+                .symbol(order.getSymbol())
+                .side(order.getSide().getCode())
+                .orderType(order.getOrderType())
+                .timeInForce(order.getTimeInForce())
+                .price(order.getPrice())
+                .quantity(order.getQuantity())
+                .filledQuantity(filledQuantity)
+                .status(status)
+                .fills(fills)
+                .build();
+    }
+}
@@ -2,11 +2,11 @@ package com.aquarius.crypto.dto.response;
 
 import com.aquarius.crypto.dto.LocalizedInstantSerializer;
 import com.aquarius.crypto.model.TradingTransaction;
-import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import tools.jackson.databind.annotation.JsonSerialize;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -16,6 +16,8 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 public class TradingHistoryResponse {
+    public static final String CSV_HEADER = "transactionId,symbol,tradeType,quantity,price,totalAmount,status,timestamp\n";
+
     private Long transactionId;
     private String symbol;
     private String tradeType;
@@ -38,4 +40,11 @@ public class TradingHistoryResponse {
                 .timestamp(history.getCreatedAt())
                 .build();
     }
+
+    // Every column is a number, an enum code or a timestamp, so nothing needs quoting.
+    public String toCsvLine() {
+        return transactionId + "," + symbol + "," + tradeType + ","
+                + quantity.toPlainString() + "," + price.toPlainString() + "," + totalAmount.toPlainString() + ","
+                + status + "," + timestamp + "\n";
+    }
 }
@@ -0,0 +1,40 @@
+package com.aquarius.crypto.dto.third_party;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Combined-stream envelope of a Binance {@code <symbol>@bookTicker} update.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BinanceBookTickerEvent {
+    private String stream; // e.g., ethusdt@bookTicker
+    private BookTicker data;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BookTicker {
+        @JsonProperty("s")
+        private String symbol;
+        @JsonProperty("b")
+        private BigDecimal bidPrice;
+        @JsonProperty("a")
+        private BigDecimal askPrice;
+    }
+
+    public TickerResponse toTickerResponse(String source) {
+        return new TickerResponse(
+                data.getSymbol(),
+                data.getBidPrice(),
+                data.getAskPrice(),
+                source
+        );
+    }
+}
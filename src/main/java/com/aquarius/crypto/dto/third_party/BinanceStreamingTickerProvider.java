@@ -0,0 +1,64 @@
+package com.aquarius.crypto.dto.third_party;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "crypto.streaming", name = "enabled", havingValue = "true")
+public class BinanceStreamingTickerProvider implements StreamingMarketTickerProvider {
+
+    private static final String SOURCE = "BINANCE";
+    private final HttpClient tickerWebSocketClient;
+    private final JsonMapper jsonMapper;
+    private final String streamUrl;
+
+    public BinanceStreamingTickerProvider(@Qualifier("tickerWebSocketClient") HttpClient tickerWebSocketClient,
+                                          JsonMapper jsonMapper,
+                                          @Value("${crypto.streaming.binance.url:wss://stream.binance.com:9443/stream}") String streamUrl) {
+        this.tickerWebSocketClient = tickerWebSocketClient;
+        this.jsonMapper = jsonMapper;
+        this.streamUrl = streamUrl;
+    }
+
+    @Override
+    public String getMarketSource() {
+        return SOURCE;
+    }
+
+    @Override
+    public Flux<TickerResponse> streamTickers(Set<String> supportedPairs) {
+        // Combined stream: one connection, only the book tickers of the configured pairs.
+        String streams = supportedPairs.stream()
+                .map(pair -> pair.toLowerCase(Locale.ROOT) + "@bookTicker")
+                .collect(Collectors.joining("/"));
+
+        return tickerWebSocketClient.websocket()
+                .uri(streamUrl + "?streams=" + streams)
+                .handle((inbound, outbound) -> inbound.aggregateFrames()
+                        .receive()
+                        .asString()
+                        .mapNotNull(this::toTickerResponse));
+    }
+
+    private TickerResponse toTickerResponse(String message) {
+        try {
+            BinanceBookTickerEvent event = jsonMapper.readValue(message, BinanceBookTickerEvent.class);
+            return event.getData() != null ? event.toTickerResponse(SOURCE) : null;
+        } catch (JacksonException e) {
+            log.warn("[BINANCE STREAMING PROVIDER] Skipping unreadable message: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+}
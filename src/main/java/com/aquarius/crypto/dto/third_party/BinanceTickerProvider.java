@@ -1,6 +1,6 @@
 package com.aquarius.crypto.dto.third_party;
 
-import io.netty.util.concurrent.Ticker;
+import com.aquarius.crypto.metrics.TickerMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -8,19 +8,28 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class BinanceTickerProvider implements MarketTickerProvider {
 
     private static final String SOURCE = "BINANCE";
-    @Value("${crypto.sources.binance.url}")
-    private static final String apiUrl = "https://api.binance.com/api/v3/ticker/bookTicker";
     private final WebClient tickerWebClient;
+    private final TickerMetrics tickerMetrics;
+    private final List<String> endpoints;
+    private final Duration hedgeAfter;
 
-    public BinanceTickerProvider(WebClient tickerWebClient) {
+    public BinanceTickerProvider(WebClient tickerWebClient, TickerMetrics tickerMetrics,
+                                 @Value("${crypto.sources.binance.url:https://api.binance.com/api/v3/ticker/bookTicker}") String apiUrl,
+                                 @Value("${crypto.sources.binance.mirrors:}") List<String> mirrors,
+                                 @Value("${crypto.price-fetch.hedge-after-ms:100}") long hedgeAfterMs) {
         this.tickerWebClient = tickerWebClient;
+        this.tickerMetrics = tickerMetrics;
+        this.endpoints = HedgedFetch.endpoints(apiUrl, mirrors);
+        this.hedgeAfter = Duration.ofMillis(hedgeAfterMs);
     }
 
     @Override
@@ -28,14 +37,21 @@ public class BinanceTickerProvider implements MarketTickerProvider {
         return SOURCE;
     }
 
+    /**
+     * Asks for the supported pairs only ({@code ?symbols=["ETHUSDT",...]}), not the book ticker of every symbol.
+     * No timeout of its own: {@code PriceAggregationService} stops waiting once its fetch budget is spent.
+     */
     @Override
     public Flux<TickerResponse> fetchTickers(Set<String> supportedPairs) {
-        return tickerWebClient.get().uri(apiUrl)
-                .retrieve()
-                .bodyToFlux(BinanceTickerResponse.class)
-                .filter(ticker -> supportedPairs.contains(ticker.getSymbol()))
-                .map(binanceTicket -> binanceTicket.toTickerResponse(SOURCE))
-                .timeout(Duration.ofSeconds(5))
+        String symbols = supportedPairs.stream().sorted()
+                .collect(Collectors.joining("\",\"", "[\"", "\"]"));
+        return HedgedFetch.fetch(endpoints, hedgeAfter, url -> tickerWebClient.get()
+                        .uri(url, uri -> uri.queryParam("symbols", "{symbols}").build(symbols))
+                        .retrieve()
+                        .bodyToFlux(BinanceTickerResponse.class)
+                        .filter(ticker -> supportedPairs.contains(ticker.getSymbol()))
+                        .map(binanceTicket -> binanceTicket.toTickerResponse(SOURCE)))
+                .transform(fetch -> tickerMetrics.timeFetch(SOURCE, fetch))
                 .onErrorResume(throwable ->
                         {
                             log.error("[BINANCE TICKER PROVIDER] Error fetching tickers from Binance: {}", throwable.getMessage());
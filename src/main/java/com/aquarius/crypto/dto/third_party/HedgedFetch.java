@@ -0,0 +1,45 @@
+package com.aquarius.crypto.dto.third_party;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Asks a venue's endpoints one after another, each {@code hedgeAfter} later than the one before,
+ * until one of them answers. The first complete answer wins and the requests still running are cancelled.
+ */
+final class HedgedFetch {
+
+    private HedgedFetch() {
+    }
+
+    /**
+     * @param urls the primary endpoint first, then its mirrors; only the primary is asked when
+     *             {@code hedgeAfter} is not positive
+     * @return the tickers of the first endpoint that answered with any; fails when none did
+     */
+    static Flux<TickerResponse> fetch(List<String> urls, Duration hedgeAfter,
+                                      Function<String, Flux<TickerResponse>> fetchOne) {
+        if (urls.size() == 1 || hedgeAfter.isZero() || hedgeAfter.isNegative()) {
+            return fetchOne.apply(urls.get(0));
+        }
+        List<Mono<List<TickerResponse>>> attempts = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            Mono<List<TickerResponse>> attempt = fetchOne.apply(urls.get(i)).collectList()
+                    .filter(tickers -> !tickers.isEmpty());
+            attempts.add(i == 0 ? attempt : Mono.delay(hedgeAfter.multipliedBy(i)).then(attempt));
+        }
+        return Mono.firstWithValue(attempts).flatMapIterable(Function.identity());
+    }
+
+    static List<String> endpoints(String url, List<String> mirrors) {
+        List<String> urls = new ArrayList<>(1 + mirrors.size());
+        urls.add(url);
+        mirrors.stream().filter(mirror -> !mirror.isBlank()).forEach(urls::add);
+        return List.copyOf(urls);
+    }
+}
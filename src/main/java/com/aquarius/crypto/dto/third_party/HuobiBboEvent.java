@@ -0,0 +1,18 @@
+package com.aquarius.crypto.dto.third_party;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Message received on the Huobi websocket: either a keep-alive {@code ping}
+ * or a {@code market.<symbol>.bbo} best bid/offer update.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HuobiBboEvent {
+    private Long ping;
+    private String ch; // e.g., market.ethusdt.bbo
+    private HuobiTicker tick;
+}
@@ -0,0 +1,36 @@
+package com.aquarius.crypto.dto.third_party;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Response of Huobi's {@code /market/detail/merged?symbol=<symbol>}: the best bid and offer of one symbol.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HuobiMergedDetail {
+    private String status; // "ok" or "error"
+    private Tick tick;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tick {
+        private List<BigDecimal> bid; // [price, size]
+        private List<BigDecimal> ask; // [price, size]
+    }
+
+    public boolean hasBestBidOffer() {
+        return "ok".equals(status) && tick != null
+                && tick.bid != null && !tick.bid.isEmpty() && tick.ask != null && !tick.ask.isEmpty();
+    }
+
+    public TickerResponse toTickerResponse(String symbol, String source) {
+        return new TickerResponse(symbol, tick.bid.get(0), tick.ask.get(0), source);
+    }
+}
@@ -0,0 +1,93 @@
+package com.aquarius.crypto.dto.third_party;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "crypto.streaming", name = "enabled", havingValue = "true")
+public class HuobiStreamingTickerProvider implements StreamingMarketTickerProvider {
+
+    private static final String SOURCE = "HUOBI";
+    private final HttpClient tickerWebSocketClient;
+    private final JsonMapper jsonMapper;
+    private final String streamUrl;
+
+    public HuobiStreamingTickerProvider(@Qualifier("tickerWebSocketClient") HttpClient tickerWebSocketClient,
+                                        JsonMapper jsonMapper,
+                                        @Value("${crypto.streaming.huobi.url:wss://api.huobi.pro/ws}") String streamUrl) {
+        this.tickerWebSocketClient = tickerWebSocketClient;
+        this.jsonMapper = jsonMapper;
+        this.streamUrl = streamUrl;
+    }
+
+    @Override
+    public String getMarketSource() {
+        return SOURCE;
+    }
+
+    @Override
+    public Flux<TickerResponse> streamTickers(Set<String> supportedPairs) {
+        return tickerWebSocketClient.websocket()
+                .uri(streamUrl)
+                .handle((inbound, outbound) -> {
+                    // Outgoing frames: one bbo subscription per pair, then a pong for every server ping.
+                    Sinks.Many<String> pongs = Sinks.many().unicast().onBackpressureBuffer();
+                    Flux<String> subscriptions = Flux.fromIterable(supportedPairs)
+                            .map(pair -> pair.toLowerCase(Locale.ROOT))
+                            .map(pair -> "{\"sub\":\"market." + pair + ".bbo\",\"id\":\"" + pair + "\"}");
+
+                    Flux<TickerResponse> tickers = inbound.aggregateFrames()
+                            .receive()
+                            .map(this::gunzip)
+                            .mapNotNull(message -> readEvent(message, pongs))
+                            .doFinally(signal -> pongs.tryEmitComplete());
+
+                    return Flux.merge(
+                            tickers,
+                            outbound.sendString(Flux.concat(subscriptions, pongs.asFlux())).then().cast(TickerResponse.class)
+                    );
+                });
+    }
+
+    private TickerResponse readEvent(String message, Sinks.Many<String> pongs) {
+        try {
+            HuobiBboEvent event = jsonMapper.readValue(message, HuobiBboEvent.class);
+            if (event.getPing() != null) {
+                pongs.tryEmitNext("{\"pong\":" + event.getPing() + "}");
+                return null;
+            }
+            return event.getTick() != null ? event.getTick().toTickerResponse(SOURCE) : null;
+        } catch (JacksonException e) {
+            log.warn("Huobi stream: skipping unreadable message: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    // Huobi compresses every websocket frame with gzip.
+    private String gunzip(ByteBuf frame) {
+        try (InputStream in = new GZIPInputStream(new ByteBufInputStream(frame))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Huobi stream: corrupt gzip frame", e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.aquarius.crypto.dto.third_party;
 
+import com.aquarius.crypto.metrics.TickerMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -7,19 +8,27 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Set;
 
 @Slf4j
 @Component
 public class HuobiTickerProvider implements MarketTickerProvider {
     private static final String SOURCE = "HUOBI";
-    @Value("${crypto.sources.huobi.url}")
-    private static final String apiUrl = "https://api.huobi.pro/market/tickers";
 
     private final WebClient tickerWebClient;
+    private final TickerMetrics tickerMetrics;
+    private final List<String> endpoints;
+    private final Duration hedgeAfter;
 
-    public HuobiTickerProvider(WebClient tickerWebClient) {
+    public HuobiTickerProvider(WebClient tickerWebClient, TickerMetrics tickerMetrics,
+                               @Value("${crypto.sources.huobi.url:https://api.huobi.pro/market/detail/merged}") String apiUrl,
+                               @Value("${crypto.sources.huobi.mirrors:}") List<String> mirrors,
+                               @Value("${crypto.price-fetch.hedge-after-ms:100}") long hedgeAfterMs) {
         this.tickerWebClient = tickerWebClient;
+        this.tickerMetrics = tickerMetrics;
+        this.endpoints = HedgedFetch.endpoints(apiUrl, mirrors);
+        this.hedgeAfter = Duration.ofMillis(hedgeAfterMs);
     }
 
     @Override
@@ -27,18 +36,26 @@ public class HuobiTickerProvider implements MarketTickerProvider {
         return SOURCE;
     }
 
+    /**
+     * One request per supported pair to {@code /market/detail/merged}: Huobi has no filter on its all-symbol
+     * {@code /market/tickers}, whose payload is far larger than the few pairs needed. A pair that fails is
+     * left out without failing the others.
+     * No timeout of its own: {@code PriceAggregationService} stops waiting once its fetch budget is spent.
+     */
     @Override
     public Flux<TickerResponse> fetchTickers(Set<String> supportedPairs) {
-        return tickerWebClient.get().uri(apiUrl)
-                .retrieve()
-                .bodyToMono(HuobiTickersWrapper.class)
-                .flatMapIterable(HuobiTickersWrapper::getData)
-                .map(t -> t.toTickerResponse(getMarketSource()))
-                .filter(t -> supportedPairs.contains(t.getSymbol().toUpperCase()))
-                .timeout(Duration.ofSeconds(5))
-                .onErrorResume(e -> {
-                    log.warn("Huobi fetch failed: {}", e.getMessage());
-                    return Flux.empty();
-                });
+        return Flux.fromIterable(supportedPairs)
+                .flatMap(pair -> HedgedFetch.fetch(endpoints, hedgeAfter, url -> tickerWebClient.get()
+                                .uri(url, uri -> uri.queryParam("symbol", pair.toLowerCase()).build())
+                                .retrieve()
+                                .bodyToMono(HuobiMergedDetail.class)
+                                .filter(HuobiMergedDetail::hasBestBidOffer)
+                                .map(detail -> detail.toTickerResponse(pair, getMarketSource()))
+                                .flux())
+                        .transform(fetch -> tickerMetrics.timeFetch(getMarketSource(), fetch))
+                        .onErrorResume(e -> {
+                            log.warn("Huobi fetch of {} failed: {}", pair, e.getMessage());
+                            return Flux.empty();
+                        }));
     }
 }
@@ -0,0 +1,19 @@
+package com.aquarius.crypto.dto.third_party;
+
+import reactor.core.publisher.Flux;
+
+import java.util.Set;
+
+/**
+ * Push-based counterpart of {@link MarketTickerProvider}: subscribes to the exchange's
+ * book-ticker stream for the given pairs only, instead of downloading every symbol per poll.
+ */
+public interface StreamingMarketTickerProvider {
+    String getMarketSource();
+
+    /**
+     * Opens one websocket session. The returned flux completes or errors when the
+     * connection drops; reconnecting is left to the subscriber.
+     */
+    Flux<TickerResponse> streamTickers(Set<String> supportedPairs);
+}
@@ -83,6 +83,24 @@ public class GlobalExceptionHandler {
                 .body(LocalApiResponse.error(ex.getMessage(), HttpStatus.NOT_FOUND.value())));
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public Mono<ResponseEntity<LocalApiResponse<Void>>> handleInvalidCursorException(
+            InvalidCursorException ex) {
+        log.error("Invalid cursor: {}", ex.getMessage());
+        return Mono.just(ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(LocalApiResponse.error(ex.getMessage(), HttpStatus.BAD_REQUEST.value())));
+    }
+
+    @ExceptionHandler(TradeQueueFullException.class)
+    public Mono<ResponseEntity<LocalApiResponse<Void>>> handleTradeQueueFullException(
+            TradeQueueFullException ex) {
+        log.warn("Trade rejected: {}", ex.getMessage());
+        return Mono.just(ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(LocalApiResponse.error(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value())));
+    }
+
     @ExceptionHandler(WebExchangeBindException.class)
     public Mono<ResponseEntity<LocalApiResponse<Map<String, String>>>> handleValidationException(
             WebExchangeBindException ex) {
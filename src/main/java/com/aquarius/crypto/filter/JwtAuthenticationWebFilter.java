@@ -3,11 +3,15 @@ package com.aquarius.crypto.filter;
 
 import com.aquarius.crypto.common.ExtractionHelper;
 import com.aquarius.crypto.common.UUIDConverter;
+import com.aquarius.crypto.config.tenant.TenantContext;
 import com.aquarius.crypto.config.tenant.TenantMappingService;
 import com.aquarius.crypto.exception.UserAuthenticationException;
-import com.aquarius.crypto.service.JwtService;
+import com.aquarius.crypto.model.UserPrincipal;
+import com.aquarius.crypto.model.VerifiedToken;
+import com.aquarius.crypto.service.VerifiedTokenCache;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -31,12 +35,16 @@ import static com.aquarius.crypto.constants.ConstStrings.BEARER;
 @Slf4j
 public class JwtAuthenticationWebFilter implements WebFilter {
 
-    private final JwtService jwtService;
+    private final VerifiedTokenCache tokenCache;
     private final TenantMappingService tenantMappingService;
+    // Authenticate with the principal signed into the token instead of looking the user up per request.
+    private final boolean principalFromToken;
 
-    public JwtAuthenticationWebFilter(JwtService jwtService, TenantMappingService tenantMappingService) {
-        this.jwtService = jwtService;
+    public JwtAuthenticationWebFilter(VerifiedTokenCache tokenCache, TenantMappingService tenantMappingService,
+                                      @Value("${jwt.principal-from-token:false}") boolean principalFromToken) {
+        this.tokenCache = tokenCache;
         this.tenantMappingService = tenantMappingService;
+        this.principalFromToken = principalFromToken;
     }
 
     @NotNull
@@ -50,19 +58,27 @@ public class JwtAuthenticationWebFilter implements WebFilter {
 
         final String jwtToken = ExtractionHelper.extractTokenValue(authHeader);
 
-        return Mono.fromCallable(() -> jwtService.validateAndExtractClaims(jwtToken))
-                .subscribeOn(Schedulers.boundedElastic())
-                .flatMap(claims -> {
-                    String publicIdStr = claims.get("publicId");
-                    String tenantClaim = claims.get("tenantId");
+        // A token seen before is served from the cache on the calling thread; only a new one pays for RSA off the event loop.
+        VerifiedToken cached = tokenCache.getIfPresent(jwtToken);
+        Mono<VerifiedToken> verification = cached != null
+                ? Mono.just(cached)
+                : Mono.fromCallable(() -> tokenCache.verify(jwtToken)).subscribeOn(Schedulers.boundedElastic());
+
+        return verification
+                .flatMap(token -> {
+                    String publicIdStr = token.publicId();
+                    String tenantClaim = token.tenantId();
                     String schema = tenantMappingService.mapJwtTenantToSchema(tenantClaim)
                             .orElseThrow(() -> new UserAuthenticationException("Invalid tenant claim: " + tenantClaim));
 
-                    Authentication auth = createAuthenticationToken(Objects.requireNonNull(UUIDConverter.stringToUuid(publicIdStr)));
+                    UUID publicId = Objects.requireNonNull(UUIDConverter.stringToUuid(publicIdStr));
+                    Authentication auth = principalFromToken && token.internalId() != null
+                            ? createAuthenticationToken(token, publicId)
+                            : createAuthenticationToken(publicId);
 
                     return chain.filter(exchange)
                             .contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth))
-                            .contextWrite(ctx -> ctx.put("TENANT_ID_KEY", schema));
+                            .contextWrite(ctx -> ctx.put(TenantContext.TENANT_ID_KEY, schema));
                 })
                 .onErrorResume(e -> {
                     log.warn("Authentication failure (JWT/Tenant): {}", e.getMessage());
@@ -71,6 +87,16 @@ public class JwtAuthenticationWebFilter implements WebFilter {
                 });
     }
 
+    /**
+     * Authenticates with a complete {@link UserPrincipal} built from the verified claims,
+     * which {@code SecurityContextService} then serves without a database lookup.
+     */
+    private Authentication createAuthenticationToken(VerifiedToken token, UUID publicId) {
+        List<SimpleGrantedAuthority> authorities = token.roles().stream().map(SimpleGrantedAuthority::new).toList();
+        UserPrincipal principal = new UserPrincipal(token.internalId(), publicId, null, null, authorities, token.tenantId());
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
+
     private Authentication createAuthenticationToken(UUID publicId) {
         return new UsernamePasswordAuthenticationToken(
                 publicId.toString(),
@@ -0,0 +1,41 @@
+package com.aquarius.crypto.filter;
+
+import com.aquarius.crypto.dto.LocalizedInstantSerializer;
+import com.aquarius.crypto.service.SecurityContextService;
+import com.aquarius.crypto.service.UserTimezoneService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves the authenticated user's preferred zone once per request, before the handler runs,
+ * and leaves it on the request for the JSON encoder. Runs after the security filter chain,
+ * so the authentication is already in the context.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserZoneWebFilter implements WebFilter {
+
+    private final SecurityContextService securityContextService;
+    private final UserTimezoneService timezoneService;
+
+    @NotNull
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return securityContextService.getInternalUserId()
+                .flatMap(timezoneService::getPreferredZoneId)
+                .doOnNext(zone -> exchange.getRequest().getAttributes().put(LocalizedInstantSerializer.ZONE_ATTRIBUTE, zone))
+                // Anonymous requests, or a zone that cannot be resolved, are rendered in UTC.
+                .onErrorResume(e -> {
+                    log.debug("No preferred zone for request: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then(Mono.defer(() -> chain.filter(exchange)));
+    }
+}
@@ -0,0 +1,89 @@
+package com.aquarius.crypto.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters of the price sources, tagged by source: REST fetch latency, failed fetches and dropped
+ * streams, venues left out of a polling cycle, and how old the latest quote of each source is per symbol.
+ */
+@Component
+public class TickerMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Meter.MeterProvider<Timer> fetchTimer;
+    private final Meter.MeterProvider<Counter> errors;
+    private final Meter.MeterProvider<Counter> missed;
+    // Keyed by source and symbol; both are bounded by the configured providers and supported pairs.
+    private final ConcurrentHashMap<String, AtomicLong> lastQuoteNanos = new ConcurrentHashMap<>();
+
+    public TickerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.fetchTimer = Timer.builder("crypto.ticker.fetch")
+                .description("Latency of one ticker fetch from a source")
+                .publishPercentileHistogram()
+                .withRegistry(meterRegistry);
+        this.errors = Counter.builder("crypto.ticker.errors")
+                .description("Failed ticker fetches and dropped ticker streams")
+                .withRegistry(meterRegistry);
+        this.missed = Counter.builder("crypto.ticker.missed")
+                .description("Polling cycles that went ahead without the source")
+                .withRegistry(meterRegistry);
+    }
+
+    /**
+     * Times one fetch and counts it as an error if it fails; apply it before the provider swallows the error.
+     * A fetch abandoned at the end of the fetch budget is recorded with the {@code cancelled} outcome.
+     */
+    public <T> Flux<T> timeFetch(String source, Flux<T> fetch) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return fetch
+                    .doOnError(e -> errors.withTags("source", source).increment())
+                    .doFinally(signal -> fetchTimer
+                            .withTags("source", source, "outcome", outcome(signal))
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_ERROR -> "error";
+            case CANCEL -> "cancelled";
+            default -> "success";
+        };
+    }
+
+    public void sourceMissed(String source) {
+        missed.withTags("source", source).increment();
+    }
+
+    public void streamFailed(String source) {
+        errors.withTags("source", source).increment();
+    }
+
+    /**
+     * Marks a quote of {@code symbol} from {@code source} as just received. The first quote of a pair
+     * registers its {@code crypto.ticker.price.age} gauge.
+     */
+    public void quoteReceived(String source, String symbol) {
+        lastQuoteNanos.computeIfAbsent(source + ':' + symbol, key -> {
+            AtomicLong last = new AtomicLong();
+            TimeGauge.builder("crypto.ticker.price.age", last, TimeUnit.NANOSECONDS, received -> System.nanoTime() - received.get())
+                    .description("Time since the source last quoted the symbol")
+                    .tags("source", source, "symbol", symbol)
+                    .register(meterRegistry);
+            return last;
+        }).set(System.nanoTime());
+    }
+}
@@ -0,0 +1,88 @@
+package com.aquarius.crypto.metrics;
+
+import com.aquarius.crypto.config.tenant.TenantContext;
+import com.aquarius.crypto.dto.request.TradingRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Meters of the trade path, all tagged with the order's symbol, trade type and tenant:
+ * a latency histogram per stage, plus counters for rejections and optimistic-lock retries.
+ */
+@Component
+public class TradingMetrics {
+
+    public static final String PRICE_LOOKUP = "price_lookup";
+    public static final String WALLET_RESOLUTION = "wallet_resolution";
+    public static final String SETTLEMENT = "settlement";
+    public static final String AUDIT_WRITE = "audit_write";
+
+    public static final String STALE_PRICE = "stale_price";
+    public static final String INSUFFICIENT_BALANCE = "insufficient_balance";
+
+    private final Meter.MeterProvider<Timer> stageTimer;
+    private final Meter.MeterProvider<Counter> rejections;
+    private final Meter.MeterProvider<Counter> optimisticLockRetries;
+
+    public TradingMetrics(MeterRegistry meterRegistry) {
+        this.stageTimer = Timer.builder("crypto.trading.stage")
+                .description("Time spent in one stage of executing an order")
+                .publishPercentileHistogram()
+                .withRegistry(meterRegistry);
+        this.rejections = Counter.builder("crypto.trading.rejected")
+                .description("Orders rejected by a business rule, by reason")
+                .withRegistry(meterRegistry);
+        this.optimisticLockRetries = Counter.builder("crypto.trading.optimistic_lock.retries")
+                .description("Read-modify-write settlements retried after a version conflict")
+                .withRegistry(meterRegistry);
+    }
+
+    /**
+     * The tags every meter of this order carries; the tenant comes from the order's subscriber context.
+     */
+    public Tags tags(TradingRequest req, ContextView ctx) {
+        return Tags.of("symbol", req.getSymbol(), "trade_type", req.getTradeType(), "tenant", TenantContext.getTenantId(ctx));
+    }
+
+    /**
+     * Times {@code stage} from subscription until it completes, fails or is cancelled.
+     * A stage that already produced its value counts as a success even if a later stage cancels it.
+     */
+    public <T> Mono<T> timeStage(String stage, Tags tags, Mono<T> stageMono) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean emitted = new AtomicBoolean();
+            return stageMono
+                    .doOnNext(value -> emitted.set(true))
+                    .doFinally(signal -> stageTimer
+                            .withTags(tags.and("stage", stage, "outcome", outcome(signal, emitted.get())))
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    public void rejected(String reason, Tags tags) {
+        rejections.withTags(tags.and("reason", reason)).increment();
+    }
+
+    public void optimisticLockRetry(Tags tags) {
+        optimisticLockRetries.withTags(tags).increment();
+    }
+
+    private static String outcome(SignalType signal, boolean emitted) {
+        return switch (signal) {
+            case ON_ERROR -> "error";
+            case CANCEL -> emitted ? "success" : "cancelled";
+            default -> "success";
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.aquarius.crypto.model;
+
+import com.aquarius.crypto.dto.OrderStatus;
+import com.aquarius.crypto.dto.OrderType;
+import com.aquarius.crypto.dto.TimeInForce;
+import com.aquarius.crypto.dto.TradeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("orders")
+public class Order {
+    @Id
+    private Long id;
+    // The tenant whose book the order belongs to; the table is shared by all tenants.
+    private String tenantId;
+    private Long userId;
+    private String symbol;
+    private TradeType side;
+    private OrderType orderType;
+    private TimeInForce timeInForce;
+    // For a market order: the worst price the book offered for the quantity when it was placed.
+    private BigDecimal price;
+    private BigDecimal quantity;
+    private BigDecimal filledQuantity;
+    private BigDecimal heldAmount;
+    private OrderStatus status;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
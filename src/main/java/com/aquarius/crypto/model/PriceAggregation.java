@@ -11,7 +11,7 @@ import org.springframework.data.annotation.Id;
 import java.math.BigDecimal;
 import java.time.Instant;
 
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
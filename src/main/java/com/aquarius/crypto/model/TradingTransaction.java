@@ -22,6 +22,8 @@ public class TradingTransaction {
     @Id
     private Long id;
     private Long userId;
+    // The book order this fill belongs to; null for trades against the aggregated price.
+    private Long orderId;
     private String symbol;
     private TradeType tradeType;
     private BigDecimal quantity;
@@ -29,4 +31,6 @@ public class TradingTransaction {
     private BigDecimal totalAmount;
     private String status;
     private Instant createdAt;
+    // Idempotency-Key of the request that created this trade, unique per user; null when it was sent without one.
+    private String idempotencyKey;
 }
\ No newline at end of file
@@ -46,7 +46,4 @@ public class User implements Persistable<Long>, BeforeConvertCallback<User> {
     public boolean isNew() {
         return id == null;
     }
-
-    public void setPreferredTimezone(String timezoneId) {
-    }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.aquarius.crypto.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The claims of an access token whose signature and expiry have been checked.
+ */
+public record VerifiedToken(
+        String publicId,
+
+        String tenantId,
+
+        // Set on tokens that carry the whole principal; null on older tokens, which need a user lookup
+        Long internalId,
+
+        List<String> roles,
+
+        // The token's exp claim; the verification is only valid until then
+        Instant expiresAt
+) {
+}
@@ -0,0 +1,12 @@
+package com.aquarius.crypto.model;
+
+import com.aquarius.crypto.common.FixedPoint;
+
+import java.time.Instant;
+
+/**
+ * One balance change of one wallet in {@link FixedPoint} units; negative for debits.
+ * A row of {@code wallet_journal}, the append-only journal behind the wallet ledger.
+ */
+public record WalletJournalEntry(long sequence, long walletId, long deltaUnits, Instant createdAt) {
+}
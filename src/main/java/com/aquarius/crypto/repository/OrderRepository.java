@@ -0,0 +1,30 @@
+package com.aquarius.crypto.repository;
+
+import com.aquarius.crypto.model.Order;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@Repository
+public interface OrderRepository extends R2dbcRepository<Order, Long> {
+
+    // Id order is arrival order, so resting orders keep their time priority when the books are rebuilt.
+    @Query("SELECT * FROM orders WHERE tenant_id = $1 AND status = 'OPEN' AND symbol = $2 ORDER BY id")
+    Flux<Order> findOpenOrdersBySymbol(String tenantId, String symbol);
+
+    // The last journal record of the tenant's book whose change is committed here.
+    @Query("SELECT journal_seq FROM order_book_checkpoints WHERE tenant_id = $1 AND symbol = $2")
+    Mono<Long> findCheckpoint(String tenantId, String symbol);
+
+    @Modifying
+    @Query("""
+            INSERT INTO order_book_checkpoints (tenant_id, symbol, journal_seq, updated_at) VALUES ($1, $2, $3, $4)
+            ON CONFLICT (tenant_id, symbol) DO UPDATE SET journal_seq = EXCLUDED.journal_seq, updated_at = EXCLUDED.updated_at
+            """)
+    Mono<Integer> saveCheckpoint(String tenantId, String symbol, long seq, Instant now);
+}
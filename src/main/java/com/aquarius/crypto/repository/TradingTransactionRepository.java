@@ -1,13 +1,31 @@
 package com.aquarius.crypto.repository;
 
 import com.aquarius.crypto.model.TradingTransaction;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
 
 @Repository
-public interface TradingTransactionRepository extends R2dbcRepository<TradingTransaction, Long> {
+public interface TradingTransactionRepository extends R2dbcRepository<TradingTransaction, Long>, TradingTransactionRepositoryCustom {
     Flux<TradingTransaction> findByUserIdOrderByCreatedAtDesc(Long userId);
 
     Flux<TradingTransaction> findByUserId(Long userId);
+
+    Mono<Long> countByUserId(Long userId);
+
+    Mono<TradingTransaction> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    @Query("SELECT * FROM trading_transactions WHERE user_id = $1 ORDER BY created_at DESC, id DESC LIMIT $2 OFFSET $3")
+    Flux<TradingTransaction> findPageByUserId(Long userId, int limit, long offset);
+
+    // Keyset pages walk idx_trading_transactions_user_created_id; cost does not depend on page depth.
+    @Query("SELECT * FROM trading_transactions WHERE user_id = $1 ORDER BY created_at DESC, id DESC LIMIT $2")
+    Flux<TradingTransaction> findFirstByUserIdKeyset(Long userId, int limit);
+
+    @Query("SELECT * FROM trading_transactions WHERE user_id = $1 AND (created_at, id) < ($2, $3) ORDER BY created_at DESC, id DESC LIMIT $4")
+    Flux<TradingTransaction> findNextByUserIdKeyset(Long userId, Instant createdAt, Long id, int limit);
 }
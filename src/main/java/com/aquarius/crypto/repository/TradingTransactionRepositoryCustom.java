@@ -0,0 +1,23 @@
+package com.aquarius.crypto.repository;
+
+import com.aquarius.crypto.model.TradingTransaction;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface TradingTransactionRepositoryCustom {
+
+    /**
+     * Streams a user's trades in {@code [from, to)}, newest first, reading the result through a
+     * server-side cursor so rows are pulled from the database only as fast as the subscriber requests them.
+     */
+    Flux<TradingTransaction> streamByUserIdBetween(Long userId, Instant from, Instant to);
+
+    /**
+     * Inserts all audit rows with one multi-row statement.
+     *
+     * @return the persisted rows, in the order of {@code audits}
+     */
+    Flux<TradingTransaction> insertAll(List<TradingTransaction> audits);
+}
@@ -0,0 +1,95 @@
+package com.aquarius.crypto.repository;
+
+import com.aquarius.crypto.model.TradingTransaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+public class TradingTransactionRepositoryCustomImpl implements TradingTransactionRepositoryCustom {
+
+    private static final String STREAM_BY_USER_BETWEEN =
+            "SELECT * FROM trading_transactions WHERE user_id = :userId AND created_at >= :from AND created_at < :to "
+                    + "ORDER BY created_at DESC, id DESC";
+    // Each column arrives as one array, so a batch binds nine parameters however many rows it has.
+    private static final String INSERT_ALL = """
+            INSERT INTO trading_transactions (user_id, order_id, symbol, trade_type, quantity, price, total_amount, status, created_at)
+            SELECT t.user_id, t.order_id, t.symbol, t.trade_type, t.quantity, t.price, t.total_amount, t.status, t.created_at
+            FROM unnest(:userIds, :orderIds, :symbols, :tradeTypes, :quantities, :prices, :totalAmounts, :statuses, :createdAts)
+                 WITH ORDINALITY AS t(user_id, order_id, symbol, trade_type, quantity, price, total_amount, status, created_at, n)
+            ORDER BY t.n
+            RETURNING *
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+
+    @Value("${crypto.export.fetch-size:500}")
+    private int fetchSize;
+
+    public TradingTransactionRepositoryCustomImpl(DatabaseClient databaseClient, R2dbcConverter converter) {
+        this.databaseClient = databaseClient;
+        this.converter = converter;
+    }
+
+    @Override
+    public Flux<TradingTransaction> streamByUserIdBetween(Long userId, Instant from, Instant to) {
+        return databaseClient.sql(STREAM_BY_USER_BETWEEN)
+                .bind("userId", userId)
+                .bind("from", from)
+                .bind("to", to)
+                // Fetch in chunks from a portal instead of materializing the whole result.
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map((row, metadata) -> converter.read(TradingTransaction.class, row, metadata))
+                .all();
+    }
+
+    @Override
+    public Flux<TradingTransaction> insertAll(List<TradingTransaction> audits) {
+        if (audits.isEmpty()) {
+            return Flux.empty();
+        }
+        int size = audits.size();
+        Long[] userIds = new Long[size];
+        Long[] orderIds = new Long[size];
+        String[] symbols = new String[size];
+        String[] tradeTypes = new String[size];
+        BigDecimal[] quantities = new BigDecimal[size];
+        BigDecimal[] prices = new BigDecimal[size];
+        BigDecimal[] totalAmounts = new BigDecimal[size];
+        String[] statuses = new String[size];
+        Instant[] createdAts = new Instant[size];
+        for (int i = 0; i < size; i++) {
+            TradingTransaction audit = audits.get(i);
+            userIds[i] = audit.getUserId();
+            orderIds[i] = audit.getOrderId();
+            symbols[i] = audit.getSymbol();
+            tradeTypes[i] = audit.getTradeType().name();
+            quantities[i] = audit.getQuantity();
+            prices[i] = audit.getPrice();
+            totalAmounts[i] = audit.getTotalAmount();
+            statuses[i] = audit.getStatus();
+            createdAts[i] = audit.getCreatedAt();
+        }
+
+        return databaseClient.sql(INSERT_ALL)
+                .bind("userIds", userIds)
+                .bind("orderIds", orderIds)
+                .bind("symbols", symbols)
+                .bind("tradeTypes", tradeTypes)
+                .bind("quantities", quantities)
+                .bind("prices", prices)
+                .bind("totalAmounts", totalAmounts)
+                .bind("statuses", statuses)
+                .bind("createdAts", createdAts)
+                .map((row, metadata) -> converter.read(TradingTransaction.class, row, metadata))
+                .all()
+                // Identities are assigned in insert order, which RETURNING does not promise to keep.
+                .sort(Comparator.comparing(TradingTransaction::getId));
+    }
+}
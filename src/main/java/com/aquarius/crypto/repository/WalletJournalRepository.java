@@ -0,0 +1,92 @@
+package com.aquarius.crypto.repository;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.model.WalletJournalEntry;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * {@code wallet_journal}, the append-only journal behind the in-memory wallet ledger,
+ * and the checkpoint that folds it into {@code wallets}.
+ */
+@Repository
+public class WalletJournalRepository {
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO wallet_journal (seq, wallet_id, delta, created_at) VALUES ";
+    private static final String LAST_SEQUENCE = "SELECT COALESCE(max(seq), 0) FROM wallet_journal";
+    // Folds the entries of the range that are newer than each wallet's journal_seq into its balance;
+    // running it twice changes nothing.
+    private static final String FOLD = """
+            WITH pending AS (
+                SELECT j.wallet_id, sum(j.delta) AS delta, max(j.seq) AS seq
+                FROM wallet_journal j
+                JOIN wallets w ON w.id = j.wallet_id
+                WHERE j.seq BETWEEN :fromSeq AND :toSeq AND j.seq > w.journal_seq
+                GROUP BY j.wallet_id
+            )
+            UPDATE wallets w
+            SET balance = w.balance + p.delta, journal_seq = p.seq, version = w.version + 1, updated_at = :now
+            FROM pending p
+            WHERE w.id = p.wallet_id
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public WalletJournalRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Inserts the entries in a single statement.
+     *
+     * @return the number of entries inserted
+     */
+    public Mono<Long> append(List<WalletJournalEntry> entries) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        for (int i = 0; i < entries.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:s").append(i).append(", :w").append(i).append(", :d").append(i)
+                    .append(", :c").append(i).append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < entries.size(); i++) {
+            WalletJournalEntry entry = entries.get(i);
+            spec = spec.bind("s" + i, entry.sequence())
+                    .bind("w" + i, entry.walletId())
+                    .bind("d" + i, FixedPoint.toBigDecimal(entry.deltaUnits()))
+                    .bind("c" + i, entry.createdAt());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    /**
+     * Folds the entries with a sequence in {@code [fromSequence, toSequence]} into the wallet rows.
+     * An entry at or below its wallet's {@code journal_seq} has been folded already and is skipped.
+     *
+     * @return the number of wallets changed
+     */
+    public Mono<Long> fold(long fromSequence, long toSequence, Instant now) {
+        return databaseClient.sql(FOLD)
+                .bind("fromSeq", fromSequence)
+                .bind("toSeq", toSequence)
+                .bind("now", now)
+                .fetch().rowsUpdated();
+    }
+
+    /**
+     * @return the highest sequence in the journal, 0 when it is empty
+     */
+    public Mono<Long> lastSequence() {
+        return databaseClient.sql(LAST_SEQUENCE)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+}
@@ -8,10 +8,22 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface WalletRepository extends R2dbcRepository<Wallet, Long> {
+public interface WalletRepository extends R2dbcRepository<Wallet, Long>, WalletRepositoryCustom {
 
     Flux<Wallet> findByUserId(Long userId);
 
+    Mono<Long> countByUserId(Long userId);
+
     @Query("SELECT * FROM wallets WHERE user_id = $1 AND currency = $2")
     Mono<Wallet> findByUserAndCurrency(Long userId, String currency);
+
+    @Query("SELECT * FROM wallets WHERE user_id = $1 ORDER BY id LIMIT $2 OFFSET $3")
+    Flux<Wallet> findPageByUserId(Long userId, int limit, long offset);
+
+    @Query("SELECT * FROM wallets WHERE user_id = $1 AND id > $2 ORDER BY id LIMIT $3")
+    Flux<Wallet> findNextByUserIdKeyset(Long userId, Long afterId, int limit);
+
+    // Currency order, the same order order placements and fills lock wallets in.
+    @Query("SELECT * FROM wallets WHERE user_id = $1 ORDER BY currency FOR UPDATE")
+    Flux<Wallet> lockByUserId(Long userId);
 }
@@ -0,0 +1,67 @@
+package com.aquarius.crypto.repository;
+
+import com.aquarius.crypto.dto.OrderStatus;
+import com.aquarius.crypto.model.Order;
+import com.aquarius.crypto.model.TradingTransaction;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+public interface WalletRepositoryCustom {
+
+    /**
+     * Debits one wallet, credits the other and inserts the audit row in a single statement.
+     * The debit only applies while the balance covers it and both wallets exist.
+     *
+     * @return the persisted audit row, or empty when the database rejected the settlement
+     * (a wallet is missing or the balance is insufficient); nothing was changed in that case
+     */
+    Mono<TradingTransaction> settleTrade(TradingTransaction audit,
+                                         String debitCurrency, BigDecimal debitAmount,
+                                         String creditCurrency, BigDecimal creditAmount);
+
+    /**
+     * Holds {@code holdAmount} of the order's funds and inserts the order in a single statement.
+     * The other wallet of the pair has to exist too, since fills are credited to it.
+     *
+     * @return the persisted order, or empty when a wallet is missing or the balance is insufficient;
+     * nothing was changed in that case
+     */
+    Mono<Order> placeOrder(Order order, String holdCurrency, BigDecimal holdAmount, String otherCurrency);
+
+    /**
+     * Books one side of a fill in a single statement: credits the proceeds, moves the order's filled
+     * quantity and held amount on, and inserts the audit row.
+     *
+     * @param spentAmount the part of the order's held funds the fill used up
+     * @return the persisted audit row, or empty when the wallet or the order is missing
+     */
+    Mono<TradingTransaction> settleFill(TradingTransaction audit, Long orderId, BigDecimal spentAmount,
+                                        String creditCurrency, BigDecimal creditAmount);
+
+    /**
+     * Gives {@code releasedAmount} of the order's held funds back to its wallet and sets its status.
+     *
+     * @return 1, or 0 when the order or the wallet is missing
+     */
+    Mono<Long> closeOrder(Long orderId, Long userId, String holdCurrency, BigDecimal releasedAmount,
+                          OrderStatus status, Instant now);
+
+    /**
+     * Cancels every order of the tenant still {@link OrderStatus#NEW} and gives its held funds back.
+     *
+     * @return the number of orders cancelled
+     */
+    Mono<Long> releaseNewOrders(String tenantId, String quoteCurrency, Instant now);
+
+    /**
+     * Adds each amount of {@code changes}, keyed by currency, to the user's wallet of that currency in a single
+     * statement. Amounts may be negative; the caller is expected to hold the wallets' locks and to have checked
+     * the balances.
+     *
+     * @return the number of wallets changed, fewer than {@code changes} holds when a wallet is missing
+     */
+    Mono<Long> applyBalanceChanges(Long userId, Map<String, BigDecimal> changes, Instant now);
+}
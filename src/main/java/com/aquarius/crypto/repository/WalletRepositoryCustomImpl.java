@@ -0,0 +1,248 @@
+package com.aquarius.crypto.repository;
+
+import com.aquarius.crypto.dto.OrderStatus;
+import com.aquarius.crypto.model.Order;
+import com.aquarius.crypto.model.TradingTransaction;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+public class WalletRepositoryCustomImpl implements WalletRepositoryCustom {
+
+    // Both wallet rows are locked first, in currency order like every other statement that locks a user's
+    // wallets (PLACE_ORDER, lockByUserId, order book fills), so no two of them wait on each other in a cycle.
+    // The credit update and the insert only run when the debit matched, which requires both wallets
+    // to exist and the balance to cover the amount; otherwise the statement changes nothing.
+    // A reused idempotency key fails the insert on its unique index, which undoes the whole statement.
+    private static final String SETTLE_TRADE = """
+            WITH locked AS (
+                SELECT id FROM wallets
+                WHERE user_id = :userId AND currency IN (:debitCurrency, :creditCurrency)
+                ORDER BY currency
+                FOR UPDATE
+            ), debit AS (
+                UPDATE wallets
+                SET balance = balance - :debitAmount, version = version + 1, updated_at = :now
+                WHERE user_id = :userId AND currency = :debitCurrency
+                  AND balance >= :debitAmount
+                  AND id IN (SELECT id FROM locked)
+                  AND (SELECT count(*) FROM locked) = 2
+                RETURNING id
+            ), credit AS (
+                UPDATE wallets
+                SET balance = balance + :creditAmount, version = version + 1, updated_at = :now
+                WHERE user_id = :userId AND currency = :creditCurrency
+                  AND EXISTS (SELECT 1 FROM debit)
+                RETURNING id
+            )
+            INSERT INTO trading_transactions (user_id, symbol, trade_type, quantity, price, total_amount, status, created_at,
+                                              idempotency_key)
+            SELECT :userId, :symbol, :tradeType, :quantity, :price, :totalAmount, :status, :now, :idempotencyKey
+            FROM debit, credit
+            RETURNING *
+            """;
+
+    // Same guard and lock order as SETTLE_TRADE.
+    private static final String PLACE_ORDER = """
+            WITH locked AS (
+                SELECT id FROM wallets
+                WHERE user_id = :userId AND currency IN (:holdCurrency, :otherCurrency)
+                ORDER BY currency
+                FOR UPDATE
+            ), hold AS (
+                UPDATE wallets
+                SET balance = balance - :holdAmount, version = version + 1, updated_at = :now
+                WHERE user_id = :userId AND currency = :holdCurrency
+                  AND balance >= :holdAmount
+                  AND id IN (SELECT id FROM locked)
+                  AND (SELECT count(*) FROM locked) = 2
+                RETURNING id
+            )
+            INSERT INTO orders (tenant_id, user_id, symbol, side, order_type, time_in_force, price, quantity,
+                                filled_quantity, held_amount, status, created_at)
+            SELECT :tenantId, :userId, :symbol, :side, :orderType, :timeInForce, :price, :quantity, 0, :holdAmount, :status, :now
+            FROM hold
+            RETURNING *
+            """;
+
+    // The order only moves on, and the audit row is only written, when the credit matched a wallet.
+    private static final String SETTLE_FILL = """
+            WITH credit AS (
+                UPDATE wallets
+                SET balance = balance + :creditAmount, version = version + 1, updated_at = :now
+                WHERE user_id = :userId AND currency = :creditCurrency
+                RETURNING id
+            ), fill AS (
+                UPDATE orders
+                SET filled_quantity = filled_quantity + :quantity,
+                    held_amount = held_amount - :spentAmount,
+                    status = CASE WHEN filled_quantity + :quantity >= quantity THEN 'FILLED' ELSE status END,
+                    updated_at = :now
+                WHERE id = :orderId AND EXISTS (SELECT 1 FROM credit)
+                RETURNING id
+            )
+            INSERT INTO trading_transactions (user_id, order_id, symbol, trade_type, quantity, price, total_amount, status, created_at)
+            SELECT :userId, fill.id, :symbol, :tradeType, :quantity, :price, :totalAmount, :status, :now
+            FROM fill
+            RETURNING *
+            """;
+
+    private static final String CLOSE_ORDER = """
+            WITH released AS (
+                UPDATE wallets
+                SET balance = balance + :releasedAmount, version = version + 1, updated_at = :now
+                WHERE user_id = :userId AND currency = :holdCurrency
+                RETURNING id
+            )
+            UPDATE orders
+            SET held_amount = held_amount - :releasedAmount, status = :status, updated_at = :now
+            WHERE id = :orderId AND EXISTS (SELECT 1 FROM released)
+            """;
+
+    // A BUY holds the quote currency, a SELL the base currency, i.e. the symbol without the quote.
+    private static final String RELEASE_NEW_ORDERS = """
+            WITH abandoned AS (
+                SELECT id, user_id, held_amount,
+                       CASE WHEN side = 'BUY' THEN :quoteCurrency ELSE replace(symbol, :quoteCurrency, '') END AS currency
+                FROM orders
+                WHERE tenant_id = :tenantId AND status = 'NEW'
+                FOR UPDATE
+            ), refunds AS (
+                SELECT user_id, currency, sum(held_amount) AS amount
+                FROM abandoned
+                GROUP BY user_id, currency
+            ), released AS (
+                UPDATE wallets w
+                SET balance = w.balance + r.amount, version = w.version + 1, updated_at = :now
+                FROM refunds r
+                WHERE w.user_id = r.user_id AND w.currency = r.currency
+            )
+            UPDATE orders o
+            SET status = 'CANCELLED', held_amount = 0, updated_at = :now
+            FROM abandoned a
+            WHERE o.id = a.id
+            """;
+
+    // One row per currency, passed as two parallel arrays so the statement is the same for any number of them.
+    private static final String APPLY_BALANCE_CHANGES = """
+            UPDATE wallets w
+            SET balance = w.balance + c.amount, version = w.version + 1, updated_at = :now
+            FROM unnest(:currencies, :amounts) AS c(currency, amount)
+            WHERE w.user_id = :userId AND w.currency = c.currency
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+
+    public WalletRepositoryCustomImpl(DatabaseClient databaseClient, R2dbcConverter converter) {
+        this.databaseClient = databaseClient;
+        this.converter = converter;
+    }
+
+    @Override
+    public Mono<TradingTransaction> settleTrade(TradingTransaction audit,
+                                                String debitCurrency, BigDecimal debitAmount,
+                                                String creditCurrency, BigDecimal creditAmount) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(SETTLE_TRADE);
+        spec = audit.getIdempotencyKey() == null
+                ? spec.bindNull("idempotencyKey", String.class)
+                : spec.bind("idempotencyKey", audit.getIdempotencyKey());
+        return spec
+                .bind("userId", audit.getUserId())
+                .bind("debitCurrency", debitCurrency)
+                .bind("debitAmount", debitAmount)
+                .bind("creditCurrency", creditCurrency)
+                .bind("creditAmount", creditAmount)
+                .bind("symbol", audit.getSymbol())
+                .bind("tradeType", audit.getTradeType().name())
+                .bind("quantity", audit.getQuantity())
+                .bind("price", audit.getPrice())
+                .bind("totalAmount", audit.getTotalAmount())
+                .bind("status", audit.getStatus())
+                .bind("now", audit.getCreatedAt())
+                .map((row, metadata) -> converter.read(TradingTransaction.class, row, metadata))
+                .one();
+    }
+
+    @Override
+    public Mono<Order> placeOrder(Order order, String holdCurrency, BigDecimal holdAmount, String otherCurrency) {
+        return databaseClient.sql(PLACE_ORDER)
+                .bind("tenantId", order.getTenantId())
+                .bind("userId", order.getUserId())
+                .bind("holdCurrency", holdCurrency)
+                .bind("otherCurrency", otherCurrency)
+                .bind("holdAmount", holdAmount)
+                .bind("symbol", order.getSymbol())
+                .bind("side", order.getSide().name())
+                .bind("orderType", order.getOrderType().name())
+                .bind("timeInForce", order.getTimeInForce().name())
+                .bind("price", order.getPrice())
+                .bind("quantity", order.getQuantity())
+                .bind("status", order.getStatus().name())
+                .bind("now", order.getCreatedAt())
+                .map((row, metadata) -> converter.read(Order.class, row, metadata))
+                .one();
+    }
+
+    @Override
+    public Mono<TradingTransaction> settleFill(TradingTransaction audit, Long orderId, BigDecimal spentAmount,
+                                               String creditCurrency, BigDecimal creditAmount) {
+        return databaseClient.sql(SETTLE_FILL)
+                .bind("userId", audit.getUserId())
+                .bind("orderId", orderId)
+                .bind("spentAmount", spentAmount)
+                .bind("creditCurrency", creditCurrency)
+                .bind("creditAmount", creditAmount)
+                .bind("symbol", audit.getSymbol())
+                .bind("tradeType", audit.getTradeType().name())
+                .bind("quantity", audit.getQuantity())
+                .bind("price", audit.getPrice())
+                .bind("totalAmount", audit.getTotalAmount())
+                .bind("status", audit.getStatus())
+                .bind("now", audit.getCreatedAt())
+                .map((row, metadata) -> converter.read(TradingTransaction.class, row, metadata))
+                .one();
+    }
+
+    @Override
+    public Mono<Long> closeOrder(Long orderId, Long userId, String holdCurrency, BigDecimal releasedAmount,
+                                 OrderStatus status, Instant now) {
+        return databaseClient.sql(CLOSE_ORDER)
+                .bind("orderId", orderId)
+                .bind("userId", userId)
+                .bind("holdCurrency", holdCurrency)
+                .bind("releasedAmount", releasedAmount)
+                .bind("status", status.name())
+                .bind("now", now)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    @Override
+    public Mono<Long> releaseNewOrders(String tenantId, String quoteCurrency, Instant now) {
+        return databaseClient.sql(RELEASE_NEW_ORDERS)
+                .bind("tenantId", tenantId)
+                .bind("quoteCurrency", quoteCurrency)
+                .bind("now", now)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    @Override
+    public Mono<Long> applyBalanceChanges(Long userId, Map<String, BigDecimal> changes, Instant now) {
+        if (changes.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return databaseClient.sql(APPLY_BALANCE_CHANGES)
+                .bind("userId", userId)
+                .bind("currencies", changes.keySet().toArray(String[]::new))
+                .bind("amounts", changes.values().toArray(BigDecimal[]::new))
+                .bind("now", now)
+                .fetch()
+                .rowsUpdated();
+    }
+}
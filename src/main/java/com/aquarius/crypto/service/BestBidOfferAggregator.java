@@ -0,0 +1,215 @@
+package com.aquarius.crypto.service;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.dto.third_party.TickerResponse;
+import com.aquarius.crypto.model.PriceAggregation;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Long-lived consolidated best bid/offer per symbol.
+ * Keeps the latest quote of every venue and recomputes a symbol's BBO in O(venues)
+ * whenever a single ticker arrives, so one slow exchange never holds back the others.
+ */
+public class BestBidOfferAggregator {
+
+    private final ConcurrentHashMap<String, SymbolQuotes> quotesBySymbol = new ConcurrentHashMap<>();
+    // Venue quotes older than this no longer compete for best bid/ask.
+    private volatile Duration maxQuoteAge = Duration.ofSeconds(15);
+
+    public void setMaxQuoteAge(Duration maxQuoteAge) {
+        this.maxQuoteAge = maxQuoteAge;
+    }
+
+    /**
+     * Applies one venue's ticker to its symbol.
+     *
+     * @return the new consolidated price when the best bid, the best ask or the contributing
+     * sources changed; {@code null} when the ticker left the BBO as it was
+     */
+    public PriceAggregation onTicker(TickerResponse ticker) {
+        if (ticker.getSymbol() == null || ticker.getSource() == null) {
+            return null;
+        }
+        return quotesBySymbol.computeIfAbsent(ticker.getSymbol(), SymbolQuotes::new)
+                .update(ticker, Instant.now(), maxQuoteAge);
+    }
+
+    public boolean hasBestBidOffer(String symbol) {
+        SymbolQuotes quotes = quotesBySymbol.get(symbol);
+        return quotes != null && quotes.hasBestBidOffer();
+    }
+
+    /**
+     * Drops every quote of a venue, e.g. when its stream disconnects.
+     *
+     * @return the consolidated prices that changed because of it
+     */
+    public List<PriceAggregation> removeSource(String source) {
+        List<PriceAggregation> changed = new ArrayList<>();
+        Instant now = Instant.now();
+        for (SymbolQuotes quotes : quotesBySymbol.values()) {
+            PriceAggregation price = quotes.remove(source, now, maxQuoteAge);
+            if (price != null) {
+                changed.add(price);
+            }
+        }
+        return changed;
+    }
+
+    private static final class SymbolQuotes {
+        private final String symbol;
+        private static final long NO_QUOTE = Long.MIN_VALUE;
+
+        // A handful of venues per symbol: parallel arrays indexed by venue, no per-tick map.
+        // Prices are compared as FixedPoint units; the venue's own BigDecimal is what gets emitted.
+        private String[] sources = new String[0];
+        private BigDecimal[] bids = new BigDecimal[0];
+        private BigDecimal[] asks = new BigDecimal[0];
+        private long[] bidUnits = new long[0];
+        private long[] askUnits = new long[0];
+        private Instant[] receivedAt = new Instant[0];
+
+        // Last emitted BBO; bit i of a mask is set when venue i quotes the best price.
+        private long bestBid = NO_QUOTE;
+        private long bestAsk = NO_QUOTE;
+        private int bestBidVenues;
+        private int bestAskVenues;
+
+        private SymbolQuotes(String symbol) {
+            this.symbol = symbol;
+        }
+
+        synchronized PriceAggregation update(TickerResponse ticker, Instant now, Duration maxAge) {
+            int venue = venueIndex(ticker.getSource());
+            bids[venue] = ticker.getBidPrice();
+            asks[venue] = ticker.getAskPrice();
+            bidUnits[venue] = units(ticker.getBidPrice());
+            askUnits[venue] = units(ticker.getAskPrice());
+            receivedAt[venue] = now;
+            return recompute(now, maxAge);
+        }
+
+        synchronized PriceAggregation remove(String source, Instant now, Duration maxAge) {
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i].equals(source)) {
+                    bids[i] = null;
+                    asks[i] = null;
+                    bidUnits[i] = NO_QUOTE;
+                    askUnits[i] = NO_QUOTE;
+                    return recompute(now, maxAge);
+                }
+            }
+            return null;
+        }
+
+        synchronized boolean hasBestBidOffer() {
+            return bestBid != NO_QUOTE && bestAsk != NO_QUOTE;
+        }
+
+        private PriceAggregation recompute(Instant now, Duration maxAge) {
+            Instant oldestLive = now.minus(maxAge);
+            long bid = NO_QUOTE;
+            long ask = NO_QUOTE;
+            int bidVenue = -1;
+            int askVenue = -1;
+            int bidVenues = 0;
+            int askVenues = 0;
+
+            for (int i = 0; i < sources.length; i++) {
+                if (receivedAt[i] == null || receivedAt[i].isBefore(oldestLive)) {
+                    continue;
+                }
+                if (bidUnits[i] != NO_QUOTE) {
+                    if (bid == NO_QUOTE || bidUnits[i] > bid) {
+                        bid = bidUnits[i];
+                        bidVenue = i;
+                        bidVenues = 1 << i;
+                    } else if (bidUnits[i] == bid) {
+                        bidVenues |= 1 << i;
+                    }
+                }
+                if (askUnits[i] != NO_QUOTE) {
+                    if (ask == NO_QUOTE || askUnits[i] < ask) {
+                        ask = askUnits[i];
+                        askVenue = i;
+                        askVenues = 1 << i;
+                    } else if (askUnits[i] == ask) {
+                        askVenues |= 1 << i;
+                    }
+                }
+            }
+
+            if (bid == NO_QUOTE || ask == NO_QUOTE) {
+                // No two-sided market left; the next complete quote is emitted as a change.
+                bestBid = NO_QUOTE;
+                bestAsk = NO_QUOTE;
+                return null;
+            }
+            if (bidVenues == bestBidVenues && askVenues == bestAskVenues && bid == bestBid && ask == bestAsk) {
+                return null;
+            }
+
+            bestBid = bid;
+            bestAsk = ask;
+            bestBidVenues = bidVenues;
+            bestAskVenues = askVenues;
+            return PriceAggregation.builder()
+                    .tradingPair(symbol)
+                    .bestBidPrice(bids[bidVenue])
+                    .bestAskPrice(asks[askVenue])
+                    .source(describeSources(bidVenues, askVenues))
+                    .createdAt(now)
+                    .build();
+        }
+
+        // e.g. "BINANCE_BID|HUOBI_BID|HUOBI_ASK"
+        private String describeSources(int bidVenues, int askVenues) {
+            StringBuilder sb = new StringBuilder();
+            appendVenues(sb, bidVenues, "_BID");
+            appendVenues(sb, askVenues, "_ASK");
+            return sb.toString();
+        }
+
+        private void appendVenues(StringBuilder sb, int venues, String side) {
+            for (int i = 0; i < sources.length; i++) {
+                if ((venues & (1 << i)) != 0) {
+                    if (!sb.isEmpty()) {
+                        sb.append('|');
+                    }
+                    sb.append(sources[i]).append(side);
+                }
+            }
+        }
+
+        private static long units(BigDecimal price) {
+            return price == null ? NO_QUOTE : FixedPoint.fromBigDecimal(price);
+        }
+
+        private int venueIndex(String source) {
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i].equals(source)) {
+                    return i;
+                }
+            }
+            int venue = sources.length;
+            if (venue == Integer.SIZE) {
+                throw new IllegalStateException("Too many venues quoting " + symbol);
+            }
+            sources = Arrays.copyOf(sources, venue + 1);
+            bids = Arrays.copyOf(bids, venue + 1);
+            asks = Arrays.copyOf(asks, venue + 1);
+            bidUnits = Arrays.copyOf(bidUnits, venue + 1);
+            askUnits = Arrays.copyOf(askUnits, venue + 1);
+            receivedAt = Arrays.copyOf(receivedAt, venue + 1);
+            sources[venue] = source;
+            return venue;
+        }
+    }
+}
@@ -4,19 +4,23 @@ import com.aquarius.crypto.common.JwtProperties;
 import com.aquarius.crypto.common.UUIDConverter;
 import com.aquarius.crypto.common.UUIDHelper;
 import com.aquarius.crypto.model.UserPrincipal;
+import com.aquarius.crypto.model.VerifiedToken;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.MissingClaimException;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -36,15 +40,32 @@ public class JwtService {
     }
 
     public Map<String, String> validateAndExtractClaims(String token) {
-        if (isTokenExpired(token)) {
-            throw new ExpiredJwtException(null, null, "JWT token is expired.");
-        }
+        VerifiedToken verified = verify(token);
+
+        Map<String, String> extractedClaims = new HashMap<>();
+        extractedClaims.put("publicId", verified.publicId());
+        extractedClaims.put("tenantId", verified.tenantId());
 
+        return extractedClaims;
+    }
+
+    /**
+     * Checks the signature and expiry of an access token and reads its claims, parsing it once.
+     *
+     * @throws ExpiredJwtException if the token has expired
+     * @throws MissingClaimException if the token lacks the expiry, user or tenant claim
+     */
+    public VerifiedToken verify(String token) {
+        // The parser rejects an expired token itself, before the claims are returned.
         Claims claims = extractAllClaims(token);
 
+        Date expiration = claims.getExpiration();
         String publicIdStr = claims.get("user_public_id", String.class);
         String tenantId = claims.get("tenant_id", String.class);
 
+        if (expiration == null) {
+            throw new MissingClaimException(null, claims, "Required claim 'exp' is missing.");
+        }
         if (publicIdStr == null) {
             throw new MissingClaimException(null, claims, "Required claim 'user_public_id' is missing.");
         }
@@ -53,11 +74,23 @@ public class JwtService {
             throw new MissingClaimException(null, claims, "Required claim 'tenant_id' is missing.");
         }
 
-        Map<String, String> extractedClaims = new HashMap<>();
-        extractedClaims.put("publicId", publicIdStr);
-        extractedClaims.put("tenantId", tenantId);
+        return new VerifiedToken(publicIdStr, tenantId, claims.get("user_internal_id", Long.class),
+                roles(claims), expiration.toInstant());
+    }
 
-        return extractedClaims;
+    // Tokens issued before roles were signed as plain strings carry none.
+    private static List<String> roles(Claims claims) {
+        if (!(claims.get("roles") instanceof List<?> values)) {
+            return List.of();
+        }
+        List<String> roles = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (!(value instanceof String role)) {
+                return List.of();
+            }
+            roles.add(role);
+        }
+        return roles;
     }
 
     public Date extractExpiration(String token) {
@@ -73,9 +106,6 @@ public class JwtService {
         return parser.parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
 
 
     public String generateAccessToken(UserPrincipal principal) {
@@ -83,7 +113,11 @@ public class JwtService {
         Map<String, Object> claims = new HashMap<>();
         claims.put("user_public_id", principal.publicId().toString());
         claims.put("tenant_id", principal.tenantId());
-        claims.put("roles", principal.getAuthorities());
+        // With these two the token describes the whole principal, so requests need no user lookup.
+        if (principal.internalId() != null) {
+            claims.put("user_internal_id", principal.internalId());
+        }
+        claims.put("roles", principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
         return Jwts.builder()
                 .setSubject(principal.getUsername())
                 .setClaims(claims)
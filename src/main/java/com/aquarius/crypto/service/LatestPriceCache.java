@@ -0,0 +1,74 @@
+package com.aquarius.crypto.service;
+
+import com.aquarius.crypto.model.PriceAggregation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process snapshot of the most recent aggregated price per trading pair.
+ * Written by the aggregation cycle and read on the trade path without any I/O.
+ * Every accepted update is also pushed to a shared hot stream for live subscribers.
+ */
+public class LatestPriceCache {
+
+    private final ConcurrentHashMap<String, PriceAggregation> latestByPair = new ConcurrentHashMap<>();
+    // Never buffers for subscribers; each subscriber conflates on its own side (see updates()).
+    private final Sinks.Many<PriceAggregation> updates = Sinks.many().multicast().directBestEffort();
+
+    public PriceAggregation get(String tradingPair) {
+        return latestByPair.get(tradingPair);
+    }
+
+    /**
+     * Atomically replaces the snapshot for the price's pair, unless a newer price is already cached.
+     *
+     * @return the snapshot that is cached after the update
+     */
+    public PriceAggregation publish(PriceAggregation price) {
+        PriceAggregation cached = latestByPair.merge(price.getTradingPair(), price, LatestPriceCache::newest);
+        if (cached == price) {
+            // Publishers run on several threads; retry the rare concurrent emission instead of dropping it.
+            updates.emitNext(price, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+        }
+        return cached;
+    }
+
+    /**
+     * Renews the freshness of a pair's snapshot after a venue re-quoted it without changing the price.
+     */
+    public void confirm(String tradingPair, Instant at) {
+        latestByPair.computeIfPresent(tradingPair, (pair, current) ->
+                current.getCreatedAt().isBefore(at) ? current.toBuilder().createdAt(at).build() : current);
+    }
+
+    /**
+     * Live prices of one pair: the current snapshot first, then every newer update.
+     * A subscriber that cannot keep up only ever has the latest price pending, never a backlog.
+     */
+    public Flux<PriceAggregation> updates(String tradingPair) {
+        return Flux.defer(() -> {
+            AtomicReference<Instant> lastSent = new AtomicReference<>(Instant.MIN);
+            // Subscribe to live updates before reading the snapshot so nothing falls in between;
+            // whichever of the two is older is filtered out.
+            return Flux.merge(
+                            updates.asFlux().filter(price -> tradingPair.equals(price.getTradingPair())),
+                            Mono.fromSupplier(() -> get(tradingPair)))
+                    .filter(price -> isNewer(lastSent, price.getCreatedAt()))
+                    .onBackpressureLatest();
+        });
+    }
+
+    private static boolean isNewer(AtomicReference<Instant> lastSent, Instant createdAt) {
+        Instant previous = lastSent.get();
+        return createdAt.isAfter(previous) && lastSent.compareAndSet(previous, createdAt);
+    }
+
+    private static PriceAggregation newest(PriceAggregation current, PriceAggregation candidate) {
+        return candidate.getCreatedAt().isBefore(current.getCreatedAt()) ? current : candidate;
+    }
+}
@@ -0,0 +1,457 @@
+package com.aquarius.crypto.service;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.dto.TimeInForce;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Price-time priority limit order book of one symbol. Prices, quantities and held funds are {@link FixedPoint}
+ * units. Each side keeps its price levels in primitive sorted arrays with the best price last, and each level
+ * queues its orders in an intrusive doubly linked list, so matching, resting and cancelling an order allocate
+ * nothing beyond a new price level.
+ * Not thread-safe: {@link OrderBookService} only touches a book from the partition thread it is pinned to.
+ */
+public class OrderBook {
+
+    private final String symbol;
+    private final BookSide bids = new BookSide(true);
+    private final BookSide asks = new BookSide(false);
+    private final OrderIndex resting = new OrderIndex();
+
+    public OrderBook(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Matches {@code taker} against the other side of the book, best price first and oldest order first
+     * within a price. A FOK order that cannot fill completely does not fill at all; whatever is left of a
+     * GTC order rests in the book. Every fill is reported after both orders were updated.
+     *
+     * @return true when the rest of the order now rests in the book
+     */
+    public boolean submit(Order taker, TimeInForce timeInForce, FillListener fills) {
+        if (taker.remaining <= 0) {
+            throw new IllegalArgumentException("Order " + taker.id + " has nothing left to fill");
+        }
+        if (resting.get(taker.id) != null) {
+            throw new IllegalStateException("Order " + taker.id + " is already in the book");
+        }
+
+        BookSide opposite = taker.buy ? asks : bids;
+        if (timeInForce == TimeInForce.FOK && opposite.quantityCrossing(taker) < taker.remaining) {
+            return false;
+        }
+
+        while (taker.remaining > 0) {
+            Level level = opposite.best();
+            if (level == null || !taker.crosses(level.price)) {
+                break;
+            }
+            fillLevel(taker, level, fills);
+            if (level.head == null) {
+                opposite.removeBest();
+            }
+        }
+
+        if (taker.remaining > 0 && timeInForce == TimeInForce.GTC) {
+            rest(taker);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Puts an order back into the book without matching it, e.g. when rebuilding the book on startup.
+     */
+    public void restore(Order order) {
+        if (resting.get(order.id) != null) {
+            throw new IllegalStateException("Order " + order.id + " is already in the book");
+        }
+        rest(order);
+    }
+
+    /**
+     * @return the removed order with what it had left, or {@code null} when it is not resting in the book
+     */
+    public Order cancel(long orderId) {
+        Order order = resting.remove(orderId);
+        if (order == null) {
+            return null;
+        }
+        Level level = order.level;
+        level.unlink(order);
+        level.quantity -= order.remaining;
+        if (level.head == null) {
+            (order.buy ? bids : asks).remove(level);
+        }
+        return order;
+    }
+
+    /**
+     * Applies a fill to a resting order without matching, e.g. when replaying a journal: takes {@code quantity}
+     * off what it has left and {@code heldSpent} off what it holds, and removes it once nothing is left.
+     *
+     * @return the order, or {@code null} when it is not resting in the book
+     */
+    public Order reduce(long orderId, long quantity, long heldSpent) {
+        Order order = resting.get(orderId);
+        if (order == null || quantity > order.remaining) {
+            return null;
+        }
+        Level level = order.level;
+        order.remaining -= quantity;
+        order.held -= heldSpent;
+        level.quantity -= quantity;
+        if (order.remaining == 0) {
+            resting.remove(orderId);
+            level.unlink(order);
+            if (level.head == null) {
+                (order.buy ? bids : asks).remove(level);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Visits the resting orders bids first, each side best price first and each price oldest order first,
+     * so {@link #restore restoring} them in this order rebuilds the same book.
+     */
+    public void forEachResting(Consumer<Order> action) {
+        bids.forEach(action);
+        asks.forEach(action);
+    }
+
+    public Order get(long orderId) {
+        return resting.get(orderId);
+    }
+
+    /**
+     * The worst price a market order for {@code quantity} would reach right now; when the book holds less than
+     * that, the worst price in the book.
+     *
+     * @return the price, or 0 when the other side of the book is empty
+     */
+    public long sweepPrice(boolean buy, long quantity) {
+        return (buy ? asks : bids).sweepPrice(quantity);
+    }
+
+    /**
+     * @return the highest bid, or 0 when there is none
+     */
+    public long bestBid() {
+        Level best = bids.best();
+        return best == null ? 0 : best.price;
+    }
+
+    /**
+     * @return the lowest ask, or 0 when there is none
+     */
+    public long bestAsk() {
+        Level best = asks.best();
+        return best == null ? 0 : best.price;
+    }
+
+    public int restingOrders() {
+        return resting.size;
+    }
+
+    private void fillLevel(Order taker, Level level, FillListener fills) {
+        Order maker = level.head;
+        while (maker != null && taker.remaining > 0) {
+            long quantity = Math.min(maker.remaining, taker.remaining);
+            Order buyer = taker.buy ? taker : maker;
+            Order seller = taker.buy ? maker : taker;
+            // Each fill is rounded on its own, so the sum can exceed the buyer's held funds by a unit; they are the cap.
+            long cost = Math.min(FixedPoint.multiply(level.price, quantity), buyer.held);
+            buyer.held -= cost;
+            seller.held -= quantity;
+            maker.remaining -= quantity;
+            taker.remaining -= quantity;
+            level.quantity -= quantity;
+
+            Order next = maker.next;
+            if (maker.remaining == 0) {
+                level.unlink(maker);
+                resting.remove(maker.id);
+            }
+            fills.onFill(maker, taker, level.price, quantity, cost);
+            maker = next;
+        }
+    }
+
+    private void rest(Order order) {
+        Level level = (order.buy ? bids : asks).levelAt(order.price);
+        level.append(order);
+        level.quantity += order.remaining;
+        resting.put(order);
+    }
+
+    @FunctionalInterface
+    public interface FillListener {
+        /**
+         * @param cost what the buyer paid the seller, in quote currency units
+         */
+        void onFill(Order maker, Order taker, long price, long quantity, long cost);
+    }
+
+    /**
+     * An order as the book sees it. {@code held} is what the order still holds of its owner's funds:
+     * quote currency for a buy, base currency for a sell.
+     */
+    public static final class Order {
+        private final long id;
+        private final long userId;
+        private final boolean buy;
+        private final long price;
+        private long remaining;
+        private long held;
+
+        private Level level;
+        private Order prev;
+        private Order next;
+
+        public Order(long id, long userId, boolean buy, long price, long remaining, long held) {
+            this.id = id;
+            this.userId = userId;
+            this.buy = buy;
+            this.price = price;
+            this.remaining = remaining;
+            this.held = held;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public boolean isBuy() {
+            return buy;
+        }
+
+        public long getPrice() {
+            return price;
+        }
+
+        public long getRemaining() {
+            return remaining;
+        }
+
+        public long getHeld() {
+            return held;
+        }
+
+        private boolean crosses(long levelPrice) {
+            return buy ? levelPrice <= price : levelPrice >= price;
+        }
+    }
+
+    private static final class Level {
+        private final long price;
+        private long quantity;
+        private Order head;
+        private Order tail;
+
+        private Level(long price) {
+            this.price = price;
+        }
+
+        private void append(Order order) {
+            order.level = this;
+            order.prev = tail;
+            order.next = null;
+            if (tail == null) {
+                head = order;
+            } else {
+                tail.next = order;
+            }
+            tail = order;
+        }
+
+        private void unlink(Order order) {
+            if (order.prev == null) {
+                head = order.next;
+            } else {
+                order.prev.next = order.next;
+            }
+            if (order.next == null) {
+                tail = order.prev;
+            } else {
+                order.next.prev = order.prev;
+            }
+            order.level = null;
+            order.prev = null;
+            order.next = null;
+        }
+    }
+
+    /**
+     * The levels of one side, sorted so the best price is last: orders mostly arrive and leave near the
+     * best price, where inserting and removing shifts little. Asks are keyed by their negated price, which
+     * lets both sides use the same ascending binary search.
+     */
+    private static final class BookSide {
+        private final boolean bids;
+        private long[] keys = new long[64];
+        private Level[] levels = new Level[64];
+        private int size;
+
+        private BookSide(boolean bids) {
+            this.bids = bids;
+        }
+
+        private Level best() {
+            return size == 0 ? null : levels[size - 1];
+        }
+
+        private void removeBest() {
+            levels[--size] = null;
+        }
+
+        private Level levelAt(long price) {
+            long key = key(price);
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0) {
+                return levels[index];
+            }
+            int insertAt = -index - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                levels = Arrays.copyOf(levels, size * 2);
+            }
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, size - insertAt);
+            System.arraycopy(levels, insertAt, levels, insertAt + 1, size - insertAt);
+            Level level = new Level(price);
+            keys[insertAt] = key;
+            levels[insertAt] = level;
+            size++;
+            return level;
+        }
+
+        private void remove(Level level) {
+            int index = Arrays.binarySearch(keys, 0, size, key(level.price));
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+            levels[--size] = null;
+        }
+
+        private void forEach(Consumer<Order> action) {
+            for (int i = size - 1; i >= 0; i--) {
+                for (Order order = levels[i].head; order != null; order = order.next) {
+                    action.accept(order);
+                }
+            }
+        }
+
+        private long quantityCrossing(Order taker) {
+            long available = 0;
+            for (int i = size - 1; i >= 0 && taker.crosses(levels[i].price) && available < taker.remaining; i--) {
+                available += levels[i].quantity;
+            }
+            return available;
+        }
+
+        private long sweepPrice(long quantity) {
+            long swept = 0;
+            for (int i = size - 1; i >= 0; i--) {
+                swept += levels[i].quantity;
+                if (swept >= quantity || i == 0) {
+                    return levels[i].price;
+                }
+            }
+            return 0;
+        }
+
+        private long key(long price) {
+            return bids ? price : -price;
+        }
+    }
+
+    /**
+     * Resting orders by id: open addressing with linear probing over primitive keys, so lookups do not box.
+     */
+    private static final class OrderIndex {
+        private long[] ids = new long[1024];
+        private Order[] orders = new Order[1024];
+        private int size;
+
+        private Order get(long id) {
+            int mask = orders.length - 1;
+            for (int i = slot(id, mask); orders[i] != null; i = (i + 1) & mask) {
+                if (ids[i] == id) {
+                    return orders[i];
+                }
+            }
+            return null;
+        }
+
+        private void put(Order order) {
+            if (2 * (size + 1) > orders.length) {
+                resize();
+            }
+            insert(order);
+            size++;
+        }
+
+        private Order remove(long id) {
+            int mask = orders.length - 1;
+            int i = slot(id, mask);
+            while (orders[i] != null && ids[i] != id) {
+                i = (i + 1) & mask;
+            }
+            Order removed = orders[i];
+            if (removed == null) {
+                return null;
+            }
+            orders[i] = null;
+            size--;
+
+            // Shift later entries of the probe run back into the gap, so lookups never stop early.
+            for (int j = (i + 1) & mask; orders[j] != null; j = (j + 1) & mask) {
+                int home = slot(ids[j], mask);
+                boolean reachableFromGap = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+                if (reachableFromGap) {
+                    ids[i] = ids[j];
+                    orders[i] = orders[j];
+                    orders[j] = null;
+                    i = j;
+                }
+            }
+            return removed;
+        }
+
+        private void insert(Order order) {
+            int mask = orders.length - 1;
+            int i = slot(order.id, mask);
+            while (orders[i] != null) {
+                i = (i + 1) & mask;
+            }
+            ids[i] = order.id;
+            orders[i] = order;
+        }
+
+        private void resize() {
+            Order[] old = orders;
+            ids = new long[old.length * 2];
+            orders = new Order[old.length * 2];
+            for (Order order : old) {
+                if (order != null) {
+                    insert(order);
+                }
+            }
+        }
+
+        private static int slot(long id, int mask) {
+            // Fibonacci hashing spreads sequential ids over the table.
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package com.aquarius.crypto.service;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal and snapshots of one {@link OrderBook}, kept in a directory of its own.
+ * Every change to the resting orders (an order resting, a fill taking from a resting order, a cancel) is
+ * appended as a fixed-size record with the next sequence number to a memory-mapped segment file, and
+ * {@link #awaitDurable} forces the segment to disk for everyone waiting at once (group commit).
+ * A snapshot holds the resting orders as of one sequence number, so a restart loads the newest snapshot
+ * and replays only the records after it.
+ * Appends and {@link #capture} only run on the book's partition thread; the rest is safe from any thread.
+ */
+@Slf4j
+public class OrderBookJournal {
+    private static final String SVC_NAME = "[OrderBookJournal] ";
+    public static final int RECORD_SIZE = 56;
+    private static final int ADD = 1;
+    private static final int FILL = 2;
+    private static final int CANCEL = 3;
+    private static final int SNAPSHOT_MAGIC = 0x4F42534E;
+    private static final int SNAPSHOT_HEADER_SIZE = 16;
+    private static final int SNAPSHOT_ORDER_LONGS = 6;
+    private static final int SNAPSHOTS_KEPT = 2;
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String INVALID_MARKER = "INVALID";
+
+    private final Path dir;
+    private final int segmentSize;
+    private final Scheduler flusher;
+
+    private volatile Segment current;
+    private volatile long appendedSeq;
+    private volatile long durableSeq;
+    private volatile boolean invalid;
+    private long snapshotSeq = -1;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param segmentSize bytes per segment file, rounded down to whole records
+     * @param flusher     where segments are forced to disk
+     */
+    public OrderBookJournal(Path dir, int segmentSize, Scheduler flusher) {
+        if (segmentSize < RECORD_SIZE) {
+            throw new IllegalArgumentException("A journal segment must hold at least one record");
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize - segmentSize % RECORD_SIZE;
+        this.flusher = flusher;
+    }
+
+    /**
+     * Rebuilds the resting orders as of {@code committedSeq} into the empty {@code into}: the newest snapshot
+     * not past it, then the records after that snapshot up to it. Records after {@code committedSeq} were never
+     * committed to the database and are ignored.
+     *
+     * @return what was loaded, or {@code null} when the files cannot reproduce {@code committedSeq};
+     * {@code into} is then in an undefined state
+     */
+    public Replay replay(long committedSeq, OrderBook into) {
+        if (Files.exists(dir.resolve(INVALID_MARKER))) {
+            return null;
+        }
+        long fromSeq = -1;
+        List<Path> snapshots = files(SNAPSHOT_SUFFIX);
+        // Newest first.
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path file = snapshots.get(i);
+            long seq = seqOf(file);
+            if (seq <= committedSeq && readSnapshot(file, into)) {
+                fromSeq = seq;
+                break;
+            }
+        }
+        if (fromSeq < 0) {
+            return null;
+        }
+
+        long expected = fromSeq + 1;
+        long replayed = 0;
+        List<Path> segments = files(SEGMENT_SUFFIX);
+        for (int i = 0; i < segments.size() && expected <= committedSeq; i++) {
+            long base = seqOf(segments.get(i));
+            // A segment's records end where the next segment starts.
+            long next = i + 1 < segments.size() ? seqOf(segments.get(i + 1)) : Long.MAX_VALUE;
+            if (next <= expected) {
+                continue;
+            }
+            if (base > expected) {
+                return null;
+            }
+            ByteBuffer records = read(segments.get(i));
+            for (long pos = (expected - base) * RECORD_SIZE;
+                 pos + RECORD_SIZE <= records.limit() && expected < next && expected <= committedSeq;
+                 pos += RECORD_SIZE) {
+                if (records.getLong((int) pos) != expected || !apply(records, (int) pos, into)) {
+                    break;
+                }
+                expected++;
+                replayed++;
+            }
+        }
+        return expected > committedSeq ? new Replay(fromSeq, replayed) : null;
+    }
+
+    /**
+     * Starts journaling after {@code committedSeq}, with {@code book} holding the orders as of it: writes
+     * a snapshot of the book and drops every other file, including records past {@code committedSeq}.
+     */
+    public void start(long committedSeq, OrderBook book) {
+        try {
+            Files.createDirectories(dir);
+            appendedSeq = committedSeq;
+            snapshotSeq = -1;
+            writeSnapshot(capture(book));
+            for (Path file : files(SEGMENT_SUFFIX)) {
+                Files.delete(file);
+            }
+            for (Path file : files(SNAPSHOT_SUFFIX)) {
+                if (seqOf(file) != committedSeq) {
+                    Files.delete(file);
+                }
+            }
+            Files.deleteIfExists(dir.resolve(INVALID_MARKER));
+            durableSeq = committedSeq;
+            invalid = false;
+            current = Segment.open(segmentPath(committedSeq + 1), segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean isStarted() {
+        return current != null;
+    }
+
+    public long lastSeq() {
+        return appendedSeq;
+    }
+
+    /**
+     * @return the sequence number of the record
+     */
+    public long appendAdd(OrderBook.Order order) {
+        return append(ADD, order.getId(), order.isBuy() ? 1 : 0, order.getUserId(), order.getPrice(),
+                order.getRemaining(), order.getHeld());
+    }
+
+    public long appendFill(long orderId, long quantity, long heldSpent) {
+        return append(FILL, orderId, 0, 0, 0, quantity, heldSpent);
+    }
+
+    public long appendCancel(long orderId) {
+        return append(CANCEL, orderId, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Completes once every record up to {@code seq} is on disk. Waiters that arrive while a force is running
+     * are served together by the next one.
+     */
+    public Mono<Void> awaitDurable(long seq) {
+        if (seq <= durableSeq || invalid) {
+            return Mono.empty();
+        }
+        return Mono.create(sink -> {
+            waiters.add(new Waiter(seq, sink));
+            requestFlush();
+        });
+    }
+
+    /**
+     * Marks the files as no longer matching the database, e.g. after a change could not be persisted:
+     * the next {@link #replay} refuses them and the book is loaded from the database instead.
+     */
+    public void invalidate() {
+        invalid = true;
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve(INVALID_MARKER), new byte[0]);
+        } catch (IOException e) {
+            // The database is ahead of the journal from now on; replay finds the gap and refuses it as well.
+            log.error(SVC_NAME + "Could not invalidate the journal in {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Copies the resting orders; only on the book's partition thread.
+     *
+     * @return the copy, or {@code null} when nothing changed since the last snapshot
+     */
+    public Snapshot capture(OrderBook book) {
+        long seq = appendedSeq;
+        if (seq == snapshotSeq) {
+            return null;
+        }
+        snapshotSeq = seq;
+        long[] orders = new long[book.restingOrders() * SNAPSHOT_ORDER_LONGS];
+        int[] at = {0};
+        book.forEachResting(order -> {
+            int i = at[0];
+            orders[i] = order.getId();
+            orders[i + 1] = order.getUserId();
+            orders[i + 2] = order.isBuy() ? 1 : 0;
+            orders[i + 3] = order.getPrice();
+            orders[i + 4] = order.getRemaining();
+            orders[i + 5] = order.getHeld();
+            at[0] = i + SNAPSHOT_ORDER_LONGS;
+        });
+        return new Snapshot(seq, orders);
+    }
+
+    /**
+     * Writes the snapshot, then deletes the snapshots and segments no longer needed to replay from the
+     * {@value #SNAPSHOTS_KEPT} newest ones.
+     */
+    public void writeSnapshot(Snapshot snapshot) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE + snapshot.orders().length * Long.BYTES + Long.BYTES);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(snapshot.orders().length / SNAPSHOT_ORDER_LONGS).putLong(snapshot.seq());
+            for (long value : snapshot.orders()) {
+                buffer.putLong(value);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 0, buffer.position());
+            buffer.putLong(crc.getValue()).flip();
+
+            Path tmp = dir.resolve(name(snapshot.seq(), SNAPSHOT_SUFFIX) + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, dir.resolve(name(snapshot.seq(), SNAPSHOT_SUFFIX)), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            prune();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Forces what was appended; no records may be appended afterwards.
+     */
+    public void close() {
+        Segment segment = current;
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    private long append(int type, long orderId, int flags, long userId, long price, long quantity, long held) {
+        Segment segment = current;
+        if (segment == null) {
+            throw new IllegalStateException("Journal " + dir + " is not started");
+        }
+        long seq = appendedSeq + 1;
+        if (!invalid && segment.isFull()) {
+            segment = roll(seq);
+        }
+        // An invalidated journal is no longer replayed, so its records are only counted.
+        if (invalid) {
+            appendedSeq = seq;
+            return seq;
+        }
+        segment.put(seq, type, flags, orderId, userId, price, quantity, held);
+        appendedSeq = seq;
+        return seq;
+    }
+
+    // Forces the full segment here, on the book's thread, so a flush only ever has to force the current one.
+    // The book has already changed when this runs, so a failure invalidates the journal instead of failing the change.
+    private Segment roll(long nextSeq) {
+        try {
+            current.force();
+            current = Segment.open(segmentPath(nextSeq), segmentSize);
+        } catch (IOException | UncheckedIOException e) {
+            log.error(SVC_NAME + "Could not start a new journal segment in {}: {}", dir, e.getMessage());
+            invalidate();
+        }
+        return current;
+    }
+
+    private void requestFlush() {
+        if (flushing.compareAndSet(false, true)) {
+            flusher.schedule(this::flush);
+        }
+    }
+
+    private void flush() {
+        // Read before the segment: records up to it are either in the segment read next or were forced by a roll.
+        long target = appendedSeq;
+        RuntimeException failure = null;
+        try {
+            current.force();
+            durableSeq = Math.max(durableSeq, target);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        flushing.set(false);
+
+        for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+            Waiter waiter = it.next();
+            if (failure != null) {
+                it.remove();
+                waiter.sink().error(failure);
+            } else if (waiter.seq() <= durableSeq) {
+                it.remove();
+                waiter.sink().success();
+            }
+        }
+        if (!waiters.isEmpty()) {
+            requestFlush();
+        }
+    }
+
+    private static boolean apply(ByteBuffer records, int pos, OrderBook into) {
+        long orderId = records.getLong(pos + 16);
+        switch (records.getInt(pos + 8)) {
+            case ADD -> {
+                if (into.get(orderId) != null) {
+                    return false;
+                }
+                into.restore(new OrderBook.Order(orderId, records.getLong(pos + 24), records.getInt(pos + 12) == 1,
+                        records.getLong(pos + 32), records.getLong(pos + 40), records.getLong(pos + 48)));
+                return true;
+            }
+            case FILL -> {
+                return into.reduce(orderId, records.getLong(pos + 40), records.getLong(pos + 48)) != null;
+            }
+            case CANCEL -> {
+                return into.cancel(orderId) != null;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return false when the snapshot is damaged; {@code into} is left empty then
+     */
+    private boolean readSnapshot(Path file, OrderBook into) {
+        ByteBuffer buffer = read(file);
+        if (buffer.limit() < SNAPSHOT_HEADER_SIZE + Long.BYTES || buffer.getInt(0) != SNAPSHOT_MAGIC) {
+            return false;
+        }
+        int count = buffer.getInt(4);
+        int end = SNAPSHOT_HEADER_SIZE + count * SNAPSHOT_ORDER_LONGS * Long.BYTES;
+        if (count < 0 || end + Long.BYTES != buffer.limit()) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, end));
+        if (crc.getValue() != buffer.getLong(end)) {
+            return false;
+        }
+        for (int pos = SNAPSHOT_HEADER_SIZE; pos < end; pos += SNAPSHOT_ORDER_LONGS * Long.BYTES) {
+            into.restore(new OrderBook.Order(buffer.getLong(pos), buffer.getLong(pos + 8), buffer.getLong(pos + 16) == 1,
+                    buffer.getLong(pos + 24), buffer.getLong(pos + 32), buffer.getLong(pos + 40)));
+        }
+        return true;
+    }
+
+    private void prune() throws IOException {
+        List<Path> snapshots = files(SNAPSHOT_SUFFIX);
+        if (snapshots.size() < SNAPSHOTS_KEPT) {
+            return;
+        }
+        for (Path file : snapshots.subList(0, snapshots.size() - SNAPSHOTS_KEPT)) {
+            Files.deleteIfExists(file);
+        }
+        long oldestKept = seqOf(snapshots.get(snapshots.size() - SNAPSHOTS_KEPT));
+        List<Path> segments = files(SEGMENT_SUFFIX);
+        // A segment only holds records up to where the next one starts; the newest one is never deleted.
+        for (int i = 0; i + 1 < segments.size() && seqOf(segments.get(i + 1)) <= oldestKept + 1; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private List<Path> files(String suffix) {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix))
+                    .sorted(Comparator.comparingLong(OrderBookJournal::seqOf))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer read(Path file) {
+        try {
+            return ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentPath(long baseSeq) {
+        return dir.resolve(name(baseSeq, SEGMENT_SUFFIX));
+    }
+
+    // Zero-padded, so a directory listing sorts the files in sequence order as well.
+    private static String name(long seq, String suffix) {
+        return String.format("%020d%s", seq, suffix);
+    }
+
+    private static long seqOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.indexOf('.')));
+    }
+
+    /**
+     * @param snapshotSeq the sequence number of the snapshot the replay started from
+     * @param replayed    journal records applied on top of it
+     */
+    public record Replay(long snapshotSeq, long replayed) {
+    }
+
+    /**
+     * Resting orders as of {@code seq}, six longs each: id, user id, buy flag, price, remaining, held.
+     */
+    public record Snapshot(long seq, long[] orders) {
+        public int size() {
+            return orders.length / SNAPSHOT_ORDER_LONGS;
+        }
+    }
+
+    private record Waiter(long seq, MonoSink<Void> sink) {
+    }
+
+    /**
+     * One mapped segment file. Record layout: seq, type (int), buy flag (int), order id, user id, price,
+     * quantity, held. An unwritten slot reads as sequence 0, which ends a replay.
+     */
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        private volatile int written;
+
+        private Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private static Segment open(Path file, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                // The mapping outlives the channel.
+                return new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        private boolean isFull() {
+            return written + RECORD_SIZE > buffer.capacity();
+        }
+
+        private void put(long seq, int type, int flags, long orderId, long userId, long price, long quantity, long held) {
+            int pos = written;
+            buffer.putLong(pos, seq)
+                    .putInt(pos + 8, type)
+                    .putInt(pos + 12, flags)
+                    .putLong(pos + 16, orderId)
+                    .putLong(pos + 24, userId)
+                    .putLong(pos + 32, price)
+                    .putLong(pos + 40, quantity)
+                    .putLong(pos + 48, held);
+            written = pos + RECORD_SIZE;
+        }
+
+        private void force() {
+            int length = written;
+            if (length > 0) {
+                buffer.force(0, length);
+            }
+        }
+    }
+}
@@ -0,0 +1,582 @@
+package com.aquarius.crypto.service;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.config.tenant.TenantContext;
+import com.aquarius.crypto.dto.OrderStatus;
+import com.aquarius.crypto.dto.OrderType;
+import com.aquarius.crypto.dto.TimeInForce;
+import com.aquarius.crypto.dto.TradeType;
+import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.dto.response.OrderResponse;
+import com.aquarius.crypto.dto.response.TradingHistoryResponse;
+import com.aquarius.crypto.exception.InsufficientBalanceException;
+import com.aquarius.crypto.model.Order;
+import com.aquarius.crypto.model.TradingTransaction;
+import com.aquarius.crypto.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.aquarius.crypto.constants.ConstStrings.BTC_PAIR;
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+
+/**
+ * Limit and market orders against in-memory {@link OrderBook}s ({@code app.trading.order-book.enabled}).
+ * Each tenant has its own book per symbol. Orders and journal checkpoints are stored per tenant.
+ * Every book is pinned to one single-threaded partition, and the partitions spread the books over the cores.
+ * An order's funds are held in the database before it reaches its book. Each match is then persisted
+ * in one transaction: the fills credit both sides, leave an audit row each and move both orders on.
+ * Matches of one book are persisted strictly in the order they happened.
+ * Every change to a book's resting orders also goes to its {@link OrderBookJournal}. The transaction that
+ * persists a change records its journal sequence number in {@code order_book_checkpoints}, and it only commits
+ * once the journal is on disk. On first use, a tenant's books are rebuilt from their latest snapshot and the
+ * journal up to that checkpoint. When the files cannot do that, the books are loaded from the OPEN orders instead.
+ * If persisting a change fails, the database keeps the orders as they were before it, so the book no longer matches
+ * it: its journal is invalidated and the book is fenced, rejecting orders and cancels, until the writes queued
+ * before the failure have run and the book is rebuilt from the OPEN orders in the database.
+ * The books assume a single application instance per database.
+ */
+@Slf4j
+@Service
+public class OrderBookService {
+    private static final String SVC_NAME = "[OrderBookService] ";
+    private static final String QUOTE_CURRENCY = "USDT";
+    private static final String FILL_STATUS = "COMPLETED";
+    private static final Set<String> SYMBOLS = Set.of(ETH_PAIR, BTC_PAIR);
+
+    private final WalletService walletService;
+    private final OrderRepository orderRepository;
+    private final TransactionalOperator rxtx;
+    private final boolean enabled;
+    private final Scheduler[] partitions;
+    private final Scheduler journalFlusher;
+    private final Path journalDir;
+    private final int journalSegmentSize;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<BookKey, Book> books = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Mono<Void>> recoveries = new ConcurrentHashMap<>();
+    private final Timer matchTimer;
+
+    public OrderBookService(WalletService walletService, OrderRepository orderRepository,
+                            TransactionalOperator rxtx, MeterRegistry meterRegistry,
+                            @Value("${app.trading.order-book.enabled:false}") boolean enabled,
+                            @Value("${app.trading.order-book.partitions:0}") int partitions,
+                            @Value("${app.trading.order-book.journal.dir:data/order-book}") String journalDir,
+                            @Value("${app.trading.order-book.journal.segment-size-mb:64}") int journalSegmentSizeMb) {
+        if (enabled && walletService.isLedgerEnabled()) {
+            throw new IllegalStateException("The order book settles in the database and cannot run with the wallet ledger enabled");
+        }
+        this.walletService = walletService;
+        this.orderRepository = orderRepository;
+        this.rxtx = rxtx;
+        this.enabled = enabled;
+        int partitionCount = !enabled ? 0 : partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+        this.partitions = new Scheduler[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            this.partitions[i] = Schedulers.newSingle("order-book-" + i, true);
+        }
+        this.journalFlusher = enabled ? Schedulers.newSingle("order-book-journal", true) : null;
+        this.journalDir = Path.of(journalDir);
+        this.journalSegmentSize = journalSegmentSizeMb * 1024 * 1024;
+        this.meterRegistry = meterRegistry;
+        this.matchTimer = Timer.builder("crypto.order_book.match")
+                .description("Time to match one order against its book, excluding persistence")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Holds the order's funds, matches it against its book and persists the fills.
+     * A market order is matched as an IOC order limited to the worst price the book offers for its quantity
+     * when it arrives, and holds funds for that price; whatever it does not use is given back.
+     */
+    public Mono<OrderResponse> placeOrder(TradingRequest req) {
+        if (!enabled) {
+            return Mono.error(new IllegalStateException("The order book is disabled"));
+        }
+        String symbol = req.getSymbol().toUpperCase();
+        if (!SYMBOLS.contains(symbol)) {
+            return Mono.error(new IllegalArgumentException("Unsupported symbol: " + req.getSymbol()));
+        }
+        TradeType side = TradeType.valueOf(req.getTradeType());
+        OrderType orderType = OrderType.valueOf(req.getOrderType());
+        TimeInForce timeInForce = TimeInForce.valueOf(req.getTimeInForce());
+        long quantity = FixedPoint.fromBigDecimal(req.getQuantity());
+        String base = symbol.replace(QUOTE_CURRENCY, "");
+        String holdCurrency = side == TradeType.BUY ? QUOTE_CURRENCY : base;
+        String otherCurrency = side == TradeType.BUY ? base : QUOTE_CURRENCY;
+
+        return Mono.deferContextual(ctx -> {
+            String tenant = TenantContext.getTenantId(ctx);
+            return recovered(tenant)
+                .then(limitPrice(new BookKey(tenant, symbol), side, orderType, quantity, req.getPrice()))
+                .flatMap(price -> {
+                    long held = side == TradeType.BUY ? FixedPoint.multiply(price, quantity) : quantity;
+                    Order order = Order.builder()
+                            .tenantId(tenant)
+                            .userId(req.getUserId())
+                            .symbol(symbol)
+                            .side(side)
+                            .orderType(orderType)
+                            .timeInForce(timeInForce)
+                            .price(FixedPoint.toBigDecimal(price))
+                            .quantity(FixedPoint.toBigDecimal(quantity))
+                            .filledQuantity(BigDecimal.ZERO)
+                            .heldAmount(FixedPoint.toBigDecimal(held))
+                            .status(OrderStatus.NEW)
+                            .createdAt(Instant.now())
+                            .build();
+                    return walletService.placeOrder(order, holdCurrency, FixedPoint.toBigDecimal(held), otherCurrency)
+                            .switchIfEmpty(placementRejected(req.getUserId(), holdCurrency, otherCurrency))
+                            .flatMap(placed -> match(new BookKey(tenant, symbol), placed, new OrderBook.Order(
+                                    placed.getId(), placed.getUserId(), side == TradeType.BUY, price, quantity, held)));
+                });
+        });
+    }
+
+    /**
+     * Takes a resting order of the user out of its book and gives back the funds it still holds.
+     */
+    public Mono<OrderResponse> cancelOrder(Long userId, Long orderId) {
+        if (!enabled) {
+            return Mono.error(new IllegalStateException("The order book is disabled"));
+        }
+        return Mono.deferContextual(ctx -> {
+            String tenant = TenantContext.getTenantId(ctx);
+            return recovered(tenant)
+                .then(Mono.defer(() -> orderRepository.findById(orderId)))
+                .filter(order -> tenant.equals(order.getTenantId()) && order.getUserId().equals(userId))
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Order " + orderId + " not found")))
+                .flatMap(order -> onBook(new BookKey(tenant, order.getSymbol()), book -> {
+                    ensureServing(book);
+                    OrderBook.Order cancelled = book.orders.cancel(orderId);
+                    if (cancelled == null) {
+                        return Mono.<OrderResponse>error(new IllegalArgumentException("Order " + orderId + " is not open"));
+                    }
+                    long seq = book.journal.appendCancel(orderId);
+                    BigDecimal filled = FixedPoint.toBigDecimal(
+                            FixedPoint.fromBigDecimal(order.getQuantity()) - cancelled.getRemaining());
+                    return book.write(close(order, cancelled.getHeld(), OrderStatus.CANCELLED)
+                            .then(commitJournal(book, seq))
+                            .as(rxtx::transactional)
+                            .onErrorResume(e -> diverged(book, orderId, null, e))
+                            .thenReturn(OrderResponse.of(order, filled, OrderStatus.CANCELLED, List.of())));
+                }))
+                .flatMap(Function.identity());
+        });
+    }
+
+    /**
+     * Snapshots every book that changed since its last snapshot. The resting orders are copied on the book's
+     * thread and written to disk off it.
+     */
+    @Scheduled(fixedDelayString = "${app.trading.order-book.snapshot-interval-ms:60000}")
+    public void scheduledSnapshot() {
+        if (enabled) {
+            snapshot().subscribe();
+        }
+    }
+
+    public Mono<Void> snapshot() {
+        return Flux.fromIterable(books.entrySet())
+                .concatMap(entry -> onBook(entry.getKey(), book -> book.journal.isStarted() ? book.journal.capture(book.orders) : null)
+                        .publishOn(Schedulers.boundedElastic())
+                        .doOnNext(snapshot -> {
+                            entry.getValue().journal.writeSnapshot(snapshot);
+                            log.debug(SVC_NAME + "Snapshot of {} at {} with {} orders", entry.getKey(), snapshot.seq(), snapshot.size());
+                        })
+                        .onErrorResume(e -> {
+                            log.error(SVC_NAME + "Snapshot of {} failed: {}", entry.getKey(), e.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Scheduler partition : partitions) {
+            partition.dispose();
+        }
+        books.values().forEach(book -> book.journal.close());
+        if (journalFlusher != null) {
+            journalFlusher.dispose();
+        }
+    }
+
+    private Mono<Long> limitPrice(BookKey key, TradeType side, OrderType orderType, long quantity, BigDecimal price) {
+        if (orderType == OrderType.LIMIT) {
+            return onBook(key, book -> {
+                ensureServing(book);
+                return FixedPoint.fromBigDecimal(price);
+            });
+        }
+        return onBook(key, book -> {
+                    ensureServing(book);
+                    return book.orders.sweepPrice(side == TradeType.BUY, quantity);
+                })
+                .filter(sweepPrice -> sweepPrice > 0)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("No liquidity for a market order on " + key.symbol())));
+    }
+
+    private Mono<Order> placementRejected(Long userId, String holdCurrency, String otherCurrency) {
+        return Flux.just(holdCurrency, otherCurrency)
+                .concatMap(currency -> walletService.findByUserAndCurrency(userId, currency)
+                        .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Wallet not found for currency: " + currency))))
+                .then(Mono.error(() -> new InsufficientBalanceException("Insufficient " + holdCurrency + " balance")));
+    }
+
+    private Mono<OrderResponse> match(BookKey key, Order placed, OrderBook.Order taker) {
+        return onBook(key, book -> {
+            if (book.fenced) {
+                // Fenced after this order passed the check; its funds are given back right away.
+                return close(placed, taker.getHeld(), OrderStatus.EXPIRED)
+                        .then(Mono.<OrderResponse>error(rebuilding(book)));
+            }
+            List<Fill> fills = new ArrayList<>();
+            long start = System.nanoTime();
+            boolean rests = book.orders.submit(taker, placed.getTimeInForce(), (maker, ignored, price, quantity, cost) ->
+                    fills.add(new Fill(maker.getId(), maker.getUserId(), maker.isBuy(), price, quantity, cost,
+                            maker.getRemaining() == 0 ? maker.getHeld() : 0)));
+            matchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            for (Fill fill : fills) {
+                // What the maker paid out of its holds: the cost for a buyer, the quantity for a seller.
+                book.journal.appendFill(fill.makerId(), fill.quantity(), fill.makerBuys() ? fill.cost() : fill.quantity());
+            }
+            if (rests) {
+                book.journal.appendAdd(taker);
+            }
+            long seq = book.journal.lastSeq();
+
+            OrderStatus status = taker.getRemaining() == 0 ? OrderStatus.FILLED
+                    : rests ? OrderStatus.OPEN : OrderStatus.EXPIRED;
+            long released = rests ? 0 : taker.getHeld();
+            BigDecimal filled = FixedPoint.toBigDecimal(FixedPoint.fromBigDecimal(placed.getQuantity()) - taker.getRemaining());
+            return book.write(persistMatch(book, placed, fills, status, released, seq)
+                    .map(takerFills -> OrderResponse.of(placed, filled, status, takerFills)));
+        }).flatMap(Function.identity());
+    }
+
+    /**
+     * Writes both sides of every fill and closes the taker in one transaction, together with the journal
+     * checkpoint {@code seq}. The statements run in (user, currency) order of the wallet they credit, so
+     * concurrent matches lock wallets in the same order.
+     *
+     * @return the taker's fills
+     */
+    private Mono<List<TradingHistoryResponse>> persistMatch(Book book, Order taker, List<Fill> fills, OrderStatus status,
+                                                            long released, long seq) {
+        boolean takerBuys = taker.getSide() == TradeType.BUY;
+        String base = taker.getSymbol().replace(QUOTE_CURRENCY, "");
+        Instant now = Instant.now();
+
+        List<WalletWrite> writes = new ArrayList<>();
+        for (Fill fill : fills) {
+            writes.add(settleSide(fill.makerUserId(), fill.makerId(), !takerBuys, taker.getSymbol(), base, fill, now));
+            if (fill.makerReleased() > 0) {
+                Order maker = Order.builder().id(fill.makerId()).userId(fill.makerUserId()).symbol(taker.getSymbol())
+                        .side(takerBuys ? TradeType.SELL : TradeType.BUY).build();
+                writes.add(new WalletWrite(fill.makerUserId(), holdCurrency(maker),
+                        () -> close(maker, fill.makerReleased(), OrderStatus.FILLED)));
+            }
+            writes.add(settleSide(taker.getUserId(), taker.getId(), takerBuys, taker.getSymbol(), base, fill, now));
+        }
+        writes.add(new WalletWrite(taker.getUserId(), holdCurrency(taker), () -> close(taker, released, status)));
+        writes.sort(Comparator.comparing(WalletWrite::userId).thenComparing(WalletWrite::currency));
+
+        return Flux.fromIterable(writes)
+                .concatMap(write -> write.statement().get())
+                .ofType(TradingTransaction.class)
+                .filter(fill -> taker.getId().equals(fill.getOrderId()))
+                .map(TradingHistoryResponse::fromEntity)
+                .collectList()
+                .flatMap(takerFills -> commitJournal(book, seq).thenReturn(takerFills))
+                .as(rxtx::transactional)
+                // A deadlock or serialization failure rolled everything back, so the match can be written again.
+                .retryWhen(Retry.backoff(3, Duration.ofMillis(50))
+                        .filter(e -> e instanceof TransientDataAccessException))
+                .onErrorResume(e -> diverged(book, taker.getId(), taker.getId(), e));
+    }
+
+    /**
+     * Records the journal checkpoint and holds the transaction until the journal is on disk up to it, so the
+     * database never commits a change a restart could not replay.
+     */
+    private Mono<Void> commitJournal(Book book, long seq) {
+        return orderRepository.saveCheckpoint(book.key.tenant(), book.key.symbol(), seq, Instant.now())
+                .then(book.journal.awaitDurable(seq));
+    }
+
+    /**
+     * Fences the book after a change to order {@code orderId} could not be persisted, then fails with {@code e}.
+     * The fence is raised on the book's thread before the failed write leaves the queue, so every write queued
+     * behind it still runs, and any of them that fails adds its taker, before the rebuild does.
+     *
+     * @param strandedOrderId the taker whose placement rolled back and is left NEW with its funds held, if any
+     */
+    private <T> Mono<T> diverged(Book book, Long orderId, Long strandedOrderId, Throwable e) {
+        log.error(SVC_NAME + "Persisting the change to order {} failed, book {} is rebuilt from the database: {}",
+                orderId, book.key, e.getMessage());
+        book.journal.invalidate();
+        return onBook(book.key, b -> {
+            if (strandedOrderId != null) {
+                b.stranded.add(strandedOrderId);
+            }
+            b.fenced = true;
+            scheduleRebuild(b);
+            return true;
+        }).then(Mono.error(e));
+    }
+
+    private void ensureServing(Book book) {
+        if (book.fenced) {
+            // A rebuild that failed is tried again by the next order.
+            scheduleRebuild(book);
+            throw rebuilding(book);
+        }
+    }
+
+    private static IllegalStateException rebuilding(Book book) {
+        return new IllegalStateException("The order book of " + book.key.symbol() + " is being rebuilt, try again shortly");
+    }
+
+    /**
+     * Queues the rebuild of a fenced book behind its pending writes; only on the book's partition thread.
+     * It gives back the funds of the stranded takers, reloads the book from the database and lifts the fence.
+     */
+    private void scheduleRebuild(Book book) {
+        if (book.rebuildQueued) {
+            return;
+        }
+        book.rebuildQueued = true;
+        Mono<Void> rebuild = onBook(book.key, b -> List.copyOf(b.stranded))
+                .flatMap(stranded -> Flux.fromIterable(stranded)
+                        .concatMap(orderId -> orderRepository.findById(orderId)
+                                .filter(order -> order.getStatus() == OrderStatus.NEW)
+                                .flatMap(order -> close(order, FixedPoint.fromBigDecimal(order.getHeldAmount()), OrderStatus.EXPIRED)))
+                        .then(orderRepository.findCheckpoint(book.key.tenant(), book.key.symbol()).defaultIfEmpty(0L))
+                        .flatMap(committedSeq -> loadFromDatabase(book.key, committedSeq, b -> {
+                            b.stranded.removeAll(stranded);
+                            b.fenced = false;
+                            b.rebuildQueued = false;
+                        })))
+                .doOnNext(loaded -> log.info(SVC_NAME + "Book {} rebuilt from {} open orders in the database", book.key, loaded))
+                .then()
+                .onErrorResume(e -> {
+                    log.error(SVC_NAME + "Rebuilding book {} failed, it stays fenced: {}", book.key, e.getMessage());
+                    return onBook(book.key, b -> b.rebuildQueued = false).then();
+                });
+        book.write(rebuild);
+    }
+
+    private WalletWrite settleSide(Long userId, Long orderId, boolean buys, String symbol, String base, Fill fill, Instant now) {
+        TradingTransaction audit = TradingTransaction.builder()
+                .userId(userId)
+                .orderId(orderId)
+                .symbol(symbol)
+                .tradeType(buys ? TradeType.BUY : TradeType.SELL)
+                .quantity(FixedPoint.toBigDecimal(fill.quantity()))
+                .price(FixedPoint.toBigDecimal(fill.price()))
+                .totalAmount(FixedPoint.toBigDecimal(fill.cost()))
+                .status(FILL_STATUS)
+                .createdAt(now)
+                .build();
+        // The buyer spends quote currency and receives base; the seller the other way round.
+        String creditCurrency = buys ? base : QUOTE_CURRENCY;
+        long spent = buys ? fill.cost() : fill.quantity();
+        long credited = buys ? fill.quantity() : fill.cost();
+        return new WalletWrite(userId, creditCurrency, () -> walletService.settleFill(audit, orderId,
+                        FixedPoint.toBigDecimal(spent), creditCurrency, FixedPoint.toBigDecimal(credited))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Could not settle a fill of order " + orderId))));
+    }
+
+    private Mono<Long> close(Order order, long released, OrderStatus status) {
+        return walletService.closeOrder(order.getId(), order.getUserId(), holdCurrency(order),
+                        FixedPoint.toBigDecimal(released), status)
+                .filter(rows -> rows > 0)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Could not close order " + order.getId())));
+    }
+
+    private static String holdCurrency(Order order) {
+        return order.getSide() == TradeType.BUY ? QUOTE_CURRENCY : order.getSymbol().replace(QUOTE_CURRENCY, "");
+    }
+
+    /**
+     * Runs {@code action} on the partition thread of the book.
+     */
+    private <T> Mono<T> onBook(BookKey key, Function<Book, T> action) {
+        return Mono.defer(() -> {
+            Book book = books.computeIfAbsent(key, this::newBook);
+            return Mono.fromCallable(() -> action.apply(book)).subscribeOn(book.partition);
+        });
+    }
+
+    private Book newBook(BookKey key) {
+        OrderBookJournal journal = new OrderBookJournal(
+                journalDir.resolve(key.tenant()).resolve(key.symbol()), journalSegmentSize, journalFlusher);
+        return new Book(key, new OrderBook(key.symbol()), journal,
+                partitions[Math.floorMod(key.hashCode(), partitions.length)]);
+    }
+
+    private Mono<Void> recovered(String tenant) {
+        // A failed recovery is retried by the next caller instead of being cached.
+        return recoveries.computeIfAbsent(tenant, t -> recover(t)
+                .cache(ignored -> Duration.ZERO, error -> Duration.ZERO, () -> Duration.ofMillis(Long.MAX_VALUE)));
+    }
+
+    /**
+     * Cancels the tenant's orders that never reached their book, then rebuilds each of its books.
+     */
+    private Mono<Void> recover(String tenant) {
+        return Mono.defer(() -> walletService.releaseNewOrders(tenant, QUOTE_CURRENCY))
+                .doOnNext(released -> {
+                    if (released > 0) {
+                        log.warn(SVC_NAME + "Gave back the funds of {} orders of tenant {} that were never matched", released, tenant);
+                    }
+                })
+                .thenMany(Flux.fromIterable(SYMBOLS))
+                .concatMap(symbol -> orderRepository.findCheckpoint(tenant, symbol)
+                        .defaultIfEmpty(0L)
+                        .flatMap(committedSeq -> recoverBook(new BookKey(tenant, symbol), committedSeq)))
+                .then()
+                .contextWrite(Context.of(TenantContext.TENANT_ID_KEY, tenant));
+    }
+
+    /**
+     * Replays the book's journal up to {@code committedSeq}, or loads its OPEN orders from the database when the
+     * journal cannot reproduce it. Either way the journal starts over from a fresh snapshot.
+     */
+    private Mono<Void> recoverBook(BookKey key, long committedSeq) {
+        long start = System.nanoTime();
+        Mono<String> fromJournal = onBook(key, book -> {
+            OrderBook replayed = new OrderBook(key.symbol());
+            OrderBookJournal.Replay replay = book.journal.replay(committedSeq, replayed);
+            if (replay == null) {
+                return null;
+            }
+            book.orders = replayed;
+            book.journal.start(committedSeq, replayed);
+            return "the snapshot at " + replay.snapshotSeq() + " and " + replay.replayed() + " journal records";
+        });
+        Mono<String> fromDatabase = loadFromDatabase(key, committedSeq, book -> {
+        }).map(loaded -> loaded + " open orders in the database");
+
+        return fromJournal
+                .map(source -> Map.entry("journal", source))
+                .switchIfEmpty(fromDatabase.map(source -> Map.entry("database", source)))
+                .doOnNext(loaded -> {
+                    long elapsed = System.nanoTime() - start;
+                    Timer.builder("crypto.order_book.recovery")
+                            .description("Time to rebuild one order book on startup")
+                            .tag("source", loaded.getKey())
+                            .register(meterRegistry)
+                            .record(elapsed, TimeUnit.NANOSECONDS);
+                    log.info(SVC_NAME + "Order book {} of tenant {} recovered in {} ms from {}, checkpoint {}",
+                            key.symbol(), key.tenant(), TimeUnit.NANOSECONDS.toMillis(elapsed), loaded.getValue(), committedSeq);
+                })
+                .then();
+    }
+
+    /**
+     * Replaces the book with its OPEN orders in the database and restarts its journal from {@code committedSeq}.
+     * {@code onLoaded} runs on the book's thread right after the swap.
+     *
+     * @return the number of orders loaded
+     */
+    private Mono<Integer> loadFromDatabase(BookKey key, long committedSeq, Consumer<Book> onLoaded) {
+        return Flux.defer(() -> orderRepository.findOpenOrdersBySymbol(key.tenant(), key.symbol()))
+                .collectList()
+                .flatMap(open -> onBook(key, book -> {
+                    OrderBook loaded = new OrderBook(key.symbol());
+                    for (Order order : open) {
+                        loaded.restore(new OrderBook.Order(order.getId(), order.getUserId(),
+                                order.getSide() == TradeType.BUY, FixedPoint.fromBigDecimal(order.getPrice()),
+                                FixedPoint.fromBigDecimal(order.getQuantity()) - FixedPoint.fromBigDecimal(order.getFilledQuantity()),
+                                FixedPoint.fromBigDecimal(order.getHeldAmount())));
+                    }
+                    book.orders = loaded;
+                    book.journal.start(committedSeq, loaded);
+                    onLoaded.accept(book);
+                    return open.size();
+                }));
+    }
+
+    /**
+     * A book with the queue its matches are persisted through, one after another.
+     * Writes are only enqueued from the book's partition thread.
+     */
+    private static final class Book {
+        private final BookKey key;
+        // Replaced by the recovery, before any order reaches the book.
+        private OrderBook orders;
+        private final OrderBookJournal journal;
+        private final Scheduler partition;
+        private final Sinks.Many<Mono<Void>> writes = Sinks.many().unicast().onBackpressureBuffer();
+        // Fence state, only touched on the partition thread.
+        private boolean fenced;
+        private boolean rebuildQueued;
+        private final List<Long> stranded = new ArrayList<>();
+
+        private Book(BookKey key, OrderBook orders, OrderBookJournal journal, Scheduler partition) {
+            this.key = key;
+            this.orders = orders;
+            this.journal = journal;
+            this.partition = partition;
+            // The queue outlives the request that created it, so it carries the tenant its writes are routed to.
+            writes.asFlux().concatMap(Function.identity())
+                    .contextWrite(Context.of(TenantContext.TENANT_ID_KEY, key.tenant()))
+                    .subscribe();
+        }
+
+        /**
+         * @return the result of {@code write} once it and every write enqueued before it have finished
+         */
+        private <T> Mono<T> write(Mono<T> write) {
+            Sinks.One<T> done = Sinks.one();
+            writes.tryEmitNext(write
+                    .doOnSuccess(done::tryEmitValue)
+                    .doOnError(done::tryEmitError)
+                    .then()
+                    .onErrorResume(e -> Mono.empty()));
+            return done.asMono();
+        }
+    }
+
+    private record BookKey(String tenant, String symbol) {
+    }
+
+    private record Fill(long makerId, long makerUserId, boolean makerBuys, long price, long quantity, long cost,
+                        long makerReleased) {
+    }
+
+    private record WalletWrite(Long userId, String currency, Supplier<Mono<?>> statement) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.aquarius.crypto.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Housekeeping for the daily-partitioned {@code price_aggregations} table of every tenant schema:
+ * pre-creates upcoming partitions, rolls raw ticks into the 1-minute / 1-hour candle tables,
+ * and drops raw partitions past the retention window once they are rolled up.
+ * The work itself lives in the functions created by {@code V4_0_0__partition_price_aggregations.sql}
+ * (the rollup as redefined by {@code V12_0_0__rollup_price_aggregations_lookback.sql}).
+ */
+@Slf4j
+@Service
+public class PriceAggregationMaintenanceService {
+    private static final String SVC_NAME = "[PriceAggregationMaintenanceService] ";
+    // Schema names are spliced into SQL, so only plain identifiers are accepted.
+    private static final Pattern SCHEMA_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final DatabaseClient databaseClient;
+    private final List<String> tenantSchemas;
+
+    @Value("${crypto.price-maintenance.partitions-ahead-days:3}")
+    private int partitionsAheadDays;
+    @Value("${crypto.price-maintenance.raw-retention-days:7}")
+    private int rawRetentionDays;
+    // Minutes already rolled up are recomputed this far back, folding in raw rows that were inserted late.
+    @Value("${crypto.price-maintenance.rollup-lookback-minutes:15}")
+    private int rollupLookbackMinutes;
+
+    public PriceAggregationMaintenanceService(DatabaseClient databaseClient,
+                                              @Value("${spring.flyway.schemas:public}") List<String> tenantSchemas) {
+        this.databaseClient = databaseClient;
+        this.tenantSchemas = tenantSchemas.stream()
+                .map(String::trim)
+                .filter(schema -> {
+                    boolean valid = SCHEMA_NAME.matcher(schema).matches();
+                    if (!valid) {
+                        log.warn(SVC_NAME + "Skipping tenant schema with unsupported name: {}", schema);
+                    }
+                    return valid;
+                })
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${crypto.price-maintenance.interval-ms:300000}")
+    public void runMaintenance() {
+        maintainAll().subscribe();
+    }
+
+    public Mono<Void> maintainAll() {
+        return Flux.fromIterable(tenantSchemas)
+                .concatMap(schema -> maintain(schema)
+                        .onErrorResume(e -> {
+                            log.error(SVC_NAME + "Price maintenance failed for schema {}: {}", schema, e.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private Mono<Void> maintain(String schema) {
+        Mono<Integer> createPartitions = databaseClient
+                .sql("SELECT \"" + schema + "\".create_price_aggregation_partitions(CURRENT_DATE, :days)")
+                .bind("days", partitionsAheadDays + 1)
+                .map(row -> row.get(0, Integer.class))
+                .one();
+        Mono<Void> rollup = databaseClient
+                .sql("SELECT \"" + schema + "\".rollup_price_aggregations(LOCALTIMESTAMP, make_interval(mins => :lookback))")
+                .bind("lookback", rollupLookbackMinutes)
+                .then();
+        // Candles are rolled up first; the function itself also refuses to drop anything not rolled up yet.
+        Mono<Integer> dropPartitions = databaseClient
+                .sql("SELECT \"" + schema + "\".drop_price_aggregation_partitions(CURRENT_DATE - :days)")
+                .bind("days", rawRetentionDays)
+                .map(row -> row.get(0, Integer.class))
+                .one();
+
+        return createPartitions
+                .doOnNext(created -> logIfAny("Created {} price partitions in {}", created, schema))
+                .then(rollup)
+                .then(dropPartitions)
+                .doOnNext(dropped -> logIfAny("Dropped {} expired price partitions in {}", dropped, schema))
+                .then();
+    }
+
+    private void logIfAny(String message, Integer count, String schema) {
+        if (count != null && count > 0) {
+            log.info(SVC_NAME + message, count, schema);
+        }
+    }
+}
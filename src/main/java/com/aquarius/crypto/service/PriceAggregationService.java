@@ -4,8 +4,10 @@ import com.aquarius.crypto.dto.response.AggregatedPriceResponse;
 import com.aquarius.crypto.dto.third_party.MarketTickerProvider;
 import com.aquarius.crypto.dto.third_party.TickerResponse;
 import com.aquarius.crypto.exception.StalePriceException;
+import com.aquarius.crypto.metrics.TickerMetrics;
 import com.aquarius.crypto.model.PriceAggregation;
 import com.aquarius.crypto.repository.PriceAggregationRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -16,12 +18,10 @@ import reactor.core.publisher.Mono;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 
 import static com.aquarius.crypto.constants.ConstStrings.BTC_PAIR;
@@ -36,109 +36,165 @@ public class PriceAggregationService {
     private final List<MarketTickerProvider> marketTickerProviders;
     private final PriceAggregationRepository priceAggregationRepository;
     private final SecurityContextService securityContextService;
+    private final PriceAggregationWriter priceAggregationWriter;
+    private final TickerMetrics tickerMetrics;
+    private final LatestPriceCache latestPrices = new LatestPriceCache();
+    private final BestBidOfferAggregator bboAggregator = new BestBidOfferAggregator();
     // Maximum age for a trade price.
     // Scheduler runs every 10s, so 15s gives a 5s buffer.
     @Value("${crypto.trading.stale-price-threshold-seconds:15}")
     private long stalePriceThresholdSeconds;
-
-    public PriceAggregationService(List<MarketTickerProvider> marketTickerProviders, PriceAggregationRepository priceAggregationRepository, SecurityContextService securityContextService) {
+    // When websocket streaming is on, prices are pushed by StreamingPriceIngestionService instead of polled.
+    @Value("${crypto.streaming.enabled:false}")
+    private boolean streamingEnabled;
+    // How long a polling cycle waits for each venue; one that has not answered by then is left out of the cycle.
+    @Value("${crypto.price-fetch.budget-ms:500}")
+    private long fetchBudgetMs;
+
+    public PriceAggregationService(List<MarketTickerProvider> marketTickerProviders, PriceAggregationRepository priceAggregationRepository, SecurityContextService securityContextService, PriceAggregationWriter priceAggregationWriter, TickerMetrics tickerMetrics) {
         this.marketTickerProviders = marketTickerProviders;
         this.priceAggregationRepository = priceAggregationRepository;
         this.securityContextService = securityContextService;
+        this.priceAggregationWriter = priceAggregationWriter;
+        this.tickerMetrics = tickerMetrics;
+    }
+
+    /**
+     * Outcome of one polling cycle: the venues whose tickers made it in within the fetch budget,
+     * and the ones that failed, answered nothing or were still pending when it ran out.
+     */
+    public record FetchCycle(List<String> answered, List<String> missing, Duration elapsed) {
+    }
+
+    private record VenueFetch(String source, boolean answered) {
     }
 
     public Mono<BigDecimal> bestPrice(String symbol, String tradeType) {
-        return priceAggregationRepository.findLatestByTradingPair(symbol)
+        return latestPrice(symbol)
                 .switchIfEmpty(Mono.error(new RuntimeException("Price not found")))
                 .flatMap(this::checkPriceFreshness)
                 .map(p -> tradeType.equals("BUY") ? p.getBestAskPrice() : p.getBestBidPrice());
     }
 
     public Mono<AggregatedPriceResponse> findLatestByTradingPair(String symbol) {
+        return latestPrice(symbol)
+                .map(PriceAggregationService::toResponse);
+    }
+
+    /**
+     * Live prices for the given pairs in one stream: each pair's current price, then every change.
+     * Pairs conflate independently (one pending price per pair), so a slow client skips
+     * intermediate prices instead of building up a backlog.
+     */
+    public Flux<AggregatedPriceResponse> streamPrices(Set<String> symbols) {
+        return Flux.fromIterable(symbols)
+                .flatMap(latestPrices::updates, Math.max(symbols.size(), 1), 1)
+                .map(PriceAggregationService::toResponse);
+    }
+
+    private static AggregatedPriceResponse toResponse(PriceAggregation lp) {
+        return new AggregatedPriceResponse(
+                lp.getTradingPair(),
+                lp.getBestBidPrice(),
+                lp.getBestAskPrice(),
+                lp.getCreatedAt()
+        );
+    }
+
+    /**
+     * Serves the in-memory snapshot. The database is only queried on a cold start,
+     * before the first aggregation cycle has published a price for the pair.
+     */
+    private Mono<PriceAggregation> latestPrice(String symbol) {
+        PriceAggregation cached = latestPrices.get(symbol);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
         return priceAggregationRepository.findLatestByTradingPair(symbol)
-                .map(lp -> new AggregatedPriceResponse(
-                        lp.getTradingPair(),
-                        lp.getBestBidPrice(),
-                        lp.getBestAskPrice(),
-                        lp.getCreatedAt()
-                ));
+                .map(latestPrices::publish);
+    }
+
+    public Set<String> getSupportedPairs() {
+        return SUPPORTED_PAIRS;
+    }
+
+    @PostConstruct
+    void configureAggregator() {
+        bboAggregator.setMaxQuoteAge(Duration.ofSeconds(stalePriceThresholdSeconds));
     }
 
     @Scheduled(fixedDelayString = "${crypto.scheduler.price-aggregation-interval}")
     public void aggregatePrices() {
+        if (streamingEnabled) {
+            return;
+        }
         log.info(SVC_NAME + " Starting price aggregation...");
 
-        Flux.fromIterable(marketTickerProviders)
-                .flatMap(provider -> provider.fetchTickers(SUPPORTED_PAIRS))
-                .collectList()
-                .flatMap(this::processTickers)
-                .subscribe();
-    }
-
-
-    private Mono<Void> processTickers(List<TickerResponse> allTickers) {
-        Map<String, TickerResponse[]> bestMap = new HashMap<>();
-        Map<String, StringBuilder> sourcesMap = new HashMap<>();
-
-        for (TickerResponse t : allTickers) {
-            String symbol = t.getSymbol();
-            TickerResponse[] pair = bestMap.getOrDefault(symbol, new TickerResponse[2]);
-            StringBuilder sources = sourcesMap.getOrDefault(symbol, new StringBuilder());
-
-            // Update best bid
-            if (t.getBidPrice() != null &&
-                    (pair[0] == null || t.getBidPrice().compareTo(pair[0].getBidPrice()) > 0)) {
-                pair[0] = t;
-                sources.setLength(0); // reset sources
-                sources.append(t.getSource()).append("_BID");
-            } else if (pair[0] != null && t.getBidPrice() != null &&
-                    t.getBidPrice().compareTo(pair[0].getBidPrice()) == 0) {
-                if (!sources.isEmpty()) {
-                    sources.append("|");
-                }
-                sources.append(t.getSource()).append("_BID");
-            }
-
-            // Update best ask
-            if (t.getAskPrice() != null &&
-                    (pair[1] == null || t.getAskPrice().compareTo(pair[1].getAskPrice()) < 0)) {
-                pair[1] = t;
-                if (!sources.isEmpty()) sources.append("|");
-                sources.append(t.getSource()).append("_ASK");
-            } else if (pair[1] != null && t.getAskPrice() != null &&
-                    t.getAskPrice().compareTo(pair[1].getAskPrice()) == 0) {
-                if (!sources.isEmpty() && !sources.toString().contains(t.getSource() + "_ASK")) {
-                    sources.append("|").append(t.getSource()).append("_ASK");
-                }
-            }
-
-            bestMap.put(symbol, pair);
-            sourcesMap.put(symbol, sources);
+        fetchCycle().subscribe();
+    }
+
+    /**
+     * Polls every venue at once, each under its own fetch budget. Tickers are applied as each venue
+     * answers, so a slow venue neither holds back the others nor keeps the cycle open past the budget;
+     * its previous quotes simply age out of the BBO if it stays away.
+     */
+    public Mono<FetchCycle> fetchCycle() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Flux.fromIterable(marketTickerProviders)
+                    .flatMap(provider -> provider.fetchTickers(SUPPORTED_PAIRS)
+                            .doOnNext(this::onTicker)
+                            .count()
+                            .timeout(Duration.ofMillis(fetchBudgetMs), Mono.just(0L))
+                            .map(received -> new VenueFetch(provider.getMarketSource(), received > 0)))
+                    .collectList()
+                    .map(fetches -> toFetchCycle(fetches, Duration.ofNanos(System.nanoTime() - start)));
+        });
+    }
+
+    private FetchCycle toFetchCycle(List<VenueFetch> fetches, Duration elapsed) {
+        List<String> answered = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (VenueFetch fetch : fetches) {
+            (fetch.answered() ? answered : missing).add(fetch.source());
         }
+        if (!missing.isEmpty()) {
+            missing.forEach(tickerMetrics::sourceMissed);
+            log.warn(SVC_NAME + "No tickers from {} within {} ms; aggregated {} only", missing, fetchBudgetMs, answered);
+        }
+        return new FetchCycle(answered, missing, elapsed);
+    }
 
-        List<PriceAggregation> aggregatedPricesToSave = bestMap.entrySet().stream()
-                .map(e -> {
-                    TickerResponse[] pair = e.getValue();
-                    if (pair[0] == null || pair[1] == null) return null;
-
-                    return PriceAggregation.builder()
-                            .tradingPair(e.getKey())
-                            .bestBidPrice(pair[0].getBidPrice())
-                            .bestAskPrice(pair[1].getAskPrice())
-                            .source(sourcesMap.get(e.getKey()).toString())
-                            .createdAt(Instant.now())
-                            .build();
-                })
-                .filter(Objects::nonNull)
-                .toList();
-
-        if (aggregatedPricesToSave.isEmpty()) {
-            return Mono.empty();
+    /**
+     * Feeds one venue's ticker into the consolidated BBO of its symbol. A change is published
+     * to the latest-price snapshot right away and queued for persistence; an unchanged BBO
+     * only has its freshness renewed.
+     *
+     * @return the new consolidated price, or {@code null} if the BBO did not change
+     */
+    public PriceAggregation onTicker(TickerResponse ticker) {
+        tickerMetrics.quoteReceived(ticker.getSource(), ticker.getSymbol());
+        PriceAggregation changed = bboAggregator.onTicker(ticker);
+        if (changed != null) {
+            publish(changed);
+        } else if (bboAggregator.hasBestBidOffer(ticker.getSymbol())) {
+            latestPrices.confirm(ticker.getSymbol(), Instant.now());
         }
+        return changed;
+    }
+
+    /**
+     * Withdraws a venue's quotes (e.g. its stream disconnected) and publishes the resulting BBO changes.
+     */
+    public List<PriceAggregation> evictSource(String source) {
+        List<PriceAggregation> changed = bboAggregator.removeSource(source);
+        changed.forEach(this::publish);
+        return changed;
+    }
 
-        return priceAggregationRepository.saveAll(aggregatedPricesToSave)
-                .doOnComplete(() -> log.info(SVC_NAME + " Saved {} aggregated prices", aggregatedPricesToSave.size()))
-                .then();
+    private void publish(PriceAggregation price) {
+        latestPrices.publish(price);
+        priceAggregationWriter.submit(price);
     }
 
     /**
@@ -0,0 +1,178 @@
+package com.aquarius.crypto.service;
+
+import com.aquarius.crypto.model.PriceAggregation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind stage for {@code price_aggregations}.
+ * A submitted price identical to the last one queued for its pair is dropped; every other price is queued
+ * and goes out in multi-row INSERTs once {@code batch-size} rows are waiting or the flush interval passes.
+ */
+@Slf4j
+@Component
+public class PriceAggregationWriter {
+    private static final String SVC_NAME = "[PriceAggregationWriter] ";
+    private static final String INSERT_PREFIX =
+            "INSERT INTO price_aggregations (trading_pair, best_bid_price, best_ask_price, source, created_at) VALUES ";
+
+    private final DatabaseClient databaseClient;
+    private final Counter rowsWritten;
+    private final Counter rowsSuppressed;
+    private final Counter rowsDropped;
+
+    // Changed prices in arrival order; `queued` counts them, since the queue's own size() walks it.
+    private final ConcurrentLinkedQueue<PriceAggregation> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    // Last price queued per pair, the reference an unchanged quote is compared against.
+    private final ConcurrentHashMap<String, PriceAggregation> lastQueued = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    @Value("${crypto.price-writer.batch-size:500}")
+    private int batchSize;
+    // Bounds the queue while the database is unreachable; prices beyond it are dropped.
+    @Value("${crypto.price-writer.max-pending:100000}")
+    private int maxPending;
+
+    public PriceAggregationWriter(DatabaseClient databaseClient, MeterRegistry meterRegistry) {
+        this.databaseClient = databaseClient;
+        this.rowsWritten = Counter.builder("crypto.price_aggregations.rows.written")
+                .description("Aggregated price rows inserted")
+                .register(meterRegistry);
+        this.rowsSuppressed = Counter.builder("crypto.price_aggregations.rows.suppressed")
+                .description("Aggregated prices not inserted because they were unchanged")
+                .register(meterRegistry);
+        this.rowsDropped = Counter.builder("crypto.price_aggregations.rows.dropped")
+                .description("Aggregated prices not inserted because too many were waiting for the database")
+                .register(meterRegistry);
+    }
+
+    public void submit(PriceAggregation price) {
+        if (sameQuote(lastQueued.put(price.getTradingPair(), price), price)) {
+            rowsSuppressed.increment();
+            return;
+        }
+        if (queued.incrementAndGet() > maxPending) {
+            queued.decrementAndGet();
+            rowsDropped.increment();
+            return;
+        }
+        pending.add(price);
+        if (queued.get() >= batchSize) {
+            flush().subscribe();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${crypto.price-writer.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush().subscribe();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush().block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Writes everything queued. A flush that finds another one in progress does nothing;
+     * whatever it would have written is picked up when that one ends or by the next interval.
+     */
+    public Mono<Void> flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+
+        List<PriceAggregation> rows = drain();
+        if (rows.isEmpty()) {
+            flushing.set(false);
+            return Mono.empty();
+        }
+
+        return Flux.fromIterable(rows)
+                .buffer(batchSize)
+                .concatMap(this::insert)
+                .then()
+                .doFinally(signal -> {
+                    flushing.set(false);
+                    // Prices that filled a batch while this flush ran do not wait for the interval.
+                    if (queued.get() >= batchSize) {
+                        flush().subscribe();
+                    }
+                });
+    }
+
+    private List<PriceAggregation> drain() {
+        List<PriceAggregation> rows = new ArrayList<>(queued.get());
+        PriceAggregation price;
+        while ((price = pending.poll()) != null) {
+            queued.decrementAndGet();
+            rows.add(price);
+        }
+        return rows;
+    }
+
+    private void requeue(List<PriceAggregation> batch) {
+        queued.addAndGet(batch.size());
+        pending.addAll(batch);
+    }
+
+    private Mono<Void> insert(List<PriceAggregation> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:p").append(i).append(", :b").append(i).append(", :a").append(i)
+                    .append(", :s").append(i).append(", :c").append(i).append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < batch.size(); i++) {
+            PriceAggregation price = batch.get(i);
+            spec = spec.bind("p" + i, price.getTradingPair())
+                    .bind("b" + i, price.getBestBidPrice())
+                    .bind("a" + i, price.getBestAskPrice())
+                    .bind("c" + i, price.getCreatedAt());
+            spec = price.getSource() == null
+                    ? spec.bindNull("s" + i, String.class)
+                    : spec.bind("s" + i, price.getSource());
+        }
+
+        return spec.fetch().rowsUpdated()
+                .doOnNext(count -> {
+                    rowsWritten.increment(count);
+                    log.debug(SVC_NAME + "Inserted {} aggregated prices", count);
+                })
+                .onErrorResume(e -> {
+                    log.error(SVC_NAME + "Inserting {} aggregated prices failed: {}", batch.size(), e.getMessage());
+                    // Retried with the next flush; each row keeps its own created_at, so the late insert is still in place.
+                    requeue(batch);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static boolean sameQuote(PriceAggregation written, PriceAggregation candidate) {
+        return written != null
+                && written.getBestBidPrice().compareTo(candidate.getBestBidPrice()) == 0
+                && written.getBestAskPrice().compareTo(candidate.getBestAskPrice()) == 0
+                && Objects.equals(written.getSource(), candidate.getSource());
+    }
+}
@@ -26,8 +26,10 @@ public class SecurityContextService {
                 .switchIfEmpty(Mono.error(() ->
                         new UsernameNotFoundException("Authentication context not found.")))
                 .mapNotNull(Authentication::getPrincipal)
-                .cast(String.class)
-                .flatMap(this::findUserByPublicIdString);
+                .flatMap(principal -> principal instanceof UserPrincipal user
+                        // Built from the access token's claims; no lookup needed.
+                        ? Mono.just(user)
+                        : findUserByPublicIdString((String) principal));
     }
 
     public Mono<UUID> getCurrentPublicId() {
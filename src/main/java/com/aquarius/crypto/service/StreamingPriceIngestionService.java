@@ -0,0 +1,82 @@
+package com.aquarius.crypto.service;
+
+import com.aquarius.crypto.dto.third_party.StreamingMarketTickerProvider;
+import com.aquarius.crypto.dto.third_party.TickerResponse;
+import com.aquarius.crypto.metrics.TickerMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps one websocket subscription per exchange open for the supported pairs and feeds
+ * every book-ticker update into the consolidated BBO, replacing the REST polling cycle.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "crypto.streaming", name = "enabled", havingValue = "true")
+public class StreamingPriceIngestionService {
+    private static final String SVC_NAME = "[StreamingPriceIngestionService] ";
+    private final List<StreamingMarketTickerProvider> streamingProviders;
+    private final PriceAggregationService priceAggregationService;
+    private final TickerMetrics tickerMetrics;
+
+    @Value("${crypto.streaming.reconnect.min-backoff-ms:500}")
+    private long minBackoffMs;
+    @Value("${crypto.streaming.reconnect.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    private Disposable subscription;
+
+    public StreamingPriceIngestionService(List<StreamingMarketTickerProvider> streamingProviders, PriceAggregationService priceAggregationService,
+                                          TickerMetrics tickerMetrics) {
+        this.streamingProviders = streamingProviders;
+        this.priceAggregationService = priceAggregationService;
+        this.tickerMetrics = tickerMetrics;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Set<String> pairs = priceAggregationService.getSupportedPairs();
+        log.info(SVC_NAME + "Subscribing to {} streaming providers for {}", streamingProviders.size(), pairs);
+
+        subscription = Flux.fromIterable(streamingProviders)
+                .flatMap(provider -> persistentStream(provider, pairs))
+                .subscribe(priceAggregationService::onTicker);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private Flux<TickerResponse> persistentStream(StreamingMarketTickerProvider provider, Set<String> pairs) {
+        String source = provider.getMarketSource();
+        return Flux.defer(() -> provider.streamTickers(pairs))
+                // A socket closed by the exchange reconnects with the same backoff as a failed one.
+                .concatWith(Mono.error(() -> new IllegalStateException("Stream closed by " + source)))
+                // Quotes from a disconnected venue must not keep competing for best bid/ask.
+                .doOnError(e -> {
+                    tickerMetrics.streamFailed(source);
+                    priceAggregationService.evictSource(source);
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(minBackoffMs))
+                        .maxBackoff(Duration.ofMillis(maxBackoffMs))
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> log.warn(SVC_NAME + "{} stream dropped ({}), reconnecting (attempt {})",
+                                source, signal.failure().getMessage(), signal.totalRetriesInARow() + 1)));
+    }
+}
@@ -0,0 +1,137 @@
+package com.aquarius.crypto.service;
+
+import com.aquarius.crypto.exception.TradeQueueFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer lanes for trade execution. Orders are hashed by user id onto a fixed set of lanes;
+ * each lane runs one order at a time, so a user's orders never race on their own wallet rows,
+ * while orders of users on different lanes run concurrently.
+ */
+@Slf4j
+@Component
+public class TradeExecutionLanes {
+    private static final String SVC_NAME = "[TradeExecutionLanes] ";
+
+    private final Lane[] lanes;
+    private final int maxQueueDepth;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public TradeExecutionLanes(MeterRegistry meterRegistry,
+                               @Value("${app.trading.lanes.count:64}") int laneCount,
+                               @Value("${app.trading.lanes.max-queue-depth:256}") int maxQueueDepth) {
+        this.maxQueueDepth = maxQueueDepth;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane();
+        }
+        this.waitTimer = Timer.builder("crypto.trading.lane.wait")
+                .description("Time an order waits in its lane before it starts executing")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("crypto.trading.lane.rejected")
+                .description("Orders rejected because their lane was full")
+                .register(meterRegistry);
+        Gauge.builder("crypto.trading.lane.queued", lanes, TradeExecutionLanes::queuedOrders)
+                .description("Orders queued or executing across all lanes")
+                .register(meterRegistry);
+    }
+
+    public int laneOf(Long userId) {
+        // Fibonacci hashing spreads sequential ids evenly over the lanes.
+        return Math.floorMod(Long.hashCode(userId * 0x9E3779B97F4A7C15L), lanes.length);
+    }
+
+    /**
+     * Runs {@code work} on the user's lane once every earlier order of that lane has finished.
+     * Fails fast with {@link TradeQueueFullException} when the lane already holds {@code max-queue-depth} orders.
+     */
+    public <T> Mono<T> submit(Long userId, Supplier<Mono<T>> work) {
+        return Mono.create(sink -> {
+            Lane lane = lanes[laneOf(userId)];
+            if (lane.depth.incrementAndGet() > maxQueueDepth) {
+                lane.depth.decrementAndGet();
+                rejected.increment();
+                sink.error(new TradeQueueFullException("Too many pending orders, please retry shortly"));
+                return;
+            }
+            Order<T> order = new Order<>(work, sink, System.nanoTime());
+            sink.onCancel(() -> order.cancelled.set(true));
+            lane.orders.emitNext(order, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+        });
+    }
+
+    private static int queuedOrders(Lane[] lanes) {
+        int total = 0;
+        for (Lane lane : lanes) {
+            total += lane.depth.get();
+        }
+        return total;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.worker.dispose();
+        }
+    }
+
+    private final class Lane {
+        // Depth is enforced by the counter; the queue itself never rejects.
+        private final Sinks.Many<Order<?>> orders = Sinks.many().unicast().onBackpressureBuffer();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Disposable worker = orders.asFlux()
+                .concatMap(order -> order.run()
+                        .doFinally(signal -> depth.decrementAndGet()), 0)
+                .subscribe(null, e -> log.error(SVC_NAME + "Lane stopped: {}", e.getMessage()));
+    }
+
+    private final class Order<T> {
+        private final Supplier<Mono<T>> work;
+        private final MonoSink<T> caller;
+        private final long enqueuedAt;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        private Order(Supplier<Mono<T>> work, MonoSink<T> caller, long enqueuedAt) {
+            this.work = work;
+            this.caller = caller;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        private Mono<Void> run() {
+            waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            if (cancelled.get()) {
+                return Mono.empty();
+            }
+            // An order that already started runs to completion even if its caller goes away.
+            return Mono.defer(work)
+                    .contextWrite(caller.contextView())
+                    .doOnNext(caller::success)
+                    .doOnError(caller::error)
+                    .doOnSuccess(value -> {
+                        if (value == null) {
+                            caller.success();
+                        }
+                    })
+                    .onErrorResume(e -> Mono.empty())
+                    .then();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.aquarius.crypto.service;
+
+import com.aquarius.crypto.model.TradingTransaction;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Trades submitted with an {@code Idempotency-Key}, by tenant, user and key. An entry holds the trade's
+ * execution from the moment it starts, so a duplicate arriving while the original is still running waits for
+ * that same execution instead of starting another. A failed execution is dropped, so the key can be retried.
+ * Entries expire after {@code ttl-seconds}; {@code trading_transactions} keeps the keys of completed trades
+ * after that.
+ */
+@Component
+public class TradeIdempotencyCache {
+
+    private final Cache<String, Execution> executions;
+    private final Counter replayed;
+
+    public TradeIdempotencyCache(MeterRegistry meterRegistry,
+                                 @Value("${app.trading.idempotency.max-size:100000}") long maxSize,
+                                 @Value("${app.trading.idempotency.ttl-seconds:86400}") long ttlSeconds) {
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, executions, "trade_idempotency");
+        this.replayed = Counter.builder("crypto.trading.idempotency.replayed")
+                .description("Trades answered from an earlier execution with the same Idempotency-Key")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code trade} once per key while its entry lives; every other call with the key gets the same result.
+     *
+     * @param request what was asked for under the key; reusing the key for a different request fails
+     */
+    public Mono<TradingTransaction> execute(String key, String request, Supplier<Mono<TradingTransaction>> trade) {
+        return Mono.defer(() -> {
+            Execution started = new Execution(key, request, trade);
+            Execution execution = executions.asMap().putIfAbsent(key, started);
+            if (execution == null) {
+                return started.result;
+            }
+            if (!execution.request.equals(request)) {
+                return Mono.error(new IllegalArgumentException("This Idempotency-Key was already used for a different trade"));
+            }
+            replayed.increment();
+            return execution.result;
+        });
+    }
+
+    private final class Execution {
+        private final String request;
+        private final Mono<TradingTransaction> result;
+
+        Execution(String key, String request, Supplier<Mono<TradingTransaction>> trade) {
+            this.request = request;
+            // Runs on the first subscription only; cache() keeps it running for the duplicates even if
+            // the caller that started it goes away.
+            this.result = Mono.defer(trade)
+                    .doOnError(e -> executions.asMap().remove(key, this))
+                    .cache();
+        }
+    }
+}
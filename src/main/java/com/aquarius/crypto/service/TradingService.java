@@ -1,76 +1,388 @@
 package com.aquarius.crypto.service;
 
 
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.common.KeysetCursor;
+import com.aquarius.crypto.common.LocalCursorResponse;
 import com.aquarius.crypto.common.LocalPaginatedResponse;
+import com.aquarius.crypto.config.tenant.TenantContext;
 import com.aquarius.crypto.dto.TradeType;
 import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.dto.response.BatchTradeResponse;
 import com.aquarius.crypto.dto.response.TradingHistoryResponse;
 import com.aquarius.crypto.entity_manager.WalletFactory;
+import com.aquarius.crypto.exception.InvalidCursorException;
+import com.aquarius.crypto.exception.StalePriceException;
+import com.aquarius.crypto.metrics.TradingMetrics;
 import com.aquarius.crypto.model.TradingTransaction;
 import com.aquarius.crypto.model.Wallet;
 import com.aquarius.crypto.repository.TradingTransactionRepository;
+import io.micrometer.core.instrument.Tags;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+import reactor.util.function.Tuple2;
 import reactor.util.retry.Retry;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TradingService {
+    // Width of trading_transactions.idempotency_key.
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
 
     private final WalletService walletService;
     private final TradingTransactionRepository transactionRepo;
     private final PriceAggregationService priceService;
     private final TransactionalOperator rxtx;
+    private final TradeExecutionLanes executionLanes;
+    private final TradingMetrics metrics;
+    private final TradeIdempotencyCache idempotencyCache;
     private final WalletFactory walletFactory = WalletFactory.INSTANCE;
 
     @Value("${app.trading.auto-create-wallet:false}")
     private boolean autoCreateWallets;
+    // Debit, credit and audit insert as one guarded statement instead of read-modify-write with @Version.
+    @Value("${app.trading.single-statement-settlement:false}")
+    private boolean singleStatementSettlement;
+    @Value("${app.trading.batch.max-size:500}")
+    private int maxBatchSize;
 
     public Mono<TradingTransaction> trade(TradingRequest req) {
+        // A user's orders run one after another, so they never compete for their own wallet rows.
+        return executionLanes.submit(req.getUserId(),
+                () -> Mono.deferContextual(ctx -> executeOrder(req, metrics.tags(req, ctx))));
+    }
+
+    /**
+     * Executes the trade at most once per user and {@code idempotencyKey}: a repeated request gets the trade the
+     * first one produced, without being priced or settled again, and a duplicate of a request still executing
+     * waits for it. Without a key this is {@link #trade(TradingRequest)}.
+     */
+    public Mono<TradingTransaction> trade(TradingRequest req, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return trade(req);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return Mono.error(new IllegalArgumentException(
+                    "Idempotency-Key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"));
+        }
+        return Mono.deferContextual(ctx -> idempotencyCache.execute(
+                TenantContext.getTenantId(ctx) + ":" + req.getUserId() + ":" + idempotencyKey,
+                requestFingerprint(req),
+                () -> previousTrade(req, idempotencyKey)
+                        .switchIfEmpty(Mono.defer(() -> {
+                            req.setIdempotencyKey(idempotencyKey);
+                            return trade(req);
+                        }))
+                        // Another instance settled the key first; its trade is committed once the insert fails.
+                        .onErrorResume(DataIntegrityViolationException.class, e -> previousTrade(req, idempotencyKey)
+                                .switchIfEmpty(Mono.error(e)))));
+    }
+
+    /**
+     * What a request under an Idempotency-Key asked for, equal exactly when {@link #previousTrade} would accept the
+     * stored trade: case is ignored and "1.0" is the same quantity as "1".
+     */
+    private static String requestFingerprint(TradingRequest req) {
+        return req.getSymbol().toUpperCase() + ":" + req.getTradeType().toUpperCase() + ":"
+                + req.getQuantity().stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * The trade already stored under the key, for keys whose in-memory entry expired or that another instance saw.
+     */
+    private Mono<TradingTransaction> previousTrade(TradingRequest req, String idempotencyKey) {
+        return transactionRepo.findByUserIdAndIdempotencyKey(req.getUserId(), idempotencyKey)
+                .flatMap(tx -> tx.getSymbol().equalsIgnoreCase(req.getSymbol())
+                        && tx.getTradeType().name().equalsIgnoreCase(req.getTradeType())
+                        && tx.getQuantity().compareTo(req.getQuantity()) == 0
+                        ? Mono.just(tx)
+                        : Mono.error(new IllegalArgumentException("This Idempotency-Key was already used for a different trade")));
+    }
+
+    private Mono<TradingTransaction> executeOrder(TradingRequest req, Tags tags) {
         String quote = "USDT";
         String base = req.getSymbol().replace(quote, "");
 
-        return priceService.bestPrice(req.getSymbol(), req.getTradeType())
+        if (walletService.isLedgerEnabled()) {
+            return bestPrice(req, tags)
+                    .flatMap(price -> settleInLedger(req, price, TradeLegs.of(req, price, base, quote), tags));
+        }
+
+        if (singleStatementSettlement) {
+            return bestPrice(req, tags)
+                    .flatMap(price -> settleTrade(req, price, TradeLegs.of(req, price, base, quote), tags));
+        }
+
+        return bestPrice(req, tags)
                 .flatMap(price ->
-                        executeTrade(req, price, base, quote)
+                        executeTrade(req, price, TradeLegs.of(req, price, base, quote), tags)
                                 .as(rxtx::transactional)
                 )
                 .retryWhen(Retry.backoff(3, Duration.ofMillis(100))
                         .filter(throwable -> throwable instanceof OptimisticLockingFailureException)
+                        .doBeforeRetry(signal -> metrics.optimisticLockRetry(tags))
                 );
     }
 
+    /**
+     * Executes a basket of MARKET orders of one user as a single unit of work on the user's lane.
+     * Each distinct symbol and side is priced once, the user's wallets are locked and read once, and the whole
+     * batch is written as one balance update and one audit insert in a single transaction.
+     * Trades run in request order against the running balances, so a trade may spend what an earlier one bought.
+     * A rejected trade only fails its own result, unless {@code allOrNothing} is set: then nothing is written.
+     */
+    public Mono<BatchTradeResponse> tradeBatch(Long userId, List<TradingRequest> reqs, boolean allOrNothing) {
+        if (reqs == null || reqs.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("A batch needs at least one trade"));
+        }
+        if (reqs.size() > maxBatchSize) {
+            return Mono.error(new IllegalArgumentException("A batch holds at most " + maxBatchSize + " trades"));
+        }
+        // The ledger settles one trade at a time in memory; there is no round trip left to share.
+        if (walletService.isLedgerEnabled()) {
+            return Mono.error(new IllegalStateException("Batched trades are not available while the wallet ledger is enabled"));
+        }
+        return executionLanes.submit(userId,
+                () -> Mono.deferContextual(ctx -> executeBatch(userId, reqs, allOrNothing, ctx)));
+    }
+
+    private Mono<BatchTradeResponse> executeBatch(Long userId, List<TradingRequest> reqs, boolean allOrNothing, ContextView ctx) {
+        List<BatchTrade> trades = new ArrayList<>(reqs.size());
+        Map<String, BatchTrade> firstPerPrice = new LinkedHashMap<>();
+        for (TradingRequest req : reqs) {
+            BatchTrade trade = new BatchTrade(req);
+            trades.add(trade);
+            try {
+                if (req == null) {
+                    throw new IllegalArgumentException("All fields must be provided");
+                }
+                req.setUserId(userId);
+                req.validate();
+                if (!"MARKET".equals(req.getOrderType())) {
+                    throw new IllegalArgumentException("Limit orders are placed through /api/v1/orders");
+                }
+                trade.tags = metrics.tags(req, ctx);
+                firstPerPrice.putIfAbsent(trade.priceKey(), trade);
+            } catch (IllegalArgumentException e) {
+                trade.error = e.getMessage();
+            }
+        }
+
+        return Flux.fromIterable(firstPerPrice.values())
+                .flatMap(trade -> bestPrice(trade.req, trade.tags)
+                        .map(price -> new BatchPrice(trade.priceKey(), price, null))
+                        .onErrorResume(e -> Mono.just(new BatchPrice(trade.priceKey(), null, e.getMessage()))))
+                .collectMap(BatchPrice::key)
+                .flatMap(prices -> {
+                    for (BatchTrade trade : trades) {
+                        if (trade.error == null) {
+                            trade.price(prices.get(trade.priceKey()));
+                        }
+                    }
+                    if (allOrNothing && BatchTrade.anyRejected(trades)) {
+                        return Mono.just(batchResponse(trades, true));
+                    }
+                    return settleBatch(userId, trades, allOrNothing)
+                            .as(rxtx::transactional)
+                            .map(settled -> batchResponse(trades, !settled));
+                })
+                .doOnNext(response -> log.debug("Batch of {} trades for user {}: {} executed, {} rejected",
+                        trades.size(), userId, response.getExecuted(), response.getRejected()));
+    }
+
+    /**
+     * Applies the priced trades to the locked wallets in request order and writes the outcome.
+     *
+     * @return false when an all-or-nothing batch had a rejected trade and nothing was written
+     */
+    private Mono<Boolean> settleBatch(Long userId, List<BatchTrade> trades, boolean allOrNothing) {
+        return walletService.lockWallets(userId)
+                .collectMap(Wallet::getCurrency, Wallet::getBalance)
+                .flatMap(balances -> {
+                    Set<String> existing = new HashSet<>(balances.keySet());
+                    Set<String> missing = new TreeSet<>();
+                    Map<String, BigDecimal> changes = new TreeMap<>();
+                    List<TradingTransaction> audits = new ArrayList<>();
+
+                    for (BatchTrade trade : trades) {
+                        if (trade.error != null) {
+                            continue;
+                        }
+                        TradeLegs legs = trade.legs;
+                        if (!autoCreateWallets) {
+                            String absent = !existing.contains(legs.debitCurrency()) ? legs.debitCurrency()
+                                    : !existing.contains(legs.creditCurrency()) ? legs.creditCurrency() : null;
+                            if (absent != null) {
+                                trade.error = "Wallet not found for currency: " + absent + ". Auto-creation is disabled.";
+                                continue;
+                            }
+                        }
+                        BigDecimal debitBalance = balances.getOrDefault(legs.debitCurrency(), BigDecimal.ZERO);
+                        if (debitBalance.compareTo(legs.debitAmount()) < 0) {
+                            metrics.rejected(TradingMetrics.INSUFFICIENT_BALANCE, trade.tags);
+                            trade.error = "Insufficient " + legs.debitCurrency() + " balance";
+                            continue;
+                        }
+                        balances.put(legs.debitCurrency(), debitBalance.subtract(legs.debitAmount()));
+                        balances.merge(legs.creditCurrency(), legs.creditAmount(), BigDecimal::add);
+                        changes.merge(legs.debitCurrency(), legs.debitAmount().negate(), BigDecimal::add);
+                        changes.merge(legs.creditCurrency(), legs.creditAmount(), BigDecimal::add);
+                        for (String currency : List.of(legs.debitCurrency(), legs.creditCurrency())) {
+                            if (!existing.contains(currency)) {
+                                missing.add(currency);
+                            }
+                        }
+                        trade.audit = buildTransactionAudit(trade.req, trade.price, legs.totalAmount(), "COMPLETED");
+                        audits.add(trade.audit);
+                    }
+                    if (allOrNothing && BatchTrade.anyRejected(trades)) {
+                        return Mono.just(false);
+                    }
+
+                    // Grouped per currency: one wallet row changes once, however many trades touched it.
+                    Map<String, BigDecimal> amounts = new TreeMap<>();
+                    changes.forEach((currency, amount) -> {
+                        if (amount.signum() != 0) {
+                            amounts.put(currency, amount);
+                        }
+                    });
+                    return Flux.fromIterable(missing)
+                            .concatMap(currency -> createAndSaveNewWallet(userId, currency))
+                            .then(Mono.defer(() -> walletService.applyBalanceChanges(userId, amounts)))
+                            .flatMap(updated -> updated == amounts.size()
+                                    ? transactionRepo.insertAll(audits).collectList()
+                                    : Mono.error(new IllegalStateException("A wallet disappeared while the batch settled")))
+                            .map(saved -> {
+                                for (int i = 0; i < saved.size(); i++) {
+                                    audits.get(i).setId(saved.get(i).getId());
+                                }
+                                return true;
+                            });
+                });
+    }
+
+    private static BatchTradeResponse batchResponse(List<BatchTrade> trades, boolean aborted) {
+        List<BatchTradeResponse.Result> results = new ArrayList<>(trades.size());
+        int executed = 0;
+        for (int i = 0; i < trades.size(); i++) {
+            BatchTrade trade = trades.get(i);
+            BatchTradeResponse.Result.ResultBuilder result = BatchTradeResponse.Result.builder().index(i);
+            if (trade.error != null) {
+                result.status(BatchTradeResponse.REJECTED).error(trade.error);
+            } else if (aborted) {
+                result.status(BatchTradeResponse.ABORTED);
+            } else {
+                result.status(BatchTradeResponse.COMPLETED).transaction(trade.audit);
+                executed++;
+            }
+            results.add(result.build());
+        }
+        return BatchTradeResponse.builder()
+                .executed(executed)
+                .rejected((int) trades.stream().filter(trade -> trade.error != null).count())
+                .results(results)
+                .build();
+    }
+
+    private Mono<BigDecimal> bestPrice(TradingRequest req, Tags tags) {
+        return metrics.timeStage(TradingMetrics.PRICE_LOOKUP, tags, priceService.bestPrice(req.getSymbol(), req.getTradeType()))
+                .doOnError(StalePriceException.class, e -> metrics.rejected(TradingMetrics.STALE_PRICE, tags));
+    }
+
+    private <T> Mono<T> insufficientBalance(String currency, Tags tags) {
+        return Mono.defer(() -> {
+            metrics.rejected(TradingMetrics.INSUFFICIENT_BALANCE, tags);
+            return Mono.error(new IllegalArgumentException("Insufficient " + currency + " balance"));
+        });
+    }
+
+    /**
+     * Settles the trade in one round trip: the database checks the balance, moves both amounts
+     * and writes the audit row atomically, so there is no version conflict to retry.
+     * Only a rejected settlement costs extra queries, to tell a missing wallet from a short balance.
+     */
+    private Mono<TradingTransaction> settleTrade(TradingRequest req, BigDecimal price, TradeLegs legs, Tags tags) {
+        TradingTransaction audit = buildTransactionAudit(req, price, legs.totalAmount(), "COMPLETED");
+
+        // The audit row is written by the same statement, so this stage includes the audit write.
+        Mono<TradingTransaction> settle = metrics.timeStage(TradingMetrics.SETTLEMENT, tags, Mono.defer(() -> walletService.settleTrade(
+                audit, legs.debitCurrency(), legs.debitAmount(), legs.creditCurrency(), legs.creditAmount())));
+        Mono<TradingTransaction> insufficientBalance = insufficientBalance(legs.debitCurrency(), tags);
+
+        return settle.switchIfEmpty(Mono.defer(() -> resolveWallets(req.getUserId(), legs, tags)
+                // Both wallets exist (possibly just auto-created): settle again unless the balance is short.
+                .flatMap(wallets -> wallets.getT1().getBalance().compareTo(legs.debitAmount()) < 0
+                        ? insufficientBalance
+                        : settle.switchIfEmpty(insufficientBalance))))
+                .onErrorResume(e -> {
+                    log.error("Trade failed for user {}: {}", req.getUserId(), e.getMessage());
+                    return Mono.error(e);
+                });
+    }
+
+    /**
+     * Settles the trade against the in-memory wallet ledger. The journal entries and the audit row are written
+     * in one transaction, the only I/O left on this path; if it fails the amounts are handed back.
+     */
+    private Mono<TradingTransaction> settleInLedger(TradingRequest req, BigDecimal price, TradeLegs legs, Tags tags) {
+        TradingTransaction audit = buildTransactionAudit(req, price, legs.totalAmount(), "COMPLETED");
+        // The ledger keeps balances in units; the amounts are converted once, on the way in.
+        long debitUnits = FixedPoint.fromBigDecimal(legs.debitAmount());
+        long creditUnits = FixedPoint.fromBigDecimal(legs.creditAmount());
+
+        // The audit row is written with the journal entries, so this stage includes the audit write.
+        return metrics.timeStage(TradingMetrics.SETTLEMENT, tags, walletService.settleInLedger(req.getUserId(), legs.debitCurrency(), debitUnits,
+                        legs.creditCurrency(), creditUnits,
+                        currency -> resolveWallet(req.getUserId(), currency),
+                        Mono.defer(() -> transactionRepo.save(audit))))
+                .switchIfEmpty(insufficientBalance(legs.debitCurrency(), tags))
+                .onErrorResume(e -> {
+                    log.error("Trade failed for user {}: {}", req.getUserId(), e.getMessage());
+                    return Mono.error(e);
+                });
+    }
+
     private Mono<TradingTransaction> executeTrade(
             TradingRequest req,
             BigDecimal price,
-            String baseCurrency,
-            String quoteCurrency
+            TradeLegs legs,
+            Tags tags
     ) {
-        boolean isBuy = req.getTradeType().equalsIgnoreCase("BUY");
-        String debitCurrency = isBuy ? quoteCurrency : baseCurrency;
-        String creditCurrency = isBuy ? baseCurrency : quoteCurrency;
-
-        return Mono.zip(
-                resolveWallet(req.getUserId(), debitCurrency),
-                resolveWallet(req.getUserId(), creditCurrency)
-        ).flatMap(tuple -> {
+        return resolveWallets(req.getUserId(), legs, tags).flatMap(tuple -> {
             Wallet debitWallet = tuple.getT1();
             Wallet creditWallet = tuple.getT2();
-            return performAtomicUpdate(debitWallet, creditWallet, req, price, isBuy);
+            return performAtomicUpdate(debitWallet, creditWallet, req, price, legs, tags);
         });
     }
 
+    private Mono<Tuple2<Wallet, Wallet>> resolveWallets(Long userId, TradeLegs legs, Tags tags) {
+        return metrics.timeStage(TradingMetrics.WALLET_RESOLUTION, tags, Mono.zip(
+                resolveWallet(userId, legs.debitCurrency()),
+                resolveWallet(userId, legs.creditCurrency())));
+    }
+
     /**
      * Logic: Find existing wallet. If missing, check toggle.
      */
@@ -102,7 +414,16 @@ public class TradingService {
             BigDecimal totalAmount,
             String status
     ) {
-        TradingTransaction tx = TradingTransaction.builder()
+        return transactionRepo.save(buildTransactionAudit(req, price, totalAmount, status));
+    }
+
+    private TradingTransaction buildTransactionAudit(
+            TradingRequest req,
+            BigDecimal price,
+            BigDecimal totalAmount,
+            String status
+    ) {
+        return TradingTransaction.builder()
                 .userId(req.getUserId())
                 .symbol(req.getSymbol().toUpperCase())
                 .tradeType(TradeType.valueOf(req.getTradeType().toUpperCase()))
@@ -111,9 +432,8 @@ public class TradingService {
                 .totalAmount(totalAmount)
                 .status(status)
                 .createdAt(Instant.now())
+                .idempotencyKey(req.getIdempotencyKey())
                 .build();
-
-        return transactionRepo.save(tx);
     }
 
     private Mono<TradingTransaction> performAtomicUpdate(
@@ -121,41 +441,32 @@ public class TradingService {
             Wallet credit,
             TradingRequest req,
             BigDecimal price,
-            boolean isBuy
+            TradeLegs legs,
+            Tags tags
     ) {
-        BigDecimal amountToDebit;
-        BigDecimal amountToCredit;
-        BigDecimal totalValueUsdt = price.multiply(req.getQuantity());
-
-        if (isBuy) {
-            amountToDebit = totalValueUsdt;
-            amountToCredit = req.getQuantity();
-        } else {
-            amountToDebit = req.getQuantity();
-            amountToCredit = totalValueUsdt;
-        }
-
-        if (debit.getBalance().compareTo(amountToDebit) < 0) {
-            return Mono.error(new IllegalArgumentException("Insufficient " + debit.getCurrency() + " balance"));
+        if (debit.getBalance().compareTo(legs.debitAmount()) < 0) {
+            return insufficientBalance(debit.getCurrency(), tags);
         }
 
         Wallet updatedDebit = debit.toBuilder()
-                .balance(debit.getBalance().subtract(amountToDebit))
+                .balance(debit.getBalance().subtract(legs.debitAmount()))
                 .build();
 
         Wallet updatedCredit = credit.toBuilder()
-                .balance(credit.getBalance().add(amountToCredit))
+                .balance(credit.getBalance().add(legs.creditAmount()))
                 .build();
 
+        // Rows are updated, and so locked, in currency order, the order every wallet-locking statement uses.
         Mono<Wallet> saveFlow;
-        if (updatedDebit.getId() < updatedCredit.getId()) {
+        if (updatedDebit.getCurrency().compareTo(updatedCredit.getCurrency()) < 0) {
             saveFlow = walletService.save(updatedDebit).then(walletService.save(updatedCredit));
         } else {
             saveFlow = walletService.save(updatedCredit).then(walletService.save(updatedDebit));
         }
 
-        return saveFlow
-                .flatMap(ignore -> saveTransactionAudit(req, price, totalValueUsdt, "COMPLETED"))
+        return metrics.timeStage(TradingMetrics.SETTLEMENT, tags, saveFlow)
+                .flatMap(ignore -> metrics.timeStage(TradingMetrics.AUDIT_WRITE, tags,
+                        saveTransactionAudit(req, price, legs.totalAmount(), "COMPLETED")))
                 .onErrorResume(e -> {
                     log.error("Trade failed for user {}: {}", req.getUserId(), e.getMessage());
                     return Mono.error(e);
@@ -164,12 +475,10 @@ public class TradingService {
 
 
     public Mono<LocalPaginatedResponse<TradingHistoryResponse>> getUserTradingHistoryPaginated(Long userId, int page, int size) {
-        int offset = page * size;
-        Mono<Long> totalCount = transactionRepo.findByUserId(userId).count();
+        long offset = (long) page * size;
+        Mono<Long> totalCount = transactionRepo.countByUserId(userId);
 
-        Flux<TradingHistoryResponse> pagedTradingHistoryFlux = transactionRepo.findByUserIdOrderByCreatedAtDesc(userId)
-                .skip(offset)
-                .take(size)
+        Flux<TradingHistoryResponse> pagedTradingHistoryFlux = transactionRepo.findPageByUserId(userId, size, offset)
                 .map(TradingHistoryResponse::fromEntity);
         return totalCount.zipWith(pagedTradingHistoryFlux.collectList(),
                 (total, list) -> LocalPaginatedResponse.<TradingHistoryResponse>builder()
@@ -183,9 +492,104 @@ public class TradingService {
     }
 
 
+    /**
+     * Keyset-paginated trade history, newest first. Page cost is independent of how deep the cursor is;
+     * the total is only counted when {@code includeTotal} is set.
+     */
+    public Mono<LocalCursorResponse<TradingHistoryResponse>> getUserTradingHistoryPage(Long userId, String cursor, int size, boolean includeTotal) {
+        return Mono.defer(() -> {
+            int pageSize = LocalCursorResponse.clampSize(size);
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            if (after != null && after.createdAt() == null) {
+                return Mono.error(new InvalidCursorException("Cursor does not belong to trading history"));
+            }
+
+            Flux<TradingTransaction> rows = after == null
+                    ? transactionRepo.findFirstByUserIdKeyset(userId, pageSize + 1)
+                    : transactionRepo.findNextByUserIdKeyset(userId, after.createdAt(), after.id(), pageSize + 1);
+            Mono<Long> total = includeTotal ? transactionRepo.countByUserId(userId) : Mono.just(-1L);
+
+            return Mono.zip(rows.collectList(), total, (list, count) -> LocalCursorResponse.fromRows(
+                    list, pageSize, count < 0 ? null : count,
+                    TradingHistoryResponse::fromEntity,
+                    tx -> new KeysetCursor(tx.getCreatedAt(), tx.getId())));
+        });
+    }
+
+    /**
+     * Streams the user's trades in {@code [from, to)}, newest first, with demand propagated to the database cursor.
+     */
+    public Flux<TradingHistoryResponse> exportUserTradingHistory(Long userId, Instant from, Instant to) {
+        return transactionRepo.streamByUserIdBetween(userId, from, to)
+                .map(TradingHistoryResponse::fromEntity);
+    }
+
     public Flux<TradingHistoryResponse> getUserTradingHistory(Long userId) {
         return transactionRepo.findByUserIdOrderByCreatedAtDesc(userId)
                 .map(TradingHistoryResponse::fromEntity);
     }
 
+    private record BatchPrice(String key, BigDecimal price, String error) {
+    }
+
+    /**
+     * One trade of a batch as it moves through validation, pricing and settlement; {@code error} ends it.
+     */
+    private static final class BatchTrade {
+        private final TradingRequest req;
+        private Tags tags;
+        private BigDecimal price;
+        private TradeLegs legs;
+        private TradingTransaction audit;
+        private String error;
+
+        BatchTrade(TradingRequest req) {
+            this.req = req;
+        }
+
+        String priceKey() {
+            return req.getSymbol() + ":" + req.getTradeType();
+        }
+
+        void price(BatchPrice batchPrice) {
+            if (batchPrice.error() != null) {
+                error = batchPrice.error();
+                return;
+            }
+            try {
+                String quote = "USDT";
+                legs = TradeLegs.of(req, batchPrice.price(), req.getSymbol().replace(quote, ""), quote);
+                price = batchPrice.price();
+            } catch (ArithmeticException e) {
+                error = "Trade amount is too large";
+            }
+        }
+
+        static boolean anyRejected(List<BatchTrade> trades) {
+            return trades.stream().anyMatch(trade -> trade.error != null);
+        }
+    }
+
+    /**
+     * Both legs of a trade, computed once. The amounts go to R2DBC as they are; only the in-memory ledger
+     * converts them to {@link FixedPoint} units.
+     */
+    private record TradeLegs(String debitCurrency, BigDecimal debitAmount, String creditCurrency, BigDecimal creditAmount,
+                             BigDecimal totalAmount) {
+
+        private static final BigDecimal MAX_AMOUNT = FixedPoint.toBigDecimal(Long.MAX_VALUE);
+
+        static TradeLegs of(TradingRequest req, BigDecimal price, String baseCurrency, String quoteCurrency) {
+            // Rounded half-up to 1e-8 like FixedPoint.multiply, and bounded like it, so every path moves the same amounts.
+            BigDecimal quantity = req.getQuantity().setScale(FixedPoint.SCALE, RoundingMode.HALF_UP);
+            BigDecimal total = price.setScale(FixedPoint.SCALE, RoundingMode.HALF_UP).multiply(quantity)
+                    .setScale(FixedPoint.SCALE, RoundingMode.HALF_UP);
+            if (total.compareTo(MAX_AMOUNT) > 0) {
+                throw new ArithmeticException("Trade amount is too large");
+            }
+            return req.getTradeType().equalsIgnoreCase("BUY")
+                    ? new TradeLegs(quoteCurrency, total, baseCurrency, quantity, total)
+                    : new TradeLegs(baseCurrency, quantity, quoteCurrency, total, total);
+        }
+    }
 }
@@ -1,49 +1,91 @@
 package com.aquarius.crypto.service;
 
 
+import com.aquarius.crypto.config.tenant.TenantContext;
+import com.aquarius.crypto.model.User;
 import com.aquarius.crypto.model.UserPrincipal;
 import com.aquarius.crypto.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.Cacheable;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
 @Service
-@RequiredArgsConstructor
 public class UserMappingService {
 
     private final UserRepository userRepository;
+    // Keyed by tenant as well: the same lookup runs against the tenant's own schema.
+    private final AsyncLoadingCache<UserKey, UserPrincipal> principals;
+
+    public UserMappingService(UserRepository userRepository, MeterRegistry meterRegistry,
+                              @Value("${app.security.user-cache.max-size:10000}") long maxSize,
+                              @Value("${app.security.user-cache.ttl-seconds:600}") long ttlSeconds,
+                              @Value("${app.security.user-cache.refresh-after-seconds:60}") long refreshAfterSeconds) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                // A hot entry is reloaded in the background once it is this old; callers keep getting the cached one.
+                .refreshAfterWrite(Duration.ofSeconds(refreshAfterSeconds))
+                .recordStats()
+                .buildAsync((key, executor) -> load(key).toFuture());
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "user_mapping");
+    }
 
     /**
      * Finds the full UserPrincipal object based on the public UUID provided in the JWT.
      * This method is used by the JwtContextResolverFilter to map the external ID
      * to the internal ID and necessary security claims (Tenant ID).
+     * Served from a bounded cache; a user that does not exist is not cached.
      * * @param publicId The UUID from the JWT subject claim.
      *
      * @return Mono<UserPrincipal> with all fields populated.
      */
-    @Cacheable("userMapping")
     public Mono<UserPrincipal> findByPublicId(UUID publicId) {
-        return userRepository.findByPublicId(publicId)
-                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("User Public ID not found.")))
-                .map(user -> {
-                    List<SimpleGrantedAuthority> authorities = Collections.singletonList(
-                            new SimpleGrantedAuthority(user.getSimpleRole().toUpperCase())
-                    );
-                    String tenantId = user.getTenantId();
-                    return new UserPrincipal(
-                            user.getId(),
-                            user.getPublicId(),
-                            user.getEmail(),
-                            null,
-                            authorities,
-                            tenantId
-                    );
-                });
+        return Mono.deferContextual(ctx -> Mono.fromFuture(principals.get(new UserKey(TenantContext.getTenantId(ctx), publicId))))
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("User Public ID not found.")));
+    }
+
+    /**
+     * Drops the cached principal of a user, so the next request reloads its role and tenant.
+     * Call it whenever either changes; {@code tenantId} is the tenant whose schema holds the user.
+     */
+    public void invalidate(String tenantId, UUID publicId) {
+        principals.synchronous().invalidate(new UserKey(tenantId, publicId));
+    }
+
+    private Mono<UserPrincipal> load(UserKey key) {
+        return userRepository.findByPublicId(key.publicId())
+                .map(UserMappingService::toPrincipal)
+                // The loader runs outside the caller's subscription, so the tenant is passed on explicitly.
+                .contextWrite(Context.of(TenantContext.TENANT_ID_KEY, key.tenantId()));
+    }
+
+    private static UserPrincipal toPrincipal(User user) {
+        List<SimpleGrantedAuthority> authorities = Collections.singletonList(
+                new SimpleGrantedAuthority(user.getSimpleRole().toUpperCase())
+        );
+        String tenantId = user.getTenantId();
+        return new UserPrincipal(
+                user.getId(),
+                user.getPublicId(),
+                user.getEmail(),
+                null,
+                authorities,
+                tenantId
+        );
+    }
+
+    private record UserKey(String tenantId, UUID publicId) {
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,8 @@
 package com.aquarius.crypto.service;
 
+import com.aquarius.crypto.config.tenant.TenantContext;
+import com.aquarius.crypto.config.tenant.TenantMappingService;
+import com.aquarius.crypto.dto.request.UserAccessUpdateRequest;
 import com.aquarius.crypto.exception.UserNotFoundException;
 import com.aquarius.crypto.model.User;
 import com.aquarius.crypto.repository.UserRepository;
@@ -8,17 +11,27 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.UUID;
+
 @Service
 public class UserService {
 
     private final SecurityContextService securityContextService;
     private final UserRepository userRepository;
     private final PasswordEncoder encoder;
+    private final UserTimezoneService timezoneService;
+    private final UserMappingService userMappingService;
+    private final TenantMappingService tenantMappingService;
 
-    public UserService(SecurityContextService securityContextService, UserRepository userRepository, PasswordEncoder encoder) {
+    public UserService(SecurityContextService securityContextService, UserRepository userRepository, PasswordEncoder encoder,
+                       UserTimezoneService timezoneService, UserMappingService userMappingService,
+                       TenantMappingService tenantMappingService) {
         this.securityContextService = securityContextService;
         this.userRepository = userRepository;
         this.encoder = encoder;
+        this.timezoneService = timezoneService;
+        this.userMappingService = userMappingService;
+        this.tenantMappingService = tenantMappingService;
     }
 
     public Mono<User> findByPublicId(String username) {
@@ -54,6 +67,36 @@ public class UserService {
                         .flatMap(user -> {
                             user.setPreferredTimezone(timezoneId);
                             return userRepository.save(user);
-                        }).switchIfEmpty(Mono.error(new UserNotFoundException("User not found."))));
+                        })
+                        .flatMap(saved -> timezoneService.invalidate(userId).thenReturn(saved))
+                        .switchIfEmpty(Mono.error(new UserNotFoundException("User not found."))));
+    }
+
+    /**
+     * Changes the role and/or tenant of a user of the caller's tenant. The user's cached principal is dropped
+     * once the change is saved, so requests made with an existing token are authorized with the new values.
+     */
+    public Mono<User> updateAccess(UUID publicId, UserAccessUpdateRequest request) {
+        if (request.getRole() == null && request.getTenantId() == null) {
+            return Mono.error(new IllegalArgumentException("Provide a role or a tenant to change"));
+        }
+        if (request.getRole() != null && request.getRole().isBlank()) {
+            return Mono.error(new IllegalArgumentException("Role must not be blank"));
+        }
+        if (request.getTenantId() != null && tenantMappingService.mapJwtTenantToSchema(request.getTenantId()).isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Unknown tenant: " + request.getTenantId()));
+        }
+        return Mono.deferContextual(ctx -> userRepository.findByPublicId(publicId)
+                .switchIfEmpty(Mono.error(new UserNotFoundException("User not found.")))
+                .flatMap(user -> {
+                    if (request.getRole() != null) {
+                        user.setSimpleRole(request.getRole().toUpperCase());
+                    }
+                    if (request.getTenantId() != null) {
+                        user.setTenantId(request.getTenantId().toLowerCase());
+                    }
+                    return userRepository.save(user);
+                })
+                .doOnNext(saved -> userMappingService.invalidate(TenantContext.getTenantId(ctx), publicId)));
     }
-}
\ No newline at end of file
+}
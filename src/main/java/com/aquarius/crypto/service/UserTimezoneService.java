@@ -1,35 +1,74 @@
 package com.aquarius.crypto.service;
 
+import com.aquarius.crypto.config.tenant.TenantContext;
 import com.aquarius.crypto.model.User;
 import com.aquarius.crypto.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.ZoneId;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class UserTimezoneService {
 
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
     private final UserRepository userRepository;
 
-    private final ConcurrentHashMap<Long, ZoneId> timezoneCache = new ConcurrentHashMap<>();
+    // Bounded per-user cache; internal ids are only unique within a tenant's schema.
+    private final Cache<UserKey, ZoneId> timezoneCache;
+    // One ZoneId per zone name, shared by every user in that zone. Bounded by the zone ids the JDK knows.
+    private final ConcurrentHashMap<String, ZoneId> zones = new ConcurrentHashMap<>();
 
-    public UserTimezoneService(UserRepository userRepository) {
+    public UserTimezoneService(UserRepository userRepository, MeterRegistry meterRegistry,
+                               @Value("${app.user.timezone-cache.max-size:100000}") long maxSize,
+                               @Value("${app.user.timezone-cache.expire-after-access-seconds:3600}") long expireAfterAccessSeconds) {
         this.userRepository = userRepository;
+        this.timezoneCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofSeconds(expireAfterAccessSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, timezoneCache, "user_timezone");
     }
 
     public Mono<ZoneId> getPreferredZoneId(Long internalUserId) {
+        return Mono.deferContextual(ctx -> {
+            UserKey key = new UserKey(TenantContext.getTenantId(ctx), internalUserId);
+            ZoneId cachedZone = timezoneCache.getIfPresent(key);
+            if (cachedZone != null) {
+                return Mono.just(cachedZone);
+            }
+
+            return userRepository.findById(internalUserId)
+                    .mapNotNull(User::getPreferredTimezone)
+                    .map(this::intern)
+                    .defaultIfEmpty(UTC)
+                    .doOnNext(zone -> timezoneCache.put(key, zone));
+        });
+    }
 
-        ZoneId cachedZone = timezoneCache.get(internalUserId);
-        if (cachedZone != null) {
-            return Mono.just(cachedZone);
-        }
+    /**
+     * Drops the cached zone of a user in the current tenant; call it after the user's timezone changes.
+     */
+    public Mono<Void> invalidate(Long internalUserId) {
+        return Mono.deferContextual(ctx -> {
+            timezoneCache.invalidate(new UserKey(TenantContext.getTenantId(ctx), internalUserId));
+            return Mono.empty();
+        });
+    }
+
+    private ZoneId intern(String timezoneId) {
+        return zones.computeIfAbsent(timezoneId, ZoneId::of);
+    }
 
-        return userRepository.findById(internalUserId)
-                .map(User::getPreferredTimezone)
-                .map(ZoneId::of)
-                .defaultIfEmpty(ZoneId.of("UTC"))
-                .doOnNext(zone -> timezoneCache.put(internalUserId, zone));
+    private record UserKey(String tenantId, Long userId) {
     }
 }
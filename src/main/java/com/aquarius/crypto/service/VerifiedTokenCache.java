@@ -0,0 +1,82 @@
+package com.aquarius.crypto.service;
+
+import com.aquarius.crypto.model.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access tokens that already passed {@link JwtService#verify}, so a client reusing its token is not
+ * RSA-verified on every request. Entries are keyed by a SHA-256 digest of the token, never the token
+ * itself, and expire together with the token.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtService jwtService;
+    private final Cache<String, VerifiedToken> verified;
+
+    public VerifiedTokenCache(JwtService jwtService, MeterRegistry meterRegistry,
+                              @Value("${jwt.verified-cache.max-size:10000}") long maxSize) {
+        this.jwtService = jwtService;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt_verified");
+    }
+
+    /**
+     * @return the cached verification of the token, or {@code null} if it has to be verified
+     */
+    public VerifiedToken getIfPresent(String token) {
+        return verified.getIfPresent(digest(token));
+    }
+
+    /**
+     * Verifies the token and caches the result. Blocking: the RSA signature check is CPU-heavy.
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken result = jwtService.verify(token);
+        verified.put(digest(token), result);
+        return result;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            // Saturates instead of overflowing for a far-future expiry.
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.expiresAt().toEpochMilli() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.aquarius.crypto.service;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.model.Wallet;
+import com.aquarius.crypto.model.WalletJournalEntry;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Authoritative in-memory wallet balances for the ledger settlement mode.
+ * Accounts are sharded by user, so both legs of a trade live in the same shard and move under one lock;
+ * balances and amounts are {@link FixedPoint} units.
+ * Every transfer yields journal entries with global sequence numbers and stays in flight until the caller
+ * has persisted them ({@link #commit}) or given up on them ({@link #revert}).
+ */
+public class WalletLedger {
+    // Account key: user id in the high bits, a per-process currency code in the low ones.
+    private static final int CURRENCY_BITS = 16;
+
+    private final Shard[] shards;
+    private final ConcurrentHashMap<String, Integer> currencyCodes = new ConcurrentHashMap<>();
+    private final AtomicInteger nextCurrencyCode = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public WalletLedger(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Ledger needs at least one shard");
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * Continues the journal after {@code lastSequence}, the highest sequence already persisted.
+     */
+    public void resetSequence(long lastSequence) {
+        sequence.set(lastSequence);
+    }
+
+    public boolean isLoaded(long userId, String currency) {
+        long key = accountKey(userId, currency);
+        Shard shard = shardOf(userId);
+        synchronized (shard) {
+            return shard.accounts.containsKey(key);
+        }
+    }
+
+    /**
+     * Makes a persisted wallet known to the ledger. A wallet that is already loaded keeps its
+     * in-memory balance, which is newer than the database row.
+     */
+    public void load(Wallet wallet) {
+        long key = accountKey(wallet.getUserId(), wallet.getCurrency());
+        Shard shard = shardOf(wallet.getUserId());
+        synchronized (shard) {
+            shard.accounts.putIfAbsent(key, new Account(wallet.getId(), FixedPoint.fromBigDecimal(wallet.getBalance())));
+        }
+    }
+
+    /**
+     * @return the live balance, or {@code null} when the wallet has not been loaded
+     */
+    public BigDecimal balance(long userId, String currency) {
+        long key = accountKey(userId, currency);
+        Shard shard = shardOf(userId);
+        synchronized (shard) {
+            Account account = shard.accounts.get(key);
+            return account == null ? null : FixedPoint.toBigDecimal(account.balance);
+        }
+    }
+
+    /**
+     * Moves both legs of a trade between two loaded wallets of one user.
+     *
+     * @return the transfer with its journal entries, in flight until it is committed or reverted;
+     * {@code null} when the debit wallet cannot cover the amount, nothing changed in that case
+     */
+    public Transfer transfer(long userId, String debitCurrency, long debitUnits,
+                             String creditCurrency, long creditUnits, Instant at) {
+        long debitKey = accountKey(userId, debitCurrency);
+        long creditKey = accountKey(userId, creditCurrency);
+        Shard shard = shardOf(userId);
+
+        synchronized (shard) {
+            Account debitAccount = shard.accounts.get(debitKey);
+            Account creditAccount = shard.accounts.get(creditKey);
+            if (debitAccount == null || creditAccount == null) {
+                throw new IllegalStateException("Wallets of user " + userId + " are not loaded into the ledger");
+            }
+            if (debitAccount.balance < debitUnits) {
+                return null;
+            }
+
+            long debitBalance = FixedPoint.subtract(debitAccount.balance, debitUnits);
+            creditAccount.balance = FixedPoint.add(creditAccount.balance, creditUnits);
+            debitAccount.balance = debitBalance;
+            // Sequences are taken and registered under the shard lock, so a wallet's entries stay in order
+            // and settledSequence() never passes one that is still in flight.
+            long debitSequence = sequence.incrementAndGet();
+            long creditSequence = sequence.incrementAndGet();
+            shard.inFlight.add(debitSequence);
+            return new Transfer(userId, debitKey, creditKey,
+                    new WalletJournalEntry(debitSequence, debitAccount.walletId, -debitUnits, at),
+                    new WalletJournalEntry(creditSequence, creditAccount.walletId, creditUnits, at));
+        }
+    }
+
+    /**
+     * Marks a transfer whose journal entries have been persisted as settled.
+     */
+    public void commit(Transfer transfer) {
+        Shard shard = shardOf(transfer.userId());
+        synchronized (shard) {
+            shard.inFlight.remove(transfer.debit().sequence());
+        }
+    }
+
+    /**
+     * Undoes a transfer whose journal entries were not persisted, e.g. because its audit row could not be written.
+     * Nothing is journaled for it; its sequences stay unused.
+     */
+    public void revert(Transfer transfer) {
+        Shard shard = shardOf(transfer.userId());
+        synchronized (shard) {
+            Account debitAccount = shard.accounts.get(transfer.debitKey());
+            Account creditAccount = shard.accounts.get(transfer.creditKey());
+            debitAccount.balance = FixedPoint.subtract(debitAccount.balance, transfer.debit().deltaUnits());
+            creditAccount.balance = FixedPoint.subtract(creditAccount.balance, transfer.credit().deltaUnits());
+            shard.inFlight.remove(transfer.debit().sequence());
+        }
+    }
+
+    /**
+     * The highest sequence up to which every transfer has been committed or reverted;
+     * journal entries up to it that were persisted are visible to a query that starts afterwards.
+     */
+    public long settledSequence() {
+        long settled = sequence.get();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                if (!shard.inFlight.isEmpty()) {
+                    settled = Math.min(settled, shard.inFlight.first() - 1);
+                }
+            }
+        }
+        return settled;
+    }
+
+    public int inFlight() {
+        int count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.inFlight.size();
+            }
+        }
+        return count;
+    }
+
+    private long accountKey(long userId, String currency) {
+        int code = currencyCodes.computeIfAbsent(currency, c -> nextCurrencyCode.getAndIncrement());
+        if (code >= 1 << CURRENCY_BITS) {
+            throw new IllegalStateException("Too many currencies in the ledger");
+        }
+        return userId << CURRENCY_BITS | code;
+    }
+
+    private Shard shardOf(long userId) {
+        return shards[Math.floorMod(Long.hashCode(userId * 0x9E3779B97F4A7C15L), shards.length)];
+    }
+
+    /**
+     * Both legs of one trade as journal entries.
+     */
+    public record Transfer(long userId, long debitKey, long creditKey,
+                           WalletJournalEntry debit, WalletJournalEntry credit) {
+
+        public List<WalletJournalEntry> entries() {
+            return List.of(debit, credit);
+        }
+    }
+
+    private static final class Shard {
+        private final HashMap<Long, Account> accounts = new HashMap<>();
+        // First journal sequence of each transfer that is neither committed nor reverted.
+        private final TreeSet<Long> inFlight = new TreeSet<>();
+    }
+
+    private static final class Account {
+        private final long walletId;
+        private long balance;
+
+        private Account(long walletId, long balance) {
+            this.walletId = walletId;
+            this.balance = balance;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.aquarius.crypto.service;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.model.Wallet;
+import com.aquarius.crypto.repository.WalletJournalRepository;
+import com.aquarius.crypto.service.WalletLedger.Transfer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Persistence for the in-memory {@link WalletLedger} ({@code app.trading.ledger.enabled}).
+ * A trade's balance changes are appended to {@code wallet_journal} in the transaction that writes its audit row,
+ * so an acknowledged trade is durable; folding the journal into {@code wallets} runs in the background,
+ * and on startup every journaled change that was not folded yet is replayed first.
+ * The ledger assumes it is the only writer of wallet balances, i.e. a single application instance per database.
+ */
+@Slf4j
+@Service
+public class WalletLedgerService {
+    private static final String SVC_NAME = "[WalletLedgerService] ";
+
+    private final WalletJournalRepository journalRepository;
+    private final TransactionalOperator rxtx;
+    private final WalletLedger ledger;
+    private final Counter entriesWritten;
+    private final Mono<Void> recovered;
+
+    private final AtomicBoolean checkpointing = new AtomicBoolean();
+    // Highest sequence folded into the wallet rows; only touched by the checkpoint that holds `checkpointing`.
+    private volatile long foldedThrough;
+
+    @Value("${app.trading.ledger.enabled:false}")
+    private boolean enabled;
+
+    public WalletLedgerService(WalletJournalRepository journalRepository, TransactionalOperator rxtx,
+                               MeterRegistry meterRegistry, @Value("${app.trading.ledger.shards:64}") int shards) {
+        this.journalRepository = journalRepository;
+        this.rxtx = rxtx;
+        this.ledger = new WalletLedger(shards);
+        this.entriesWritten = Counter.builder("crypto.wallet_ledger.journal.written")
+                .description("Wallet journal entries persisted")
+                .register(meterRegistry);
+        Gauge.builder("crypto.wallet_ledger.transfers.in_flight", ledger, WalletLedger::inFlight)
+                .description("Ledger transfers whose journal entries are not committed yet")
+                .register(meterRegistry);
+        // A failed recovery is retried by the next caller instead of being cached.
+        this.recovered = recover().cache(ignored -> Duration.ZERO, error -> Duration.ZERO, () -> Duration.ofMillis(Long.MAX_VALUE));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Moves both legs of a trade in memory, amounts in {@link FixedPoint} units, then appends their journal entries
+     * and runs {@code record} (the audit insert) in one transaction. The trade is durable once this completes;
+     * if the transaction fails the move is undone.
+     * Wallets the ledger has not seen yet are loaded through {@code walletLoader}.
+     *
+     * @return what {@code record} emitted, or empty when the debit wallet cannot cover the amount;
+     * nothing changed in that case
+     */
+    public <T> Mono<T> settle(Long userId, String debitCurrency, long debitUnits,
+                              String creditCurrency, long creditUnits,
+                              Function<String, Mono<Wallet>> walletLoader, Mono<T> record) {
+        return recovered
+                .then(Mono.when(ensureLoaded(userId, debitCurrency, walletLoader),
+                        ensureLoaded(userId, creditCurrency, walletLoader)))
+                .then(Mono.fromSupplier(() -> ledger.transfer(
+                        userId, debitCurrency, debitUnits, creditCurrency, creditUnits, Instant.now())))
+                .flatMap(transfer -> persist(transfer, record));
+    }
+
+    /**
+     * The wallet with its live ledger balance; wallets the ledger does not hold are returned as read.
+     */
+    public Wallet withLiveBalance(Wallet wallet) {
+        BigDecimal live = enabled ? ledger.balance(wallet.getUserId(), wallet.getCurrency()) : null;
+        return live == null ? wallet : wallet.toBuilder().balance(live).build();
+    }
+
+    @Scheduled(fixedDelayString = "${app.trading.ledger.checkpoint-interval-ms:200}")
+    public void scheduledCheckpoint() {
+        if (enabled) {
+            checkpoint().subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        if (enabled) {
+            checkpoint().block(Duration.ofSeconds(5));
+        }
+    }
+
+    /**
+     * Folds the journal into the wallet rows, up to the last sequence with no transfer before it still in flight.
+     * A checkpoint that finds another one in progress does nothing; a failed one is repeated by the next.
+     */
+    public Mono<Void> checkpoint() {
+        return Mono.defer(() -> {
+            if (!checkpointing.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+
+            long from = foldedThrough + 1;
+            long to = ledger.settledSequence();
+            if (to < from) {
+                checkpointing.set(false);
+                return Mono.empty();
+            }
+            return fold(from, to)
+                    .doOnSuccess(ignored -> foldedThrough = to)
+                    .onErrorResume(e -> {
+                        log.error(SVC_NAME + "Folding the wallet journal from {} failed: {}", from, e.getMessage());
+                        return Mono.empty();
+                    })
+                    .doFinally(signal -> checkpointing.set(false));
+        });
+    }
+
+    private <T> Mono<T> persist(Transfer transfer, Mono<T> record) {
+        // A cancelled transaction is rolled back like a failed one; whichever signal comes first decides.
+        AtomicBoolean done = new AtomicBoolean();
+        return journalRepository.append(transfer.entries())
+                .then(record)
+                .as(rxtx::transactional)
+                .doOnSuccess(ignored -> {
+                    if (done.compareAndSet(false, true)) {
+                        ledger.commit(transfer);
+                        entriesWritten.increment(transfer.entries().size());
+                    }
+                })
+                .doOnError(e -> {
+                    if (done.compareAndSet(false, true)) {
+                        ledger.revert(transfer);
+                    }
+                })
+                .doOnCancel(() -> {
+                    if (done.compareAndSet(false, true)) {
+                        ledger.revert(transfer);
+                    }
+                });
+    }
+
+    private Mono<Void> ensureLoaded(Long userId, String currency, Function<String, Mono<Wallet>> walletLoader) {
+        return Mono.defer(() -> ledger.isLoaded(userId, currency)
+                ? Mono.empty()
+                : walletLoader.apply(currency).doOnNext(ledger::load).then());
+    }
+
+    private Mono<Void> recover() {
+        return Mono.defer(() -> fold(0L, Long.MAX_VALUE))
+                .then(Mono.defer(journalRepository::lastSequence))
+                .doOnNext(lastSequence -> {
+                    ledger.resetSequence(lastSequence);
+                    foldedThrough = lastSequence;
+                    log.info(SVC_NAME + "Wallet ledger recovered, journal continues after {}", lastSequence);
+                })
+                .then();
+    }
+
+    private Mono<Void> fold(long fromSequence, long toSequence) {
+        return journalRepository.fold(fromSequence, toSequence, Instant.now())
+                .doOnNext(count -> log.debug(SVC_NAME + "Folded the wallet journal into {} wallets", count))
+                .then();
+    }
+}
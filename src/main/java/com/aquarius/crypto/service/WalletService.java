@@ -1,7 +1,13 @@
 package com.aquarius.crypto.service;
 
+import com.aquarius.crypto.common.KeysetCursor;
+import com.aquarius.crypto.common.LocalCursorResponse;
 import com.aquarius.crypto.common.LocalPaginatedResponse;
+import com.aquarius.crypto.dto.OrderStatus;
 import com.aquarius.crypto.dto.response.WalletBalanceResponse;
+import com.aquarius.crypto.exception.InvalidCursorException;
+import com.aquarius.crypto.model.Order;
+import com.aquarius.crypto.model.TradingTransaction;
 import com.aquarius.crypto.model.Wallet;
 import com.aquarius.crypto.repository.WalletRepository;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -9,18 +15,24 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @Service
 public class WalletService {
 
     private final SecurityContextService securityContextService;
     private final WalletRepository walletRepository;
+    private final WalletLedgerService walletLedger;
 
-    public WalletService(SecurityContextService securityContextService, WalletRepository walletRepository) {
+    public WalletService(SecurityContextService securityContextService, WalletRepository walletRepository,
+                         WalletLedgerService walletLedger) {
         this.securityContextService = securityContextService;
         this.walletRepository = walletRepository;
+        this.walletLedger = walletLedger;
     }
 
     public Mono<Wallet> findByUserAndCurrency(Long userId, String debitCurrency) {
@@ -30,6 +42,7 @@ public class WalletService {
     public Flux<WalletBalanceResponse> getUserWalletBalances() {
         return securityContextService.getInternalUserId()
                 .flatMapMany(internalId -> walletRepository.findByUserId(internalId)
+                        .map(walletLedger::withLiveBalance)
                         .map(WalletBalanceResponse::fromEntity))
                 .switchIfEmpty(Flux.error(new UsernameNotFoundException(
                         "No wallet balances found for the authenticated user.")));
@@ -37,12 +50,11 @@ public class WalletService {
 
     public Mono<LocalPaginatedResponse<WalletBalanceResponse>> getUserWalletsPaginated(int page, int size) {
         Mono<Long> internalIdMono = securityContextService.getInternalUserId();
-        int offset = page * size;
+        long offset = (long) page * size;
         return internalIdMono.flatMap(internalId -> {
-                    Mono<Long> totalCount = walletRepository.findByUserId(internalId).count();
-                    Mono<List<WalletBalanceResponse>> pagedListMono = walletRepository.findByUserId(internalId)
-                            .skip(offset)
-                            .take(size)
+                    Mono<Long> totalCount = walletRepository.countByUserId(internalId);
+                    Mono<List<WalletBalanceResponse>> pagedListMono = walletRepository.findPageByUserId(internalId, size, offset)
+                            .map(walletLedger::withLiveBalance)
                             .map(WalletBalanceResponse::fromEntity)
                             .collectList();
                     return totalCount.zipWith(pagedListMono);
@@ -66,6 +78,94 @@ public class WalletService {
                 .switchIfEmpty(Mono.error(new UsernameNotFoundException("User identity could not be resolved or mapped.")));
     }
 
+    /**
+     * Keyset-paginated wallets of the authenticated user, in creation order.
+     */
+    public Mono<LocalCursorResponse<WalletBalanceResponse>> getUserWalletsPage(String cursor, int size, boolean includeTotal) {
+        return securityContextService.getInternalUserId()
+                .flatMap(internalId -> {
+                    int pageSize = LocalCursorResponse.clampSize(size);
+                    KeysetCursor after = KeysetCursor.decode(cursor);
+                    if (after != null && after.createdAt() != null) {
+                        return Mono.error(new InvalidCursorException("Cursor does not belong to wallets"));
+                    }
+
+                    long afterId = after == null ? 0L : after.id();
+                    Mono<Long> total = includeTotal ? walletRepository.countByUserId(internalId) : Mono.just(-1L);
+                    return Mono.zip(walletRepository.findNextByUserIdKeyset(internalId, afterId, pageSize + 1).collectList(), total,
+                            (list, count) -> LocalCursorResponse.fromRows(
+                                    list, pageSize, count < 0 ? null : count,
+                                    wallet -> WalletBalanceResponse.fromEntity(walletLedger.withLiveBalance(wallet)),
+                                    wallet -> KeysetCursor.afterId(wallet.getId())));
+                })
+                .switchIfEmpty(Mono.error(new UsernameNotFoundException("User identity could not be resolved or mapped.")));
+    }
+
+    /**
+     * Settles a trade in one round trip; see {@link WalletRepository#settleTrade}.
+     */
+    public Mono<TradingTransaction> settleTrade(TradingTransaction audit,
+                                                String debitCurrency, BigDecimal debitAmount,
+                                                String creditCurrency, BigDecimal creditAmount) {
+        return walletRepository.settleTrade(audit, debitCurrency, debitAmount, creditCurrency, creditAmount);
+    }
+
+    /**
+     * Holds an order's funds and inserts it; see {@link WalletRepository#placeOrder}.
+     */
+    public Mono<Order> placeOrder(Order order, String holdCurrency, BigDecimal holdAmount, String otherCurrency) {
+        return walletRepository.placeOrder(order, holdCurrency, holdAmount, otherCurrency);
+    }
+
+    /**
+     * Books one side of an order book fill; see {@link WalletRepository#settleFill}.
+     */
+    public Mono<TradingTransaction> settleFill(TradingTransaction audit, Long orderId, BigDecimal spentAmount,
+                                               String creditCurrency, BigDecimal creditAmount) {
+        return walletRepository.settleFill(audit, orderId, spentAmount, creditCurrency, creditAmount);
+    }
+
+    /**
+     * Releases what an order still holds and sets its final status; see {@link WalletRepository#closeOrder}.
+     */
+    public Mono<Long> closeOrder(Long orderId, Long userId, String holdCurrency, BigDecimal releasedAmount,
+                                 OrderStatus status) {
+        return walletRepository.closeOrder(orderId, userId, holdCurrency, releasedAmount, status, Instant.now());
+    }
+
+    /**
+     * Locks every wallet of the user until the surrounding transaction ends.
+     */
+    public Flux<Wallet> lockWallets(Long userId) {
+        return walletRepository.lockByUserId(userId);
+    }
+
+    /**
+     * Adds a signed amount per currency to the user's wallets; see {@link WalletRepository#applyBalanceChanges}.
+     */
+    public Mono<Long> applyBalanceChanges(Long userId, Map<String, BigDecimal> changes) {
+        return walletRepository.applyBalanceChanges(userId, changes, Instant.now());
+    }
+
+    public Mono<Long> releaseNewOrders(String tenantId, String quoteCurrency) {
+        return walletRepository.releaseNewOrders(tenantId, quoteCurrency, Instant.now());
+    }
+
+    public boolean isLedgerEnabled() {
+        return walletLedger.isEnabled();
+    }
+
+    /**
+     * Settles a trade against the in-memory ledger and writes {@code audit} with its journal entries;
+     * see {@link WalletLedgerService#settle}.
+     */
+    public Mono<TradingTransaction> settleInLedger(Long userId, String debitCurrency, long debitUnits,
+                                                   String creditCurrency, long creditUnits,
+                                                   Function<String, Mono<Wallet>> walletLoader,
+                                                   Mono<TradingTransaction> audit) {
+        return walletLedger.settle(userId, debitCurrency, debitUnits, creditCurrency, creditUnits, walletLoader, audit);
+    }
+
     public Mono<Wallet> save(Wallet toPersist) {
         toPersist.setUpdatedAt(Instant.now());
         return walletRepository.save(toPersist);
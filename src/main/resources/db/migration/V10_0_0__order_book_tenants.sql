@@ -0,0 +1,9 @@
+-- Description: Scopes the order book orders by tenant. Every tenant has its own books, but orders live in the shared
+-- public schema, so each row records the tenant whose book it belongs to; recovery only loads and releases its own.
+-- Rows written before this belong to the default tenant (TenantContext.TRADER_TENANT_ID).
+
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS tenant_id VARCHAR(63) NOT NULL DEFAULT 'trader';
+ALTER TABLE orders ALTER COLUMN tenant_id DROP DEFAULT;
+
+DROP INDEX IF EXISTS idx_orders_status_id;
+CREATE INDEX IF NOT EXISTS idx_orders_tenant_status_id ON orders (tenant_id, status, id) WHERE status IN ('NEW', 'OPEN');
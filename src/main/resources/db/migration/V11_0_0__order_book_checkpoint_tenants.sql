@@ -0,0 +1,8 @@
+-- Description: Keys the order book journal checkpoints by tenant as well as symbol. Each tenant journals its books
+-- to its own files, so one shared row per symbol let the tenants overwrite each other's checkpoint.
+-- The existing rows belong to the default tenant (TenantContext.TRADER_TENANT_ID).
+
+ALTER TABLE order_book_checkpoints ADD COLUMN IF NOT EXISTS tenant_id VARCHAR(63) NOT NULL DEFAULT 'trader';
+ALTER TABLE order_book_checkpoints ALTER COLUMN tenant_id DROP DEFAULT;
+ALTER TABLE order_book_checkpoints DROP CONSTRAINT IF EXISTS order_book_checkpoints_pkey;
+ALTER TABLE order_book_checkpoints ADD PRIMARY KEY (tenant_id, symbol);
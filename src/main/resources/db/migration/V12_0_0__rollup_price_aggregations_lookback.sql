@@ -0,0 +1,74 @@
+-- Description: Re-rolls a lookback window on every rollup run. Restarting from the newest bucket already rolled up
+-- skipped raw rows inserted after their minute was rolled up: rows re-queued after a failed flush, from a lagging
+-- writer or from a pair that stalled. Recomputing a bucket is safe, the inserts below upsert it.
+
+DROP FUNCTION IF EXISTS rollup_price_aggregations(TIMESTAMP);
+
+-- Rolls complete minutes and hours up to `until` into the candle tables.
+-- Starts `lookback` before `until`, or at the newest bucket already rolled up when that is older, so it
+-- catches up after downtime and folds in raw rows that arrived up to `lookback` late.
+CREATE OR REPLACE FUNCTION rollup_price_aggregations(until TIMESTAMP, lookback INTERVAL)
+    RETURNS VOID
+    LANGUAGE plpgsql
+    SET search_path FROM CURRENT
+AS $$
+DECLARE
+    minute_from TIMESTAMP;
+    minute_to TIMESTAMP := date_trunc('minute', until);
+    hour_from TIMESTAMP;
+    hour_to TIMESTAMP := date_trunc('hour', until);
+BEGIN
+    SELECT LEAST(COALESCE(max(bucket_start), '-infinity'), minute_to - lookback) INTO minute_from
+    FROM price_aggregations_1m;
+
+    INSERT INTO price_aggregations_1m (trading_pair, bucket_start, open_price, high_price, low_price,
+                                      close_price, close_bid_price, close_ask_price, sample_count)
+    SELECT trading_pair,
+           date_trunc('minute', created_at),
+           (array_agg((best_bid_price + best_ask_price) / 2 ORDER BY created_at, id))[1],
+           max((best_bid_price + best_ask_price) / 2),
+           min((best_bid_price + best_ask_price) / 2),
+           (array_agg((best_bid_price + best_ask_price) / 2 ORDER BY created_at DESC, id DESC))[1],
+           (array_agg(best_bid_price ORDER BY created_at DESC, id DESC))[1],
+           (array_agg(best_ask_price ORDER BY created_at DESC, id DESC))[1],
+           count(*)
+    FROM price_aggregations
+    WHERE created_at >= date_trunc('minute', minute_from) AND created_at < minute_to
+    GROUP BY trading_pair, date_trunc('minute', created_at)
+    ON CONFLICT (trading_pair, bucket_start) DO UPDATE
+        SET open_price = EXCLUDED.open_price,
+            high_price = EXCLUDED.high_price,
+            low_price = EXCLUDED.low_price,
+            close_price = EXCLUDED.close_price,
+            close_bid_price = EXCLUDED.close_bid_price,
+            close_ask_price = EXCLUDED.close_ask_price,
+            sample_count = EXCLUDED.sample_count;
+
+    -- Every hour holding a minute recomputed above is recomputed too.
+    SELECT LEAST(COALESCE(max(bucket_start), '-infinity'), date_trunc('hour', minute_from)) INTO hour_from
+    FROM price_aggregations_1h;
+
+    INSERT INTO price_aggregations_1h (trading_pair, bucket_start, open_price, high_price, low_price,
+                                      close_price, close_bid_price, close_ask_price, sample_count)
+    SELECT trading_pair,
+           date_trunc('hour', bucket_start),
+           (array_agg(open_price ORDER BY bucket_start))[1],
+           max(high_price),
+           min(low_price),
+           (array_agg(close_price ORDER BY bucket_start DESC))[1],
+           (array_agg(close_bid_price ORDER BY bucket_start DESC))[1],
+           (array_agg(close_ask_price ORDER BY bucket_start DESC))[1],
+           sum(sample_count)
+    FROM price_aggregations_1m
+    WHERE bucket_start >= hour_from AND bucket_start < hour_to
+    GROUP BY trading_pair, date_trunc('hour', bucket_start)
+    ON CONFLICT (trading_pair, bucket_start) DO UPDATE
+        SET open_price = EXCLUDED.open_price,
+            high_price = EXCLUDED.high_price,
+            low_price = EXCLUDED.low_price,
+            close_price = EXCLUDED.close_price,
+            close_bid_price = EXCLUDED.close_bid_price,
+            close_ask_price = EXCLUDED.close_ask_price,
+            sample_count = EXCLUDED.sample_count;
+END;
+$$;
@@ -0,0 +1,186 @@
+-- Description: Range-partition price_aggregations by day, add 1-minute / 1-hour OHLC rollups
+-- and the maintenance functions called by PriceAggregationMaintenanceService.
+-- Functions pin the tenant schema they were created in (SET search_path FROM CURRENT),
+-- so the job can call them schema-qualified from any connection.
+
+ALTER TABLE price_aggregations RENAME TO price_aggregations_legacy;
+DROP INDEX IF EXISTS idx_trading_pair_created;
+
+CREATE SEQUENCE IF NOT EXISTS price_aggregation_ids AS BIGINT;
+
+-- Raw ticks, one partition per UTC day; the partition key has to be part of the primary key.
+CREATE TABLE price_aggregations (
+    id BIGINT NOT NULL DEFAULT nextval('price_aggregation_ids'),
+    trading_pair VARCHAR(20) NOT NULL,
+    best_bid_price DECIMAL(20, 8) NOT NULL,
+    best_ask_price DECIMAL(20, 8) NOT NULL,
+    source VARCHAR(50),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE price_aggregation_ids OWNED BY price_aggregations.id;
+
+-- Catches rows outside the pre-created days; stays empty as long as the job runs.
+CREATE TABLE price_aggregations_default PARTITION OF price_aggregations DEFAULT;
+
+CREATE INDEX idx_trading_pair_created
+    ON price_aggregations (trading_pair, created_at DESC);
+
+-- Mid-price candles; close bid/ask are the last quote of the bucket.
+CREATE TABLE IF NOT EXISTS price_aggregations_1m (
+    trading_pair VARCHAR(20) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    open_price DECIMAL(20, 8) NOT NULL,
+    high_price DECIMAL(20, 8) NOT NULL,
+    low_price DECIMAL(20, 8) NOT NULL,
+    close_price DECIMAL(20, 8) NOT NULL,
+    close_bid_price DECIMAL(20, 8) NOT NULL,
+    close_ask_price DECIMAL(20, 8) NOT NULL,
+    sample_count INT NOT NULL,
+    PRIMARY KEY (trading_pair, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS price_aggregations_1h (
+    trading_pair VARCHAR(20) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    open_price DECIMAL(20, 8) NOT NULL,
+    high_price DECIMAL(20, 8) NOT NULL,
+    low_price DECIMAL(20, 8) NOT NULL,
+    close_price DECIMAL(20, 8) NOT NULL,
+    close_bid_price DECIMAL(20, 8) NOT NULL,
+    close_ask_price DECIMAL(20, 8) NOT NULL,
+    sample_count INT NOT NULL,
+    PRIMARY KEY (trading_pair, bucket_start)
+);
+
+-- Creates the daily partitions [from_day, from_day + days) that do not exist yet.
+CREATE OR REPLACE FUNCTION create_price_aggregation_partitions(from_day DATE, days INT)
+    RETURNS INT
+    LANGUAGE plpgsql
+    SET search_path FROM CURRENT
+AS $$
+DECLARE
+    day DATE;
+    partition_name TEXT;
+    created INT := 0;
+BEGIN
+    FOR i IN 0 .. days - 1 LOOP
+        day := from_day + i;
+        partition_name := 'price_aggregations_p' || to_char(day, 'YYYYMMDD');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF price_aggregations FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, day::timestamp, (day + 1)::timestamp);
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$;
+
+-- Rolls complete minutes and hours up to `until` into the candle tables.
+-- Restarts from the newest bucket already rolled up, so it is idempotent and catches up after downtime.
+CREATE OR REPLACE FUNCTION rollup_price_aggregations(until TIMESTAMP)
+    RETURNS VOID
+    LANGUAGE plpgsql
+    SET search_path FROM CURRENT
+AS $$
+DECLARE
+    minute_from TIMESTAMP;
+    minute_to TIMESTAMP := date_trunc('minute', until);
+    hour_from TIMESTAMP;
+    hour_to TIMESTAMP := date_trunc('hour', until);
+BEGIN
+    SELECT COALESCE(max(bucket_start), '-infinity') INTO minute_from FROM price_aggregations_1m;
+
+    INSERT INTO price_aggregations_1m (trading_pair, bucket_start, open_price, high_price, low_price,
+                                      close_price, close_bid_price, close_ask_price, sample_count)
+    SELECT trading_pair,
+           date_trunc('minute', created_at),
+           (array_agg((best_bid_price + best_ask_price) / 2 ORDER BY created_at, id))[1],
+           max((best_bid_price + best_ask_price) / 2),
+           min((best_bid_price + best_ask_price) / 2),
+           (array_agg((best_bid_price + best_ask_price) / 2 ORDER BY created_at DESC, id DESC))[1],
+           (array_agg(best_bid_price ORDER BY created_at DESC, id DESC))[1],
+           (array_agg(best_ask_price ORDER BY created_at DESC, id DESC))[1],
+           count(*)
+    FROM price_aggregations
+    WHERE created_at >= minute_from AND created_at < minute_to
+    GROUP BY trading_pair, date_trunc('minute', created_at)
+    ON CONFLICT (trading_pair, bucket_start) DO UPDATE
+        SET open_price = EXCLUDED.open_price,
+            high_price = EXCLUDED.high_price,
+            low_price = EXCLUDED.low_price,
+            close_price = EXCLUDED.close_price,
+            close_bid_price = EXCLUDED.close_bid_price,
+            close_ask_price = EXCLUDED.close_ask_price,
+            sample_count = EXCLUDED.sample_count;
+
+    SELECT COALESCE(max(bucket_start), '-infinity') INTO hour_from FROM price_aggregations_1h;
+
+    INSERT INTO price_aggregations_1h (trading_pair, bucket_start, open_price, high_price, low_price,
+                                      close_price, close_bid_price, close_ask_price, sample_count)
+    SELECT trading_pair,
+           date_trunc('hour', bucket_start),
+           (array_agg(open_price ORDER BY bucket_start))[1],
+           max(high_price),
+           min(low_price),
+           (array_agg(close_price ORDER BY bucket_start DESC))[1],
+           (array_agg(close_bid_price ORDER BY bucket_start DESC))[1],
+           (array_agg(close_ask_price ORDER BY bucket_start DESC))[1],
+           sum(sample_count)
+    FROM price_aggregations_1m
+    WHERE bucket_start >= hour_from AND bucket_start < hour_to
+    GROUP BY trading_pair, date_trunc('hour', bucket_start)
+    ON CONFLICT (trading_pair, bucket_start) DO UPDATE
+        SET open_price = EXCLUDED.open_price,
+            high_price = EXCLUDED.high_price,
+            low_price = EXCLUDED.low_price,
+            close_price = EXCLUDED.close_price,
+            close_bid_price = EXCLUDED.close_bid_price,
+            close_ask_price = EXCLUDED.close_ask_price,
+            sample_count = EXCLUDED.sample_count;
+END;
+$$;
+
+-- Drops daily partitions that end before `before_day`, but never past what has been rolled up.
+CREATE OR REPLACE FUNCTION drop_price_aggregation_partitions(before_day DATE)
+    RETURNS INT
+    LANGUAGE plpgsql
+    SET search_path FROM CURRENT
+AS $$
+DECLARE
+    rolled_up_until TIMESTAMP;
+    partition_name TEXT;
+    dropped INT := 0;
+BEGIN
+    SELECT COALESCE(max(bucket_start), '-infinity') INTO rolled_up_until FROM price_aggregations_1m;
+
+    FOR partition_name IN
+        SELECT child.relname
+        FROM pg_inherits
+                 JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                 JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+        WHERE parent.oid = 'price_aggregations'::regclass
+          AND child.relname ~ '^price_aggregations_p[0-9]{8}$'
+    LOOP
+        IF to_date(substring(partition_name FROM '[0-9]{8}$'), 'YYYYMMDD') + 1 <= LEAST(before_day, rolled_up_until::date) THEN
+            EXECUTE format('DROP TABLE %I', partition_name);
+            dropped := dropped + 1;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END;
+$$;
+
+-- Move the existing rows over: one partition per day already present, plus a few days ahead.
+SELECT create_price_aggregation_partitions(
+               LEAST(COALESCE((SELECT min(created_at)::date FROM price_aggregations_legacy), CURRENT_DATE), CURRENT_DATE),
+               GREATEST(COALESCE(CURRENT_DATE - (SELECT min(created_at)::date FROM price_aggregations_legacy), 0), 0) + 3);
+
+INSERT INTO price_aggregations (id, trading_pair, best_bid_price, best_ask_price, source, created_at)
+SELECT id, trading_pair, best_bid_price, best_ask_price, source, COALESCE(created_at, CURRENT_TIMESTAMP)
+FROM price_aggregations_legacy;
+
+SELECT setval('price_aggregation_ids', COALESCE((SELECT max(id) FROM price_aggregations), 0) + 1, false);
+
+DROP TABLE price_aggregations_legacy;
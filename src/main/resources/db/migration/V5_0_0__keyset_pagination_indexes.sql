@@ -0,0 +1,7 @@
+-- Description: Indexes backing keyset pagination of trading history and wallets
+-- (the V3 index file is never picked up by Flyway because of its file name)
+CREATE INDEX IF NOT EXISTS idx_trading_transactions_user_created_id
+    ON trading_transactions (user_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_wallets_user_id
+    ON wallets (user_id, id);
@@ -0,0 +1,14 @@
+-- Description: Append-only journal behind the in-memory wallet ledger (app.trading.ledger).
+-- wallets.journal_seq is the last journal entry folded into the wallet's balance;
+-- entries above it are folded in by the next checkpoint, or replayed on startup after a crash.
+
+ALTER TABLE wallets ADD COLUMN IF NOT EXISTS journal_seq BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS wallet_journal (
+    seq BIGINT PRIMARY KEY,
+    wallet_id BIGINT NOT NULL REFERENCES wallets(id),
+    delta DECIMAL(20, 8) NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_wallet_journal_wallet_seq ON wallet_journal (wallet_id, seq);
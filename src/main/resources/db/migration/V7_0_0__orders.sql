@@ -0,0 +1,25 @@
+-- Description: Orders of the in-memory limit order books (app.trading.order-book).
+-- held_amount is what the order still holds of its owner's funds: quote currency for a BUY, base for a SELL.
+-- OPEN orders are loaded back into the books on startup in id order, which keeps their time priority;
+-- NEW orders were never matched and get their funds back.
+
+CREATE TABLE IF NOT EXISTS orders (
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id),
+    symbol VARCHAR(20) NOT NULL,
+    side VARCHAR(10) NOT NULL,
+    order_type VARCHAR(10) NOT NULL,
+    time_in_force VARCHAR(3) NOT NULL,
+    price DECIMAL(20, 8) NOT NULL,
+    quantity DECIMAL(20, 8) NOT NULL,
+    filled_quantity DECIMAL(20, 8) NOT NULL DEFAULT 0,
+    held_amount DECIMAL(20, 8) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_orders_status_id ON orders (status, id) WHERE status IN ('NEW', 'OPEN');
+
+-- Fills of book orders point at their order; trades against the aggregated price have none.
+ALTER TABLE trading_transactions ADD COLUMN IF NOT EXISTS order_id BIGINT REFERENCES orders(id);
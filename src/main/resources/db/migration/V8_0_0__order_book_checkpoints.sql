@@ -0,0 +1,9 @@
+-- Description: How far each order book's file journal (app.trading.order-book.journal) is reflected here.
+-- Written in the same transaction as the change it covers, so a restart replays the journal exactly up to it
+-- and ignores records whose transaction never committed.
+
+CREATE TABLE IF NOT EXISTS order_book_checkpoints (
+    symbol VARCHAR(20) PRIMARY KEY,
+    journal_seq BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,9 @@
+-- Description: Idempotency-Key of the request that created a trade (POST /api/v1/trades), unique per user.
+-- It is written by the same statement or transaction that settles the trade, so a retried request can never
+-- settle twice, even after the in-memory entry for the key is gone.
+
+ALTER TABLE trading_transactions ADD COLUMN IF NOT EXISTS idempotency_key VARCHAR(100);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_trading_transactions_user_idempotency_key
+    ON trading_transactions (user_id, idempotency_key)
+    WHERE idempotency_key IS NOT NULL;
@@ -0,0 +1,64 @@
+package com.aquarius.crypto.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedPointTest {
+
+    @Test
+    void fromBigDecimal_RoundsHalfUpToEightDecimals() {
+        assertEquals(12_345_678_900L, FixedPoint.fromBigDecimal(new BigDecimal("123.456789")));
+        assertEquals(1L, FixedPoint.fromBigDecimal(new BigDecimal("0.000000005")));
+        assertEquals(0L, FixedPoint.fromBigDecimal(new BigDecimal("0.000000004999")));
+        assertEquals(-1L, FixedPoint.fromBigDecimal(new BigDecimal("-0.000000005")));
+    }
+
+    @Test
+    void toBigDecimal_UsesTheColumnScale() {
+        assertEquals(new BigDecimal("3000.00000000"), FixedPoint.toBigDecimal(3000 * FixedPoint.ONE));
+        assertEquals(new BigDecimal("-0.00000001"), FixedPoint.toBigDecimal(-1L));
+    }
+
+    @Test
+    void multiply_PriceTimesQuantity() {
+        long price = FixedPoint.fromBigDecimal(new BigDecimal("2000.00"));
+        long quantity = FixedPoint.fromBigDecimal(new BigDecimal("1.5"));
+
+        assertEquals(new BigDecimal("3000.00000000"), FixedPoint.toBigDecimal(FixedPoint.multiply(price, quantity)));
+    }
+
+    @Test
+    void multiply_WithProductBeyondLongRange_StillFitsTheResult() {
+        // 98765.4321 * 123456.789: the raw unit product is ~1.2e26, the result ~1.2e18 units.
+        long a = FixedPoint.fromBigDecimal(new BigDecimal("98765.4321"));
+        long b = FixedPoint.fromBigDecimal(new BigDecimal("123456.789"));
+
+        assertEquals(new BigDecimal("12193263111.26352690"), FixedPoint.toBigDecimal(FixedPoint.multiply(a, b)));
+    }
+
+    @Test
+    void multiply_MatchesBigDecimalRounding() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 10_000; i++) {
+            long a = random.nextLong(-100_000 * FixedPoint.ONE, 100_000 * FixedPoint.ONE);
+            long b = random.nextLong(-1_000 * FixedPoint.ONE, 1_000 * FixedPoint.ONE);
+            BigDecimal expected = FixedPoint.toBigDecimal(a).multiply(FixedPoint.toBigDecimal(b))
+                    .setScale(FixedPoint.SCALE, RoundingMode.HALF_UP);
+
+            assertEquals(expected, FixedPoint.toBigDecimal(FixedPoint.multiply(a, b)), a + " * " + b);
+        }
+    }
+
+    @Test
+    void overflow_Throws() {
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(Long.MAX_VALUE / 2, 3 * FixedPoint.ONE));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.fromBigDecimal(new BigDecimal("1e12")));
+    }
+}
@@ -0,0 +1,69 @@
+package com.aquarius.crypto.config.tenant;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TenantRoutingConnectionFactoryTest {
+
+    private ConnectionPool traderPool;
+    private ConnectionPool brokerPool;
+    private SimpleMeterRegistry meterRegistry;
+    private TenantRoutingConnectionFactory connectionFactory;
+
+    @BeforeEach
+    void setUp() {
+        traderPool = mock(ConnectionPool.class);
+        brokerPool = mock(ConnectionPool.class);
+        meterRegistry = new SimpleMeterRegistry();
+        connectionFactory = new TenantRoutingConnectionFactory(Map.of("trader", traderPool, "broker", brokerPool), meterRegistry);
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @Test
+    void create_UsesThePoolOfTheTenantInContext() {
+        Connection connection = mock(Connection.class);
+        when(brokerPool.create()).thenReturn(Mono.just(connection));
+
+        StepVerifier.create(connectionFactory.create().contextWrite(Context.of(TenantContext.TENANT_ID_KEY, "broker")))
+                .expectNext(connection)
+                .verifyComplete();
+
+        verify(traderPool, never()).create();
+        assertEquals(1, meterRegistry.get("r2dbc.pool.acquire").tags("name", "broker", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void create_WithoutTenant_UsesTheTraderPool() {
+        Connection connection = mock(Connection.class);
+        when(traderPool.create()).thenReturn(Mono.just(connection));
+
+        StepVerifier.create(connectionFactory.create())
+                .expectNext(connection)
+                .verifyComplete();
+    }
+
+    @Test
+    void create_UnknownTenant_FailsInsteadOfFallingBack() {
+        StepVerifier.create(connectionFactory.create().contextWrite(Context.of(TenantContext.TENANT_ID_KEY, "unknown")))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(traderPool, never()).create();
+        verify(brokerPool, never()).create();
+        assertEquals(1, meterRegistry.get("r2dbc.pool.acquire").tags("name", "unknown", "outcome", "error").timer().count());
+    }
+}
@@ -0,0 +1,84 @@
+package com.aquarius.crypto.controller;
+
+import com.aquarius.crypto.config.codec.UserZoneJsonEncoder;
+import com.aquarius.crypto.dto.response.TradingHistoryResponse;
+import com.aquarius.crypto.filter.UserZoneWebFilter;
+import com.aquarius.crypto.service.SecurityContextService;
+import com.aquarius.crypto.service.TradingService;
+import com.aquarius.crypto.service.UserTimezoneService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static com.aquarius.crypto.helper.TestDataCreator.createTransaction;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocalizedTimestampTest {
+
+    private static final Long TEST_INTERNAL_ID = 100L;
+
+    @Mock
+    private TradingService tradingService;
+    @Mock
+    private SecurityContextService securityContextService;
+    @Mock
+    private UserTimezoneService timezoneService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(new TradingController(tradingService, securityContextService))
+                .webFilter(new UserZoneWebFilter(securityContextService, timezoneService))
+                .httpMessageCodecs(codecs -> codecs.defaultCodecs().jacksonJsonEncoder(new UserZoneJsonEncoder(JsonMapper.shared())))
+                .build();
+    }
+
+    @Test
+    void history_IsRenderedInTheUsersZone_ResolvedOncePerRequest() {
+        when(securityContextService.getInternalUserId()).thenReturn(Mono.just(TEST_INTERNAL_ID));
+        when(timezoneService.getPreferredZoneId(TEST_INTERNAL_ID)).thenReturn(Mono.just(ZoneId.of("Asia/Ho_Chi_Minh")));
+        when(tradingService.getUserTradingHistory(TEST_INTERNAL_ID)).thenReturn(Flux.just(
+                TradingHistoryResponse.fromEntity(createTransaction(2L, Instant.parse("2025-01-02T00:00:00Z"))),
+                TradingHistoryResponse.fromEntity(createTransaction(1L, Instant.parse("2025-01-01T20:30:00Z")))
+        ));
+
+        webTestClient.get().uri("/api/v1/users/trades/me/all")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data[0].timestamp").isEqualTo("2025-01-02T07:00:00.000+07:00")
+                .jsonPath("$.data[1].timestamp").isEqualTo("2025-01-02T03:30:00.000+07:00");
+
+        verify(timezoneService, times(1)).getPreferredZoneId(TEST_INTERNAL_ID);
+    }
+
+    @Test
+    void withoutAUser_TheZoneIsUtc() {
+        when(securityContextService.getInternalUserId())
+                .thenReturn(Mono.error(new UsernameNotFoundException("Authentication context not found.")))
+                .thenReturn(Mono.just(TEST_INTERNAL_ID));
+        when(tradingService.getUserTradingHistory(TEST_INTERNAL_ID)).thenReturn(Flux.just(
+                TradingHistoryResponse.fromEntity(createTransaction(1L, Instant.parse("2025-01-01T20:30:00Z")))
+        ));
+
+        webTestClient.get().uri("/api/v1/users/trades/me/all")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data[0].timestamp").isEqualTo("2025-01-01T20:30:00.000Z");
+    }
+}
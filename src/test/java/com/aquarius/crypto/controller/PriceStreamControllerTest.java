@@ -0,0 +1,78 @@
+package com.aquarius.crypto.controller;
+
+import com.aquarius.crypto.dto.response.AggregatedPriceResponse;
+import com.aquarius.crypto.service.PriceAggregationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Set;
+
+import static com.aquarius.crypto.constants.ConstStrings.BTC_PAIR;
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PriceStreamControllerTest {
+
+    @Mock
+    private PriceAggregationService priceService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        PriceController controller = new PriceController(priceService);
+        ReflectionTestUtils.setField(controller, "heartbeatSeconds", 15L);
+        webTestClient = WebTestClient.bindToController(controller).build();
+        when(priceService.getSupportedPairs()).thenReturn(Set.of(ETH_PAIR, BTC_PAIR));
+    }
+
+    @Test
+    void streamPrices_PushesEventsNamedAfterPair() {
+        when(priceService.streamPrices(Set.of(ETH_PAIR))).thenReturn(Flux.concat(
+                Flux.just(new AggregatedPriceResponse(ETH_PAIR, new BigDecimal("2000.00"), new BigDecimal("2001.00"), Instant.now())),
+                Flux.never()));
+
+        Flux<ServerSentEvent<AggregatedPriceResponse>> events = webTestClient.get()
+                .uri("/api/v1/prices/stream?symbols=ethusdt")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<AggregatedPriceResponse>>() {})
+                .getResponseBody();
+
+        StepVerifier.create(events.take(1))
+                .assertNext(event -> {
+                    assertEquals(ETH_PAIR, event.event());
+                    assertEquals(new BigDecimal("2000.00"), event.data().getBestBidPrice());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void streamPrices_UnsupportedPair_IsRejected() {
+        webTestClient.get()
+                .uri("/api/v1/prices/stream?symbols=ETHUSDT,DOGEUSDT")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(priceService, never()).streamPrices(any());
+    }
+}
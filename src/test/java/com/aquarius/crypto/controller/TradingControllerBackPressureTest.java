@@ -0,0 +1,86 @@
+package com.aquarius.crypto.controller;
+
+import com.aquarius.crypto.dto.request.BatchTradingRequest;
+import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.exception.GlobalExceptionHandler;
+import com.aquarius.crypto.exception.TradeQueueFullException;
+import com.aquarius.crypto.service.SecurityContextService;
+import com.aquarius.crypto.service.TradingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TradingControllerBackPressureTest {
+
+    private static final Long TEST_INTERNAL_ID = 100L;
+
+    @Mock
+    private TradingService tradingService;
+    @Mock
+    private SecurityContextService securityContextService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(new TradingController(tradingService, securityContextService))
+                .controllerAdvice(new GlobalExceptionHandler())
+                .build();
+        when(securityContextService.getInternalUserId()).thenReturn(Mono.just(TEST_INTERNAL_ID));
+    }
+
+    @Test
+    void trade_OnAFullLane_IsServiceUnavailable() {
+        when(tradingService.trade(any(TradingRequest.class), isNull()))
+                .thenReturn(Mono.error(new TradeQueueFullException("Too many pending orders, retry later")));
+
+        webTestClient.post().uri("/api/v1/trades")
+                .bodyValue(buy())
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Too many pending orders, retry later");
+    }
+
+    @Test
+    void batch_OnAFullLane_IsServiceUnavailable() {
+        when(tradingService.tradeBatch(eq(TEST_INTERNAL_ID), anyList(), anyBoolean()))
+                .thenReturn(Mono.error(new TradeQueueFullException("Too many pending orders, retry later")));
+
+        webTestClient.post().uri("/api/v1/trades/batch")
+                .bodyValue(new BatchTradingRequest(List.of(buy()), false))
+                .exchange()
+                .expectStatus().isEqualTo(503);
+    }
+
+    @Test
+    void trade_RejectedForAnyOtherReason_IsStillABadRequest() {
+        when(tradingService.trade(any(TradingRequest.class), isNull()))
+                .thenReturn(Mono.error(new IllegalArgumentException("Insufficient USDT balance")));
+
+        webTestClient.post().uri("/api/v1/trades")
+                .bodyValue(buy())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private static TradingRequest buy() {
+        return TradingRequest.builder().symbol(ETH_PAIR).tradeType("BUY").quantity(new BigDecimal("0.5")).build();
+    }
+}
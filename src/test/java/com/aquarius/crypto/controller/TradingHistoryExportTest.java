@@ -0,0 +1,89 @@
+package com.aquarius.crypto.controller;
+
+import com.aquarius.crypto.dto.response.TradingHistoryResponse;
+import com.aquarius.crypto.service.SecurityContextService;
+import com.aquarius.crypto.service.TradingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+import static com.aquarius.crypto.helper.TestDataCreator.createTransaction;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TradingHistoryExportTest {
+
+    private static final Long TEST_INTERNAL_ID = 100L;
+    private static final Instant FROM = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2025-02-01T00:00:00Z");
+
+    @Mock
+    private TradingService tradingService;
+    @Mock
+    private SecurityContextService securityContextService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(new TradingController(tradingService, securityContextService)).build();
+        lenient().when(securityContextService.getInternalUserId()).thenReturn(Mono.just(TEST_INTERNAL_ID));
+        lenient().when(tradingService.exportUserTradingHistory(TEST_INTERNAL_ID, FROM, TO)).thenReturn(Flux.just(
+                TradingHistoryResponse.fromEntity(createTransaction(2L, Instant.parse("2025-01-02T00:00:00Z"))),
+                TradingHistoryResponse.fromEntity(createTransaction(1L, Instant.parse("2025-01-01T00:00:00Z")))
+        ));
+    }
+
+    @Test
+    void export_StreamsNdjsonRowsInRange() {
+        webTestClient.get().uri("/api/v1/users/trades/me/export?from={from}&to={to}", FROM, TO)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(TradingHistoryResponse.class)
+                .getResponseBody()
+                .map(TradingHistoryResponse::getTransactionId)
+                .collectList()
+                .doOnNext(ids -> assertEquals(List.of(2L, 1L), ids))
+                .block();
+    }
+
+    @Test
+    void export_AsCsv_WritesHeaderThenOneLinePerTrade() {
+        String body = webTestClient.get().uri("/api/v1/users/trades/me/export?format=csv&from={from}&to={to}", FROM, TO)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.parseMediaType("text/csv"))
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals(TradingHistoryResponse.CSV_HEADER
+                        + "2,ETHUSDT,BUY,1.0,2000.00,2000.00,COMPLETED,2025-01-02T00:00:00Z\n"
+                        + "1,ETHUSDT,BUY,1.0,2000.00,2000.00,COMPLETED,2025-01-01T00:00:00Z\n",
+                body);
+    }
+
+    @Test
+    void export_WithEmptyRange_IsRejected() {
+        webTestClient.get().uri("/api/v1/users/trades/me/export?from={from}&to={to}", TO, FROM)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(tradingService, never()).exportUserTradingHistory(any(), any(), any());
+    }
+}
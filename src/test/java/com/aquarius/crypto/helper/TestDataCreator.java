@@ -1,9 +1,12 @@
 package com.aquarius.crypto.helper;
 
+import com.aquarius.crypto.dto.TradeType;
 import com.aquarius.crypto.dto.third_party.TickerResponse;
+import com.aquarius.crypto.model.TradingTransaction;
 import com.aquarius.crypto.model.Wallet;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public class TestDataCreator {
     public static TickerResponse createTicker(String source, String symbol, String bid, String ask) {
@@ -24,4 +27,18 @@ public class TestDataCreator {
                 .version(1L)
                 .build();
     }
+
+    public static TradingTransaction createTransaction(Long id, Instant createdAt) {
+        return TradingTransaction.builder()
+                .id(id)
+                .userId(1L)
+                .symbol("ETHUSDT")
+                .tradeType(TradeType.BUY)
+                .quantity(new BigDecimal("1.0"))
+                .price(new BigDecimal("2000.00"))
+                .totalAmount(new BigDecimal("2000.00"))
+                .status("COMPLETED")
+                .createdAt(createdAt)
+                .build();
+    }
 }
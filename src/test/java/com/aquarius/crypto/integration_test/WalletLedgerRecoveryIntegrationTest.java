@@ -0,0 +1,174 @@
+package com.aquarius.crypto.integration_test;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.model.Wallet;
+import com.aquarius.crypto.repository.WalletJournalRepository;
+import com.aquarius.crypto.service.WalletLedgerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.PostgreSQLR2DBCDatabaseContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Restarts the wallet ledger against a real database: a new {@link WalletLedgerService} stands in
+ * for the process that comes up after a crash or a deploy.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class WalletLedgerRecoveryIntegrationTest {
+
+    private static final long USER_ID = 1L;
+    private static final long USDT_WALLET = 1L;
+    private static final long ETH_WALLET = 2L;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    private DatabaseClient databaseClient;
+    private TransactionalOperator rxtx;
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    void resetWallets() {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(PostgreSQLR2DBCDatabaseContainer.getOptions(postgres));
+        databaseClient = DatabaseClient.create(connectionFactory);
+        rxtx = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        databaseClient.sql("DELETE FROM wallet_journal").then()
+                .then(databaseClient.sql("UPDATE wallets SET balance = 50000, journal_seq = 0 WHERE id = " + USDT_WALLET).then())
+                .then(databaseClient.sql("UPDATE wallets SET balance = 0, journal_seq = 0 WHERE id = " + ETH_WALLET).then())
+                .block(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void foldedTrades_SurviveARestart() {
+        WalletLedgerService beforeRestart = startLedger();
+        StepVerifier.create(settle(beforeRestart, "USDT", units("2000"), "ETH", FixedPoint.ONE)
+                        .then(beforeRestart.checkpoint()))
+                .verifyComplete();
+
+        assertEquals(new BigDecimal("48000.00000000"), balanceOf(USDT_WALLET));
+        assertEquals(new BigDecimal("1.00000000"), balanceOf(ETH_WALLET));
+
+        // The new process loads the folded balances and continues the journal sequence.
+        WalletLedgerService afterRestart = startLedger();
+        StepVerifier.create(settle(afterRestart, "ETH", units("0.5"), "USDT", units("1000")))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(afterRestart.checkpoint()).verifyComplete();
+
+        assertEquals(new BigDecimal("49000.00000000"), balanceOf(USDT_WALLET));
+        assertEquals(new BigDecimal("0.50000000"), balanceOf(ETH_WALLET));
+        assertEquals(List.of(1L, 2L, 3L, 4L), journalSequences());
+    }
+
+    @Test
+    void journalNotFoldedBeforeTheCrash_IsReplayedOnStartup() {
+        // The crashed process had acknowledged a trade but died before the checkpoint.
+        WalletLedgerService crashed = startLedger();
+        StepVerifier.create(settle(crashed, "USDT", units("3000"), "ETH", units("1.5")))
+                .expectNext(true)
+                .verifyComplete();
+        assertEquals(new BigDecimal("50000.00000000"), balanceOf(USDT_WALLET));
+
+        WalletLedgerService afterRestart = startLedger();
+        StepVerifier.create(settle(afterRestart, "USDT", units("47000"), "ETH", 10 * FixedPoint.ONE))
+                .expectNext(true)
+                .verifyComplete();
+        // Had the journal not been replayed, this would still see 50000 and accept it.
+        StepVerifier.create(settle(afterRestart, "USDT", units("0.01"), "ETH", FixedPoint.ONE))
+                .verifyComplete();
+        StepVerifier.create(afterRestart.checkpoint()).verifyComplete();
+
+        assertEquals(new BigDecimal("0E-8"), balanceOf(USDT_WALLET));
+        assertEquals(new BigDecimal("11.50000000"), balanceOf(ETH_WALLET));
+        assertEquals(List.of(1L, 2L, 3L, 4L), journalSequences());
+    }
+
+    @Test
+    void failedAuditInsert_RollsTheJournalEntriesBack() {
+        WalletLedgerService ledger = startLedger();
+        StepVerifier.create(ledger.settle(USER_ID, "USDT", units("2000"), "ETH", FixedPoint.ONE, this::loadWallet,
+                        Mono.error(new IllegalStateException("audit insert failed"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+        StepVerifier.create(settle(ledger, "USDT", units("100"), "ETH", units("0.05"))
+                        .then(ledger.checkpoint()))
+                .verifyComplete();
+
+        assertEquals(new BigDecimal("49900.00000000"), balanceOf(USDT_WALLET));
+        assertEquals(new BigDecimal("0.05000000"), balanceOf(ETH_WALLET));
+        assertEquals(List.of(3L, 4L), journalSequences());
+    }
+
+    private WalletLedgerService startLedger() {
+        WalletLedgerService service = new WalletLedgerService(new WalletJournalRepository(databaseClient), rxtx,
+                new SimpleMeterRegistry(), 4);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        return service;
+    }
+
+    // The audit insert is left out; the journal entries are the part under test.
+    private Mono<Boolean> settle(WalletLedgerService ledger, String debitCurrency, long debitUnits,
+                                 String creditCurrency, long creditUnits) {
+        return ledger.settle(USER_ID, debitCurrency, debitUnits, creditCurrency, creditUnits, this::loadWallet, Mono.just(true));
+    }
+
+    private Mono<Wallet> loadWallet(String currency) {
+        return databaseClient.sql("SELECT id, user_id, currency, balance FROM wallets WHERE user_id = :userId AND currency = :currency")
+                .bind("userId", USER_ID)
+                .bind("currency", currency)
+                .map(row -> Wallet.builder()
+                        .id(row.get("id", Long.class))
+                        .userId(row.get("user_id", Long.class))
+                        .currency(row.get("currency", String.class))
+                        .balance(row.get("balance", BigDecimal.class))
+                        .build())
+                .one();
+    }
+
+    private BigDecimal balanceOf(long walletId) {
+        return databaseClient.sql("SELECT balance FROM wallets WHERE id = :id")
+                .bind("id", walletId)
+                .map(row -> row.get(0, BigDecimal.class))
+                .one()
+                .block(Duration.ofSeconds(10));
+    }
+
+    private List<Long> journalSequences() {
+        return databaseClient.sql("SELECT seq FROM wallet_journal ORDER BY seq")
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .collectList()
+                .block(Duration.ofSeconds(10));
+    }
+
+    private static long units(String amount) {
+        return FixedPoint.fromBigDecimal(new BigDecimal(amount));
+    }
+}
@@ -0,0 +1,54 @@
+package com.aquarius.crypto.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickerMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TickerMetrics tickerMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tickerMetrics = new TickerMetrics(meterRegistry);
+    }
+
+    @Test
+    void timeFetch_RecordsLatencyAndCountsFailures() {
+        StepVerifier.create(tickerMetrics.timeFetch("BINANCE", Flux.just(1, 2))).expectNextCount(2).verifyComplete();
+        StepVerifier.create(tickerMetrics.timeFetch("BINANCE", Flux.error(new IllegalStateException("down")))).verifyError();
+
+        assertEquals(1, meterRegistry.get("crypto.ticker.fetch").tags("source", "BINANCE", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("crypto.ticker.fetch").tags("source", "BINANCE", "outcome", "error").timer().count());
+        assertEquals(1.0, meterRegistry.get("crypto.ticker.errors").tags("source", "BINANCE").counter().count());
+    }
+
+    @Test
+    void timeFetch_RecordsAnAbandonedFetchAsCancelled() {
+        StepVerifier.create(tickerMetrics.timeFetch("HUOBI", Flux.never())).thenCancel().verify();
+
+        assertEquals(1, meterRegistry.get("crypto.ticker.fetch").tags("source", "HUOBI", "outcome", "cancelled").timer().count());
+        assertEquals(0, meterRegistry.find("crypto.ticker.fetch").tags("outcome", "success").timers().size());
+    }
+
+    @Test
+    void quoteReceived_ResetsThePriceAgeOfThatSourceAndSymbol() throws InterruptedException {
+        tickerMetrics.quoteReceived("HUOBI", "ETHUSDT");
+        Thread.sleep(20);
+        tickerMetrics.quoteReceived("BINANCE", "ETHUSDT");
+
+        double huobiAge = meterRegistry.get("crypto.ticker.price.age").tags("source", "HUOBI").timeGauge().value(TimeUnit.MILLISECONDS);
+        double binanceAge = meterRegistry.get("crypto.ticker.price.age").tags("source", "BINANCE").timeGauge().value(TimeUnit.MILLISECONDS);
+        assertTrue(huobiAge >= 20, "age " + huobiAge);
+        assertTrue(binanceAge < huobiAge);
+    }
+}
@@ -2,6 +2,7 @@ package com.aquarius.crypto.security;
 
 import com.aquarius.crypto.common.JwtProperties;
 import com.aquarius.crypto.model.UserPrincipal;
+import com.aquarius.crypto.model.VerifiedToken;
 import com.aquarius.crypto.service.JwtService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
@@ -64,6 +65,26 @@ class JwtServiceTest {
         assertEquals(principal.tenantId(), claims.get("tenantId"));
     }
 
+    @Test
+    void testVerifyReturnsClaimsAndExpiry() {
+        UserPrincipal principal = new UserPrincipal(
+                1L,
+                UUID.randomUUID(),
+                "user1",
+                "password",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")),
+                "tenant-1"
+        );
+
+        VerifiedToken verified = jwtService.verify(jwtService.generateAccessToken(principal));
+
+        assertEquals(principal.publicId().toString(), verified.publicId());
+        assertEquals(principal.tenantId(), verified.tenantId());
+        assertEquals(1L, verified.internalId());
+        assertEquals(List.of("ROLE_USER"), verified.roles());
+        assertTrue(verified.expiresAt().isAfter(Instant.now().plusSeconds(3500)));
+    }
+
     @Test
     void testGenerateAndValidateRefreshToken() {
         UserPrincipal principal = new UserPrincipal(
@@ -0,0 +1,61 @@
+package com.aquarius.crypto.security;
+
+import com.aquarius.crypto.model.UserPrincipal;
+import com.aquarius.crypto.service.SecurityContextService;
+import com.aquarius.crypto.service.UserMappingService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SecurityContextServiceTest {
+
+    private static final UUID PUBLIC_ID = UUID.randomUUID();
+    private static final List<SimpleGrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("TRADER"));
+
+    @Mock
+    private UserMappingService userMappingService;
+
+    @InjectMocks
+    private SecurityContextService securityContextService;
+
+    @Test
+    void principalFromTheToken_NeedsNoLookup() {
+        UserPrincipal principal = new UserPrincipal(42L, PUBLIC_ID, null, null, AUTHORITIES, "trader");
+
+        StepVerifier.create(securityContextService.getInternalUserId()
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                                new UsernamePasswordAuthenticationToken(principal, null, AUTHORITIES))))
+                .expectNext(42L)
+                .verifyComplete();
+
+        verify(userMappingService, never()).findByPublicId(any());
+    }
+
+    @Test
+    void publicIdOnly_IsLookedUp() {
+        when(userMappingService.findByPublicId(PUBLIC_ID))
+                .thenReturn(Mono.just(new UserPrincipal(42L, PUBLIC_ID, "user@example.com", null, AUTHORITIES, "trader")));
+
+        StepVerifier.create(securityContextService.getInternalUserId()
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                                new UsernamePasswordAuthenticationToken(PUBLIC_ID.toString(), null, AUTHORITIES))))
+                .expectNext(42L)
+                .verifyComplete();
+    }
+}
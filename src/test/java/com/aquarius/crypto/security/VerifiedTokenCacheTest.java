@@ -0,0 +1,69 @@
+package com.aquarius.crypto.security;
+
+import com.aquarius.crypto.model.VerifiedToken;
+import com.aquarius.crypto.service.JwtService;
+import com.aquarius.crypto.service.VerifiedTokenCache;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VerifiedTokenCacheTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock
+    private JwtService jwtService;
+
+    private VerifiedTokenCache tokenCache;
+
+    @BeforeEach
+    void setUp() {
+        tokenCache = new VerifiedTokenCache(jwtService, new SimpleMeterRegistry(), 100);
+    }
+
+    @Test
+    void verifiedToken_IsServedFromTheCacheAfterwards() {
+        VerifiedToken verified = new VerifiedToken("public-id", "tenant-1", 1L, List.of("TRADER"), Instant.now().plusSeconds(600));
+        when(jwtService.verify(TOKEN)).thenReturn(verified);
+
+        assertNull(tokenCache.getIfPresent(TOKEN));
+        assertEquals(verified, tokenCache.verify(TOKEN));
+
+        assertEquals(verified, tokenCache.getIfPresent(TOKEN));
+        assertNull(tokenCache.getIfPresent(TOKEN + "x"));
+        verify(jwtService, times(1)).verify(TOKEN);
+    }
+
+    @Test
+    void tokenPastItsExpiry_IsNotServed() {
+        when(jwtService.verify(TOKEN)).thenReturn(new VerifiedToken("public-id", "tenant-1", 1L, List.of("TRADER"), Instant.now().minusSeconds(1)));
+
+        tokenCache.verify(TOKEN);
+
+        assertNull(tokenCache.getIfPresent(TOKEN));
+    }
+
+    @Test
+    void rejectedToken_IsNotCached() {
+        when(jwtService.verify(TOKEN)).thenThrow(new ExpiredJwtException(null, null, "JWT token is expired."));
+
+        assertThrows(ExpiredJwtException.class, () -> tokenCache.verify(TOKEN));
+
+        assertNull(tokenCache.getIfPresent(TOKEN));
+    }
+}
@@ -0,0 +1,252 @@
+package com.aquarius.crypto.service.order_book;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.dto.TimeInForce;
+import com.aquarius.crypto.service.OrderBook;
+import com.aquarius.crypto.service.OrderBookJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A "kill" drops the journal without closing it, as a crashed process would; the restart opens a new one
+ * on the same directory.
+ */
+class OrderBookJournalTest {
+
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+
+    @TempDir
+    private Path dir;
+
+    private Scheduler flusher;
+    private OrderBook book;
+    private OrderBookJournal journal;
+    private long nextId;
+
+    @BeforeEach
+    void setUp() {
+        flusher = Schedulers.newSingle("journal-test");
+        startLive(SEGMENT_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        flusher.dispose();
+    }
+
+    @Test
+    void restart_ReplaysEveryCommittedChange() {
+        rest(sell("2000", "1"));
+        OrderBook.Order bid = buy("1990", "2");
+        rest(bid);
+        OrderBook.Order cancelled = buy("1980", "1");
+        rest(cancelled);
+        take(sell("1990", "0.5"));
+        cancel(cancelled.getId());
+        List<String> expected = contents(book);
+
+        OrderBook restarted = new OrderBook("ETHUSDT");
+        OrderBookJournal.Replay replay = restart().replay(journal.lastSeq(), restarted);
+
+        assertNotNull(replay);
+        assertEquals(journal.lastSeq(), replay.replayed());
+        assertEquals(expected, contents(restarted));
+    }
+
+    @Test
+    void restart_MidStream_IgnoresRecordsPastTheCheckpoint() {
+        rest(sell("2000", "1"));
+        rest(buy("1990", "1"));
+        long committed = journal.lastSeq();
+        List<String> atCheckpoint = contents(book);
+        // Journaled, but killed before the database committed them.
+        take(buy("2000", "1"));
+        rest(sell("2010", "3"));
+
+        OrderBook restarted = new OrderBook("ETHUSDT");
+        assertNotNull(restart().replay(committed, restarted));
+        assertEquals(atCheckpoint, contents(restarted));
+    }
+
+    @Test
+    void restart_FromASnapshot_ReplaysOnlyTheTail() {
+        for (int i = 0; i < 10; i++) {
+            rest(sell(String.valueOf(2000 + i), "1"));
+        }
+        long snapshotSeq = journal.lastSeq();
+        journal.writeSnapshot(journal.capture(book));
+        take(buy("2001", "1.5"));
+        List<String> expected = contents(book);
+
+        OrderBook restarted = new OrderBook("ETHUSDT");
+        OrderBookJournal.Replay replay = restart().replay(journal.lastSeq(), restarted);
+
+        assertNotNull(replay);
+        assertEquals(snapshotSeq, replay.snapshotSeq());
+        assertEquals(2, replay.replayed());
+        assertEquals(expected, contents(restarted));
+    }
+
+    @Test
+    void restart_ReplaysAcrossSegments() {
+        startLive(3 * OrderBookJournal.RECORD_SIZE);
+        for (int i = 0; i < 10; i++) {
+            rest(buy(String.valueOf(1000 + i), "1"));
+        }
+        take(sell("1005", "3"));
+        List<String> expected = contents(book);
+        assertTrue(files(".journal") > 3);
+
+        OrderBook restarted = new OrderBook("ETHUSDT");
+        assertNotNull(restart().replay(journal.lastSeq(), restarted));
+        assertEquals(expected, contents(restarted));
+    }
+
+    @Test
+    void snapshots_PruneTheSegmentsTheyCover() {
+        startLive(3 * OrderBookJournal.RECORD_SIZE);
+        for (int i = 0; i < 10; i++) {
+            rest(buy(String.valueOf(1000 + i), "1"));
+            journal.writeSnapshot(journal.capture(book));
+        }
+        assertEquals(2, files(".snapshot"));
+        assertTrue(files(".journal") <= 2);
+
+        OrderBook restarted = new OrderBook("ETHUSDT");
+        assertNotNull(restart().replay(journal.lastSeq(), restarted));
+        assertEquals(contents(book), contents(restarted));
+    }
+
+    @Test
+    void damagedSnapshot_FallsBackToTheOlderOne() throws IOException {
+        rest(buy("1990", "1"));
+        journal.writeSnapshot(journal.capture(book));
+        rest(buy("1991", "1"));
+        journal.writeSnapshot(journal.capture(book));
+        Path newest;
+        try (Stream<Path> files = Files.list(dir)) {
+            newest = files.filter(file -> file.toString().endsWith(".snapshot")).max(Path::compareTo).orElseThrow();
+        }
+        Files.write(newest, new byte[]{1, 2, 3});
+
+        OrderBook restarted = new OrderBook("ETHUSDT");
+        OrderBookJournal.Replay replay = restart().replay(journal.lastSeq(), restarted);
+
+        assertNotNull(replay);
+        assertEquals(1, replay.snapshotSeq());
+        assertEquals(contents(book), contents(restarted));
+    }
+
+    @Test
+    void invalidatedJournal_IsNotReplayed() {
+        rest(buy("1990", "1"));
+        journal.invalidate();
+
+        assertNull(restart().replay(journal.lastSeq(), new OrderBook("ETHUSDT")));
+    }
+
+    @Test
+    void missingRecords_AreNotReplayed() throws IOException {
+        startLive(3 * OrderBookJournal.RECORD_SIZE);
+        for (int i = 0; i < 10; i++) {
+            rest(buy(String.valueOf(1000 + i), "1"));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            Files.delete(files.filter(file -> file.toString().endsWith(".journal")).sorted().toList().get(1));
+        }
+
+        assertNull(restart().replay(journal.lastSeq(), new OrderBook("ETHUSDT")));
+        // A checkpoint past the journal cannot be reproduced either.
+        assertNull(restart().replay(journal.lastSeq() + 1, new OrderBook("ETHUSDT")));
+    }
+
+    @Test
+    void awaitDurable_ServesEveryWaiter() {
+        rest(buy("1990", "1"));
+        rest(buy("1991", "1"));
+        rest(buy("1992", "1"));
+
+        StepVerifier.create(Mono.when(journal.awaitDurable(1), journal.awaitDurable(3), journal.awaitDurable(2)))
+                .verifyComplete();
+        StepVerifier.create(journal.awaitDurable(3))
+                .verifyComplete();
+    }
+
+    private void startLive(int segmentSize) {
+        book = new OrderBook("ETHUSDT");
+        nextId = 1;
+        journal = new OrderBookJournal(dir, segmentSize, flusher);
+        journal.start(0, book);
+    }
+
+    private OrderBookJournal restart() {
+        return new OrderBookJournal(dir, SEGMENT_SIZE, flusher);
+    }
+
+    // Journals a change the way OrderBookService does.
+    private void rest(OrderBook.Order order) {
+        assertTrue(book.submit(order, TimeInForce.GTC, this::journalFill));
+        journal.appendAdd(order);
+    }
+
+    private void take(OrderBook.Order taker) {
+        if (book.submit(taker, TimeInForce.GTC, this::journalFill)) {
+            journal.appendAdd(taker);
+        }
+    }
+
+    private void cancel(long orderId) {
+        assertNotNull(book.cancel(orderId));
+        journal.appendCancel(orderId);
+    }
+
+    private void journalFill(OrderBook.Order maker, OrderBook.Order taker, long price, long quantity, long cost) {
+        journal.appendFill(maker.getId(), quantity, maker.isBuy() ? cost : quantity);
+    }
+
+    private OrderBook.Order buy(String price, String quantity) {
+        long held = FixedPoint.multiply(units(price), units(quantity));
+        return new OrderBook.Order(nextId++, 1L, true, units(price), units(quantity), held);
+    }
+
+    private OrderBook.Order sell(String price, String quantity) {
+        return new OrderBook.Order(nextId++, 2L, false, units(price), units(quantity), units(quantity));
+    }
+
+    private long files(String suffix) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> contents(OrderBook book) {
+        List<String> orders = new ArrayList<>();
+        book.forEachResting(order -> orders.add(order.getId() + ":" + order.getRemaining() + ":" + order.getHeld()));
+        return orders;
+    }
+
+    private static long units(String value) {
+        return FixedPoint.fromBigDecimal(new BigDecimal(value));
+    }
+}
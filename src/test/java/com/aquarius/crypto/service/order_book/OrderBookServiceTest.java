@@ -0,0 +1,298 @@
+package com.aquarius.crypto.service.order_book;
+
+import com.aquarius.crypto.config.tenant.TenantContext;
+import com.aquarius.crypto.dto.OrderStatus;
+import com.aquarius.crypto.dto.TradeType;
+import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.exception.InsufficientBalanceException;
+import com.aquarius.crypto.model.Order;
+import com.aquarius.crypto.model.TradingTransaction;
+import com.aquarius.crypto.repository.OrderRepository;
+import com.aquarius.crypto.service.OrderBookService;
+import com.aquarius.crypto.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.aquarius.crypto.constants.ConstStrings.BTC_PAIR;
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+import static com.aquarius.crypto.helper.TestDataCreator.createWallet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBookServiceTest {
+
+    private static final String TRADER = TenantContext.TRADER_TENANT_ID;
+
+    @Mock
+    private WalletService walletService;
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private TransactionalOperator rxtx;
+
+    @TempDir
+    private Path journalDir;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String, Long> checkpoints = new ConcurrentHashMap<>();
+    private final List<String> writeTenants = new CopyOnWriteArrayList<>();
+    private OrderBookService orderBookService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(walletService.releaseNewOrders(anyString(), eq("USDT"))).thenReturn(Mono.just(0L));
+        lenient().when(orderRepository.findOpenOrdersBySymbol(anyString(), anyString())).thenReturn(Flux.empty());
+        lenient().when(orderRepository.findCheckpoint(anyString(), anyString()))
+                .thenAnswer(inv -> Mono.justOrEmpty(checkpoints.get(inv.getArgument(0) + ":" + inv.getArgument(1))));
+        lenient().when(orderRepository.saveCheckpoint(anyString(), anyString(), anyLong(), any()))
+                .thenAnswer(inv -> Mono.fromSupplier(() -> {
+                    checkpoints.put(inv.getArgument(0) + ":" + inv.getArgument(1), inv.getArgument(2));
+                    return 1;
+                }));
+        lenient().when(walletService.placeOrder(any(), anyString(), any(), anyString()))
+                .thenAnswer(inv -> Mono.just(inv.<Order>getArgument(0).toBuilder().id(ids.incrementAndGet()).build()));
+        lenient().when(walletService.settleFill(any(), anyLong(), any(), anyString(), any()))
+                .thenAnswer(inv -> Mono.deferContextual(ctx -> {
+                    writeTenants.add(TenantContext.getTenantId(ctx));
+                    TradingTransaction audit = inv.getArgument(0);
+                    audit.setId(ids.incrementAndGet());
+                    return Mono.just(audit);
+                }));
+        lenient().when(walletService.closeOrder(anyLong(), anyLong(), anyString(), any(), any()))
+                .thenReturn(Mono.just(1L));
+        lenient().when(rxtx.transactional(any(Mono.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        orderBookService = newService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderBookService.shutdown();
+    }
+
+    @Test
+    void limitOrder_ThatDoesNotCross_Rests() {
+        StepVerifier.create(orderBookService.placeOrder(limit(1L, "SELL", "2000", "1", null)))
+                .assertNext(order -> {
+                    assertEquals(OrderStatus.OPEN, order.getStatus());
+                    assertEquals(0, order.getFilledQuantity().signum());
+                    assertEquals(0, order.getFills().size());
+                })
+                .verifyComplete();
+
+        verify(walletService).placeOrder(any(), eq("ETH"), eq(new BigDecimal("1.00000000")), eq("USDT"));
+        verify(walletService, never()).settleFill(any(), anyLong(), any(), anyString(), any());
+    }
+
+    @Test
+    void crossingOrder_SettlesBothSides_AndReleasesWhatTheTakerDidNotSpend() {
+        orderBookService.placeOrder(limit(1L, "SELL", "2000", "1", null)).block();
+
+        StepVerifier.create(orderBookService.placeOrder(limit(2L, "BUY", "2010", "1", null))
+                        .contextWrite(Context.of(TenantContext.TENANT_ID_KEY, "trader")))
+                .assertNext(order -> {
+                    assertEquals(OrderStatus.FILLED, order.getStatus());
+                    assertEquals(1, order.getFills().size());
+                    assertEquals(0, new BigDecimal("2000").compareTo(order.getFills().get(0).getPrice()));
+                })
+                .verifyComplete();
+
+        // The seller is paid 2000 USDT, the buyer gets 1 ETH and the 10 USDT it held above the fill price back.
+        verify(walletService).settleFill(any(), eq(1L), eq(new BigDecimal("1.00000000")), eq("USDT"),
+                eq(new BigDecimal("2000.00000000")));
+        verify(walletService).settleFill(any(), eq(2L), eq(new BigDecimal("2000.00000000")), eq("ETH"),
+                eq(new BigDecimal("1.00000000")));
+        verify(walletService).closeOrder(2L, 2L, "USDT", new BigDecimal("10.00000000"), OrderStatus.FILLED);
+        assertEquals(List.of("trader", "trader"), writeTenants);
+    }
+
+    @Test
+    void books_AreKeptApartPerTenant() {
+        orderBookService.placeOrder(limit(1L, "SELL", "2000", "1", null))
+                .contextWrite(Context.of(TenantContext.TENANT_ID_KEY, "tenant_a"))
+                .block();
+
+        StepVerifier.create(orderBookService.placeOrder(limit(2L, "BUY", "2000", "1", "IOC"))
+                        .contextWrite(Context.of(TenantContext.TENANT_ID_KEY, "tenant_b")))
+                .assertNext(order -> assertEquals(OrderStatus.EXPIRED, order.getStatus()))
+                .verifyComplete();
+
+        verify(walletService, never()).settleFill(any(), anyLong(), any(), anyString(), any());
+        verify(walletService).closeOrder(2L, 2L, "USDT", new BigDecimal("2000.00000000"), OrderStatus.EXPIRED);
+    }
+
+    @Test
+    void recoveryAndCheckpoints_AreScopedToTheTenant() {
+        orderBookService.placeOrder(limit(1L, "SELL", "2000", "1", null))
+                .contextWrite(Context.of(TenantContext.TENANT_ID_KEY, "tenant_a"))
+                .block();
+        orderBookService.placeOrder(limit(2L, "SELL", "2000", "1", null))
+                .contextWrite(Context.of(TenantContext.TENANT_ID_KEY, "tenant_b"))
+                .block();
+
+        verify(walletService).releaseNewOrders("tenant_a", "USDT");
+        verify(orderRepository).findOpenOrdersBySymbol("tenant_b", ETH_PAIR);
+        verify(orderRepository).saveCheckpoint(eq("tenant_a"), eq(ETH_PAIR), anyLong(), any());
+        verify(orderRepository).saveCheckpoint(eq("tenant_b"), eq(ETH_PAIR), anyLong(), any());
+        verify(walletService).placeOrder(argThat(order -> "tenant_b".equals(order.getTenantId())), eq("ETH"), any(), eq("USDT"));
+    }
+
+    @Test
+    void marketOrder_OnAnEmptyBook_IsRejected() {
+        TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("1"));
+        req.validate();
+
+        StepVerifier.create(orderBookService.placeOrder(req))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException && e.getMessage().contains("No liquidity"))
+                .verify();
+    }
+
+    @Test
+    void order_WithoutEnoughFunds_IsRejected() {
+        doReturn(Mono.empty()).when(walletService).placeOrder(any(), anyString(), any(), anyString());
+        when(walletService.findByUserAndCurrency(anyLong(), anyString()))
+                .thenAnswer(inv -> Mono.just(createWallet(1L, inv.getArgument(1), "0")));
+
+        StepVerifier.create(orderBookService.placeOrder(limit(1L, "BUY", "2000", "1", null)))
+                .expectError(InsufficientBalanceException.class)
+                .verify();
+    }
+
+    @Test
+    void cancel_ReleasesWhatTheOrderStillHolds() {
+        orderBookService.placeOrder(limit(1L, "BUY", "2000", "1", null)).block();
+        when(orderRepository.findById(1L)).thenReturn(Mono.just(Order.builder().id(1L).tenantId(TRADER).userId(1L).symbol(ETH_PAIR)
+                .side(TradeType.BUY).quantity(new BigDecimal("1")).build()));
+
+        StepVerifier.create(orderBookService.cancelOrder(1L, 1L))
+                .assertNext(order -> assertEquals(OrderStatus.CANCELLED, order.getStatus()))
+                .verifyComplete();
+        StepVerifier.create(orderBookService.cancelOrder(1L, 1L))
+                .expectErrorMatches(e -> e.getMessage().contains("is not open"))
+                .verify();
+
+        verify(walletService).closeOrder(1L, 1L, "USDT", new BigDecimal("2000.00000000"), OrderStatus.CANCELLED);
+    }
+
+    @Test
+    void restart_RebuildsTheBookFromItsJournal() {
+        orderBookService.placeOrder(limit(1L, "SELL", "2000", "1", null)).block();
+        orderBookService.shutdown();
+
+        orderBookService = newService();
+        StepVerifier.create(orderBookService.placeOrder(limit(2L, "BUY", "2000", "1", null)))
+                .assertNext(order -> assertEquals(OrderStatus.FILLED, order.getStatus()))
+                .verifyComplete();
+
+        // Only the first start, with nothing journaled yet, read the books from the database.
+        verify(orderRepository, times(2)).findOpenOrdersBySymbol(anyString(), anyString());
+    }
+
+    @Test
+    void restart_AfterAFailedPersist_LoadsTheBookFromTheDatabase() {
+        orderBookService.placeOrder(limit(1L, "SELL", "2000", "1", null)).block();
+        doReturn(Mono.empty()).when(walletService).closeOrder(anyLong(), anyLong(), anyString(), any(), any());
+        StepVerifier.create(orderBookService.placeOrder(limit(2L, "BUY", "1990", "1", null)))
+                .expectError(IllegalStateException.class)
+                .verify();
+        orderBookService.shutdown();
+
+        orderBookService = newService();
+        doReturn(Mono.just(1L)).when(walletService).closeOrder(anyLong(), anyLong(), anyString(), any(), any());
+        StepVerifier.create(orderBookService.placeOrder(limit(2L, "BUY", "1990", "1", null)))
+                .assertNext(order -> assertEquals(OrderStatus.OPEN, order.getStatus()))
+                .verifyComplete();
+
+        // The book that failed is read from the database again, the other one is replayed.
+        verify(orderRepository, times(2)).findOpenOrdersBySymbol(TRADER, ETH_PAIR);
+        verify(orderRepository, times(1)).findOpenOrdersBySymbol(TRADER, BTC_PAIR);
+    }
+
+    @Test
+    void failedPersist_FencesTheBook_UntilItIsRebuiltFromTheDatabase() {
+        orderBookService.placeOrder(limit(1L, "SELL", "2000", "1", null)).block();
+        // What the database holds once the match below rolls back: the maker resting, the taker NEW with its funds held.
+        Order maker = Order.builder().id(1L).tenantId(TRADER).userId(1L).symbol(ETH_PAIR).side(TradeType.SELL).status(OrderStatus.OPEN)
+                .price(new BigDecimal("2000")).quantity(new BigDecimal("1")).filledQuantity(BigDecimal.ZERO)
+                .heldAmount(new BigDecimal("1")).build();
+        when(orderRepository.findOpenOrdersBySymbol(TRADER, ETH_PAIR)).thenReturn(Flux.just(maker));
+        when(orderRepository.findById(1L)).thenReturn(Mono.just(maker));
+        when(orderRepository.findById(2L)).thenReturn(Mono.just(Order.builder().id(2L).tenantId(TRADER).userId(2L).symbol(ETH_PAIR)
+                .side(TradeType.BUY).status(OrderStatus.NEW).heldAmount(new BigDecimal("2010")).build())
+                .delayElement(Duration.ofMillis(300)));
+
+        doReturn(Mono.error(new IllegalStateException("database down")))
+                .when(walletService).settleFill(any(), anyLong(), any(), anyString(), any());
+        StepVerifier.create(orderBookService.placeOrder(limit(2L, "BUY", "2010", "1", null)))
+                .expectErrorMessage("database down")
+                .verify();
+
+        StepVerifier.create(orderBookService.placeOrder(limit(3L, "BUY", "1990", "1", null)))
+                .expectErrorMatches(e -> e.getMessage().contains("being rebuilt"))
+                .verify();
+
+        verify(walletService, timeout(2000)).closeOrder(2L, 2L, "USDT", new BigDecimal("2010.00000000"), OrderStatus.EXPIRED);
+        StepVerifier.create(Mono.defer(() -> orderBookService.cancelOrder(1L, 1L))
+                        .retryWhen(Retry.fixedDelay(20, Duration.ofMillis(50))
+                                .filter(e -> e.getMessage().contains("being rebuilt"))))
+                .assertNext(order -> assertEquals(OrderStatus.CANCELLED, order.getStatus()))
+                .verifyComplete();
+    }
+
+    @Test
+    void enablingWithTheLedger_FailsAtStartup() {
+        when(walletService.isLedgerEnabled()).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () ->
+                new OrderBookService(walletService, orderRepository, rxtx, new SimpleMeterRegistry(), true, 1,
+                        journalDir.toString(), 1));
+    }
+
+    private OrderBookService newService() {
+        return new OrderBookService(walletService, orderRepository, rxtx, new SimpleMeterRegistry(), true, 2,
+                journalDir.toString(), 1);
+    }
+
+    private static TradingRequest limit(Long userId, String side, String price, String quantity, String timeInForce) {
+        TradingRequest req = new TradingRequest(userId, ETH_PAIR, side, new BigDecimal(quantity));
+        req.setOrderType("LIMIT");
+        req.setPrice(new BigDecimal(price));
+        req.setTimeInForce(timeInForce);
+        req.validate();
+        return req;
+    }
+}
@@ -0,0 +1,185 @@
+package com.aquarius.crypto.service.order_book;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.dto.TimeInForce;
+import com.aquarius.crypto.service.OrderBook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderBookTest {
+
+    private OrderBook book;
+    private List<long[]> fills;
+    private long nextId;
+
+    @BeforeEach
+    void setUp() {
+        book = new OrderBook("ETHUSDT");
+        fills = new ArrayList<>();
+        nextId = 1;
+    }
+
+    @Test
+    void sameLevel_FillsOldestOrderFirst() {
+        OrderBook.Order first = sell("2000", "1");
+        OrderBook.Order second = sell("2000", "1");
+        rest(first);
+        rest(second);
+
+        OrderBook.Order taker = buy("2000", "1");
+        assertFalse(book.submit(taker, TimeInForce.GTC, this::record));
+
+        assertEquals(1, fills.size());
+        assertEquals(first.getId(), fills.get(0)[0]);
+        assertNull(book.get(first.getId()));
+        assertSame(second, book.get(second.getId()));
+    }
+
+    @Test
+    void buyer_SweepsAsksFromTheLowestPrice_AndPaysEachMakersPrice() {
+        rest(sell("2002", "1"));
+        rest(sell("2000", "1"));
+        rest(sell("2001", "1"));
+
+        OrderBook.Order taker = buy("2001", "3");
+        assertTrue(book.submit(taker, TimeInForce.GTC, this::record));
+
+        assertEquals(2, fills.size());
+        assertEquals(units("2000"), fills.get(0)[1]);
+        assertEquals(units("2001"), fills.get(1)[1]);
+        // The unfilled unit rests at its limit and becomes the best bid.
+        assertEquals(units("1"), taker.getRemaining());
+        assertEquals(units("2001"), book.bestBid());
+        assertEquals(units("2002"), book.bestAsk());
+        // Held 3 x 2001, spent 2000 + 2001: the rest stays held for the resting unit.
+        assertEquals(units("2002"), taker.getHeld());
+    }
+
+    @Test
+    void partialFill_LeavesTheMakerInPlaceWithWhatIsLeft() {
+        OrderBook.Order maker = buy("1999", "2");
+        rest(maker);
+
+        OrderBook.Order taker = sell("1999", "0.5");
+        assertFalse(book.submit(taker, TimeInForce.GTC, this::record));
+
+        assertEquals(units("1.5"), maker.getRemaining());
+        assertEquals(units("1999") * 2 - units("999.5"), maker.getHeld());
+        assertEquals(0, taker.getHeld());
+        assertEquals(units("1999"), book.bestBid());
+    }
+
+    @Test
+    void ioc_FillsWhatCrosses_AndDropsTheRest() {
+        rest(sell("2000", "1"));
+
+        OrderBook.Order taker = buy("2000", "2");
+        assertFalse(book.submit(taker, TimeInForce.IOC, this::record));
+
+        assertEquals(1, fills.size());
+        assertEquals(units("1"), taker.getRemaining());
+        assertEquals(0, book.bestBid());
+        assertEquals(0, book.restingOrders());
+    }
+
+    @Test
+    void fok_ThatCannotFillCompletely_DoesNotTouchTheBook() {
+        rest(sell("2000", "1"));
+        rest(sell("2005", "1"));
+
+        OrderBook.Order taker = buy("2001", "2");
+        assertFalse(book.submit(taker, TimeInForce.FOK, this::record));
+
+        assertTrue(fills.isEmpty());
+        assertEquals(units("2"), taker.getRemaining());
+        assertEquals(2, book.restingOrders());
+    }
+
+    @Test
+    void fok_ThatCanFillCompletely_Fills() {
+        rest(sell("2000", "1"));
+        rest(sell("2001", "1"));
+
+        assertFalse(book.submit(buy("2001", "2"), TimeInForce.FOK, this::record));
+
+        assertEquals(2, fills.size());
+        assertEquals(0, book.restingOrders());
+    }
+
+    @Test
+    void sweepPrice_IsTheWorstPriceTheQuantityReaches() {
+        assertEquals(0, book.sweepPrice(true, units("1")));
+        rest(sell("2000", "1"));
+        rest(sell("2001", "1"));
+        rest(sell("2003", "1"));
+
+        assertEquals(units("2000"), book.sweepPrice(true, units("1")));
+        assertEquals(units("2001"), book.sweepPrice(true, units("1.5")));
+        // More than the book holds: the worst price in it.
+        assertEquals(units("2003"), book.sweepPrice(true, units("10")));
+    }
+
+    @Test
+    void cancel_RemovesTheOrder_AndEmptyLevels() {
+        OrderBook.Order first = buy("1999", "1");
+        OrderBook.Order second = buy("1998", "1");
+        rest(first);
+        rest(second);
+
+        assertSame(first, book.cancel(first.getId()));
+        assertNull(book.cancel(first.getId()));
+        assertEquals(units("1998"), book.bestBid());
+
+        // Nothing is left at 1999 to fill against.
+        assertFalse(book.submit(sell("1999", "1"), TimeInForce.IOC, this::record));
+        assertTrue(fills.isEmpty());
+    }
+
+    @Test
+    void manyRestingOrders_StayReachableAcrossIndexResizes() {
+        List<OrderBook.Order> orders = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            OrderBook.Order order = buy(String.valueOf(1000 + i % 50), "1");
+            rest(order);
+            orders.add(order);
+        }
+        for (int i = 0; i < orders.size(); i += 2) {
+            assertSame(orders.get(i), book.cancel(orders.get(i).getId()));
+        }
+        for (int i = 1; i < orders.size(); i += 2) {
+            assertSame(orders.get(i), book.get(orders.get(i).getId()));
+        }
+        assertEquals(2500, book.restingOrders());
+    }
+
+    private void record(OrderBook.Order maker, OrderBook.Order taker, long price, long quantity, long cost) {
+        fills.add(new long[]{maker.getId(), price, quantity, cost});
+    }
+
+    private void rest(OrderBook.Order order) {
+        assertTrue(book.submit(order, TimeInForce.GTC, this::record));
+    }
+
+    private OrderBook.Order buy(String price, String quantity) {
+        long held = FixedPoint.multiply(units(price), units(quantity));
+        return new OrderBook.Order(nextId++, 1L, true, units(price), units(quantity), held);
+    }
+
+    private OrderBook.Order sell(String price, String quantity) {
+        return new OrderBook.Order(nextId++, 2L, false, units(price), units(quantity), units(quantity));
+    }
+
+    private static long units(String value) {
+        return FixedPoint.fromBigDecimal(new BigDecimal(value));
+    }
+}
@@ -0,0 +1,121 @@
+package com.aquarius.crypto.service.price_aggregation;
+
+import com.aquarius.crypto.model.PriceAggregation;
+import com.aquarius.crypto.service.BestBidOfferAggregator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static com.aquarius.crypto.constants.ConstStrings.BTC_PAIR;
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+import static com.aquarius.crypto.helper.TestDataCreator.createTicker;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BestBidOfferAggregatorTest {
+
+    private BestBidOfferAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new BestBidOfferAggregator();
+    }
+
+    @Test
+    void firstTwoSidedQuote_IsEmitted() {
+        PriceAggregation price = aggregator.onTicker(createTicker("BINANCE", ETH_PAIR, "2000.00", "2010.00"));
+
+        assertNotNull(price);
+        assertEquals(ETH_PAIR, price.getTradingPair());
+        assertEquals(new BigDecimal("2000.00"), price.getBestBidPrice());
+        assertEquals(new BigDecimal("2010.00"), price.getBestAskPrice());
+        assertEquals("BINANCE_BID|BINANCE_ASK", price.getSource());
+        assertTrue(aggregator.hasBestBidOffer(ETH_PAIR));
+    }
+
+    @Test
+    void unchangedRequote_IsSuppressed() {
+        aggregator.onTicker(createTicker("BINANCE", ETH_PAIR, "2000.00", "2010.00"));
+
+        assertNull(aggregator.onTicker(createTicker("BINANCE", ETH_PAIR, "2000.00", "2010.0000")));
+    }
+
+    @Test
+    void worseQuoteFromAnotherVenue_IsSuppressed() {
+        aggregator.onTicker(createTicker("BINANCE", ETH_PAIR, "2000.00", "2010.00"));
+
+        assertNull(aggregator.onTicker(createTicker("HUOBI", ETH_PAIR, "1990.00", "2020.00")));
+    }
+
+    @Test
+    void betterAskFromAnotherVenue_ChangesAskAndSources() {
+        aggregator.onTicker(createTicker("BINANCE", ETH_PAIR, "2000.00", "2010.00"));
+
+        PriceAggregation price = aggregator.onTicker(createTicker("HUOBI", ETH_PAIR, "1990.00", "2005.00"));
+
+        assertNotNull(price);
+        assertEquals(new BigDecimal("2000.00"), price.getBestBidPrice());
+        assertEquals(new BigDecimal("2005.00"), price.getBestAskPrice());
+        assertEquals("BINANCE_BID|HUOBI_ASK", price.getSource());
+    }
+
+    @Test
+    void tieWithAnotherVenue_ChangesSourcesOnly() {
+        aggregator.onTicker(createTicker("BINANCE", BTC_PAIR, "50000.00", "50100.00"));
+
+        PriceAggregation price = aggregator.onTicker(createTicker("HUOBI", BTC_PAIR, "50000.00", "50100.00"));
+
+        assertNotNull(price);
+        assertEquals("BINANCE_BID|HUOBI_BID|BINANCE_ASK|HUOBI_ASK", price.getSource());
+    }
+
+    @Test
+    void venueMovingAwayFromBest_FallsBackToNextVenue() {
+        aggregator.onTicker(createTicker("BINANCE", ETH_PAIR, "2000.00", "2010.00"));
+        aggregator.onTicker(createTicker("HUOBI", ETH_PAIR, "2001.00", "2009.00"));
+
+        PriceAggregation price = aggregator.onTicker(createTicker("HUOBI", ETH_PAIR, "1990.00", "2020.00"));
+
+        assertNotNull(price);
+        assertEquals(new BigDecimal("2000.00"), price.getBestBidPrice());
+        assertEquals(new BigDecimal("2010.00"), price.getBestAskPrice());
+        assertEquals("BINANCE_BID|BINANCE_ASK", price.getSource());
+    }
+
+    @Test
+    void symbolsAreIndependent() {
+        aggregator.onTicker(createTicker("BINANCE", ETH_PAIR, "2000.00", "2010.00"));
+
+        assertNotNull(aggregator.onTicker(createTicker("BINANCE", BTC_PAIR, "50000.00", "50100.00")));
+        assertFalse(aggregator.hasBestBidOffer("SOLUSDT"));
+    }
+
+    @Test
+    void removeSource_RecomputesAffectedSymbols() {
+        aggregator.onTicker(createTicker("BINANCE", ETH_PAIR, "2000.00", "2010.00"));
+        aggregator.onTicker(createTicker("HUOBI", ETH_PAIR, "2001.00", "2009.00"));
+
+        List<PriceAggregation> changed = aggregator.removeSource("HUOBI");
+
+        assertEquals(1, changed.size());
+        assertEquals("BINANCE_BID|BINANCE_ASK", changed.get(0).getSource());
+    }
+
+    @Test
+    void staleVenueQuotes_NoLongerCompete() throws InterruptedException {
+        aggregator.setMaxQuoteAge(Duration.ofMillis(20));
+        aggregator.onTicker(createTicker("HUOBI", ETH_PAIR, "2001.00", "2009.00"));
+        Thread.sleep(50);
+
+        PriceAggregation price = aggregator.onTicker(createTicker("BINANCE", ETH_PAIR, "2000.00", "2010.00"));
+
+        assertNotNull(price);
+        assertEquals("BINANCE_BID|BINANCE_ASK", price.getSource());
+    }
+}
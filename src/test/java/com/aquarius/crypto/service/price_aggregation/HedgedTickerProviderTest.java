@@ -0,0 +1,139 @@
+package com.aquarius.crypto.service.price_aggregation;
+
+import com.aquarius.crypto.dto.third_party.BinanceTickerProvider;
+import com.aquarius.crypto.dto.third_party.HuobiTickerProvider;
+import com.aquarius.crypto.metrics.TickerMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.aquarius.crypto.constants.ConstStrings.BTC_PAIR;
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the REST providers against a local stub server whose primary endpoint is slow.
+ */
+class HedgedTickerProviderTest {
+
+    private static final String BOOK_TICKERS =
+            "[{\"symbol\":\"ETHUSDT\",\"bidPrice\":\"2000.10\",\"askPrice\":\"2000.20\"},"
+                    + "{\"symbol\":\"DOGEUSDT\",\"bidPrice\":\"0.1\",\"askPrice\":\"0.2\"}]";
+
+    private final List<String> requested = new CopyOnWriteArrayList<>();
+    private DisposableServer server;
+
+    @BeforeEach
+    void setUp() {
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/slow", (request, response) -> {
+                            requested.add(URLDecoder.decode(request.uri(), StandardCharsets.UTF_8));
+                            return response.header("Content-Type", "application/json")
+                                    .sendString(Mono.just(BOOK_TICKERS).delayElement(Duration.ofSeconds(3)));
+                        })
+                        .get("/fast", (request, response) -> {
+                            requested.add(URLDecoder.decode(request.uri(), StandardCharsets.UTF_8));
+                            return response.header("Content-Type", "application/json")
+                                    .sendString(Mono.just(BOOK_TICKERS));
+                        })
+                        .get("/down", (request, response) -> {
+                            requested.add(URLDecoder.decode(request.uri(), StandardCharsets.UTF_8));
+                            return response.status(503).send();
+                        })
+                        .get("/merged", (request, response) -> {
+                            requested.add(URLDecoder.decode(request.uri(), StandardCharsets.UTF_8));
+                            String body = request.uri().endsWith("symbol=ethusdt")
+                                    ? "{\"status\":\"ok\",\"tick\":{\"bid\":[1999.5,2],\"ask\":[2000.5,3]}}"
+                                    : "{\"status\":\"error\",\"err-msg\":\"invalid symbol\"}";
+                            return response.header("Content-Type", "application/json").sendString(Mono.just(body));
+                        }))
+                .bindNow();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.disposeNow();
+    }
+
+    @Test
+    void slowPrimary_IsOvertakenByItsMirror() {
+        BinanceTickerProvider provider = binance("/slow", List.of("/fast"), 50);
+
+        StepVerifier.create(provider.fetchTickers(Set.of(ETH_PAIR)))
+                .assertNext(ticker -> {
+                    assertEquals(ETH_PAIR, ticker.getSymbol());
+                    assertEquals(new BigDecimal("2000.10"), ticker.getBidPrice());
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+
+        // Either may reach the server first; the answer came from the mirror.
+        assertEquals(2, requested.size());
+        assertTrue(requested.stream().anyMatch(uri -> uri.startsWith("/slow")));
+    }
+
+    @Test
+    void healthyPrimary_AnswersBeforeAnyMirrorIsAsked() {
+        BinanceTickerProvider provider = binance("/fast", List.of("/slow"), 1000);
+
+        StepVerifier.create(provider.fetchTickers(Set.of(ETH_PAIR, BTC_PAIR)))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+
+        // Only the supported pairs are asked for.
+        assertEquals(List.of("/fast?symbols=[\"BTCUSDT\",\"ETHUSDT\"]"), requested);
+    }
+
+    @Test
+    void failedPrimary_LeavesTheAnswerToTheMirror() {
+        BinanceTickerProvider provider = binance("/down", List.of("/fast"), 50);
+
+        StepVerifier.create(provider.fetchTickers(Set.of(ETH_PAIR)))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void huobi_AsksForEachPair_AndLeavesOutThoseItCannotQuote() {
+        String base = "http://localhost:" + server.port();
+        HuobiTickerProvider provider = new HuobiTickerProvider(WebClient.create(), new TickerMetrics(new SimpleMeterRegistry()),
+                base + "/merged", List.of(), 50);
+
+        StepVerifier.create(provider.fetchTickers(Set.of(ETH_PAIR, BTC_PAIR)))
+                .assertNext(ticker -> {
+                    assertEquals(ETH_PAIR, ticker.getSymbol());
+                    assertEquals("HUOBI", ticker.getSource());
+                    assertEquals(0, new BigDecimal("1999.5").compareTo(ticker.getBidPrice()));
+                    assertEquals(0, new BigDecimal("2000.5").compareTo(ticker.getAskPrice()));
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+
+        assertEquals(Set.of("/merged?symbol=ethusdt", "/merged?symbol=btcusdt"), Set.copyOf(requested));
+    }
+
+    private BinanceTickerProvider binance(String path, List<String> mirrorPaths, long hedgeAfterMs) {
+        String base = "http://localhost:" + server.port();
+        return new BinanceTickerProvider(WebClient.create(), new TickerMetrics(new SimpleMeterRegistry()),
+                base + path, mirrorPaths.stream().map(mirror -> base + mirror).toList(), hedgeAfterMs);
+    }
+}
@@ -0,0 +1,88 @@
+package com.aquarius.crypto.service.price_aggregation;
+
+import com.aquarius.crypto.model.PriceAggregation;
+import com.aquarius.crypto.service.LatestPriceCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.aquarius.crypto.constants.ConstStrings.BTC_PAIR;
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatestPriceCacheTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    private LatestPriceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new LatestPriceCache();
+    }
+
+    @Test
+    void publish_KeepsNewestPrice() {
+        cache.publish(price(ETH_PAIR, "2001.00", T0.plusSeconds(1)));
+        cache.publish(price(ETH_PAIR, "2000.00", T0));
+
+        assertEquals(new BigDecimal("2001.00"), cache.get(ETH_PAIR).getBestBidPrice());
+    }
+
+    @Test
+    void updates_StartWithSnapshotThenFollowChangesOfThatPairOnly() {
+        cache.publish(price(ETH_PAIR, "2000.00", T0));
+
+        StepVerifier.create(cache.updates(ETH_PAIR))
+                .assertNext(p -> assertEquals(new BigDecimal("2000.00"), p.getBestBidPrice()))
+                .then(() -> {
+                    cache.publish(price(BTC_PAIR, "50000.00", T0.plusSeconds(1)));
+                    cache.publish(price(ETH_PAIR, "2001.00", T0.plusSeconds(2)));
+                })
+                .assertNext(p -> assertEquals(new BigDecimal("2001.00"), p.getBestBidPrice()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void updates_SlowSubscriberOnlyGetsLatestPrice() {
+        StepVerifier.create(cache.updates(ETH_PAIR), 0)
+                .then(() -> {
+                    cache.publish(price(ETH_PAIR, "2000.00", T0));
+                    cache.publish(price(ETH_PAIR, "2001.00", T0.plusSeconds(1)));
+                    cache.publish(price(ETH_PAIR, "2002.00", T0.plusSeconds(2)));
+                })
+                .thenRequest(1)
+                .assertNext(p -> assertEquals(new BigDecimal("2002.00"), p.getBestBidPrice()))
+                .thenRequest(1)
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void updates_OutOfOrderPriceIsNotPushed() {
+        cache.publish(price(ETH_PAIR, "2001.00", T0.plusSeconds(1)));
+
+        StepVerifier.create(cache.updates(ETH_PAIR))
+                .expectNextCount(1)
+                .then(() -> cache.publish(price(ETH_PAIR, "1999.00", T0)))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+
+    private static PriceAggregation price(String pair, String bid, Instant createdAt) {
+        return PriceAggregation.builder()
+                .tradingPair(pair)
+                .bestBidPrice(new BigDecimal(bid))
+                .bestAskPrice(new BigDecimal(bid).add(BigDecimal.ONE))
+                .source("BINANCE_BID|BINANCE_ASK")
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.aquarius.crypto.service.price_aggregation;
+
+import com.aquarius.crypto.service.PriceAggregationMaintenanceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PriceAggregationMaintenanceServiceTest {
+
+    @Mock
+    private DatabaseClient databaseClient;
+    @Mock(answer = Answers.RETURNS_SELF)
+    private DatabaseClient.GenericExecuteSpec executeSpec;
+    @Mock
+    private RowsFetchSpec<Integer> rowsSpec;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        lenient().when(databaseClient.sql(anyString())).thenReturn(executeSpec);
+        lenient().when(executeSpec.map(any(Function.class))).thenReturn(rowsSpec);
+        lenient().when(executeSpec.then()).thenReturn(Mono.empty());
+        lenient().when(rowsSpec.one()).thenReturn(Mono.just(1));
+    }
+
+    @Test
+    void maintainAll_CreatesRollsUpThenDropsPerSchema() {
+        PriceAggregationMaintenanceService service = newService(List.of("trader", "broker"));
+
+        StepVerifier.create(service.maintainAll()).verifyComplete();
+
+        InOrder order = inOrder(databaseClient);
+        for (String schema : List.of("trader", "broker")) {
+            order.verify(databaseClient).sql(startsWith("SELECT \"" + schema + "\".create_price_aggregation_partitions"));
+            order.verify(databaseClient).sql(startsWith("SELECT \"" + schema + "\".rollup_price_aggregations"));
+            order.verify(databaseClient).sql(startsWith("SELECT \"" + schema + "\".drop_price_aggregation_partitions"));
+        }
+        verify(executeSpec, times(2)).bind("days", 7);
+        verify(executeSpec, times(2)).bind("days", 4);
+        verify(executeSpec, times(2)).bind("lookback", 15);
+    }
+
+    @Test
+    void maintainAll_FailureInOneSchemaDoesNotStopTheOthers() {
+        when(rowsSpec.one()).thenReturn(Mono.error(new IllegalStateException("relation does not exist")), Mono.just(0));
+        PriceAggregationMaintenanceService service = newService(List.of("trader", "broker"));
+
+        StepVerifier.create(service.maintainAll()).verifyComplete();
+
+        verify(databaseClient).sql(startsWith("SELECT \"broker\".drop_price_aggregation_partitions"));
+    }
+
+    @Test
+    void unsafeSchemaNamesAreIgnored() {
+        PriceAggregationMaintenanceService service = newService(List.of("trader; DROP TABLE users", " public "));
+
+        StepVerifier.create(service.maintainAll()).verifyComplete();
+
+        verify(databaseClient, never()).sql(startsWith("SELECT \"trader"));
+        verify(databaseClient).sql(startsWith("SELECT \"public\".rollup_price_aggregations"));
+    }
+
+    private PriceAggregationMaintenanceService newService(List<String> schemas) {
+        PriceAggregationMaintenanceService service = new PriceAggregationMaintenanceService(databaseClient, schemas);
+        ReflectionTestUtils.setField(service, "partitionsAheadDays", 3);
+        ReflectionTestUtils.setField(service, "rawRetentionDays", 7);
+        ReflectionTestUtils.setField(service, "rollupLookbackMinutes", 15);
+        return service;
+    }
+}
@@ -1,10 +1,13 @@
 package com.aquarius.crypto.service.price_aggregation;
 
 import com.aquarius.crypto.dto.third_party.MarketTickerProvider;
+import com.aquarius.crypto.metrics.TickerMetrics;
 import com.aquarius.crypto.model.PriceAggregation;
 import com.aquarius.crypto.repository.PriceAggregationRepository;
 import com.aquarius.crypto.service.PriceAggregationService;
+import com.aquarius.crypto.service.PriceAggregationWriter;
 import com.aquarius.crypto.service.SecurityContextService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,9 +15,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 
 import static com.aquarius.crypto.constants.ConstStrings.BTC_PAIR;
@@ -23,6 +29,9 @@ import static com.aquarius.crypto.helper.TestDataCreator.createTicker;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
@@ -38,18 +47,24 @@ class PriceAggregationServiceTest {
     private PriceAggregationRepository repository;
     @Mock
     private SecurityContextService securityContextService;
+    @Mock
+    private PriceAggregationWriter priceAggregationWriter;
 
     @Captor
-    private ArgumentCaptor<List<PriceAggregation>> pricesCaptor;
+    private ArgumentCaptor<PriceAggregation> priceCaptor;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     private PriceAggregationService service;
 
     @BeforeEach
     void setUp() {
         service = new PriceAggregationService(
                 List.of(binanceProvider, huobiProvider),
-                repository, securityContextService
+                repository, securityContextService, priceAggregationWriter, new TickerMetrics(meterRegistry)
         );
+        ReflectionTestUtils.setField(service, "fetchBudgetMs", 300L);
+        lenient().when(binanceProvider.getMarketSource()).thenReturn("BINANCE");
+        lenient().when(huobiProvider.getMarketSource()).thenReturn("HUOBI");
     }
 
     @Test
@@ -65,12 +80,9 @@ class PriceAggregationServiceTest {
         // WHEN
         service.aggregatePrices();
 
-        verify(repository).saveAll(pricesCaptor.capture());
-        List<PriceAggregation> savedPrices = pricesCaptor.getValue();
-
-        // THEN
-        assertEquals(1, savedPrices.size());
-        PriceAggregation ethPrice = savedPrices.get(0);
+        // THEN: the last change handed to the writer is the consolidated BBO
+        verify(priceAggregationWriter, atLeastOnce()).submit(priceCaptor.capture());
+        PriceAggregation ethPrice = priceCaptor.getValue();
 
         assertEquals(ETH_PAIR, ethPrice.getTradingPair());
         assertEquals(new BigDecimal("2000.00"), ethPrice.getBestBidPrice(), "Should take Binance Bid");
@@ -96,11 +108,8 @@ class PriceAggregationServiceTest {
         service.aggregatePrices();
 
         // THEN: We should STILL save Huobi prices (No "continue if < 2" logic)
-        verify(repository).saveAll(pricesCaptor.capture());
-        List<PriceAggregation> savedPrices = pricesCaptor.getValue();
-
-        assertEquals(1, savedPrices.size());
-        PriceAggregation ethPrice = savedPrices.get(0);
+        verify(priceAggregationWriter).submit(priceCaptor.capture());
+        PriceAggregation ethPrice = priceCaptor.getValue();
 
         assertEquals(new BigDecimal("1995.00"), ethPrice.getBestBidPrice());
         assertTrue(ethPrice.getSource().contains("HUOBI"));
@@ -120,8 +129,8 @@ class PriceAggregationServiceTest {
         service.aggregatePrices();
 
         // THEN
-        verify(repository).saveAll(pricesCaptor.capture());
-        PriceAggregation btcPrice = pricesCaptor.getValue().get(0);
+        verify(priceAggregationWriter, atLeastOnce()).submit(priceCaptor.capture());
+        PriceAggregation btcPrice = priceCaptor.getValue();
 
         String source = btcPrice.getSource();
         // "BINANCE_BID|HUOBI_BID|BINANCE_ASK|HUOBI_ASK" (order may vary)
@@ -140,6 +149,64 @@ class PriceAggregationServiceTest {
         service.aggregatePrices();
 
         // THEN
-        verify(repository, never()).saveAll((Iterable<PriceAggregation>) any());
+        verify(priceAggregationWriter, never()).submit(any());
+    }
+
+    @Test
+    void testAggregatePrices_PublishesChangedPriceToCache() {
+        // GIVEN
+        when(binanceProvider.fetchTickers(any())).thenReturn(Flux.just(
+                createTicker("BINANCE", ETH_PAIR, "2000.00", "2010.00")
+        ));
+        when(huobiProvider.fetchTickers(any())).thenReturn(Flux.empty());
+
+        // WHEN
+        service.aggregatePrices();
+
+        // THEN: latest price is served from memory, without a repository lookup
+        StepVerifier.create(service.findLatestByTradingPair(ETH_PAIR))
+                .assertNext(latest -> {
+                    assertEquals(new BigDecimal("2000.00"), latest.getBestBidPrice());
+                    assertEquals(new BigDecimal("2010.00"), latest.getBestAskPrice());
+                })
+                .verifyComplete();
+        verify(repository, never()).findLatestByTradingPair(anyString());
+    }
+
+    @Test
+    void fetchCycle_GoesAheadWithoutAVenueThatMissesTheBudget() {
+        when(binanceProvider.fetchTickers(any())).thenReturn(Flux.just(
+                createTicker("BINANCE", ETH_PAIR, "2000.00", "2010.00")
+        ).delayElements(Duration.ofSeconds(5)));
+        when(huobiProvider.fetchTickers(any())).thenReturn(Flux.just(
+                createTicker("HUOBI", ETH_PAIR, "1995.00", "2005.00")
+        ));
+
+        StepVerifier.create(service.fetchCycle())
+                .assertNext(cycle -> {
+                    assertEquals(List.of("HUOBI"), cycle.answered());
+                    assertEquals(List.of("BINANCE"), cycle.missing());
+                    assertTrue(cycle.elapsed().toMillis() < 2000, "elapsed " + cycle.elapsed());
+                })
+                .verifyComplete();
+
+        verify(priceAggregationWriter).submit(priceCaptor.capture());
+        assertEquals(new BigDecimal("1995.00"), priceCaptor.getValue().getBestBidPrice());
+        assertEquals(1.0, meterRegistry.get("crypto.ticker.missed").tags("source", "BINANCE").counter().count());
+    }
+
+    @Test
+    void fetchCycle_CountsAVenueThatAnsweredNothingAsMissing() {
+        when(binanceProvider.fetchTickers(any())).thenReturn(Flux.empty());
+        when(huobiProvider.fetchTickers(any())).thenReturn(Flux.just(
+                createTicker("HUOBI", BTC_PAIR, "50000.00", "50100.00")
+        ));
+
+        StepVerifier.create(service.fetchCycle())
+                .assertNext(cycle -> {
+                    assertEquals(List.of("HUOBI"), cycle.answered());
+                    assertEquals(List.of("BINANCE"), cycle.missing());
+                })
+                .verifyComplete();
     }
-}
\ No newline at end of file
+}
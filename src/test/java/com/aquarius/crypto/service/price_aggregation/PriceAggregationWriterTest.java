@@ -0,0 +1,162 @@
+package com.aquarius.crypto.service.price_aggregation;
+
+import com.aquarius.crypto.model.PriceAggregation;
+import com.aquarius.crypto.service.PriceAggregationWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+import static com.aquarius.crypto.constants.ConstStrings.BTC_PAIR;
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PriceAggregationWriterTest {
+
+    @Mock
+    private DatabaseClient databaseClient;
+    @Mock(answer = Answers.RETURNS_SELF)
+    private DatabaseClient.GenericExecuteSpec executeSpec;
+    @Mock
+    private FetchSpec<Map<String, Object>> fetchSpec;
+
+    private MeterRegistry meterRegistry;
+    private PriceAggregationWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new PriceAggregationWriter(databaseClient, meterRegistry);
+        ReflectionTestUtils.setField(writer, "batchSize", 500);
+        ReflectionTestUtils.setField(writer, "maxPending", 100_000);
+
+        lenient().when(databaseClient.sql(anyString())).thenReturn(executeSpec);
+        lenient().when(executeSpec.fetch()).thenReturn(fetchSpec);
+        lenient().when(fetchSpec.rowsUpdated())
+                .thenAnswer(invocation -> Mono.just(1L));
+    }
+
+    @Test
+    void flush_WritesEveryChangedQuoteOfAPair() {
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(2L));
+
+        writer.submit(price(ETH_PAIR, "2000.00", "2010.00"));
+        writer.submit(price(ETH_PAIR, "2001.00", "2010.00"));
+
+        StepVerifier.create(writer.flush()).verifyComplete();
+
+        verify(databaseClient, times(1)).sql(anyString());
+        verify(executeSpec).bind("b0", new BigDecimal("2000.00"));
+        verify(executeSpec).bind("b1", new BigDecimal("2001.00"));
+        assertEquals(2.0, rowsWritten());
+        assertEquals(0.0, rowsSuppressed());
+    }
+
+    @Test
+    void submit_DropsQuoteEqualToTheLastOneOfItsPair() {
+        writer.submit(price(ETH_PAIR, "2000.00", "2010.00"));
+        writer.submit(price(ETH_PAIR, "2000.0000", "2010.00"));
+        StepVerifier.create(writer.flush()).verifyComplete();
+
+        writer.submit(price(ETH_PAIR, "2000.00", "2010.000"));
+        StepVerifier.create(writer.flush()).verifyComplete();
+
+        verify(databaseClient, times(1)).sql(anyString());
+        verify(executeSpec, never()).bind("p1", ETH_PAIR);
+        assertEquals(1.0, rowsWritten());
+        assertEquals(2.0, rowsSuppressed());
+    }
+
+    @Test
+    void submit_FlushesOnceABatchIsWaiting_EvenForASinglePair() {
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(2L), Mono.just(1L));
+
+        writer.submit(price(ETH_PAIR, "2000.00", "2010.00"));
+        verify(databaseClient, never()).sql(anyString());
+        writer.submit(price(ETH_PAIR, "2000.50", "2010.00"));
+        // Reaching the batch size flushes right away.
+        verify(databaseClient, times(1)).sql(anyString());
+
+        writer.submit(price(BTC_PAIR, "50000.00", "50100.00"));
+        StepVerifier.create(writer.flush()).verifyComplete();
+
+        verify(databaseClient, times(2)).sql(anyString());
+        assertEquals(3.0, rowsWritten());
+    }
+
+    @Test
+    void submit_DropsPricesBeyondMaxPending() {
+        ReflectionTestUtils.setField(writer, "maxPending", 2);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(2L));
+
+        writer.submit(price(ETH_PAIR, "2000.00", "2010.00"));
+        writer.submit(price(ETH_PAIR, "2001.00", "2010.00"));
+        writer.submit(price(ETH_PAIR, "2002.00", "2010.00"));
+        StepVerifier.create(writer.flush()).verifyComplete();
+
+        verify(executeSpec, never()).bind("p2", ETH_PAIR);
+        assertEquals(2.0, rowsWritten());
+        assertEquals(1.0, meterRegistry.counter("crypto.price_aggregations.rows.dropped").count());
+    }
+
+    @Test
+    void flush_RequeuesBatchWhenInsertFails() {
+        when(fetchSpec.rowsUpdated())
+                .thenReturn(Mono.error(new IllegalStateException("connection reset")), Mono.just(1L));
+
+        writer.submit(price(ETH_PAIR, "2000.00", "2010.00"));
+        StepVerifier.create(writer.flush()).verifyComplete();
+        assertEquals(0.0, rowsWritten());
+
+        StepVerifier.create(writer.flush()).verifyComplete();
+
+        verify(databaseClient, times(2)).sql(anyString());
+        assertEquals(1.0, rowsWritten());
+    }
+
+    @Test
+    void flush_WithNothingPending_DoesNotTouchDatabase() {
+        StepVerifier.create(writer.flush()).verifyComplete();
+
+        verify(databaseClient, never()).sql(anyString());
+    }
+
+    private double rowsWritten() {
+        return meterRegistry.counter("crypto.price_aggregations.rows.written").count();
+    }
+
+    private double rowsSuppressed() {
+        return meterRegistry.counter("crypto.price_aggregations.rows.suppressed").count();
+    }
+
+    private static PriceAggregation price(String pair, String bid, String ask) {
+        return PriceAggregation.builder()
+                .tradingPair(pair)
+                .bestBidPrice(new BigDecimal(bid))
+                .bestAskPrice(new BigDecimal(ask))
+                .source("BINANCE_BID|BINANCE_ASK")
+                .createdAt(Instant.now())
+                .build();
+    }
+}
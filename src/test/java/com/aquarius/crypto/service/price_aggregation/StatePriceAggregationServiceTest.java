@@ -20,6 +20,8 @@ import java.time.temporal.ChronoUnit;
 
 import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -130,4 +132,50 @@ class StatePriceAggregationServiceTest {
                 .expectError(RuntimeException.class)
                 .verify();
     }
+
+    //  Cached Snapshot ---
+    @Test
+    @DisplayName("Should only query the repository once and serve later lookups from memory")
+    void bestPrice_shouldServeFromCache_afterColdStart() {
+        PriceAggregation freshPrice = PriceAggregation.builder()
+                .tradingPair(SYMBOL)
+                .bestAskPrice(ASK_PRICE)
+                .bestBidPrice(BID_PRICE)
+                .createdAt(Instant.now())
+                .build();
+
+        when(priceAggregationRepository.findLatestByTradingPair(SYMBOL))
+                .thenReturn(Mono.just(freshPrice));
+
+        StepVerifier.create(priceAggregationService.bestPrice(SYMBOL, "BUY"))
+                .expectNext(ASK_PRICE)
+                .verifyComplete();
+        StepVerifier.create(priceAggregationService.bestPrice(SYMBOL, "SELL"))
+                .expectNext(BID_PRICE)
+                .verifyComplete();
+
+        verify(priceAggregationRepository, times(1)).findLatestByTradingPair(SYMBOL);
+    }
+
+    @Test
+    @DisplayName("Should still reject a cached price once it is older than threshold")
+    void bestPrice_shouldThrowException_whenCachedPriceBecomesStale() {
+        Instant staleTimestamp = Instant.now().minus(TEST_STALE_THRESHOLD_SECONDS + 1, ChronoUnit.SECONDS);
+        PriceAggregation stalePrice = PriceAggregation.builder()
+                .tradingPair(SYMBOL)
+                .bestAskPrice(ASK_PRICE)
+                .bestBidPrice(BID_PRICE)
+                .createdAt(staleTimestamp)
+                .build();
+
+        when(priceAggregationRepository.findLatestByTradingPair(SYMBOL))
+                .thenReturn(Mono.just(stalePrice));
+
+        priceAggregationService.findLatestByTradingPair(SYMBOL).block();
+
+        StepVerifier.create(priceAggregationService.bestPrice(SYMBOL, "BUY"))
+                .expectErrorMatches(e -> e.getMessage().contains("is stale"))
+                .verify();
+        verify(priceAggregationRepository, times(1)).findLatestByTradingPair(SYMBOL);
+    }
 }
@@ -0,0 +1,126 @@
+package com.aquarius.crypto.service.price_aggregation;
+
+import com.aquarius.crypto.dto.third_party.BinanceStreamingTickerProvider;
+import com.aquarius.crypto.dto.third_party.HuobiStreamingTickerProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.zip.GZIPOutputStream;
+
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the websocket providers against a local stub server.
+ */
+class StreamingTickerProviderTest {
+
+    private DisposableServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void binance_SubscribesToConfiguredPairsOnly_AndMapsBookTickers() {
+        AtomicReference<String> requestedUri = new AtomicReference<>();
+        startServer(requestedUri, (in, out) -> out.sendString(Flux.just(
+                "{\"stream\":\"ethusdt@bookTicker\",\"data\":{\"u\":1,\"s\":\"ETHUSDT\",\"b\":\"2000.10\",\"B\":\"3.1\",\"a\":\"2000.20\",\"A\":\"1.2\"}}",
+                "not-json",
+                "{\"stream\":\"ethusdt@bookTicker\",\"data\":{\"u\":2,\"s\":\"ETHUSDT\",\"b\":\"2000.15\",\"B\":\"1.0\",\"a\":\"2000.25\",\"A\":\"1.0\"}}"
+        )));
+        BinanceStreamingTickerProvider provider = new BinanceStreamingTickerProvider(
+                HttpClient.create(), JsonMapper.shared(), "ws://localhost:" + server.port() + "/stream");
+
+        StepVerifier.create(provider.streamTickers(Set.of(ETH_PAIR)))
+                .assertNext(ticker -> {
+                    assertEquals(ETH_PAIR, ticker.getSymbol());
+                    assertEquals("BINANCE", ticker.getSource());
+                    assertEquals(new BigDecimal("2000.10"), ticker.getBidPrice());
+                    assertEquals(new BigDecimal("2000.20"), ticker.getAskPrice());
+                })
+                .assertNext(ticker -> assertEquals(new BigDecimal("2000.15"), ticker.getBidPrice()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals("/stream?streams=ethusdt@bookTicker", requestedUri.get());
+    }
+
+    @Test
+    void huobi_SubscribesToBbo_AnswersPings_AndDecompressesFrames() {
+        List<String> clientMessages = new CopyOnWriteArrayList<>();
+        startServer(new AtomicReference<>(), (in, out) -> {
+            // Read client frames on the side: cancelling the inbound flux would close the socket.
+            Sinks.Empty<Void> pongReceived = Sinks.empty();
+            in.receive().asString()
+                    .doOnNext(clientMessages::add)
+                    .filter(message -> message.contains("pong"))
+                    .subscribe(message -> pongReceived.tryEmitEmpty());
+
+            return Mono.from(out.sendByteArray(Mono.just(gzip("{\"ping\":1700000000000}"))))
+                    .then(pongReceived.asMono())
+                    .then(Mono.from(out.sendByteArray(Mono.just(gzip(
+                            "{\"ch\":\"market.ethusdt.bbo\",\"ts\":1,\"tick\":{\"symbol\":\"ethusdt\",\"bid\":1999.5,\"bidSize\":2,\"ask\":2000.5,\"askSize\":3}}")))));
+        });
+        HuobiStreamingTickerProvider provider = new HuobiStreamingTickerProvider(
+                HttpClient.create(), JsonMapper.shared(), "ws://localhost:" + server.port() + "/ws");
+
+        StepVerifier.create(provider.streamTickers(Set.of(ETH_PAIR)))
+                .assertNext(ticker -> {
+                    assertEquals(ETH_PAIR, ticker.getSymbol());
+                    assertEquals("HUOBI", ticker.getSource());
+                    assertEquals(0, new BigDecimal("1999.5").compareTo(ticker.getBidPrice()));
+                    assertEquals(0, new BigDecimal("2000.5").compareTo(ticker.getAskPrice()));
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(clientMessages.contains("{\"sub\":\"market.ethusdt.bbo\",\"id\":\"ethusdt\"}"));
+        assertTrue(clientMessages.contains("{\"pong\":1700000000000}"));
+    }
+
+    private void startServer(AtomicReference<String> requestedUri,
+                             BiFunction<WebsocketInbound, WebsocketOutbound, org.reactivestreams.Publisher<Void>> handler) {
+        server = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> {
+                    requestedUri.set(request.uri());
+                    return response.sendWebsocket(handler);
+                })
+                .bindNow();
+    }
+
+    private static byte[] gzip(String message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(message.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
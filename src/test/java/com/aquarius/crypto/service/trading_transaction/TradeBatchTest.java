@@ -0,0 +1,204 @@
+package com.aquarius.crypto.service.trading_transaction;
+
+import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.dto.response.BatchTradeResponse;
+import com.aquarius.crypto.metrics.TradingMetrics;
+import com.aquarius.crypto.model.TradingTransaction;
+import com.aquarius.crypto.model.Wallet;
+import com.aquarius.crypto.repository.TradingTransactionRepository;
+import com.aquarius.crypto.service.PriceAggregationService;
+import com.aquarius.crypto.service.TradeExecutionLanes;
+import com.aquarius.crypto.service.TradeIdempotencyCache;
+import com.aquarius.crypto.service.TradingService;
+import com.aquarius.crypto.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.aquarius.crypto.constants.ConstStrings.BTC_PAIR;
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+import static com.aquarius.crypto.helper.TestDataCreator.createWallet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TradeBatchTest {
+
+    @Mock
+    private WalletService walletService;
+    @Mock
+    private TradingTransactionRepository transactionRepo;
+    @Mock
+    private PriceAggregationService priceService;
+    @Mock
+    private TransactionalOperator rxtx;
+
+    @Captor
+    private ArgumentCaptor<Map<String, BigDecimal>> changesCaptor;
+    @Captor
+    private ArgumentCaptor<List<TradingTransaction>> auditsCaptor;
+
+    private final AtomicLong ids = new AtomicLong();
+    private TradingService tradingService;
+
+    @BeforeEach
+    void setUp() {
+        tradingService = new TradingService(walletService, transactionRepo, priceService, rxtx,
+                new TradeExecutionLanes(new SimpleMeterRegistry(), 4, 16), new TradingMetrics(new SimpleMeterRegistry()),
+                new TradeIdempotencyCache(new SimpleMeterRegistry(), 100, 60));
+        ReflectionTestUtils.setField(tradingService, "maxBatchSize", 10);
+        lenient().when(priceService.bestPrice(ETH_PAIR, "BUY")).thenReturn(Mono.just(new BigDecimal("2000.00")));
+        lenient().when(priceService.bestPrice(ETH_PAIR, "SELL")).thenReturn(Mono.just(new BigDecimal("1990.00")));
+        lenient().when(walletService.lockWallets(1L)).thenReturn(Flux.just(
+                createWallet(1L, "USDT", "5000.00"), createWallet(2L, "ETH", "0.00")));
+        lenient().when(walletService.applyBalanceChanges(eq(1L), anyMap()))
+                .thenAnswer(inv -> Mono.just((long) inv.<Map<?, ?>>getArgument(1).size()));
+        lenient().when(transactionRepo.insertAll(any())).thenAnswer(inv -> Flux.fromIterable(inv.<List<TradingTransaction>>getArgument(0))
+                .map(audit -> TradingTransaction.builder().id(ids.incrementAndGet()).build()));
+        lenient().when(rxtx.transactional(any(Mono.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void batch_PricesOncePerSymbolAndSide_AndWritesOnceForAllTrades() {
+        List<TradingRequest> trades = List.of(
+                market(ETH_PAIR, "BUY", "1"),
+                market(ETH_PAIR, "BUY", "1"),
+                // Sells part of what the trades before it bought.
+                market(ETH_PAIR, "SELL", "0.5"));
+
+        StepVerifier.create(tradingService.tradeBatch(1L, trades, false))
+                .assertNext(batch -> {
+                    assertEquals(3, batch.getExecuted());
+                    assertEquals(0, batch.getRejected());
+                    assertEquals(List.of(1L, 2L, 3L), batch.getResults().stream().map(r -> r.getTransaction().getId()).toList());
+                })
+                .verifyComplete();
+
+        verify(priceService, times(1)).bestPrice(ETH_PAIR, "BUY");
+        verify(priceService, times(1)).bestPrice(ETH_PAIR, "SELL");
+        verify(walletService, times(1)).lockWallets(1L);
+        // One change per currency: -4000 + 995 USDT, +2 - 0.5 ETH.
+        verify(walletService, times(1)).applyBalanceChanges(eq(1L), changesCaptor.capture());
+        assertEquals(Map.of("ETH", new BigDecimal("1.50000000"), "USDT", new BigDecimal("-3005.00000000")), changesCaptor.getValue());
+        verify(transactionRepo, times(1)).insertAll(auditsCaptor.capture());
+        assertEquals(3, auditsCaptor.getValue().size());
+        verify(rxtx, times(1)).transactional(any(Mono.class));
+        verify(walletService, never()).settleTrade(any(), anyString(), any(), anyString(), any());
+    }
+
+    @Test
+    void rejectedTrades_OnlyFailTheirOwnResult() {
+        List<TradingRequest> trades = List.of(
+                market(ETH_PAIR, "BUY", "2"),
+                // 1000 USDT left after the first trade.
+                market(ETH_PAIR, "BUY", "1"),
+                market(ETH_PAIR, "HOLD", "1"),
+                market(ETH_PAIR, "SELL", "1"));
+
+        StepVerifier.create(tradingService.tradeBatch(1L, trades, false))
+                .assertNext(batch -> {
+                    assertEquals(2, batch.getExecuted());
+                    assertEquals(2, batch.getRejected());
+                    assertEquals(List.of(BatchTradeResponse.COMPLETED, BatchTradeResponse.REJECTED, BatchTradeResponse.REJECTED,
+                            BatchTradeResponse.COMPLETED), batch.getResults().stream().map(BatchTradeResponse.Result::getStatus).toList());
+                    assertEquals("Insufficient USDT balance", batch.getResults().get(1).getError());
+                    assertEquals("Trade type must be either BUY or SELL", batch.getResults().get(2).getError());
+                })
+                .verifyComplete();
+
+        verify(transactionRepo).insertAll(auditsCaptor.capture());
+        assertEquals(2, auditsCaptor.getValue().size());
+    }
+
+    @Test
+    void allOrNothing_WithARejectedTrade_WritesNothing() {
+        List<TradingRequest> trades = List.of(
+                market(ETH_PAIR, "BUY", "1"),
+                market(ETH_PAIR, "BUY", "10"));
+
+        StepVerifier.create(tradingService.tradeBatch(1L, trades, true))
+                .assertNext(batch -> {
+                    assertEquals(0, batch.getExecuted());
+                    assertEquals(BatchTradeResponse.ABORTED, batch.getResults().get(0).getStatus());
+                    assertEquals(BatchTradeResponse.REJECTED, batch.getResults().get(1).getStatus());
+                })
+                .verifyComplete();
+
+        verify(walletService, never()).applyBalanceChanges(anyLong(), anyMap());
+        verify(transactionRepo, never()).insertAll(any());
+    }
+
+    @Test
+    void allOrNothing_WithAnUnpricedSymbol_DoesNotTouchTheWallets() {
+        when(priceService.bestPrice(BTC_PAIR, "BUY")).thenReturn(Mono.error(new RuntimeException("Price not found")));
+
+        StepVerifier.create(tradingService.tradeBatch(1L, List.of(market(ETH_PAIR, "BUY", "1"), market(BTC_PAIR, "BUY", "0.01")), true))
+                .assertNext(batch -> {
+                    assertEquals(0, batch.getExecuted());
+                    assertEquals("Price not found", batch.getResults().get(1).getError());
+                })
+                .verifyComplete();
+
+        verify(walletService, never()).lockWallets(anyLong());
+    }
+
+    @Test
+    void missingWallet_IsCreatedOnceWhenAutoCreationIsOn() {
+        ReflectionTestUtils.setField(tradingService, "autoCreateWallets", true);
+        when(walletService.lockWallets(1L)).thenReturn(Flux.just(createWallet(1L, "USDT", "5000.00")));
+        when(walletService.save(any(Wallet.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        StepVerifier.create(tradingService.tradeBatch(1L, List.of(market(ETH_PAIR, "BUY", "1"), market(ETH_PAIR, "BUY", "1")), false))
+                .assertNext(batch -> {
+                    assertEquals(2, batch.getExecuted());
+                    assertNotNull(batch.getResults().get(1).getTransaction());
+                })
+                .verifyComplete();
+
+        verify(walletService, times(1)).save(any(Wallet.class));
+    }
+
+    @Test
+    void oversizedBatch_IsRejected() {
+        List<TradingRequest> trades = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            trades.add(market(ETH_PAIR, "BUY", "0.1"));
+        }
+
+        StepVerifier.create(tradingService.tradeBatch(1L, trades, false))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException && e.getMessage().contains("at most 10"))
+                .verify();
+
+        verify(priceService, never()).bestPrice(anyString(), anyString());
+    }
+
+    private static TradingRequest market(String symbol, String side, String quantity) {
+        return new TradingRequest(null, symbol, side, new BigDecimal(quantity));
+    }
+}
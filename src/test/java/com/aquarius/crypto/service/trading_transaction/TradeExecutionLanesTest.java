@@ -0,0 +1,116 @@
+package com.aquarius.crypto.service.trading_transaction;
+
+import com.aquarius.crypto.exception.TradeQueueFullException;
+import com.aquarius.crypto.service.TradeExecutionLanes;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TradeExecutionLanesTest {
+
+    private MeterRegistry meterRegistry;
+    private TradeExecutionLanes lanes;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lanes = new TradeExecutionLanes(meterRegistry, 8, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lanes.shutdown();
+    }
+
+    @Test
+    void ordersOfOneUser_RunStrictlyInSubmissionOrder() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> completed = new CopyOnWriteArrayList<>();
+
+        Flux<Integer> orders = Flux.range(1, 4)
+                .flatMap(i -> lanes.submit(1L, tracked(i, running, maxRunning, completed)));
+
+        StepVerifier.create(orders)
+                .expectNextCount(4)
+                .verifyComplete();
+        assertEquals(1, maxRunning.get());
+        assertEquals(List.of(1, 2, 3, 4), completed);
+    }
+
+    @Test
+    void ordersOfUsersOnDifferentLanes_RunConcurrently() {
+        long otherUser = 2L;
+        while (lanes.laneOf(otherUser) == lanes.laneOf(1L)) {
+            otherUser++;
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> completed = new CopyOnWriteArrayList<>();
+
+        Flux<Integer> orders = Flux.merge(
+                lanes.submit(1L, tracked(1, running, maxRunning, completed)),
+                lanes.submit(otherUser, tracked(2, running, maxRunning, completed)));
+
+        StepVerifier.create(orders)
+                .expectNextCount(2)
+                .verifyComplete();
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void fullLane_RejectsNewOrders() {
+        Sinks.Empty<Void> release = Sinks.empty();
+        for (int i = 0; i < 4; i++) {
+            lanes.submit(1L, () -> release.asMono().thenReturn("done")).subscribe();
+        }
+
+        StepVerifier.create(lanes.submit(1L, () -> Mono.just("overflow")))
+                .expectError(TradeQueueFullException.class)
+                .verify();
+        assertEquals(1.0, meterRegistry.counter("crypto.trading.lane.rejected").count());
+
+        release.tryEmitEmpty();
+        StepVerifier.create(lanes.submit(1L, () -> Mono.just("accepted again")))
+                .expectNext("accepted again")
+                .verifyComplete();
+    }
+
+    @Test
+    void failingOrder_DoesNotBlockTheLane() {
+        StepVerifier.create(lanes.submit(1L, () -> Mono.error(new IllegalArgumentException("Insufficient USDT balance"))))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        StepVerifier.create(lanes.submit(1L, () -> Mono.just("next")))
+                .expectNext("next")
+                .verifyComplete();
+        assertTrue(meterRegistry.timer("crypto.trading.lane.wait").count() >= 2);
+        assertEquals(0.0, meterRegistry.get("crypto.trading.lane.queued").gauge().value());
+    }
+
+    private static Supplier<Mono<Integer>> tracked(int id, AtomicInteger running, AtomicInteger maxRunning, List<Integer> completed) {
+        return () -> Mono.fromRunnable(() -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                .then(Mono.delay(Duration.ofMillis(50)))
+                .doOnNext(ignored -> {
+                    running.decrementAndGet();
+                    completed.add(id);
+                })
+                .thenReturn(id);
+    }
+}
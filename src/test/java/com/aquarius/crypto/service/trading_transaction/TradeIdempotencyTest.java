@@ -0,0 +1,200 @@
+package com.aquarius.crypto.service.trading_transaction;
+
+import com.aquarius.crypto.config.tenant.TenantContext;
+import com.aquarius.crypto.dto.TradeType;
+import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.metrics.TradingMetrics;
+import com.aquarius.crypto.model.TradingTransaction;
+import com.aquarius.crypto.repository.TradingTransactionRepository;
+import com.aquarius.crypto.service.PriceAggregationService;
+import com.aquarius.crypto.service.TradeExecutionLanes;
+import com.aquarius.crypto.service.TradeIdempotencyCache;
+import com.aquarius.crypto.service.TradingService;
+import com.aquarius.crypto.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TradeIdempotencyTest {
+
+    @Mock
+    private WalletService walletService;
+    @Mock
+    private TradingTransactionRepository transactionRepo;
+    @Mock
+    private PriceAggregationService priceService;
+    @Mock
+    private TransactionalOperator rxtx;
+
+    @Captor
+    private ArgumentCaptor<TradingTransaction> auditCaptor;
+
+    private final AtomicLong ids = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private TradingService tradingService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tradingService = new TradingService(walletService, transactionRepo, priceService, rxtx,
+                new TradeExecutionLanes(meterRegistry, 4, 16), new TradingMetrics(meterRegistry),
+                new TradeIdempotencyCache(meterRegistry, 100, 60));
+        ReflectionTestUtils.setField(tradingService, "singleStatementSettlement", true);
+        lenient().when(priceService.bestPrice(ETH_PAIR, "BUY")).thenReturn(Mono.just(new BigDecimal("2000.00")));
+        lenient().when(transactionRepo.findByUserIdAndIdempotencyKey(any(), anyString())).thenReturn(Mono.empty());
+        lenient().when(walletService.settleTrade(auditCaptor.capture(), anyString(), any(), anyString(), any()))
+                .thenAnswer(inv -> {
+                    TradingTransaction audit = inv.getArgument(0);
+                    audit.setId(ids.incrementAndGet());
+                    return Mono.just(audit);
+                });
+    }
+
+    @Test
+    void repeatedRequest_GetsTheOriginalTrade_WithoutPricingOrSettlingAgain() {
+        TradingTransaction first = tradingService.trade(buy("1"), "key-1").block();
+
+        StepVerifier.create(tradingService.trade(buy("1"), "key-1"))
+                .assertNext(tx -> assertEquals(first.getId(), tx.getId()))
+                .verifyComplete();
+
+        verify(priceService, times(1)).bestPrice(ETH_PAIR, "BUY");
+        verify(walletService, times(1)).settleTrade(any(), anyString(), any(), anyString(), any());
+        assertEquals("key-1", auditCaptor.getValue().getIdempotencyKey());
+        assertEquals(1.0, meterRegistry.get("crypto.trading.idempotency.replayed").counter().count());
+    }
+
+    @Test
+    void concurrentDuplicates_ShareOneExecution() {
+        Sinks.One<BigDecimal> price = Sinks.one();
+        when(priceService.bestPrice(ETH_PAIR, "BUY")).thenReturn(price.asMono());
+
+        Mono<List<Long>> all = Flux.range(0, 3)
+                .flatMap(i -> tradingService.trade(buy("1"), "key-1"))
+                .map(TradingTransaction::getId)
+                .collectList();
+
+        StepVerifier.create(all)
+                .then(() -> price.tryEmitValue(new BigDecimal("2000.00")))
+                .assertNext(txIds -> assertEquals(List.of(1L, 1L, 1L), txIds))
+                .verifyComplete();
+
+        verify(walletService, times(1)).settleTrade(any(), anyString(), any(), anyString(), any());
+    }
+
+    @Test
+    void keyReusedForADifferentTrade_IsRejected() {
+        tradingService.trade(buy("1"), "key-1").block();
+
+        StepVerifier.create(tradingService.trade(buy("2"), "key-1"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException && e.getMessage().contains("different trade"))
+                .verify();
+
+        verify(walletService, times(1)).settleTrade(any(), anyString(), any(), anyString(), any());
+    }
+
+    @Test
+    void sameQuantityWrittenDifferently_IsTheSameTrade() {
+        TradingTransaction first = tradingService.trade(buy("1"), "key-1").block();
+
+        StepVerifier.create(tradingService.trade(buy("1.0"), "key-1"))
+                .assertNext(tx -> assertEquals(first.getId(), tx.getId()))
+                .verifyComplete();
+
+        verify(walletService, times(1)).settleTrade(any(), anyString(), any(), anyString(), any());
+    }
+
+    @Test
+    void failedTrade_CanBeRetriedWithTheSameKey() {
+        when(priceService.bestPrice(ETH_PAIR, "BUY"))
+                .thenReturn(Mono.error(new RuntimeException("Price not found")))
+                .thenReturn(Mono.just(new BigDecimal("2000.00")));
+
+        StepVerifier.create(tradingService.trade(buy("1"), "key-1"))
+                .expectErrorMessage("Price not found")
+                .verify();
+        StepVerifier.create(tradingService.trade(buy("1"), "key-1"))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void keyAlreadyInTheDatabase_ReturnsTheStoredTrade() {
+        when(transactionRepo.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Mono.just(stored(42L)));
+
+        StepVerifier.create(tradingService.trade(buy("1"), "key-1"))
+                .assertNext(tx -> assertEquals(42L, tx.getId()))
+                .verifyComplete();
+
+        verify(priceService, never()).bestPrice(anyString(), anyString());
+    }
+
+    @Test
+    void keySettledConcurrentlyElsewhere_ReturnsThatTrade() {
+        when(transactionRepo.findByUserIdAndIdempotencyKey(1L, "key-1"))
+                .thenReturn(Mono.empty())
+                .thenReturn(Mono.just(stored(42L)));
+        doReturn(Mono.error(new DuplicateKeyException("uk_trading_transactions_user_idempotency_key")))
+                .when(walletService).settleTrade(any(), anyString(), any(), anyString(), any());
+
+        StepVerifier.create(tradingService.trade(buy("1"), "key-1"))
+                .assertNext(tx -> assertEquals(42L, tx.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void keys_AreKeptApartPerTenant() {
+        tradingService.trade(buy("1"), "key-1")
+                .contextWrite(Context.of(TenantContext.TENANT_ID_KEY, "tenant_a"))
+                .block();
+        tradingService.trade(buy("1"), "key-1")
+                .contextWrite(Context.of(TenantContext.TENANT_ID_KEY, "tenant_b"))
+                .block();
+
+        verify(walletService, times(2)).settleTrade(any(), eq("USDT"), any(), eq("ETH"), any());
+    }
+
+    private static TradingRequest buy(String quantity) {
+        TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal(quantity));
+        req.validate();
+        return req;
+    }
+
+    private static TradingTransaction stored(Long id) {
+        return TradingTransaction.builder().id(id).userId(1L).symbol(ETH_PAIR).tradeType(TradeType.BUY)
+                .quantity(new BigDecimal("1.00000000")).price(new BigDecimal("2000.00000000"))
+                .totalAmount(new BigDecimal("2000.00000000")).status("COMPLETED").createdAt(Instant.now())
+                .idempotencyKey("key-1").build();
+    }
+}
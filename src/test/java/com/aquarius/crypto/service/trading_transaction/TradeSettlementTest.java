@@ -0,0 +1,188 @@
+package com.aquarius.crypto.service.trading_transaction;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.metrics.TradingMetrics;
+import com.aquarius.crypto.model.TradingTransaction;
+import com.aquarius.crypto.model.Wallet;
+import com.aquarius.crypto.repository.TradingTransactionRepository;
+import com.aquarius.crypto.service.PriceAggregationService;
+import com.aquarius.crypto.service.TradeExecutionLanes;
+import com.aquarius.crypto.service.TradeIdempotencyCache;
+import com.aquarius.crypto.service.TradingService;
+import com.aquarius.crypto.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+
+import static com.aquarius.crypto.constants.ConstStrings.ETH_PAIR;
+import static com.aquarius.crypto.helper.TestDataCreator.createWallet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TradeSettlementTest {
+
+    @Mock
+    private WalletService walletService;
+    @Mock
+    private TradingTransactionRepository transactionRepo;
+    @Mock
+    private PriceAggregationService priceService;
+    @Mock
+    private TransactionalOperator rxtx;
+
+    @Captor
+    private ArgumentCaptor<TradingTransaction> auditCaptor;
+
+    private TradingService tradingService;
+
+    @BeforeEach
+    void setUp() {
+        tradingService = new TradingService(walletService, transactionRepo, priceService, rxtx,
+                new TradeExecutionLanes(new SimpleMeterRegistry(), 4, 16), new TradingMetrics(new SimpleMeterRegistry()),
+                new TradeIdempotencyCache(new SimpleMeterRegistry(), 100, 60));
+        ReflectionTestUtils.setField(tradingService, "singleStatementSettlement", true);
+        when(priceService.bestPrice(ETH_PAIR, "BUY")).thenReturn(Mono.just(new BigDecimal("2000.00")));
+    }
+
+    @Test
+    void buy_SettlesInOneStatement() {
+        TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("1.5"));
+        when(walletService.settleTrade(auditCaptor.capture(), eq("USDT"), any(), eq("ETH"), any()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(tradingService.trade(req))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // Amounts are handed to the database at the column scale.
+        verify(walletService).settleTrade(any(), eq("USDT"), eq(new BigDecimal("3000.00000000")), eq("ETH"), eq(new BigDecimal("1.50000000")));
+        assertEquals(new BigDecimal("3000.00000000"), auditCaptor.getValue().getTotalAmount());
+        assertEquals("COMPLETED", auditCaptor.getValue().getStatus());
+        // No read-modify-write, no optimistic locking, no separate audit insert.
+        verify(walletService, never()).findByUserAndCurrency(any(), anyString());
+        verify(walletService, never()).save(any(Wallet.class));
+        verify(transactionRepo, never()).save(any());
+    }
+
+    @Test
+    void buy_RoundsTheTotalLikeTheLedgerDoes() {
+        when(priceService.bestPrice(ETH_PAIR, "BUY")).thenReturn(Mono.just(new BigDecimal("2034.575")));
+        TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("1.23456789"));
+        when(walletService.settleTrade(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        tradingService.trade(req).block();
+
+        long units = FixedPoint.multiply(FixedPoint.fromBigDecimal(new BigDecimal("2034.575")), 123_456_789L);
+        verify(walletService).settleTrade(any(), eq("USDT"), eq(FixedPoint.toBigDecimal(units)), eq("ETH"), eq(new BigDecimal("1.23456789")));
+    }
+
+    @Test
+    void rejectedSettlement_WithShortBalance_ReportsInsufficientBalance() {
+        TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("1.0"));
+        when(walletService.settleTrade(any(), any(), any(), any(), any())).thenReturn(Mono.empty());
+        when(walletService.findByUserAndCurrency(1L, "USDT")).thenReturn(Mono.just(createWallet(1L, "USDT", "10.00")));
+        when(walletService.findByUserAndCurrency(1L, "ETH")).thenReturn(Mono.just(createWallet(2L, "ETH", "0.00")));
+
+        StepVerifier.create(tradingService.trade(req))
+                .expectErrorMatches(t -> t instanceof IllegalArgumentException && t.getMessage().contains("Insufficient USDT"))
+                .verify();
+
+        verify(walletService, times(1)).settleTrade(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void rejectedSettlement_WithMissingWallet_AutoCreatesAndSettlesAgain() {
+        ReflectionTestUtils.setField(tradingService, "autoCreateWallets", true);
+        TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("1.0"));
+        when(walletService.settleTrade(any(), any(), any(), any(), any()))
+                .thenReturn(Mono.empty())
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(walletService.findByUserAndCurrency(1L, "USDT")).thenReturn(Mono.just(createWallet(1L, "USDT", "5000.00")));
+        when(walletService.findByUserAndCurrency(1L, "ETH")).thenReturn(Mono.empty());
+        when(walletService.save(any(Wallet.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(tradingService.trade(req))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(walletService).save(any(Wallet.class));
+        verify(walletService, times(2)).settleTrade(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void rejectedSettlement_WithMissingWalletAndNoAutoCreate_Fails() {
+        TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("1.0"));
+        when(walletService.settleTrade(any(), any(), any(), any(), any())).thenReturn(Mono.empty());
+        when(walletService.findByUserAndCurrency(1L, "USDT")).thenReturn(Mono.just(createWallet(1L, "USDT", "5000.00")));
+        when(walletService.findByUserAndCurrency(1L, "ETH")).thenReturn(Mono.empty());
+
+        StepVerifier.create(tradingService.trade(req))
+                .expectErrorMatches(t -> t instanceof IllegalArgumentException && t.getMessage().contains("Wallet not found"))
+                .verify();
+    }
+
+    @Test
+    void ledgerSettlement_WritesTheAuditWithTheJournal() {
+        when(walletService.isLedgerEnabled()).thenReturn(true);
+        TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("1.0"));
+        when(walletService.settleInLedger(eq(1L), eq("USDT"), eq(2000 * FixedPoint.ONE), eq("ETH"), eq(FixedPoint.ONE), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(6));
+        when(transactionRepo.save(auditCaptor.capture())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(tradingService.trade(req))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(new BigDecimal("2000.00000000"), auditCaptor.getValue().getTotalAmount());
+        verify(walletService, never()).settleTrade(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void ledgerSettlement_WithFailedAuditInsert_Fails() {
+        when(walletService.isLedgerEnabled()).thenReturn(true);
+        TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("1.0"));
+        when(walletService.settleInLedger(eq(1L), eq("USDT"), anyLong(), eq("ETH"), anyLong(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(6));
+        when(transactionRepo.save(any())).thenReturn(Mono.error(new IllegalStateException("connection reset")));
+
+        StepVerifier.create(tradingService.trade(req))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(walletService, never()).settleTrade(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void ledgerSettlement_WithShortBalance_ReportsInsufficientBalance() {
+        when(walletService.isLedgerEnabled()).thenReturn(true);
+        TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("1.0"));
+        when(walletService.settleInLedger(eq(1L), eq("USDT"), anyLong(), eq("ETH"), anyLong(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(tradingService.trade(req))
+                .expectErrorMatches(t -> t instanceof IllegalArgumentException && t.getMessage().contains("Insufficient USDT"))
+                .verify();
+
+        verify(transactionRepo, never()).save(any());
+    }
+}
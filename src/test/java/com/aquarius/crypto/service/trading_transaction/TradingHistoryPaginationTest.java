@@ -0,0 +1,124 @@
+package com.aquarius.crypto.service.trading_transaction;
+
+import com.aquarius.crypto.common.KeysetCursor;
+import com.aquarius.crypto.exception.InvalidCursorException;
+import com.aquarius.crypto.metrics.TradingMetrics;
+import com.aquarius.crypto.repository.TradingTransactionRepository;
+import com.aquarius.crypto.service.PriceAggregationService;
+import com.aquarius.crypto.service.TradeExecutionLanes;
+import com.aquarius.crypto.service.TradeIdempotencyCache;
+import com.aquarius.crypto.service.TradingService;
+import com.aquarius.crypto.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+import static com.aquarius.crypto.helper.TestDataCreator.createTransaction;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TradingHistoryPaginationTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T10:00:00.123456Z");
+
+    @Mock
+    private WalletService walletService;
+    @Mock
+    private TradingTransactionRepository transactionRepo;
+    @Mock
+    private PriceAggregationService priceService;
+    @Mock
+    private TransactionalOperator rxtx;
+
+    private TradingService tradingService;
+
+    @BeforeEach
+    void setUp() {
+        tradingService = new TradingService(walletService, transactionRepo, priceService, rxtx,
+                new TradeExecutionLanes(new SimpleMeterRegistry(), 4, 16), new TradingMetrics(new SimpleMeterRegistry()),
+                new TradeIdempotencyCache(new SimpleMeterRegistry(), 100, 60));
+    }
+
+    @Test
+    void firstPage_FetchesOneExtraRowToDetectMore() {
+        // GIVEN: size 2, repository returns 3 rows
+        when(transactionRepo.findFirstByUserIdKeyset(1L, 3)).thenReturn(Flux.just(
+                createTransaction(30L, T0.plusSeconds(2)),
+                createTransaction(20L, T0.plusSeconds(1)),
+                createTransaction(10L, T0)
+        ));
+
+        // WHEN / THEN
+        StepVerifier.create(tradingService.getUserTradingHistoryPage(1L, null, 2, false))
+                .assertNext(page -> {
+                    assertEquals(2, page.getContents().size());
+                    assertTrue(page.isHasMore());
+                    assertEquals(new KeysetCursor(T0.plusSeconds(1), 20L), KeysetCursor.decode(page.getNextCursor()));
+                    assertNull(page.getTotalItems());
+                })
+                .verifyComplete();
+        verify(transactionRepo, never()).countByUserId(anyLong());
+    }
+
+    @Test
+    void nextPage_PushesCursorIntoQuery() {
+        String cursor = new KeysetCursor(T0, 10L).encode();
+        when(transactionRepo.findNextByUserIdKeyset(1L, T0, 10L, 3)).thenReturn(Flux.just(
+                createTransaction(5L, T0.minusSeconds(1))
+        ));
+        when(transactionRepo.countByUserId(1L)).thenReturn(Mono.just(3L));
+
+        StepVerifier.create(tradingService.getUserTradingHistoryPage(1L, cursor, 2, true))
+                .assertNext(page -> {
+                    assertEquals(1, page.getContents().size());
+                    assertEquals(5L, page.getContents().get(0).getTransactionId());
+                    assertFalse(page.isHasMore());
+                    assertNull(page.getNextCursor());
+                    assertEquals(3L, page.getTotalItems());
+                })
+                .verifyComplete();
+        verify(transactionRepo, never()).findFirstByUserIdKeyset(anyLong(), anyInt());
+    }
+
+    @Test
+    void malformedCursor_IsRejected() {
+        StepVerifier.create(tradingService.getUserTradingHistoryPage(1L, "not-a-cursor!", 10, false))
+                .expectError(InvalidCursorException.class)
+                .verify();
+    }
+
+    @Test
+    void walletCursor_IsRejected() {
+        String walletCursor = KeysetCursor.afterId(7L).encode();
+
+        StepVerifier.create(tradingService.getUserTradingHistoryPage(1L, walletCursor, 10, false))
+                .expectError(InvalidCursorException.class)
+                .verify();
+    }
+
+    @Test
+    void cursorRoundTrip_KeepsMicrosecondPrecision() {
+        KeysetCursor cursor = new KeysetCursor(T0, Long.MAX_VALUE);
+
+        assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+        assertEquals(KeysetCursor.afterId(42L), KeysetCursor.decode(KeysetCursor.afterId(42L).encode()));
+        assertNull(KeysetCursor.decode(" "));
+    }
+}
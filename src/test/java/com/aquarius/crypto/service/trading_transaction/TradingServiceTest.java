@@ -1,12 +1,16 @@
 package com.aquarius.crypto.service.trading_transaction;
 
 import com.aquarius.crypto.dto.request.TradingRequest;
+import com.aquarius.crypto.metrics.TradingMetrics;
 import com.aquarius.crypto.model.TradingTransaction;
 import com.aquarius.crypto.model.Wallet;
 import com.aquarius.crypto.repository.TradingTransactionRepository;
 import com.aquarius.crypto.service.PriceAggregationService;
+import com.aquarius.crypto.service.TradeExecutionLanes;
+import com.aquarius.crypto.service.TradeIdempotencyCache;
 import com.aquarius.crypto.service.TradingService;
 import com.aquarius.crypto.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -44,13 +48,17 @@ class TradingServiceTest {
     private TransactionalOperator rxtx;
 
     private TradingService tradingService;
+    private SimpleMeterRegistry meterRegistry;
 
     @Captor
     private ArgumentCaptor<Wallet> walletCaptor;
 
     @BeforeEach
     void setUp() {
-        tradingService = new TradingService(walletService, transactionRepo, priceService, rxtx);
+        meterRegistry = new SimpleMeterRegistry();
+        tradingService = new TradingService(walletService, transactionRepo, priceService, rxtx,
+                new TradeExecutionLanes(meterRegistry, 4, 16), new TradingMetrics(meterRegistry),
+                new TradeIdempotencyCache(meterRegistry, 100, 60));
         lenient().when(rxtx.transactional(any(Mono.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
     }
@@ -145,6 +153,27 @@ class TradingServiceTest {
         inOrder.verify(walletService).save(argThat(w -> w.getId().equals(200L)));
     }
 
+    @Test
+    void testDeadlockPrevention_SavesInCurrencyOrderWhateverTheIds() {
+        // GIVEN: USDT has the lower id, but ETH sorts first, as SETTLE_TRADE and order placements lock them
+        TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("1.0"));
+        Wallet usdtWallet = createWallet(100L, "USDT", "5000.00");
+        Wallet ethWallet = createWallet(200L, "ETH", "0.00");
+
+        when(priceService.bestPrice(any(), any())).thenReturn(Mono.just(new BigDecimal("100.00")));
+        when(walletService.findByUserAndCurrency(1L, "USDT")).thenReturn(Mono.just(usdtWallet));
+        when(walletService.findByUserAndCurrency(1L, "ETH")).thenReturn(Mono.just(ethWallet));
+        when(walletService.save(any(Wallet.class))).thenAnswer(i -> Mono.just(i.getArgument(0)));
+        when(transactionRepo.save(any())).thenReturn(Mono.just(new TradingTransaction()));
+
+        // WHEN
+        tradingService.trade(req).block();
+
+        InOrder inOrder = inOrder(walletService);
+        inOrder.verify(walletService).save(argThat(w -> w.getCurrency().equals("ETH")));
+        inOrder.verify(walletService).save(argThat(w -> w.getCurrency().equals("USDT")));
+    }
+
     @Test
     void testInsufficientBalance_ThrowsError() {
         TradingRequest req = new TradingRequest(1L, ETH_PAIR, "BUY", new BigDecimal("1.0"));
@@ -160,5 +189,10 @@ class TradingServiceTest {
                 .verify();
 
         verify(walletService, never()).save(any());
+        assertEquals(1.0, meterRegistry.get("crypto.trading.rejected")
+                .tags("reason", "insufficient_balance", "symbol", ETH_PAIR, "trade_type", "BUY", "tenant", "trader")
+                .counter().count());
+        assertEquals(1, meterRegistry.get("crypto.trading.stage")
+                .tags("stage", "wallet_resolution", "outcome", "success").timer().count());
     }
 }
\ No newline at end of file
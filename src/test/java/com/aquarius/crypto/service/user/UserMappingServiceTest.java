@@ -0,0 +1,121 @@
+package com.aquarius.crypto.service.user;
+
+import com.aquarius.crypto.config.tenant.TenantContext;
+import com.aquarius.crypto.model.User;
+import com.aquarius.crypto.model.UserPrincipal;
+import com.aquarius.crypto.repository.UserRepository;
+import com.aquarius.crypto.service.UserMappingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserMappingServiceTest {
+
+    private static final UUID PUBLIC_ID = UUID.randomUUID();
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserMappingService userMappingService;
+
+    @BeforeEach
+    void setUp() {
+        userMappingService = new UserMappingService(userRepository, new SimpleMeterRegistry(), 100, 600, 60);
+    }
+
+    @Test
+    void repeatedLookups_HitTheRepositoryOnce() {
+        when(userRepository.findByPublicId(PUBLIC_ID)).thenReturn(Mono.fromSupplier(() -> user("trader")));
+
+        StepVerifier.create(userMappingService.findByPublicId(PUBLIC_ID))
+                .assertNext(principal -> {
+                    assertEquals(7L, principal.internalId());
+                    assertEquals("TRADER", principal.getAuthorities().iterator().next().getAuthority());
+                })
+                .verifyComplete();
+        StepVerifier.create(userMappingService.findByPublicId(PUBLIC_ID))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(userRepository, times(1)).findByPublicId(PUBLIC_ID);
+    }
+
+    @Test
+    void invalidate_ReloadsTheChangedUser() {
+        AtomicReference<String> role = new AtomicReference<>("trader");
+        when(userRepository.findByPublicId(PUBLIC_ID)).thenReturn(Mono.fromSupplier(() -> user(role.get())));
+
+        userMappingService.findByPublicId(PUBLIC_ID).block();
+        role.set("admin");
+        userMappingService.invalidate(TenantContext.TRADER_TENANT_ID, PUBLIC_ID);
+
+        StepVerifier.create(userMappingService.findByPublicId(PUBLIC_ID).map(UserPrincipal::getAuthorities))
+                .assertNext(authorities -> assertEquals("ADMIN", authorities.iterator().next().getAuthority()))
+                .verifyComplete();
+    }
+
+    @Test
+    void invalidate_LeavesTheOtherTenantsEntryAlone() {
+        when(userRepository.findByPublicId(PUBLIC_ID)).thenReturn(Mono.fromSupplier(() -> user("trader")));
+
+        userMappingService.findByPublicId(PUBLIC_ID).block();
+        userMappingService.invalidate("broker", PUBLIC_ID);
+        userMappingService.findByPublicId(PUBLIC_ID).block();
+
+        verify(userRepository, times(1)).findByPublicId(PUBLIC_ID);
+    }
+
+    @Test
+    void unknownUser_FailsAndIsNotCached() {
+        when(userRepository.findByPublicId(PUBLIC_ID)).thenReturn(Mono.empty());
+
+        StepVerifier.create(userMappingService.findByPublicId(PUBLIC_ID))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        StepVerifier.create(userMappingService.findByPublicId(PUBLIC_ID))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verify(userRepository, times(2)).findByPublicId(PUBLIC_ID);
+    }
+
+    @Test
+    void lookup_RunsInTheCallersTenant() {
+        AtomicReference<String> queriedTenant = new AtomicReference<>();
+        when(userRepository.findByPublicId(PUBLIC_ID)).thenReturn(Mono.deferContextual(ctx -> {
+            queriedTenant.set(TenantContext.getTenantId(ctx));
+            return Mono.just(user("trader"));
+        }));
+
+        StepVerifier.create(userMappingService.findByPublicId(PUBLIC_ID)
+                        .contextWrite(ctx -> ctx.put(TenantContext.TENANT_ID_KEY, "tenant_b")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals("tenant_b", queriedTenant.get());
+    }
+
+    private static User user(String role) {
+        return User.builder()
+                .id(7L)
+                .publicId(PUBLIC_ID)
+                .email("user@example.com")
+                .simpleRole(role)
+                .tenantId("tenant-1")
+                .build();
+    }
+}
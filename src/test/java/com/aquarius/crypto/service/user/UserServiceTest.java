@@ -0,0 +1,106 @@
+package com.aquarius.crypto.service.user;
+
+import com.aquarius.crypto.config.tenant.TenantContext;
+import com.aquarius.crypto.config.tenant.TenantMappingService;
+import com.aquarius.crypto.dto.request.UserAccessUpdateRequest;
+import com.aquarius.crypto.exception.UserNotFoundException;
+import com.aquarius.crypto.model.User;
+import com.aquarius.crypto.repository.UserRepository;
+import com.aquarius.crypto.service.SecurityContextService;
+import com.aquarius.crypto.service.UserMappingService;
+import com.aquarius.crypto.service.UserService;
+import com.aquarius.crypto.service.UserTimezoneService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    private static final UUID PUBLIC_ID = UUID.randomUUID();
+
+    @Mock
+    private SecurityContextService securityContextService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PasswordEncoder encoder;
+    @Mock
+    private UserTimezoneService timezoneService;
+    @Mock
+    private UserMappingService userMappingService;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(securityContextService, userRepository, encoder, timezoneService,
+                userMappingService, new TenantMappingService());
+    }
+
+    @Test
+    void updateAccess_SavesTheRole_ThenDropsTheCachedPrincipal() {
+        User user = User.builder().id(7L).publicId(PUBLIC_ID).simpleRole("TRADER").tenantId("trader").build();
+        when(userRepository.findByPublicId(PUBLIC_ID)).thenReturn(Mono.just(user));
+        when(userRepository.save(user)).thenReturn(Mono.just(user));
+
+        StepVerifier.create(userService.updateAccess(PUBLIC_ID, new UserAccessUpdateRequest("admin", null))
+                        .contextWrite(Context.of(TenantContext.TENANT_ID_KEY, "broker")))
+                .assertNext(saved -> {
+                    assertEquals("ADMIN", saved.getSimpleRole());
+                    assertEquals("trader", saved.getTenantId());
+                })
+                .verifyComplete();
+
+        verify(userMappingService).invalidate("broker", PUBLIC_ID);
+    }
+
+    @Test
+    void updateAccess_MovesTheUserToAnotherTenant() {
+        User user = User.builder().id(7L).publicId(PUBLIC_ID).simpleRole("TRADER").tenantId("trader").build();
+        when(userRepository.findByPublicId(PUBLIC_ID)).thenReturn(Mono.just(user));
+        when(userRepository.save(user)).thenReturn(Mono.just(user));
+
+        StepVerifier.create(userService.updateAccess(PUBLIC_ID, new UserAccessUpdateRequest(null, "Broker")))
+                .assertNext(saved -> assertEquals("broker", saved.getTenantId()))
+                .verifyComplete();
+
+        verify(userMappingService).invalidate(TenantContext.TRADER_TENANT_ID, PUBLIC_ID);
+    }
+
+    @Test
+    void updateAccess_ToAnUnknownTenant_IsRejected() {
+        StepVerifier.create(userService.updateAccess(PUBLIC_ID, new UserAccessUpdateRequest(null, "nowhere")))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verify(userRepository, never()).save(any());
+        verify(userMappingService, never()).invalidate(anyString(), any());
+    }
+
+    @Test
+    void updateAccess_OfAnUnknownUser_FailsWithoutInvalidating() {
+        when(userRepository.findByPublicId(PUBLIC_ID)).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.updateAccess(PUBLIC_ID, new UserAccessUpdateRequest("ADMIN", null)))
+                .expectError(UserNotFoundException.class)
+                .verify();
+
+        verify(userMappingService, never()).invalidate(anyString(), any());
+    }
+}
@@ -0,0 +1,82 @@
+package com.aquarius.crypto.service.user;
+
+import com.aquarius.crypto.model.User;
+import com.aquarius.crypto.repository.UserRepository;
+import com.aquarius.crypto.service.UserTimezoneService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserTimezoneServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserTimezoneService timezoneService;
+
+    @BeforeEach
+    void setUp() {
+        timezoneService = new UserTimezoneService(userRepository, new SimpleMeterRegistry(), 100, 3600);
+    }
+
+    @Test
+    void repeatedLookups_HitTheRepositoryOnce() {
+        when(userRepository.findById(1L)).thenReturn(Mono.fromSupplier(() -> user(1L, "Asia/Tokyo")));
+
+        timezoneService.getPreferredZoneId(1L).block();
+        StepVerifier.create(timezoneService.getPreferredZoneId(1L))
+                .expectNext(ZoneId.of("Asia/Tokyo"))
+                .verifyComplete();
+
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void invalidate_ServesTheUpdatedZone() {
+        AtomicReference<String> zone = new AtomicReference<>("Asia/Tokyo");
+        when(userRepository.findById(1L)).thenReturn(Mono.fromSupplier(() -> user(1L, zone.get())));
+
+        timezoneService.getPreferredZoneId(1L).block();
+        zone.set("Europe/Berlin");
+        timezoneService.invalidate(1L).block();
+
+        StepVerifier.create(timezoneService.getPreferredZoneId(1L))
+                .expectNext(ZoneId.of("Europe/Berlin"))
+                .verifyComplete();
+    }
+
+    @Test
+    void usersInTheSameZone_ShareOneZoneId() {
+        when(userRepository.findById(1L)).thenReturn(Mono.fromSupplier(() -> user(1L, "Asia/Tokyo")));
+        when(userRepository.findById(2L)).thenReturn(Mono.fromSupplier(() -> user(2L, "Asia/Tokyo")));
+
+        assertSame(timezoneService.getPreferredZoneId(1L).block(), timezoneService.getPreferredZoneId(2L).block());
+    }
+
+    @Test
+    void userWithoutAZone_GetsUtc() {
+        when(userRepository.findById(1L)).thenReturn(Mono.fromSupplier(() -> user(1L, null)));
+
+        StepVerifier.create(timezoneService.getPreferredZoneId(1L))
+                .expectNext(ZoneId.of("UTC"))
+                .verifyComplete();
+    }
+
+    private static User user(Long id, String timezone) {
+        return User.builder().id(id).preferredTimezone(timezone).build();
+    }
+}
@@ -0,0 +1,202 @@
+package com.aquarius.crypto.service.wallet;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.model.Wallet;
+import com.aquarius.crypto.model.WalletJournalEntry;
+import com.aquarius.crypto.repository.WalletJournalRepository;
+import com.aquarius.crypto.service.WalletLedgerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the ledger against an in-memory stand-in for {@code wallet_journal} and {@code wallets};
+ * a new {@link WalletLedgerService} over the same store stands in for the process that comes up after a crash.
+ */
+@ExtendWith(MockitoExtension.class)
+class WalletLedgerServiceTest {
+
+    private static final long USER_ID = 1L;
+    private static final long USDT_WALLET = 1L;
+    private static final long ETH_WALLET = 2L;
+
+    @Mock
+    private WalletJournalRepository journalRepository;
+    @Mock
+    private TransactionalOperator rxtx;
+
+    // What the database holds: committed journal entries and the folded wallet rows.
+    private final List<WalletJournalEntry> journal = new ArrayList<>();
+    private final Map<Long, BigDecimal> balances = new HashMap<>();
+    private final Map<Long, Long> foldedSequences = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        balances.put(USDT_WALLET, new BigDecimal("5000"));
+        balances.put(ETH_WALLET, BigDecimal.ZERO);
+        foldedSequences.put(USDT_WALLET, 0L);
+        foldedSequences.put(ETH_WALLET, 0L);
+
+        lenient().when(rxtx.transactional(any(Mono.class))).thenAnswer(invocation -> {
+            Mono<?> work = invocation.getArgument(0);
+            return Mono.defer(() -> {
+                int mark = journal.size();
+                return work.doOnError(e -> rollBack(mark)).doOnCancel(() -> rollBack(mark));
+            });
+        });
+        lenient().when(journalRepository.append(any())).thenAnswer(invocation -> Mono.fromSupplier(() -> {
+            List<WalletJournalEntry> entries = invocation.getArgument(0);
+            journal.addAll(entries);
+            return (long) entries.size();
+        }));
+        lenient().when(journalRepository.fold(anyLong(), anyLong(), any())).thenAnswer(invocation -> Mono.fromSupplier(() ->
+                fold(invocation.getArgument(0), invocation.getArgument(1))));
+        lenient().when(journalRepository.lastSequence()).thenAnswer(invocation -> Mono.fromSupplier(() ->
+                journal.stream().mapToLong(WalletJournalEntry::sequence).max().orElse(0)));
+    }
+
+    @Test
+    void acknowledgedTrade_IsJournaledBeforeItIsFolded() {
+        WalletLedgerService ledger = startLedger();
+
+        StepVerifier.create(ledger.settle(USER_ID, "USDT", units("2000"), "ETH", FixedPoint.ONE, this::loadWallet, Mono.just("audit")))
+                .expectNext("audit")
+                .verifyComplete();
+
+        assertEquals(List.of(1L, 2L), journalSequences());
+        assertEquals(new BigDecimal("5000"), balances.get(USDT_WALLET));
+
+        StepVerifier.create(ledger.checkpoint()).verifyComplete();
+
+        assertEquals(new BigDecimal("3000.00000000"), balances.get(USDT_WALLET));
+        assertEquals(new BigDecimal("1.00000000"), balances.get(ETH_WALLET));
+    }
+
+    @Test
+    void failedAuditInsert_RollsTheJournalBackAndRevertsTheLedger() {
+        WalletLedgerService ledger = startLedger();
+
+        StepVerifier.create(ledger.settle(USER_ID, "USDT", units("2000"), "ETH", FixedPoint.ONE, this::loadWallet,
+                        Mono.error(new IllegalStateException("connection reset"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertEquals(List.of(), journal);
+        assertEquals(new BigDecimal("5000.00000000"), liveBalance(ledger, USDT_WALLET, "USDT"));
+        assertEquals(new BigDecimal("0E-8"), liveBalance(ledger, ETH_WALLET, "ETH"));
+    }
+
+    @Test
+    void shortBalance_WritesNothing() {
+        WalletLedgerService ledger = startLedger();
+
+        StepVerifier.create(ledger.settle(USER_ID, "USDT", units("5000.01"), "ETH", FixedPoint.ONE, this::loadWallet, Mono.just("audit")))
+                .verifyComplete();
+
+        verify(journalRepository, never()).append(any());
+    }
+
+    @Test
+    void tradeAcknowledgedBeforeACrash_IsReplayedOnStartup() {
+        WalletLedgerService crashed = startLedger();
+        StepVerifier.create(crashed.settle(USER_ID, "USDT", units("2000"), "ETH", FixedPoint.ONE, this::loadWallet, Mono.just("audit")))
+                .expectNext("audit")
+                .verifyComplete();
+
+        // The process dies before any checkpoint; the next one folds the journal before it settles anything.
+        WalletLedgerService afterRestart = startLedger();
+        StepVerifier.create(afterRestart.settle(USER_ID, "USDT", units("3000.01"), "ETH", FixedPoint.ONE, this::loadWallet, Mono.just("audit")))
+                .verifyComplete();
+        StepVerifier.create(afterRestart.settle(USER_ID, "USDT", units("3000"), "ETH", units("1.5"), this::loadWallet, Mono.just("audit")))
+                .expectNext("audit")
+                .verifyComplete();
+        StepVerifier.create(afterRestart.checkpoint()).verifyComplete();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), journalSequences());
+        assertEquals(new BigDecimal("0E-8"), balances.get(USDT_WALLET));
+        assertEquals(new BigDecimal("2.50000000"), balances.get(ETH_WALLET));
+    }
+
+    @Test
+    void checkpoint_WaitsForATradeStillInFlight() {
+        WalletLedgerService ledger = startLedger();
+        Sinks.One<String> audit = Sinks.one();
+        ledger.settle(USER_ID, "USDT", units("2000"), "ETH", FixedPoint.ONE, this::loadWallet, audit.asMono()).subscribe();
+
+        StepVerifier.create(ledger.checkpoint()).verifyComplete();
+        verify(journalRepository, never()).fold(eq(1L), anyLong(), any());
+
+        audit.tryEmitValue("audit");
+        StepVerifier.create(ledger.checkpoint()).verifyComplete();
+
+        verify(journalRepository).fold(eq(1L), eq(2L), any());
+        assertEquals(new BigDecimal("3000.00000000"), balances.get(USDT_WALLET));
+    }
+
+    private WalletLedgerService startLedger() {
+        WalletLedgerService service = new WalletLedgerService(journalRepository, rxtx, new SimpleMeterRegistry(), 4);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        return service;
+    }
+
+    private Mono<Wallet> loadWallet(String currency) {
+        long walletId = "USDT".equals(currency) ? USDT_WALLET : ETH_WALLET;
+        return Mono.fromSupplier(() -> wallet(walletId, currency));
+    }
+
+    private BigDecimal liveBalance(WalletLedgerService ledger, long walletId, String currency) {
+        return ledger.withLiveBalance(wallet(walletId, currency)).getBalance();
+    }
+
+    private Wallet wallet(long walletId, String currency) {
+        return Wallet.builder().id(walletId).userId(USER_ID).currency(currency).balance(balances.get(walletId)).build();
+    }
+
+    private long fold(long fromSequence, long toSequence) {
+        Map<Long, Long> folded = new HashMap<>();
+        for (WalletJournalEntry entry : journal) {
+            long walletId = entry.walletId();
+            if (entry.sequence() >= fromSequence && entry.sequence() <= toSequence
+                    && entry.sequence() > foldedSequences.get(walletId)) {
+                balances.merge(walletId, FixedPoint.toBigDecimal(entry.deltaUnits()), BigDecimal::add);
+                folded.merge(walletId, entry.sequence(), Math::max);
+            }
+        }
+        foldedSequences.putAll(folded);
+        return folded.size();
+    }
+
+    private void rollBack(int mark) {
+        journal.subList(mark, journal.size()).clear();
+    }
+
+    private List<Long> journalSequences() {
+        return journal.stream().map(WalletJournalEntry::sequence).toList();
+    }
+
+    private static long units(String amount) {
+        return FixedPoint.fromBigDecimal(new BigDecimal(amount));
+    }
+}
@@ -0,0 +1,151 @@
+package com.aquarius.crypto.service.wallet;
+
+import com.aquarius.crypto.common.FixedPoint;
+import com.aquarius.crypto.model.Wallet;
+import com.aquarius.crypto.model.WalletJournalEntry;
+import com.aquarius.crypto.service.WalletLedger;
+import com.aquarius.crypto.service.WalletLedger.Transfer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.aquarius.crypto.helper.TestDataCreator.createWallet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WalletLedgerTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private WalletLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new WalletLedger(4);
+        ledger.load(createWallet(1L, "USDT", "5000.00"));
+        ledger.load(createWallet(2L, "ETH", "0.00"));
+    }
+
+    @Test
+    void transfer_MovesBothLegsAndJournalsThem() {
+        Transfer transfer = ledger.transfer(1L, "USDT", units("2000.00"), "ETH", units("1.0"), NOW);
+
+        assertEquals(new BigDecimal("3000.00000000"), ledger.balance(1L, "USDT"));
+        assertEquals(new BigDecimal("1.00000000"), ledger.balance(1L, "ETH"));
+        assertEquals(List.of(
+                new WalletJournalEntry(1, 1L, -units("2000"), NOW),
+                new WalletJournalEntry(2, 2L, FixedPoint.ONE, NOW)), transfer.entries());
+    }
+
+    @Test
+    void transfer_WithShortBalance_ChangesNothing() {
+        assertNull(ledger.transfer(1L, "USDT", units("5000.01"), "ETH", units("2.5"), NOW));
+
+        assertEquals(new BigDecimal("5000.00000000"), ledger.balance(1L, "USDT"));
+        assertEquals(0, ledger.inFlight());
+    }
+
+    @Test
+    void transfer_WithWalletNotLoaded_Fails() {
+        assertThrows(IllegalStateException.class,
+                () -> ledger.transfer(1L, "USDT", FixedPoint.ONE, "BTC", FixedPoint.ONE, NOW));
+    }
+
+    @Test
+    void revert_RestoresBalancesWithoutJournaling() {
+        Transfer transfer = ledger.transfer(1L, "USDT", units("2000.00"), "ETH", units("1.0"), NOW);
+        ledger.revert(transfer);
+
+        assertEquals(new BigDecimal("5000.00000000"), ledger.balance(1L, "USDT"));
+        assertEquals(new BigDecimal("0E-8"), ledger.balance(1L, "ETH"));
+        assertEquals(0, ledger.inFlight());
+        // The reverted sequences stay unused.
+        assertEquals(List.of(3L, 4L), sequences(ledger.transfer(1L, "USDT", FixedPoint.ONE, "ETH", FixedPoint.ONE, NOW)));
+    }
+
+    @Test
+    void settledSequence_StopsBeforeTheOldestTransferInFlight() {
+        ledger.load(Wallet.builder().id(3L).userId(3L).currency("USDT").balance(BigDecimal.TEN).build());
+        ledger.load(Wallet.builder().id(4L).userId(3L).currency("ETH").balance(BigDecimal.ZERO).build());
+        Transfer first = ledger.transfer(1L, "USDT", FixedPoint.ONE, "ETH", FixedPoint.ONE, NOW);
+        Transfer second = ledger.transfer(3L, "USDT", FixedPoint.ONE, "ETH", FixedPoint.ONE, NOW);
+        assertEquals(0, ledger.settledSequence());
+
+        ledger.commit(second);
+        assertEquals(0, ledger.settledSequence());
+
+        ledger.commit(first);
+        assertEquals(4, ledger.settledSequence());
+        assertEquals(0, ledger.inFlight());
+    }
+
+    @Test
+    void load_KeepsTheLiveBalanceOfALoadedWallet() {
+        ledger.transfer(1L, "USDT", units("2000.00"), "ETH", units("1.0"), NOW);
+        ledger.load(createWallet(1L, "USDT", "5000.00"));
+
+        assertEquals(new BigDecimal("3000.00000000"), ledger.balance(1L, "USDT"));
+    }
+
+    @Test
+    void resetSequence_ContinuesTheJournalAfterThePersistedOne() {
+        ledger.resetSequence(41);
+
+        assertEquals(41, ledger.settledSequence());
+        assertEquals(List.of(42L, 43L), sequences(ledger.transfer(1L, "USDT", FixedPoint.ONE, "ETH", FixedPoint.ONE, NOW)));
+    }
+
+    @Test
+    void concurrentTransfers_ConserveBalancesAndSettleOnceCommitted() throws InterruptedException {
+        for (long userId = 2; userId <= 8; userId++) {
+            ledger.load(Wallet.builder().id(userId * 10).userId(userId).currency("USDT").balance(new BigDecimal("100")).build());
+            ledger.load(Wallet.builder().id(userId * 10 + 1).userId(userId).currency("ETH").balance(BigDecimal.ZERO).build());
+        }
+
+        Queue<Transfer> transfers = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (long userId = 2; userId <= 8; userId++) {
+            long user = userId;
+            for (int i = 0; i < 200; i++) {
+                executor.execute(() -> {
+                    Transfer transfer = ledger.transfer(user, "USDT", FixedPoint.ONE, "ETH", FixedPoint.ONE, NOW);
+                    if (transfer != null) {
+                        transfers.add(transfer);
+                    }
+                });
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (long userId = 2; userId <= 8; userId++) {
+            long walletId = userId * 10;
+            // Exactly 100 of the 200 transfers fit into the balance.
+            assertEquals(100, transfers.stream().filter(t -> t.debit().walletId() == walletId).count());
+            assertEquals(0, ledger.balance(userId, "USDT").signum());
+            assertEquals(new BigDecimal("100.00000000"), ledger.balance(userId, "ETH"));
+        }
+        assertEquals(0, ledger.settledSequence());
+
+        transfers.forEach(ledger::commit);
+        assertEquals(1400, ledger.settledSequence());
+    }
+
+    private static List<Long> sequences(Transfer transfer) {
+        return transfer.entries().stream().map(WalletJournalEntry::sequence).toList();
+    }
+
+    private static long units(String amount) {
+        return FixedPoint.fromBigDecimal(new BigDecimal(amount));
+    }
+}